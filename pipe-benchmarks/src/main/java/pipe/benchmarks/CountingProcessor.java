@@ -0,0 +1,41 @@
+package pipe.benchmarks;
+
+import uk.ac.imperial.io.StateProcessor;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Processor that only counts what it is given, so that exploration can be measured
+ * without any I/O
+ */
+final class CountingProcessor implements StateProcessor {
+
+    /**
+     * Number of states processed
+     */
+    private final AtomicLong states = new AtomicLong();
+
+    /**
+     * Number of transitions processed
+     */
+    private final AtomicLong transitions = new AtomicLong();
+
+    @Override
+    public void processTransitions(int state, Map<Integer, Double> successorRates) {
+        transitions.addAndGet(successorRates.size());
+    }
+
+    @Override
+    public void processState(ClassifiedState state, int id) {
+        states.incrementAndGet();
+    }
+
+    /**
+     * @return number of states and transitions processed combined
+     */
+    long total() {
+        return states.get() + transitions.get();
+    }
+}
@@ -0,0 +1,89 @@
+package pipe.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pipe.gui.statespace.AdaptiveStateSpaceExplorer;
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.StateSpaceExplorer;
+import pipe.reachability.algorithm.TimelessTrapException;
+import pipe.reachability.algorithm.parallel.MassiveParallelStateSpaceExplorer;
+import pipe.reachability.algorithm.sequential.SequentialStateSpaceExplorer;
+import uk.ac.imperial.pipe.exceptions.InvalidRateException;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to explore the state space of each net, without any I/O, using the sequential
+ * explorer, the library's massively parallel explorer and the adaptive work stealing
+ * explorer used by the analysis modules
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExplorationBenchmark {
+
+    /**
+     * Number of states each thread of the massively parallel explorer is given per level,
+     * the value the analysis modules used before the adaptive explorer
+     */
+    private static final int STATES_PER_THREAD = 100;
+
+    /**
+     * Number of worker threads for the parallel explorers
+     */
+    @State(Scope.Benchmark)
+    public static class Threads {
+        @Param({"2", "4", "8"})
+        public int threads;
+    }
+
+    @Benchmark
+    public long sequential(NetState net)
+            throws TimelessTrapException, InterruptedException, ExecutionException, InvalidRateException,
+            IOException {
+        ExplorerUtilities utilities = net.explorerUtilities();
+        CountingProcessor processor = new CountingProcessor();
+        explore(new SequentialStateSpaceExplorer(utilities, net.vanishingExplorer(utilities), processor), utilities);
+        return processor.total();
+    }
+
+    @Benchmark
+    public long massiveParallel(NetState net, Threads threads)
+            throws TimelessTrapException, InterruptedException, ExecutionException, InvalidRateException,
+            IOException {
+        ExplorerUtilities utilities = net.explorerUtilities();
+        CountingProcessor processor = new CountingProcessor();
+        explore(new MassiveParallelStateSpaceExplorer(utilities, net.vanishingExplorer(utilities), processor,
+                threads.threads, STATES_PER_THREAD), utilities);
+        return processor.total();
+    }
+
+    @Benchmark
+    public long adaptive(NetState net, Threads threads)
+            throws TimelessTrapException, InterruptedException, ExecutionException, InvalidRateException,
+            IOException {
+        ExplorerUtilities utilities = net.explorerUtilities();
+        CountingProcessor processor = new CountingProcessor();
+        explore(new AdaptiveStateSpaceExplorer(utilities, net.vanishingExplorer(utilities), processor,
+                threads.threads), utilities);
+        return processor.total();
+    }
+
+    /**
+     * @param explorer  explorer to run
+     * @param utilities explorer utilities the explorer was created with
+     * @throws TimelessTrapException unable to exit cyclic vanishing state
+     * @throws InterruptedException  thread interrupted
+     * @throws ExecutionException    task aborted due to exception
+     * @throws InvalidRateException  functional rate expression invalid
+     * @throws IOException           error doing IO
+     */
+    private static void explore(StateSpaceExplorer explorer, ExplorerUtilities utilities)
+            throws TimelessTrapException, InterruptedException, ExecutionException, InvalidRateException,
+            IOException {
+        explorer.generate(utilities.getCurrentState());
+    }
+}
@@ -0,0 +1,66 @@
+package pipe.benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pipe.gui.statespace.StateSpaceGenerator;
+import pipe.gui.steadystate.GeneratorMatrix;
+import pipe.gui.steadystate.GeneratorMatrixBuilder;
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.TimelessTrapException;
+import uk.ac.imperial.pipe.exceptions.InvalidRateException;
+import uk.ac.imperial.state.ClassifiedState;
+import uk.ac.imperial.state.Record;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * State space of a {@link NetState} net explored once and held on the heap, for the
+ * benchmarks of the stages that follow exploration
+ */
+@State(Scope.Benchmark)
+public class ExploredNetState {
+
+    /**
+     * Generator matrix built while exploring
+     */
+    public GeneratorMatrix matrix;
+
+    /**
+     * Transition records, for the library solvers
+     */
+    public List<Record> records;
+
+    /**
+     * State id to state
+     */
+    public Map<Integer, ClassifiedState> stateMappings;
+
+    /**
+     * Explores the net, reading the binaries back onto the heap
+     */
+    @Setup
+    public void explore(NetState net)
+            throws IOException, TimelessTrapException, InterruptedException, ExecutionException,
+            InvalidRateException {
+        StateSpaceGenerator generator = StateSpaceGenerator.temporary();
+        try {
+            ExplorerUtilities utilities = net.explorerUtilities();
+            GeneratorMatrixBuilder builder = new GeneratorMatrixBuilder();
+            generator.generate(utilities, net.vanishingExplorer(utilities), 1, builder);
+            matrix = builder.build();
+            records = new ArrayList<>(generator.readRecords());
+            stateMappings = new HashMap<>(generator.readMappings());
+        } finally {
+            generator.close();
+            Files.deleteIfExists(generator.getTransitions());
+            Files.deleteIfExists(generator.getStates());
+        }
+    }
+}
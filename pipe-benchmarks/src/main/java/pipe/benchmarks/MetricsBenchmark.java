@@ -0,0 +1,47 @@
+package pipe.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pipe.gui.steadystate.ParallelRows;
+import pipe.gui.steadystate.SolverMethod;
+import pipe.gui.steadystate.SolverSettings;
+import pipe.steadystate.metrics.TokenMetrics;
+import pipe.steadystate.metrics.TransitionMetrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to compute the average token counts and transition throughputs from a steady state
+ * that has already been solved
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    /**
+     * Steady state of the explored net
+     */
+    private Map<Integer, Double> steadyState;
+
+    @Setup
+    public void solve(ExploredNetState explored) throws InterruptedException {
+        SolverSettings settings = new SolverSettings(SolverMethod.GAUSS_SEIDEL, 1);
+        double[] distribution = settings.createSolver(new ParallelRows(null, 1)).solve(explored.matrix, null)
+                .getDistribution();
+        steadyState = explored.matrix.toDistribution(distribution);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Double>> averageTokens(ExploredNetState explored) {
+        return TokenMetrics.averageTokensOnPlace(explored.stateMappings, steadyState);
+    }
+
+    @Benchmark
+    public Map<String, Double> transitionThroughput(NetState net, ExploredNetState explored) {
+        return TransitionMetrics.getTransitionThroughput(explored.stateMappings, steadyState, net.petriNet);
+    }
+}
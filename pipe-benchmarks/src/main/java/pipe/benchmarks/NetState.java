@@ -0,0 +1,55 @@
+package pipe.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.OnTheFlyVanishingExplorer;
+import pipe.reachability.algorithm.UnboundedExplorerUtilities;
+import pipe.reachability.algorithm.VanishingExplorer;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+
+/**
+ * Net from the {@link ScalableNets} family shared by the benchmarks, parameterised by its size
+ */
+@State(Scope.Benchmark)
+public class NetState {
+
+    /**
+     * Size of the ring in the form places x tokens
+     */
+    @Param({"8x6", "10x8", "12x10"})
+    public String size;
+
+    /**
+     * Generated net
+     */
+    public PetriNet petriNet;
+
+    /**
+     * Generates the net
+     */
+    @Setup
+    public void createNet() {
+        petriNet = ScalableNets.ring(size);
+    }
+
+    /**
+     * The explorer utilities cache successors, so a new instance is needed for every
+     * exploration being measured
+     *
+     * @return explorer utilities for the net
+     */
+    public ExplorerUtilities explorerUtilities() {
+        return new UnboundedExplorerUtilities(petriNet);
+    }
+
+    /**
+     * @param explorerUtilities explorer utilities
+     * @return vanishing explorer used by the analysis modules
+     */
+    public VanishingExplorer vanishingExplorer(ExplorerUtilities explorerUtilities) {
+        return new OnTheFlyVanishingExplorer(explorerUtilities);
+    }
+}
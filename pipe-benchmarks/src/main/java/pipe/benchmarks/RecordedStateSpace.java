@@ -0,0 +1,47 @@
+package pipe.benchmarks;
+
+import uk.ac.imperial.io.StateProcessor;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the states and transitions of an exploration in the order they were produced so
+ * that they can be replayed into a writer, measuring the writer on its own
+ */
+final class RecordedStateSpace implements StateProcessor {
+
+    /**
+     * States and transitions in the order they were processed, either a state or a
+     * transitions entry
+     */
+    private final List<Object[]> events = new ArrayList<>();
+
+    @Override
+    public synchronized void processTransitions(int state, Map<Integer, Double> successorRates) {
+        events.add(new Object[]{state, new HashMap<>(successorRates)});
+    }
+
+    @Override
+    public synchronized void processState(ClassifiedState state, int id) {
+        events.add(new Object[]{id, state});
+    }
+
+    /**
+     * @param processor processor to replay the exploration into
+     */
+    @SuppressWarnings("unchecked")
+    void replay(StateProcessor processor) {
+        for (Object[] event : events) {
+            int id = (Integer) event[0];
+            if (event[1] instanceof ClassifiedState) {
+                processor.processState((ClassifiedState) event[1], id);
+            } else {
+                processor.processTransitions(id, (Map<Integer, Double>) event[1]);
+            }
+        }
+    }
+}
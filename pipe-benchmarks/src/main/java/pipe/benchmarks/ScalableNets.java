@@ -0,0 +1,96 @@
+package pipe.benchmarks;
+
+import uk.ac.imperial.pipe.exceptions.PetriNetComponentException;
+import uk.ac.imperial.pipe.models.petrinet.*;
+
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Generates a family of nets whose state spaces grow predictably with their size, so that
+ * benchmarks can be run over a range of state space sizes without shipping model files.
+ * <p>
+ * A ring of {@code places} places holds {@code tokens} tokens, all starting in the first
+ * place. Every place has a timed transition moving one token on to the next place, followed
+ * by an immediate transition into an intermediate place so that the vanishing explorer is
+ * exercised as well. The tangible state space has C(places + tokens - 1, tokens) states,
+ * e.g. 1,716 for 8x6, 24,310 for 10x8 and 352,716 for 12x10.
+ * </p>
+ */
+public final class ScalableNets {
+
+    /**
+     * Token used in every place
+     */
+    public static final String TOKEN = "Default";
+
+    /**
+     * Private constructor for utility class
+     */
+    private ScalableNets() {
+    }
+
+    /**
+     * @param size size in the form places x tokens, e.g. "10x8"
+     * @return ring net of that size
+     * @throws IllegalArgumentException if the size is not of the form places x tokens
+     */
+    public static PetriNet ring(String size) {
+        String[] parts = size.split("x");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Net size " + size + " is not of the form <places>x<tokens>");
+        }
+        return ring(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    /**
+     * @param places number of places in the ring
+     * @param tokens number of tokens circulating round the ring
+     * @return ring net
+     */
+    public static PetriNet ring(int places, int tokens) {
+        if (places < 2 || tokens < 1) {
+            throw new IllegalArgumentException("A ring needs at least two places and one token");
+        }
+        PetriNet petriNet = new PetriNet();
+        try {
+            petriNet.add(new ColoredToken(TOKEN, Color.BLACK));
+            Place[] ring = new Place[places];
+            for (int i = 0; i < places; i++) {
+                ring[i] = new DiscretePlace("P" + i, "P" + i);
+                petriNet.add(ring[i]);
+            }
+            ring[0].setTokenCount(TOKEN, tokens);
+            for (int i = 0; i < places; i++) {
+                Place intermediate = new DiscretePlace("Q" + i, "Q" + i);
+                petriNet.add(intermediate);
+
+                Transition timed = new DiscreteTransition("T" + i, "T" + i);
+                timed.setTimed(true);
+                timed.setRate(new NormalRate(Integer.toString(i + 1)));
+                petriNet.add(timed);
+                petriNet.add(new InboundNormalArc(ring[i], timed, weight()));
+                petriNet.add(new OutboundNormalArc(timed, intermediate, weight()));
+
+                Transition immediate = new DiscreteTransition("I" + i, "I" + i);
+                immediate.setTimed(false);
+                petriNet.add(immediate);
+                petriNet.add(new InboundNormalArc(intermediate, immediate, weight()));
+                petriNet.add(new OutboundNormalArc(immediate, ring[(i + 1) % places], weight()));
+            }
+        } catch (PetriNetComponentException e) {
+            throw new IllegalStateException("Generated net is inconsistent", e);
+        }
+        return petriNet;
+    }
+
+    /**
+     * @return arc weight of a single token
+     */
+    private static Map<String, String> weight() {
+        Map<String, String> weights = new HashMap<>();
+        weights.put(TOKEN, "1");
+        return weights;
+    }
+}
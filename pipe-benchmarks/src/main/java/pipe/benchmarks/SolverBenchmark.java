@@ -0,0 +1,81 @@
+package pipe.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pipe.gui.steadystate.ParallelRows;
+import pipe.gui.steadystate.SolverMethod;
+import pipe.gui.steadystate.SolverSettings;
+import pipe.steadystate.algorithm.ParallelGaussSeidel;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to solve the steady state of each net with the sparse solvers used by the analysis
+ * modules and with the library's parallel Gauss-Seidel solver they replaced
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolverBenchmark {
+
+    /**
+     * Number of sub iterations the library solver was run with by the analysis modules
+     */
+    private static final int SUB_ITERATIONS = 10;
+
+    /**
+     * Number of threads for the matrix-vector products
+     */
+    @Param({"1", "4"})
+    public int threads;
+
+    /**
+     * Executor shared by the solvers, null for a single thread
+     */
+    private ExecutorService executorService;
+
+    /**
+     * Sparse solver to run, by its command line key
+     */
+    @State(Scope.Benchmark)
+    public static class Method {
+        @Param({"gauss-seidel", "jacobi", "sor", "power", "gmres"})
+        public String method;
+    }
+
+    @Setup
+    public void createExecutor() {
+        executorService = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+    }
+
+    @TearDown
+    public void shutdownExecutor() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public double[] sparseSolver(ExploredNetState explored, Method method) throws InterruptedException {
+        SolverSettings settings = new SolverSettings(SolverMethod.fromKey(method.method), threads);
+        return settings.createSolver(new ParallelRows(executorService, threads)).solve(explored.matrix, null)
+                .getDistribution();
+    }
+
+    @Benchmark
+    public Map<Integer, Double> libraryGaussSeidel(ExploredNetState explored) {
+        ExecutorService executor = executorService == null ? Executors.newSingleThreadExecutor() : executorService;
+        try {
+            return new ParallelGaussSeidel(threads, executor, SUB_ITERATIONS).solve(explored.records);
+        } finally {
+            if (executor != executorService) {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
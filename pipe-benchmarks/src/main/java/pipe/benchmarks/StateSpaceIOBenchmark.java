@@ -0,0 +1,167 @@
+package pipe.benchmarks;
+
+import com.esotericsoftware.kryo.io.Output;
+import org.openjdk.jmh.annotations.*;
+import pipe.gui.statespace.MappedStateSpaceWriter;
+import pipe.gui.statespace.StateSpaceGenerator;
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.TimelessTrapException;
+import pipe.reachability.algorithm.sequential.SequentialStateSpaceExplorer;
+import uk.ac.imperial.io.KryoStateIO;
+import uk.ac.imperial.io.StateIOProcessor;
+import uk.ac.imperial.pipe.exceptions.InvalidRateException;
+import uk.ac.imperial.state.ClassifiedState;
+import uk.ac.imperial.state.Record;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of writing and reading back the state space binaries, for both the memory
+ * mapped stores and the legacy Kryo binaries. Reads go through {@link StateSpaceGenerator},
+ * which is what the state space loader uses for binaries chosen by the user.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StateSpaceIOBenchmark {
+
+    /**
+     * Exploration of the net, replayed into the writers
+     */
+    private RecordedStateSpace recorded;
+
+    /**
+     * Directory holding the binaries
+     */
+    private Path directory;
+
+    /**
+     * Mapped store binaries written during setup, read by the read benchmarks
+     */
+    private StateSpaceGenerator mapped;
+
+    /**
+     * Kryo binaries written during setup, read by the read benchmarks
+     */
+    private StateSpaceGenerator kryo;
+
+    /**
+     * Explores the net once and writes both kinds of binaries to read back
+     */
+    @Setup
+    public void explore(NetState net)
+            throws IOException, TimelessTrapException, InterruptedException, ExecutionException,
+            InvalidRateException {
+        ExplorerUtilities utilities = net.explorerUtilities();
+        recorded = new RecordedStateSpace();
+        new SequentialStateSpaceExplorer(utilities, net.vanishingExplorer(utilities), recorded)
+                .generate(utilities.getCurrentState());
+
+        directory = Files.createTempDirectory("pipe-benchmark");
+        mapped = new StateSpaceGenerator(directory.resolve("mapped.transitions"),
+                directory.resolve("mapped.states"));
+        writeMapped(mapped);
+        kryo = new StateSpaceGenerator(directory.resolve("kryo.transitions"), directory.resolve("kryo.states"));
+        writeKryo(kryo);
+    }
+
+    /**
+     * Deletes the binaries
+     */
+    @TearDown
+    public void deleteBinaries() throws IOException {
+        mapped.close();
+        kryo.close();
+        for (Path path : new Path[]{mapped.getTransitions(), mapped.getStates(), kryo.getTransitions(),
+                kryo.getStates(), directory.resolve("write.transitions"), directory.resolve("write.states")}) {
+            Files.deleteIfExists(path);
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long writeMapped() throws IOException {
+        StateSpaceGenerator generator = new StateSpaceGenerator(directory.resolve("write.transitions"),
+                directory.resolve("write.states"));
+        writeMapped(generator);
+        return Files.size(generator.getTransitions());
+    }
+
+    @Benchmark
+    public long writeKryo() throws IOException {
+        StateSpaceGenerator generator = new StateSpaceGenerator(directory.resolve("write.transitions"),
+                directory.resolve("write.states"));
+        writeKryo(generator);
+        return Files.size(generator.getTransitions());
+    }
+
+    @Benchmark
+    public double readMapped() throws IOException {
+        return consume(mapped);
+    }
+
+    @Benchmark
+    public double readKryo() throws IOException {
+        return consume(kryo);
+    }
+
+    /**
+     * @param generator generator whose files the recorded exploration is written to
+     * @throws IOException if the binaries cannot be written
+     */
+    private void writeMapped(StateSpaceGenerator generator) throws IOException {
+        try (MappedStateSpaceWriter writer = new MappedStateSpaceWriter(generator.getTransitions(),
+                generator.getStates())) {
+            recorded.replay(writer);
+            writer.finish();
+        }
+    }
+
+    /**
+     * @param generator generator whose files the recorded exploration is written to
+     * @throws IOException if the binaries cannot be written
+     */
+    private void writeKryo(StateSpaceGenerator generator) throws IOException {
+        try (OutputStream transitionStream = new FileOutputStream(generator.getTransitions().toFile());
+             OutputStream stateStream = new FileOutputStream(generator.getStates().toFile());
+             Output transitionOutput = new Output(transitionStream);
+             Output stateOutput = new Output(stateStream)) {
+            recorded.replay(new StateIOProcessor(new KryoStateIO(), transitionOutput, stateOutput));
+        }
+    }
+
+    /**
+     * Reads every record and state so that lazily decoded stores are measured fully. The
+     * generator is closed afterwards so every read maps the binaries afresh.
+     *
+     * @param generator generator to read from
+     * @return sum of the rates and token counts read, so the reads cannot be eliminated
+     * @throws IOException if the binaries cannot be read
+     */
+    private static double consume(StateSpaceGenerator generator) throws IOException {
+        double total = 0;
+        for (Record record : generator.readRecords()) {
+            for (double rate : record.successors.values()) {
+                total += rate;
+            }
+        }
+        for (Map.Entry<Integer, ClassifiedState> entry : generator.readMappings().entrySet()) {
+            ClassifiedState state = entry.getValue();
+            for (String place : state.getPlaces()) {
+                total += state.getTokens(place).get(ScalableNets.TOKEN);
+            }
+        }
+        generator.close();
+        return total;
+    }
+}
@@ -0,0 +1,40 @@
+package pipe.actions.gui;
+
+import pipe.controllers.application.PipeApplicationController;
+import pipe.gui.PetriNetTab;
+
+import java.awt.event.ActionEvent;
+
+/**
+ * Switches the active tab between the single canvas used for large nets and the full
+ * editor with a view per component
+ */
+@SuppressWarnings("serial")
+public class SceneCanvasAction extends GuiAction {
+
+    /**
+     * Main PIPE application controller
+     */
+    private final PipeApplicationController applicationController;
+
+    /**
+     * Constructor
+     * @param applicationController main PIPE application controller
+     */
+    public SceneCanvasAction(PipeApplicationController applicationController) {
+        super("Large net canvas", "Switch this tab between the large net canvas and the full editor");
+        this.applicationController = applicationController;
+    }
+
+    /**
+     * Switches the drawing of the active tab, if there is one
+     * @param e event
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        PetriNetTab petriNetTab = applicationController.getActiveTab();
+        if (petriNetTab != null) {
+            applicationController.toggleSceneCanvas(petriNetTab);
+        }
+    }
+}
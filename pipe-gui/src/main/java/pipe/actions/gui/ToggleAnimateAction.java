@@ -43,6 +43,7 @@ public class ToggleAnimateAction extends AnimateAction {
             animator.startAnimation();
         } else {
             animator.finish();
+            petriNetController.animationFinished();
         }
     }
 }
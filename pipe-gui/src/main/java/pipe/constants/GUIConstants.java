@@ -153,6 +153,12 @@ public final class GUIConstants {
     @Deprecated
     public static final int LOWEST_LAYER_OFFSET = 0;
 
+    /**
+     * Layer of the single canvas component drawing large nets, above components at the
+     * lowest layer and below the selection layer
+     */
+    public static final int SCENE_LAYER_OFFSET = 10;
+
 
     // For AnnotationNote appearance:
 
@@ -0,0 +1,278 @@
+package pipe.controllers;
+
+import pipe.utilities.math.SpatialIndex;
+import uk.ac.imperial.pipe.models.petrinet.*;
+
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps a {@link SpatialIndex} of the places, transitions, arcs and annotations of a Petri net
+ * up to date as components are added, deleted and moved, so that selecting or hit testing an
+ * area only looks at the components near it.
+ * <p>
+ * Places, transitions and annotations are indexed by their bounds and arcs by the straight
+ * path through their arc points.
+ * </p>
+ */
+final class ComponentIndex {
+
+    /**
+     * Index of the components on the canvas
+     */
+    private final SpatialIndex<PetriNetComponent> index = new SpatialIndex<>();
+
+    /**
+     * Arcs into or out of each place and transition
+     */
+    private final Map<Connectable, Set<Arc<? extends Connectable, ? extends Connectable>>> connectedArcs =
+            new IdentityHashMap<>();
+
+    /**
+     * Listener registered on each indexed component, kept so it can be removed on deletion
+     */
+    private final Map<PetriNetComponent, PropertyChangeListener> listeners = new IdentityHashMap<>();
+
+    /**
+     * Listener registered on each arc point of an indexed arc
+     */
+    private final Map<ArcPoint, PropertyChangeListener> pointListeners = new IdentityHashMap<>();
+
+    /**
+     * Indexes the components already in the net and listens for components being
+     * added to or deleted from it
+     *
+     * @param petriNet Petri net to index
+     */
+    ComponentIndex(PetriNet petriNet) {
+        for (Place place : petriNet.getPlaces()) {
+            addConnectable(place);
+        }
+        for (Transition transition : petriNet.getTransitions()) {
+            addConnectable(transition);
+        }
+        for (Arc<? extends Connectable, ? extends Connectable> arc : petriNet.getArcs()) {
+            addArc(arc);
+        }
+        for (Annotation annotation : petriNet.getAnnotations()) {
+            addAnnotation(annotation);
+        }
+        petriNet.addPropertyChangeListener(new PetriNetListener());
+    }
+
+    /**
+     * @param area area of the canvas
+     * @return places, transitions, arcs and annotations intersecting the area
+     */
+    Collection<PetriNetComponent> query(Rectangle area) {
+        return index.query(area);
+    }
+
+    /**
+     * @param connectable place or transition
+     * @return arcs into or out of the connectable
+     */
+    Collection<Arc<? extends Connectable, ? extends Connectable>> getArcs(Connectable connectable) {
+        Set<Arc<? extends Connectable, ? extends Connectable>> arcs = connectedArcs.get(connectable);
+        if (arcs == null) {
+            return Collections.emptySet();
+        }
+        return arcs;
+    }
+
+    /**
+     * Indexes a place or transition and re-indexes it and its arcs when it moves
+     *
+     * @param connectable place or transition
+     */
+    private void addConnectable(final Connectable connectable) {
+        indexPlaceable(connectable);
+        PropertyChangeListener listener = new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                String name = evt.getPropertyName();
+                if (name.equals(Connectable.X_CHANGE_MESSAGE) || name.equals(Connectable.Y_CHANGE_MESSAGE)) {
+                    indexPlaceable(connectable);
+                    for (Arc<? extends Connectable, ? extends Connectable> arc : getArcs(connectable)) {
+                        indexArc(arc);
+                    }
+                }
+            }
+        };
+        connectable.addPropertyChangeListener(listener);
+        listeners.put(connectable, listener);
+    }
+
+    /**
+     * Indexes an annotation and re-indexes it whenever it changes, annotations are
+     * resized as well as moved
+     *
+     * @param annotation annotation to index
+     */
+    private void addAnnotation(final Annotation annotation) {
+        indexPlaceable(annotation);
+        PropertyChangeListener listener = new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                indexPlaceable(annotation);
+            }
+        };
+        annotation.addPropertyChangeListener(listener);
+        listeners.put(annotation, listener);
+    }
+
+    /**
+     * Indexes an arc and re-indexes it when its points are added, deleted or moved
+     *
+     * @param arc arc to index
+     */
+    private void addArc(final Arc<? extends Connectable, ? extends Connectable> arc) {
+        connect(arc.getSource(), arc);
+        connect(arc.getTarget(), arc);
+        for (ArcPoint arcPoint : arc.getArcPoints()) {
+            listenToPoint(arc, arcPoint);
+        }
+        indexArc(arc);
+        PropertyChangeListener listener = new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                String name = evt.getPropertyName();
+                if (name.equals(Arc.NEW_INTERMEDIATE_POINT_CHANGE_MESSAGE)) {
+                    listenToPoint(arc, (ArcPoint) evt.getNewValue());
+                    indexArc(arc);
+                } else if (name.equals(Arc.DELETE_INTERMEDIATE_POINT_CHANGE_MESSAGE)) {
+                    ArcPoint arcPoint = (ArcPoint) evt.getOldValue();
+                    arcPoint.removePropertyChangeListener(pointListeners.remove(arcPoint));
+                    indexArc(arc);
+                }
+            }
+        };
+        arc.addPropertyChangeListener(listener);
+        listeners.put(arc, listener);
+    }
+
+    /**
+     * Re-indexes the arc when the arc point moves
+     *
+     * @param arc      arc the point belongs to
+     * @param arcPoint point of the arc
+     */
+    private void listenToPoint(final Arc<? extends Connectable, ? extends Connectable> arc, ArcPoint arcPoint) {
+        PropertyChangeListener listener = new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (evt.getPropertyName().equals(ArcPoint.UPDATE_LOCATION_CHANGE_MESSAGE)) {
+                    indexArc(arc);
+                }
+            }
+        };
+        arcPoint.addPropertyChangeListener(listener);
+        pointListeners.put(arcPoint, listener);
+    }
+
+    /**
+     * @param connectable source or target of the arc, may be null
+     * @param arc         arc into or out of the connectable
+     */
+    private void connect(Connectable connectable, Arc<? extends Connectable, ? extends Connectable> arc) {
+        if (connectable == null) {
+            return;
+        }
+        Set<Arc<? extends Connectable, ? extends Connectable>> arcs = connectedArcs.get(connectable);
+        if (arcs == null) {
+            arcs = Collections.newSetFromMap(
+                    new IdentityHashMap<Arc<? extends Connectable, ? extends Connectable>, Boolean>());
+            connectedArcs.put(connectable, arcs);
+        }
+        arcs.add(arc);
+    }
+
+    /**
+     * @param connectable source or target of the arc, may be null
+     * @param arc         arc no longer in the net
+     */
+    private void disconnect(Connectable connectable, Arc<? extends Connectable, ? extends Connectable> arc) {
+        Set<Arc<? extends Connectable, ? extends Connectable>> arcs = connectedArcs.get(connectable);
+        if (arcs != null) {
+            arcs.remove(arc);
+            if (arcs.isEmpty()) {
+                connectedArcs.remove(connectable);
+            }
+        }
+    }
+
+    /**
+     * @param placeable component to index by its bounds
+     */
+    private void indexPlaceable(PlaceablePetriNetComponent placeable) {
+        index.put(placeable,
+                new Rectangle(placeable.getX(), placeable.getY(), placeable.getWidth(), placeable.getHeight()));
+    }
+
+    /**
+     * @param arc arc to index by the straight path through its points, ignoring Bezier curves
+     */
+    private void indexArc(Arc<? extends Connectable, ? extends Connectable> arc) {
+        List<Point2D> points = new ArrayList<>();
+        for (ArcPoint arcPoint : arc.getArcPoints()) {
+            points.add(arcPoint.getPoint());
+        }
+        index.putPath(arc, points);
+    }
+
+    /**
+     * Stops indexing a deleted component
+     *
+     * @param component component no longer in the net
+     */
+    private void remove(PetriNetComponent component) {
+        index.remove(component);
+        PropertyChangeListener listener = listeners.remove(component);
+        if (listener != null) {
+            component.removePropertyChangeListener(listener);
+        }
+    }
+
+    /**
+     * Indexes components added to the net and forgets deleted ones
+     */
+    private class PetriNetListener implements PropertyChangeListener {
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            String name = evt.getPropertyName();
+            if (name.equals(PetriNet.NEW_PLACE_CHANGE_MESSAGE) || name.equals(
+                    PetriNet.NEW_TRANSITION_CHANGE_MESSAGE)) {
+                addConnectable((Connectable) evt.getNewValue());
+            } else if (name.equals(PetriNet.NEW_ARC_CHANGE_MESSAGE)) {
+                addArc((Arc<? extends Connectable, ? extends Connectable>) evt.getNewValue());
+            } else if (name.equals(PetriNet.NEW_ANNOTATION_CHANGE_MESSAGE)) {
+                addAnnotation((Annotation) evt.getNewValue());
+            } else if (name.equals(PetriNet.DELETE_PLACE_CHANGE_MESSAGE) || name.equals(
+                    PetriNet.DELETE_TRANSITION_CHANGE_MESSAGE) || name.equals(
+                    PetriNet.DELETE_ANNOTATION_CHANGE_MESSAGE)) {
+                remove((PetriNetComponent) evt.getOldValue());
+            } else if (name.equals(PetriNet.DELETE_ARC_CHANGE_MESSAGE)) {
+                Arc<? extends Connectable, ? extends Connectable> arc =
+                        (Arc<? extends Connectable, ? extends Connectable>) evt.getOldValue();
+                remove(arc);
+                disconnect(arc.getSource(), arc);
+                disconnect(arc.getTarget(), arc);
+                for (ArcPoint arcPoint : arc.getArcPoints()) {
+                    PropertyChangeListener listener = pointListeners.remove(arcPoint);
+                    if (listener != null) {
+                        arcPoint.removePropertyChangeListener(listener);
+                    }
+                }
+            }
+        }
+    }
+}
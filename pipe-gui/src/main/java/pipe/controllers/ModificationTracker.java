@@ -0,0 +1,221 @@
+package pipe.controllers;
+
+import uk.ac.imperial.pipe.models.petrinet.*;
+
+import javax.swing.undo.UndoableEdit;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Tracks whether a Petri net has changed since it was last saved without comparing the whole
+ * net against a copy.
+ * <p>
+ * Changes made through the net's undo manager are tracked by the position in its history: the
+ * net is unchanged when undoing or redoing returns to the edit that was last applied when it
+ * was saved. Every property change fired by the net, its components, their arc points, tokens
+ * and rate parameters is a modification, which becomes part of the next edit added to the
+ * history, so the moves of a drag belong to the edit added when it ends. A modification that
+ * is not followed by an edit bypassed the undo manager and marks the net as changed until it
+ * is saved again. Recording can be suspended, so animating the net does not mark it as
+ * changed.
+ * </p>
+ */
+final class ModificationTracker {
+
+    /**
+     * Counts every event received as a modification
+     */
+    private final PropertyChangeListener listener = new PropertyChangeListener() {
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            modified();
+        }
+    };
+
+    /**
+     * Listener registered on each component, kept so it can be removed on deletion
+     */
+    private final Map<PetriNetComponent, PropertyChangeListener> listeners = new IdentityHashMap<>();
+
+    /**
+     * True if the net has been modified since the last edit was added, undone or redone
+     */
+    private boolean unrecorded = false;
+
+    /**
+     * True if a modification that is not part of any edit has been made since the net was
+     * last saved or loaded
+     */
+    private boolean bypassed = false;
+
+    /**
+     * Last edit applied in the undo history, null at its start
+     */
+    private UndoableEdit position = null;
+
+    /**
+     * Last edit applied when the net was last saved or loaded
+     */
+    private UndoableEdit savedPosition = null;
+
+    /**
+     * True while modifications are not being recorded
+     */
+    private boolean suspended = false;
+
+    /**
+     * Listens to the net and every component already in it
+     *
+     * @param petriNet Petri net to track
+     */
+    ModificationTracker(PetriNet petriNet) {
+        for (Token token : petriNet.getTokens()) {
+            listen(token);
+        }
+        for (RateParameter rateParameter : petriNet.getRateParameters()) {
+            listen(rateParameter);
+        }
+        for (Place place : petriNet.getPlaces()) {
+            listen(place);
+        }
+        for (Transition transition : petriNet.getTransitions()) {
+            listen(transition);
+        }
+        for (Arc<? extends Connectable, ? extends Connectable> arc : petriNet.getArcs()) {
+            listen(arc);
+        }
+        for (Annotation annotation : petriNet.getAnnotations()) {
+            listen(annotation);
+        }
+        petriNet.addPropertyChangeListener(new PetriNetListener());
+    }
+
+    /**
+     * Records a modification unless recording is suspended
+     */
+    void modified() {
+        if (!suspended) {
+            unrecorded = true;
+        }
+    }
+
+    /**
+     * Called before an edit is undone or redone, so the modifications made since the last
+     * edit are remembered as bypassing the undo manager
+     */
+    void historyMoving() {
+        if (unrecorded) {
+            bypassed = true;
+        }
+    }
+
+    /**
+     * Called once an edit has been added, undone or redone. The modifications made since the
+     * previous call are part of the edit.
+     *
+     * @param position last edit applied in the undo history, null at its start
+     */
+    void historyMoved(UndoableEdit position) {
+        unrecorded = false;
+        this.position = position;
+    }
+
+    /**
+     * @return true if the net has been modified since it was last saved
+     */
+    boolean hasChanged() {
+        return unrecorded || bypassed || position != savedPosition;
+    }
+
+    /**
+     * Marks the current state of the net as saved
+     */
+    void saved() {
+        unrecorded = false;
+        bypassed = false;
+        savedPosition = position;
+    }
+
+    /**
+     * Stops recording modifications, for changes that are not edits such as animation
+     */
+    void suspend() {
+        suspended = true;
+    }
+
+    /**
+     * Starts recording modifications again
+     */
+    void resume() {
+        suspended = false;
+    }
+
+    /**
+     * Counts changes to the component, and for arcs to their points
+     *
+     * @param component component of the net
+     */
+    private void listen(PetriNetComponent component) {
+        PropertyChangeListener componentListener = listener;
+        if (component instanceof Arc) {
+            for (ArcPoint arcPoint : ((Arc<?, ?>) component).getArcPoints()) {
+                listen(arcPoint);
+            }
+            componentListener = new ArcListener();
+        }
+        component.addPropertyChangeListener(componentListener);
+        listeners.put(component, componentListener);
+    }
+
+    /**
+     * Stops counting changes to a deleted component
+     *
+     * @param component component no longer in the net
+     */
+    private void forget(PetriNetComponent component) {
+        PropertyChangeListener removed = listeners.remove(component);
+        if (removed != null) {
+            component.removePropertyChangeListener(removed);
+        }
+        if (component instanceof Arc) {
+            for (ArcPoint arcPoint : ((Arc<?, ?>) component).getArcPoints()) {
+                forget(arcPoint);
+            }
+        }
+    }
+
+    /**
+     * Counts every change to the net, listening to the components added to it and
+     * forgetting those deleted from it
+     */
+    private class PetriNetListener implements PropertyChangeListener {
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            modified();
+            if (evt.getOldValue() == null && evt.getNewValue() instanceof PetriNetComponent) {
+                listen((PetriNetComponent) evt.getNewValue());
+            } else if (evt.getNewValue() == null && evt.getOldValue() instanceof PetriNetComponent) {
+                forget((PetriNetComponent) evt.getOldValue());
+            }
+        }
+    }
+
+    /**
+     * Counts changes to an arc, listening to the points added to it and forgetting those
+     * deleted from it
+     */
+    private class ArcListener implements PropertyChangeListener {
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            modified();
+            String name = evt.getPropertyName();
+            if (name.equals(Arc.NEW_INTERMEDIATE_POINT_CHANGE_MESSAGE)) {
+                listen((ArcPoint) evt.getNewValue());
+            } else if (name.equals(Arc.DELETE_INTERMEDIATE_POINT_CHANGE_MESSAGE)) {
+                forget((ArcPoint) evt.getOldValue());
+            }
+        }
+    }
+}
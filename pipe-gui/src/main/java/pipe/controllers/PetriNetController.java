@@ -9,7 +9,6 @@ import uk.ac.imperial.pipe.naming.PlaceNamer;
 import uk.ac.imperial.pipe.naming.TransitionNamer;
 import uk.ac.imperial.pipe.naming.UniqueNamer;
 import uk.ac.imperial.pipe.parsers.FunctionalResults;
-import uk.ac.imperial.pipe.visitor.ClonePetriNet;
 import uk.ac.imperial.pipe.visitor.TranslationVisitor;
 import uk.ac.imperial.pipe.visitor.component.PetriNetComponentVisitor;
 
@@ -20,8 +19,6 @@ import javax.swing.undo.UndoableEdit;
 import java.awt.Color;
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.awt.geom.GeneralPath;
-import java.awt.geom.Point2D;
 import java.io.Serializable;
 import java.util.*;
 
@@ -34,9 +31,65 @@ public class PetriNetController implements Serializable {
     private final ZoomController zoomController;
 
     /**
-     * Responsible for handling undo/redo
+     * Responsible for handling undo/redo, telling the modification tracker where in the
+     * history the net is after every edit added, undone or redone
      */
-    private final UndoManager undoManager = new UndoManager();
+    private final UndoManager undoManager = new UndoManager() {
+        /**
+         * Edit standing for the start of the history once the edits before it have been
+         * trimmed, null while the history still starts with the net as it was loaded
+         */
+        private UndoableEdit start = null;
+
+        @Override
+        public synchronized boolean addEdit(UndoableEdit anEdit) {
+            UndoableEdit before = position();
+            boolean added = super.addEdit(anEdit);
+            if (added && position() != before) {
+                modifications.historyMoved(position());
+            } else {
+                modifications.modified();
+            }
+            return added;
+        }
+
+        @Override
+        public synchronized void undo() {
+            modifications.historyMoving();
+            super.undo();
+            modifications.historyMoved(position());
+        }
+
+        @Override
+        public synchronized void redo() {
+            modifications.historyMoving();
+            super.redo();
+            modifications.historyMoved(position());
+        }
+
+        /**
+         * Remembers the last applied edit trimmed from the start of the history, since undoing
+         * back to the start no longer returns the net to its loaded state
+         *
+         * @param from index of the first edit to trim
+         * @param to   index of the last edit to trim
+         */
+        @Override
+        protected void trimEdits(int from, int to) {
+            if (from == 0 && to >= from && to <= edits.indexOf(editToBeUndone())) {
+                start = edits.elementAt(to);
+            }
+            super.trimEdits(from, to);
+        }
+
+        /**
+         * @return last edit applied, or the start of the history if none is
+         */
+        private UndoableEdit position() {
+            UndoableEdit edit = editToBeUndone();
+            return edit == null ? start : edit;
+        }
+    };
 
     /**
      * Petri net being displayed
@@ -96,9 +149,9 @@ public class PetriNetController implements Serializable {
     private String fileName = "";
 
     /**
-     * Copy of the last saved version of the Petri net
+     * Tracks whether the Petri net has changed since it was last saved
      */
-    private PetriNet lastSavedNet;
+    private final ModificationTracker modifications;
 
     /**
      * Set to true if the Petri net is in animation mode
@@ -110,6 +163,11 @@ public class PetriNetController implements Serializable {
      */
     private SelectionManager selectionManager;
 
+    /**
+     * Spatial index of the components on the canvas used for selection
+     */
+    private final ComponentIndex componentIndex;
+
     /**
      * Constructor
      * @param model underlying Petri net
@@ -126,7 +184,8 @@ public class PetriNetController implements Serializable {
         this.undoListener = undoListener;
         this.petriNetTab = petriNetTab;
         selectionManager = new SelectionManager(this);
-        lastSavedNet = ClonePetriNet.clone(model);
+        componentIndex = new ComponentIndex(model);
+        modifications = new ModificationTracker(model);
         this.zoomController = zoomController;
         this.animator = animator;
         this.copyPasteManager = copyPasteManager;
@@ -198,66 +257,28 @@ public class PetriNetController implements Serializable {
     }
 
     /**
-     * Selects all components within this rectangle
+     * Selects all components within this rectangle, and any arcs into or out of
+     * the selected places and transitions
      *
      * @param selectionRectangle bounds for selection
      */
     public void select(Rectangle selectionRectangle) {
-        for (Place place : petriNet.getPlaces()) {
-            selectPlaceable(place, selectionRectangle);
-        }
-        for (Transition transition : petriNet.getTransitions()) {
-            selectPlaceable(transition, selectionRectangle);
-        }
-        for (Arc<? extends Connectable, ? extends Connectable> arc : petriNet.getArcs()) {
-            if (isArcSelected(arc, selectionRectangle)) {
-                select(arc);
-                for (ArcPoint arcPoint : arc.getArcPoints()) {
+        for (PetriNetComponent component : componentIndex.query(selectionRectangle)) {
+            select(component);
+            if (component instanceof Arc) {
+                for (ArcPoint arcPoint : ((Arc<?, ?>) component).getArcPoints()) {
                     select(arcPoint);
                 }
-            } else if (selectedComponents.contains(arc.getSource()) || selectedComponents.contains(arc.getTarget())) {
-                select(arc);
             }
         }
-        for (Annotation annotation : petriNet.getAnnotations()) {
-            selectPlaceable(annotation, selectionRectangle);
-        }
-    }
-
-    /**
-     * A crude method for selecting arcs, does not take into account bezier curves
-     *
-     * @param arc                arc to test to see if it is selected
-     * @param selectionRectangle bounds of selection on screen
-     * @return if selectionRectangle intersects the path
-     */
-    private boolean isArcSelected(Arc<? extends Connectable, ? extends Connectable> arc, Rectangle selectionRectangle) {
-        GeneralPath path = createStraightPath(arc);
-        return path.intersects(selectionRectangle);
-    }
-
-    /**
-     * Creates an arc with a straight path arc
-     *
-     * @param arc
-     * @return Straight path for arc, ignoring Bezier curves
-     */
-    private GeneralPath createStraightPath(Arc<? extends Connectable, ? extends Connectable> arc) {
-        GeneralPath path = new GeneralPath();
-
-        Collection<ArcPoint> arcPoints = arc.getArcPoints();
-        int index = 0;
-        for (ArcPoint arcPoint : arcPoints) {
-            if (index == 0) {
-                path.moveTo(arcPoint.getX(), arcPoint.getY());
-            } else {
-                Point2D point = arcPoint.getPoint();
-                path.lineTo(point.getX(), point.getY());
-
+        for (PetriNetComponent component : new ArrayList<>(selectedComponents)) {
+            if (component instanceof Connectable) {
+                for (Arc<? extends Connectable, ? extends Connectable> arc : componentIndex.getArcs(
+                        (Connectable) component)) {
+                    select(arc);
+                }
             }
-            index++;
         }
-        return path;
     }
 
     /**
@@ -268,22 +289,6 @@ public class PetriNetController implements Serializable {
         selectedComponents.add(component);
     }
 
-    /**
-     * Tests to see if the object is in the selection rectangle
-     * If it is it selects in
-     *
-     * @param placeable          object to see if it is selectable
-     * @param selectionRectangle bounds for selection
-     */
-    private void selectPlaceable(PlaceablePetriNetComponent placeable, Rectangle selectionRectangle) {
-        int x = placeable.getX();
-        int y = placeable.getY();
-        Rectangle rectangle = new Rectangle(x, y, placeable.getHeight(), placeable.getWidth());
-        if (selectionRectangle.intersects(rectangle)) {
-            select(placeable);
-        }
-    }
-
     /**
      * Deletes selection and adds to history manager
      * @return list of edits performed 
@@ -520,14 +525,14 @@ public class PetriNetController implements Serializable {
      * @return true if the Petri net has changed since it was last saved/loaded
      */
     public boolean hasChanged() {
-        return !petriNet.equals(lastSavedNet);
+        return modifications.hasChanged();
     }
 
     /**
-     * Take a clone of the Petri net
+     * Marks the Petri net as saved in its current state
      */
     public void save() {
-        lastSavedNet = ClonePetriNet.clone(petriNet);
+        modifications.saved();
     }
 
     /**
@@ -571,9 +576,20 @@ public class PetriNetController implements Serializable {
      */
     public boolean toggleAnimation() {
         animateMode = !animateMode;
+        if (animateMode) {
+            modifications.suspend();
+        }
         return animateMode;
     }
 
+    /**
+     * Called once the Petri net has been restored to its state before animation, so that
+     * firing transitions and restoring the tokens are not counted as modifications
+     */
+    public void animationFinished() {
+        modifications.resume();
+    }
+
     /**
      *
      * @return if the Petri net should be displayed in animation mode on the canvas
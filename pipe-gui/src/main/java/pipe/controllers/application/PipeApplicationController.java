@@ -3,6 +3,7 @@ package pipe.controllers.application;
 import pipe.actions.gui.PipeApplicationModel;
 import pipe.controllers.*;
 import pipe.gui.PetriNetTab;
+import pipe.gui.canvas.SceneCanvas;
 import pipe.historyActions.AnimationHistoryImpl;
 import uk.ac.imperial.pipe.animation.PetriNetAnimator;
 import uk.ac.imperial.pipe.models.manager.PetriNetManager;
@@ -33,6 +34,12 @@ public class PipeApplicationController {
      */
     private final Map<PetriNetTab, PetriNetController> netControllers = new HashMap<>();
 
+    /**
+     * Listener creating the views of the components of each tab drawn with a view per
+     * component rather than a scene canvas
+     */
+    private final Map<PetriNetTab, PropertyChangeListener> viewListeners = new HashMap<>();
+
     /**
      * Main PIPE application model
      */
@@ -96,11 +103,48 @@ public class PipeApplicationController {
         netControllers.put(tab, petriNetController);
         tab.updatePreferredSize();
 
+        setActiveTab(tab);
+        if (SceneCanvas.isLargeNet(net)) {
+            tab.setSceneCanvas(new SceneCanvas(net, petriNetController, applicationModel));
+        } else {
+            showComponentViews(tab, petriNetController);
+        }
+    }
+
+    /**
+     * Switches the tab between drawing its net with a single scene canvas and with a view
+     * per component, which supports every editing feature
+     * @param tab tab to switch
+     */
+    public void toggleSceneCanvas(PetriNetTab tab) {
+        PetriNetController petriNetController = netControllers.get(tab);
+        if (petriNetController == null) {
+            return;
+        }
+        if (tab.hasSceneCanvas()) {
+            tab.removeSceneCanvas();
+            showComponentViews(tab, petriNetController);
+        } else {
+            PetriNet net = petriNetController.getPetriNet();
+            net.removePropertyChangeListener(viewListeners.remove(tab));
+            tab.deletePetriNetComponents();
+            tab.setSceneCanvas(new SceneCanvas(net, petriNetController, applicationModel));
+        }
+        tab.repaint();
+    }
+
+    /**
+     * Creates a view for every component of the net and keeps the views in step with
+     * components being added and deleted
+     * @param tab tab to draw the views on
+     * @param petriNetController controller of the net displayed on the tab
+     */
+    private void showComponentViews(PetriNetTab tab, PetriNetController petriNetController) {
+        PetriNet net = petriNetController.getPetriNet();
         PropertyChangeListener changeListener =
                 new PetriNetChangeListener(applicationModel, tab, petriNetController);
         net.addPropertyChangeListener(changeListener);
-
-        setActiveTab(tab);
+        viewListeners.put(tab, changeListener);
         initialiseNet(net, changeListener);
     }
 
@@ -210,8 +254,16 @@ public class PipeApplicationController {
         return activeController != null && activeController.hasChanged();
     }
 
+    /**
+     * @return true if any open Petri net has changed since it was last saved
+     */
     public boolean anyNetsChanged() {
-        return !getNetsChanged().isEmpty();
+        for (PetriNetController controller : netControllers.values()) {
+            if (controller.hasChanged()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -237,6 +289,7 @@ public class PipeApplicationController {
         if (activeTab != null) {
             PetriNetController controller = netControllers.get(activeTab);
             netControllers.remove(activeTab);
+            viewListeners.remove(activeTab);
             PetriNet petriNet = controller.getPetriNet();
             manager.remove(petriNet);
         }
@@ -6,16 +6,38 @@ package pipe.gui;
 import pipe.constants.GUIConstants;
 
 import java.awt.Color;
-import java.awt.Container;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * This class represents a grid that will draw itself on an object
+ * <p>
+ * The grid is rendered once into tiles at the scale it is painted at and the tiles covering
+ * the area being repainted are copied to the screen, so repainting a small area or scrolling
+ * does not redraw every line on the canvas. The tiles are thrown away when the spacing or
+ * the zoom changes.
+ * </p>
  */
 public class Grid {
 
+    /**
+     * Width and height of a tile in screen pixels
+     */
+    static final int TILE_SIZE = 256;
+
+    /**
+     * Most tiles kept unless a single paint needs more, the least recently painted are
+     * dropped first
+     */
+    static final int MAX_TILES = 64;
+
     /**
      * Color for the grid
      */
@@ -27,29 +49,34 @@ public class Grid {
     private float gridSpacing = GUIConstants.PLACE_TRANSITION_HEIGHT / 2;
 
     /**
-     * Graphical grid display
+     * True if the grid should be displayed
      */
-    private GeneralPath gridDisplay;
+    private boolean enabled = true;
 
     /**
-     * True if the grid should be displayed
+     * Grid count
      */
-    private boolean enabled = true;
+    private int gridCount = 1;
 
     /**
-     * Height of the overall grid
+     * Rendered tiles by column and row, for the current spacing and scale
      */
-    private int gridHeight;
+    private final Map<Long, BufferedImage> tiles = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > Math.max(MAX_TILES, tilesPainted);
+        }
+    };
 
     /**
-     * Width of the overall gird
+     * Scale the tiles were rendered at
      */
-    private int gridWidth;
+    private double tileScale = 0;
 
     /**
-     * Grid count
+     * Number of tiles covering the last area painted, these are never dropped while painting
      */
-    private int gridCount = 1;
+    private int tilesPainted = 0;
 
     /**
      * Increment the grid size
@@ -72,6 +99,7 @@ public class Grid {
     public void disableGrid() {
         if (enabled) {
             enabled = false;
+            tiles.clear();
         }
     }
 
@@ -88,6 +116,7 @@ public class Grid {
      */
     private void setGridSpacing(double spacing) {
         gridSpacing = (float) (spacing * GUIConstants.PLACE_TRANSITION_HEIGHT);
+        tiles.clear();
     }
 
     /**
@@ -99,43 +128,100 @@ public class Grid {
     }
 
     /**
-     * Set the size to that of the parent boundaries
-     * @param parent container 
+     * Draw the grid over the area being repainted, reusing the tiles already rendered at
+     * the current scale
+     * @param g graphics
      */
-    public void updateSize(Container parent) {
-        if (enabled) {
-            gridHeight = parent.getHeight();
-            gridWidth = parent.getWidth();
-            createGrid();
+    public void drawGrid(Graphics g) {
+        Graphics2D g2d = (Graphics2D) g;
+        Rectangle clip = g2d.getClipBounds();
+        if (clip == null || clip.isEmpty()) {
+            return;
+        }
+        double scale = g2d.getTransform().getScaleX();
+        if (scale <= 0) {
+            return;
+        }
+        if (scale != tileScale) {
+            tiles.clear();
+            tileScale = scale;
+        }
+        double tileWidth = TILE_SIZE / scale;
+        int firstColumn = (int) Math.floor(clip.getMinX() / tileWidth);
+        int lastColumn = (int) Math.floor(clip.getMaxX() / tileWidth);
+        int firstRow = (int) Math.floor(clip.getMinY() / tileWidth);
+        int lastRow = (int) Math.floor(clip.getMaxY() / tileWidth);
+        tilesPainted = (lastColumn - firstColumn + 1) * (lastRow - firstRow + 1);
+        for (int column = firstColumn; column <= lastColumn; column++) {
+            for (int row = firstRow; row <= lastRow; row++) {
+                BufferedImage tile = getTile(g2d, column, row);
+                AffineTransform transform =
+                        AffineTransform.getTranslateInstance(column * tileWidth, row * tileWidth);
+                transform.scale(1 / scale, 1 / scale);
+                g2d.drawImage(tile, transform, null);
+            }
         }
     }
 
     /**
-     * Create the path of the grid
+     * @return number of tiles currently rendered
      */
-    private void createGrid() {
-        gridDisplay = new GeneralPath();
+    int getTileCount() {
+        return tiles.size();
+    }
 
-        for (float i = gridSpacing; i <= gridWidth; i += gridSpacing) {
-            gridDisplay.moveTo(i, 2);
-            gridDisplay.lineTo(i, gridHeight);
-        }
-        for (float i = gridSpacing; i <= gridHeight; i += gridSpacing) {
-            gridDisplay.moveTo(2, i);
-            gridDisplay.lineTo(gridWidth, i);
+    /**
+     * @param g      graphics the tile will be painted on
+     * @param column column of the tile
+     * @param row    row of the tile
+     * @return the tile, rendering it if it is not already cached
+     */
+    private BufferedImage getTile(Graphics2D g, int column, int row) {
+        Long key = ((long) column << 32) | (row & 0xffffffffL);
+        BufferedImage tile = tiles.get(key);
+        if (tile == null) {
+            tile = g.getDeviceConfiguration().createCompatibleImage(TILE_SIZE, TILE_SIZE, Transparency.TRANSLUCENT);
+            renderTile(tile, column, row);
+            tiles.put(key, tile);
         }
+        return tile;
     }
 
     /**
-     * Draw the grid on the parent using the graphics
-     * @param g graphics 
+     * Draws the grid lines crossing the tile. Lines start 2 pixels in from the top and left
+     * of the canvas.
+     *
+     * @param tile   image to draw on
+     * @param column column of the tile
+     * @param row    row of the tile
      */
-    public void drawGrid(Graphics g) {
-        Graphics2D g2d = (Graphics2D) g;
-
-        g2d.setPaint(GRID_COLOR);
-        g2d.draw(gridDisplay);
+    private void renderTile(BufferedImage tile, int column, int row) {
+        double tileWidth = TILE_SIZE / tileScale;
+        double left = column * tileWidth;
+        double top = row * tileWidth;
+        double right = left + tileWidth;
+        double bottom = top + tileWidth;
+        Graphics2D g2d = tile.createGraphics();
+        try {
+            g2d.scale(tileScale, tileScale);
+            g2d.translate(-left, -top);
+            GeneralPath lines = new GeneralPath();
+            long firstColumnLine = Math.max(1, (long) Math.floor(left / gridSpacing));
+            for (long i = firstColumnLine; i * gridSpacing <= right + gridSpacing; i++) {
+                float x = i * gridSpacing;
+                lines.moveTo(x, (float) Math.max(2, top));
+                lines.lineTo(x, (float) bottom);
+            }
+            long firstRowLine = Math.max(1, (long) Math.floor(top / gridSpacing));
+            for (long i = firstRowLine; i * gridSpacing <= bottom + gridSpacing; i++) {
+                float y = i * gridSpacing;
+                lines.moveTo((float) Math.max(2, left), y);
+                lines.lineTo((float) right, y);
+            }
+            g2d.setPaint(GRID_COLOR);
+            g2d.draw(lines);
+        } finally {
+            g2d.dispose();
+        }
     }
-
-
 }
@@ -3,15 +3,17 @@ package pipe.gui;
 import pipe.constants.GUIConstants;
 import pipe.controllers.SelectionManager;
 import pipe.controllers.ZoomController;
+import pipe.gui.canvas.SceneCanvas;
+import pipe.utilities.math.ExtentTracker;
 import pipe.views.AbstractPetriNetViewComponent;
 import pipe.views.PetriNetViewComponent;
-import uk.ac.imperial.pipe.exceptions.PetriNetComponentException;
-import uk.ac.imperial.pipe.models.petrinet.*;
-import uk.ac.imperial.pipe.visitor.component.PetriNetComponentVisitor;
 
 import javax.swing.*;
 import javax.swing.event.MouseInputAdapter;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.ComponentListener;
 import java.awt.print.PageFormat;
 import java.awt.print.Printable;
 import java.awt.print.PrinterException;
@@ -22,8 +24,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * The main canvas that the {@link pipe.views.PetriNetViewComponent}s appear on
@@ -32,9 +32,9 @@ import java.util.logging.Logger;
 public class PetriNetTab extends JLayeredPane implements Observer, Printable {
 
     /**
-     * Class logger
+     * Space left beyond the furthest component when sizing the canvas
      */
-    private static final Logger LOGGER = Logger.getLogger(PetriNetTab.class.getName());
+    private static final int CONTENT_MARGIN = 20;
 
     /**
      * Map of components in the tab with id -&gt; component
@@ -52,6 +52,61 @@ public class PetriNetTab extends JLayeredPane implements Observer, Printable {
     @Deprecated
     public File appFile;
 
+    /**
+     * Canvas drawing the whole net when it is too large for a view per component,
+     * null if the net is drawn by views
+     */
+    private SceneCanvas sceneCanvas = null;
+
+    /**
+     * Keeps the scene canvas covering the tab as it is resized
+     */
+    private final ComponentListener sceneCanvasResizer = new ComponentAdapter() {
+        @Override
+        public void componentResized(ComponentEvent e) {
+            if (sceneCanvas != null) {
+                sceneCanvas.setBounds(0, 0, getWidth(), getHeight());
+            }
+        }
+    };
+
+    /**
+     * Furthest edges of the components on the canvas, kept up to date as they are added,
+     * moved and removed
+     */
+    private final ExtentTracker<Component> contentExtent = new ExtentTracker<>();
+
+    /**
+     * Records the new bounds of a component when it moves or is resized
+     */
+    private final ComponentListener boundsListener = new ComponentAdapter() {
+        @Override
+        public void componentMoved(ComponentEvent e) {
+            track(e.getComponent());
+        }
+
+        @Override
+        public void componentResized(ComponentEvent e) {
+            track(e.getComponent());
+        }
+    };
+
+    /**
+     * True if a preferred size update is waiting on the event queue
+     */
+    private boolean resizeScheduled = false;
+
+    /**
+     * Updates the preferred size once for all the changes made since it was scheduled
+     */
+    private final Runnable resize = new Runnable() {
+        @Override
+        public void run() {
+            resizeScheduled = false;
+            updatePreferredSize();
+        }
+    };
+
     /**
      * Constructor
      *
@@ -110,12 +165,9 @@ public class PetriNetTab extends JLayeredPane implements Observer, Printable {
      * @param component to add
      */
     public void add(AbstractPetriNetViewComponent<?> component) {
-        registerLocationChangeListener(component.getModel());
-
         setLayer(component, DEFAULT_LAYER);
         super.add(component);
         petriNetComponents.put(component.getId(), component);
-        updatePreferredSize();
         //        repaint();
     }
 
@@ -123,21 +175,9 @@ public class PetriNetTab extends JLayeredPane implements Observer, Printable {
      * Update the preferred size of the canvas and grid that is displayed on it
      */
     public void updatePreferredSize() {
-        Component[] components = getComponents();
-        Dimension d = new Dimension(0, 0);
-        for (Component component : components) {
-            if (component.getClass() == SelectionManager.class) {
-                continue;
-            }
-            Rectangle r = component.getBounds();
-            int x = r.x + r.width + 20;
-            int y = r.y + r.height + 20;
-            if (x > d.width) {
-                d.width = x;
-            }
-            if (y > d.height) {
-                d.height = y;
-            }
+        Dimension d = getContentSize();
+        if (isPreferredSizeSet() && d.equals(getPreferredSize())) {
+            return;
         }
         setPreferredSize(d);
         Container parent = getParent();
@@ -147,19 +187,125 @@ public class PetriNetTab extends JLayeredPane implements Observer, Printable {
     }
 
     /**
+     * @return size needed to show every component on the canvas
+     */
+    private Dimension getContentSize() {
+        Dimension d = new Dimension(0, 0);
+        if (!contentExtent.isEmpty()) {
+            d.width = contentExtent.getMaxX() + CONTENT_MARGIN;
+            d.height = contentExtent.getMaxY() + CONTENT_MARGIN;
+        }
+        if (sceneCanvas != null) {
+            Rectangle bounds = sceneCanvas.getSceneBounds();
+            d.width = Math.max(d.width, bounds.x + bounds.width + CONTENT_MARGIN);
+            d.height = Math.max(d.height, bounds.y + bounds.height + CONTENT_MARGIN);
+        }
+        return d;
+    }
+
+    /**
+     * Updates the preferred size on the next pass of the event queue if the content
+     * no longer fits it, so adding or dragging many components revalidates once
+     */
+    private void scheduleResize() {
+        if (resizeScheduled || (isPreferredSizeSet() && getContentSize().equals(getPreferredSize()))) {
+            return;
+        }
+        resizeScheduled = true;
+        SwingUtilities.invokeLater(resize);
+    }
+
+    /**
+     * Records the bounds of every component added apart from those that cover the whole
+     * canvas
+     *
+     * @param comp        component added
+     * @param constraints layer of the component
+     * @param index       position within its layer
+     */
+    @Override
+    protected void addImpl(Component comp, Object constraints, int index) {
+        super.addImpl(comp, constraints, index);
+        if (comp.getClass() != SelectionManager.class && comp != sceneCanvas) {
+            comp.addComponentListener(boundsListener);
+            track(comp);
+        }
+    }
+
+    /**
+     * Removes the component and forgets its bounds
      *
-     * Registers a location listener on the Petri net component
+     * @param index index of the component
+     */
+    @Override
+    public void remove(int index) {
+        Component comp = getComponent(index);
+        super.remove(index);
+        if (contentExtent.contains(comp)) {
+            comp.removeComponentListener(boundsListener);
+            contentExtent.remove(comp);
+            scheduleResize();
+        }
+    }
+
+    /**
+     * Removes every component and forgets their bounds
+     */
+    @Override
+    public void removeAll() {
+        for (Component comp : getComponents()) {
+            comp.removeComponentListener(boundsListener);
+        }
+        contentExtent.clear();
+        super.removeAll();
+        scheduleResize();
+    }
+
+    /**
+     * @param comp component whose bounds have changed
+     */
+    private void track(Component comp) {
+        if (comp.getParent() == this) {
+            contentExtent.put(comp, comp.getBounds());
+            scheduleResize();
+        }
+    }
+
+    /**
+     * Draws the net with a single scene canvas rather than a view per component. The canvas
+     * covers the whole tab and sits above the selection manager's resting layer.
      *
-     * @param component for which a listener will be registered
+     * @param canvas canvas drawing the net
      */
-    private void registerLocationChangeListener(PetriNetComponent component) {
+    public void setSceneCanvas(SceneCanvas canvas) {
+        sceneCanvas = canvas;
+        setLayer(canvas, GUIConstants.SCENE_LAYER_OFFSET);
+        super.add(canvas);
+        canvas.setBounds(0, 0, getWidth(), getHeight());
+        addComponentListener(sceneCanvasResizer);
+        updatePreferredSize();
+    }
 
-        PetriNetComponentVisitor changeListener = new ChangeListener();
-        try {
-            component.accept(changeListener);
-        } catch (PetriNetComponentException e) {
-            LOGGER.log(Level.SEVERE, e.getMessage());
+    /**
+     * Takes the scene canvas off the tab and stops it drawing the net
+     */
+    public void removeSceneCanvas() {
+        if (sceneCanvas == null) {
+            return;
         }
+        removeComponentListener(sceneCanvasResizer);
+        remove(sceneCanvas);
+        sceneCanvas.dispose();
+        sceneCanvas = null;
+        updatePreferredSize();
+        repaint();
+    }
+
+    /**
+     * @return true if the net is drawn by a scene canvas rather than a view per component
+     */
+    public boolean hasSceneCanvas() {
+        return sceneCanvas != null;
     }
 
     /**
@@ -190,7 +336,6 @@ public class PetriNetTab extends JLayeredPane implements Observer, Printable {
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
         if (grid.isEnabled()) {
-            grid.updateSize(this);
             grid.drawGrid(g);
         }
     }
@@ -259,6 +404,19 @@ public class PetriNetTab extends JLayeredPane implements Observer, Printable {
         repaint();
     }
 
+    /**
+     * Removes the view of every component from the canvas
+     */
+    public void deletePetriNetComponents() {
+        for (PetriNetViewComponent component : petriNetComponents.values()) {
+            component.delete();
+            remove((Component) component);
+        }
+        petriNetComponents.clear();
+        validate();
+        repaint();
+    }
+
     /**
      *
      * @return Grid displayed on the canvas
@@ -276,54 +434,4 @@ public class PetriNetTab extends JLayeredPane implements Observer, Printable {
         addMouseMotionListener(handler);
         addMouseWheelListener(handler);
     }
-
-    /**
-     * Used to set the bounds of the canvas so that it will expand if components go out of bound
-     */
-    private class ChangeListener implements PlaceVisitor, TransitionVisitor {
-        /**
-         * Listens to (x,y) changes in components and updates the canvas width
-         * if a place/transition goes out of the current bounds
-         */
-        private PropertyChangeListener updateListener = new PropertyChangeListener() {
-            @Override
-            public void propertyChange(PropertyChangeEvent evt) {
-                String name = evt.getPropertyName();
-                if (name.equals(Connectable.X_CHANGE_MESSAGE)) {
-                    int x = (int) evt.getNewValue();
-                    if (x > getWidth()) {
-                        updatePreferredSize();
-                    }
-
-                }
-                if (name.equals(Connectable.Y_CHANGE_MESSAGE)) {
-                    int y = (int) evt.getNewValue();
-                    if (y > getHeight()) {
-                        updatePreferredSize();
-                    }
-
-                }
-            }
-        };
-
-        /**
-         * Add the update listener to the place
-         * @param place for which to add listener
-         */
-        @Override
-        public void visit(Place place) {
-            place.addPropertyChangeListener(updateListener);
-        }
-
-        /**
-         * Add the update listener to the transition
-         * @param transition for which to add listener
-         */
-        @Override
-        public void visit(Transition transition) {
-            transition.addPropertyChangeListener(updateListener);
-        }
-    }
 }
-
-
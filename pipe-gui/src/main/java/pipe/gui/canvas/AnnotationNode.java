@@ -0,0 +1,149 @@
+package pipe.gui.canvas;
+
+import pipe.constants.GUIConstants;
+import pipe.controllers.PetriNetController;
+import pipe.utilities.math.SpatialIndex;
+import uk.ac.imperial.pipe.models.petrinet.Annotation;
+
+import java.awt.Font;
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Retained drawing of an annotation as a bordered box with its text wrapped to the box width
+ */
+final class AnnotationNode extends SceneNode<Annotation> {
+
+    /**
+     * Font of annotation text, as {@link pipe.views.Note} uses
+     */
+    private static final Font NOTE_FONT =
+            new Font(GUIConstants.ANNOTATION_DEFAULT_FONT, Font.PLAIN, GUIConstants.ANNOTATION_DEFAULT_FONT_SIZE);
+
+    /**
+     * Space between the box and its text
+     */
+    private static final int PADDING = 4;
+
+    /**
+     * Box of the annotation
+     */
+    private final Rectangle box = new Rectangle();
+
+    /**
+     * Wrapped lines of text
+     */
+    private final List<String> lines = new ArrayList<>();
+
+    /**
+     * Height of a line of text
+     */
+    private double lineHeight;
+
+    /**
+     * Distance from the top of a line to its base line
+     */
+    private double ascent;
+
+    /**
+     * @param annotation annotation drawn
+     */
+    AnnotationNode(Annotation annotation) {
+        super(annotation);
+    }
+
+    /**
+     * Wraps the text to the width of the box, growing the box if the text is taller
+     *
+     * @return area painted by the annotation
+     */
+    @Override
+    protected Rectangle layout() {
+        box.setBounds(component.getX(), component.getY(), component.getWidth(), component.getHeight());
+        lines.clear();
+        Rectangle2D sample = measure(NOTE_FONT, "Xg");
+        lineHeight = sample.getHeight();
+        ascent = -sample.getY();
+        double width = Math.max(1, box.width - 2 * PADDING);
+        String text = component.getText() == null ? "" : component.getText();
+        for (String paragraph : text.split("\n", -1)) {
+            wrap(paragraph, width);
+        }
+        int textHeight = (int) Math.ceil(lines.size() * lineHeight) + 2 * PADDING;
+        if (textHeight > box.height) {
+            box.height = textHeight;
+        }
+        Rectangle bounds = new Rectangle(box);
+        bounds.grow(1, 1);
+        return bounds;
+    }
+
+    /**
+     * Adds the paragraph to the lines, breaking between words so no line is wider than the box
+     *
+     * @param paragraph line of the text
+     * @param width     width available
+     */
+    private void wrap(String paragraph, double width) {
+        StringBuilder line = new StringBuilder();
+        for (String word : paragraph.split(" ")) {
+            String candidate = line.length() == 0 ? word : line + " " + word;
+            if (line.length() > 0 && measure(NOTE_FONT, candidate).getWidth() > width) {
+                lines.add(line.toString());
+                line.setLength(0);
+                line.append(word);
+            } else {
+                line.setLength(0);
+                line.append(candidate);
+            }
+        }
+        lines.add(line.toString());
+    }
+
+    /**
+     * @param index index of the scene
+     */
+    @Override
+    void addTo(SpatialIndex<SceneNode<?>> index) {
+        index.put(this, getBounds());
+    }
+
+    /**
+     * @param point     point on the canvas
+     * @param tolerance unused, annotations are hit inside their box
+     * @return true if the point is in the box
+     */
+    @Override
+    boolean contains(Point2D point, double tolerance) {
+        return box.contains(point);
+    }
+
+    /**
+     * @return lowest priority, annotations lie beneath the net
+     */
+    @Override
+    int getHitPriority() {
+        return 0;
+    }
+
+    /**
+     * @param batch      batch being painted
+     * @param controller controller for selection
+     */
+    @Override
+    void paint(ShapeBatch batch, PetriNetController controller) {
+        boolean selected = controller.isSelected(component);
+        batch.fill(ShapeBatch.ANNOTATION_LAYER,
+                selected ? GUIConstants.SELECTION_FILL_COLOUR : GUIConstants.ELEMENT_FILL_COLOUR, box);
+        batch.draw(ShapeBatch.ANNOTATION_LAYER,
+                selected ? GUIConstants.SELECTION_LINE_COLOUR : GUIConstants.ELEMENT_LINE_COLOUR, 1, box);
+        float y = (float) (box.y + PADDING + ascent);
+        for (String line : lines) {
+            batch.text(NOTE_FONT, GUIConstants.NOTE_DISABLED_COLOUR, line, box.x + PADDING, y);
+            y += lineHeight;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package pipe.gui.canvas;
+
+import pipe.constants.GUIConstants;
+import pipe.controllers.PetriNetController;
+import pipe.utilities.math.SpatialIndex;
+import uk.ac.imperial.pipe.exceptions.PetriNetComponentNotFoundException;
+import uk.ac.imperial.pipe.models.petrinet.Arc;
+import uk.ac.imperial.pipe.models.petrinet.ArcPoint;
+import uk.ac.imperial.pipe.models.petrinet.ArcType;
+import uk.ac.imperial.pipe.models.petrinet.Connectable;
+
+import java.awt.Color;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retained drawing of an arc as straight segments between its arc points, with its head and,
+ * for normal arcs, its weights. Curved arc points are drawn as corners.
+ */
+final class ArcNode extends SceneNode<Arc<? extends Connectable, ? extends Connectable>> {
+
+    /**
+     * Arrow head of normal arcs pointing along the x axis, as {@link pipe.views.NormalHead}
+     */
+    private static final Polygon NORMAL_HEAD = new Polygon(new int[]{0, -10, -7, -10}, new int[]{0, 5, 0, -5}, 4);
+
+    /**
+     * Circle head of inhibitor arcs, as {@link pipe.views.InhibitorArcHead}
+     */
+    private static final Shape INHIBITOR_HEAD = new Ellipse2D.Double(-8, -4, 8, 8);
+
+    /**
+     * Weights are stacked in columns of this many
+     */
+    private static final int WEIGHTS_PER_COLUMN = 4;
+
+    /**
+     * Points of the arc
+     */
+    private final List<Point2D> points = new ArrayList<>();
+
+    /**
+     * Line through the points
+     */
+    private final Path2D path = new Path2D.Double();
+
+    /**
+     * Head at the target end of the arc
+     */
+    private Shape head;
+
+    /**
+     * Weight labels by token id
+     */
+    private final List<Weight> weights = new ArrayList<>();
+
+    /**
+     * @param arc arc drawn
+     */
+    ArcNode(Arc<? extends Connectable, ? extends Connectable> arc) {
+        super(arc);
+    }
+
+    /**
+     * Lays out the line, head and weights
+     *
+     * @return area painted by the arc
+     */
+    @Override
+    protected Rectangle layout() {
+        points.clear();
+        path.reset();
+        weights.clear();
+        for (ArcPoint arcPoint : component.getArcPoints()) {
+            Point2D point = arcPoint.getPoint();
+            points.add(new Point2D.Double(point.getX(), point.getY()));
+        }
+        if (points.isEmpty()) {
+            head = null;
+            return new Rectangle();
+        }
+        path.moveTo(points.get(0).getX(), points.get(0).getY());
+        for (int i = 1; i < points.size(); i++) {
+            path.lineTo(points.get(i).getX(), points.get(i).getY());
+        }
+        Rectangle bounds = path.getBounds();
+        head = createHead();
+        if (head != null) {
+            bounds.add(head.getBounds());
+        }
+        if (component.getType() != ArcType.INHIBITOR) {
+            layoutWeights(bounds);
+        }
+        bounds.grow(1, 1);
+        return bounds;
+    }
+
+    /**
+     * @return head rotated to the direction of the last segment, null if the arc has no length
+     */
+    private Shape createHead() {
+        if (points.size() < 2) {
+            return null;
+        }
+        Point2D end = points.get(points.size() - 1);
+        Point2D before = points.get(points.size() - 2);
+        AffineTransform transform = AffineTransform.getTranslateInstance(end.getX(), end.getY());
+        transform.rotate(Math.atan2(end.getY() - before.getY(), end.getX() - before.getX()));
+        return transform.createTransformedShape(
+                component.getType() == ArcType.INHIBITOR ? INHIBITOR_HEAD : NORMAL_HEAD);
+    }
+
+    /**
+     * Places the weights above the middle of the arc in columns, as
+     * {@link pipe.views.NormalArcView} does
+     *
+     * @param bounds area painted by the arc, grown to include the weights
+     */
+    private void layoutWeights(Rectangle bounds) {
+        Point2D middle = midPoint();
+        double x = middle.getX();
+        double top = middle.getY() - 10;
+        double y = top;
+        int inColumn = 0;
+        for (Map.Entry<String, String> entry : component.getTokenWeights().entrySet()) {
+            if (inColumn >= WEIGHTS_PER_COLUMN) {
+                y = top;
+                x += 17;
+                inColumn = 0;
+            }
+            Rectangle2D text = measure(LABEL_FONT, entry.getValue());
+            double left = x - text.getWidth() / 2 - 4;
+            double labelTop = y - GUIConstants.NAMELABEL_OFFSET;
+            weights.add(new Weight(entry.getKey(), entry.getValue(), (float) left, (float) (labelTop - text.getY())));
+            bounds.add(new Rectangle2D.Double(left, labelTop, text.getWidth(), text.getHeight()));
+            y += 10;
+            inColumn++;
+        }
+    }
+
+    /**
+     * @return point half way along the arc
+     */
+    private Point2D midPoint() {
+        double length = 0;
+        for (int i = 1; i < points.size(); i++) {
+            length += points.get(i - 1).distance(points.get(i));
+        }
+        double remaining = length / 2;
+        for (int i = 1; i < points.size(); i++) {
+            Point2D from = points.get(i - 1);
+            Point2D to = points.get(i);
+            double segment = from.distance(to);
+            if (segment > 0 && remaining <= segment) {
+                double t = remaining / segment;
+                return new Point2D.Double(from.getX() + t * (to.getX() - from.getX()),
+                        from.getY() + t * (to.getY() - from.getY()));
+            }
+            remaining -= segment;
+        }
+        return points.get(0);
+    }
+
+    /**
+     * Indexes the arc by the segments between its points so long arcs only occupy the
+     * cells they cross
+     *
+     * @param index index of the scene
+     */
+    @Override
+    void addTo(SpatialIndex<SceneNode<?>> index) {
+        index.putPath(this, points);
+    }
+
+    /**
+     * @param point     point on the canvas
+     * @param tolerance distance from the line that still counts as a hit
+     * @return true if the point is within the tolerance of the line or inside the head
+     */
+    @Override
+    boolean contains(Point2D point, double tolerance) {
+        for (int i = 1; i < points.size(); i++) {
+            if (Line2D.ptSegDist(points.get(i - 1).getX(), points.get(i - 1).getY(), points.get(i).getX(),
+                    points.get(i).getY(), point.getX(), point.getY()) <= tolerance) {
+                return true;
+            }
+        }
+        return head != null && head.contains(point);
+    }
+
+    /**
+     * @return priority below places and transitions, above annotations
+     */
+    @Override
+    int getHitPriority() {
+        return 1;
+    }
+
+    /**
+     * @param batch      batch being painted
+     * @param controller controller for selection and token colours
+     */
+    @Override
+    void paint(ShapeBatch batch, PetriNetController controller) {
+        Color line = controller.isSelected(component) ? GUIConstants.SELECTION_LINE_COLOUR :
+                GUIConstants.ELEMENT_LINE_COLOUR;
+        batch.draw(ShapeBatch.ARC_LAYER, line, 1, path);
+        if (head != null) {
+            if (component.getType() == ArcType.INHIBITOR) {
+                batch.fill(ShapeBatch.ARC_HEAD_LAYER, Color.WHITE, head);
+                batch.draw(ShapeBatch.ARC_HEAD_LAYER, Color.BLACK, 0.8f, head);
+            } else {
+                batch.fill(ShapeBatch.ARC_HEAD_LAYER, line, head);
+            }
+        }
+        for (Weight weight : weights) {
+            Color color;
+            try {
+                color = controller.getToken(weight.tokenId).getColor();
+            } catch (PetriNetComponentNotFoundException e) {
+                color = Color.BLACK;
+            }
+            batch.text(LABEL_FONT, color, weight.text, weight.x, weight.y);
+        }
+    }
+
+    /**
+     * Weight of one token shown on the arc
+     */
+    private static final class Weight {
+
+        /**
+         * Token the weight is for
+         */
+        private final String tokenId;
+
+        /**
+         * Weight expression
+         */
+        private final String text;
+
+        /**
+         * x of the start of the base line
+         */
+        private final float x;
+
+        /**
+         * y of the base line
+         */
+        private final float y;
+
+        /**
+         * @param tokenId token the weight is for
+         * @param text    weight expression
+         * @param x       x of the start of the base line
+         * @param y       y of the base line
+         */
+        private Weight(String tokenId, String text, float x, float y) {
+            this.tokenId = tokenId;
+            this.text = text;
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
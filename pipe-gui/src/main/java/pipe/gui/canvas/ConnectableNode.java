@@ -0,0 +1,109 @@
+package pipe.gui.canvas;
+
+import pipe.constants.GUIConstants;
+import pipe.utilities.math.SpatialIndex;
+import uk.ac.imperial.pipe.models.petrinet.Connectable;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Retained drawing of a place or transition with its name label
+ *
+ * @param <T> place or transition
+ */
+abstract class ConnectableNode<T extends Connectable> extends SceneNode<T> {
+
+    /**
+     * Outline of the place or transition
+     */
+    protected Shape shape;
+
+    /**
+     * Name shown next to the component
+     */
+    private String label = "";
+
+    /**
+     * x of the start of the label's base line
+     */
+    private float labelX;
+
+    /**
+     * y of the label's base line
+     */
+    private float labelY;
+
+    /**
+     * @param component place or transition drawn
+     */
+    ConnectableNode(T component) {
+        super(component);
+    }
+
+    /**
+     * @return outline of the place or transition on the canvas
+     */
+    protected abstract Shape createShape();
+
+    /**
+     * Lays out the shape and the name label, which is placed as {@link pipe.views.TextLabel}
+     * places it: right aligned to the name offset
+     *
+     * @return area painted by the node
+     */
+    @Override
+    protected final Rectangle layout() {
+        shape = createShape();
+        Rectangle bounds = shape.getBounds();
+        bounds.grow(2, 2);
+
+        label = component.getId();
+        Rectangle2D text = measure(LABEL_FONT, label);
+        double right = component.getX() + component.getNameXOffset();
+        double top = component.getY() + component.getNameYOffset() - GUIConstants.NAMELABEL_OFFSET;
+        labelX = (float) (right - text.getWidth());
+        labelY = (float) (top - text.getY());
+        bounds.add(new Rectangle2D.Double(labelX, top, text.getWidth(), text.getHeight()));
+        return bounds;
+    }
+
+    /**
+     * Indexes the node by the area it paints
+     *
+     * @param index index of the scene
+     */
+    @Override
+    final void addTo(SpatialIndex<SceneNode<?>> index) {
+        index.put(this, getBounds());
+    }
+
+    /**
+     * @param point     point on the canvas
+     * @param tolerance unused, places and transitions are hit inside their outline
+     * @return true if the point is inside the outline
+     */
+    @Override
+    final boolean contains(Point2D point, double tolerance) {
+        return shape.contains(point);
+    }
+
+    /**
+     * Places and transitions are hit before the arcs and annotations beneath them
+     *
+     * @return highest priority
+     */
+    @Override
+    final int getHitPriority() {
+        return 2;
+    }
+
+    /**
+     * @param batch batch being painted
+     */
+    protected final void paintLabel(ShapeBatch batch) {
+        batch.text(LABEL_FONT, GUIConstants.ELEMENT_LINE_COLOUR, label, labelX, labelY);
+    }
+}
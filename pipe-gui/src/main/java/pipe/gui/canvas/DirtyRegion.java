@@ -0,0 +1,68 @@
+package pipe.gui.canvas;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Areas of the canvas that need repainting since the last frame. Overlapping areas are
+ * merged, so moving many nodes that lie together repaints one rectangle rather than one
+ * per node, and when too many separate areas build up they are merged into one.
+ */
+final class DirtyRegion {
+
+    /**
+     * Most separate rectangles kept before they are all merged
+     */
+    static final int MAX_RECTANGLES = 16;
+
+    /**
+     * Disjoint dirty rectangles
+     */
+    private final List<Rectangle> rectangles = new ArrayList<>();
+
+    /**
+     * @param area area to repaint, empty areas are ignored
+     */
+    void add(Rectangle area) {
+        if (area.isEmpty()) {
+            return;
+        }
+        Rectangle merged = new Rectangle(area);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = rectangles.size() - 1; i >= 0; i--) {
+                if (rectangles.get(i).intersects(merged)) {
+                    merged.add(rectangles.remove(i));
+                    changed = true;
+                }
+            }
+        }
+        rectangles.add(merged);
+        if (rectangles.size() > MAX_RECTANGLES) {
+            Rectangle all = rectangles.get(0);
+            for (Rectangle rectangle : rectangles) {
+                all.add(rectangle);
+            }
+            rectangles.clear();
+            rectangles.add(all);
+        }
+    }
+
+    /**
+     * @return true if nothing needs repainting
+     */
+    boolean isEmpty() {
+        return rectangles.isEmpty();
+    }
+
+    /**
+     * @return areas to repaint, the region is empty afterwards
+     */
+    List<Rectangle> drain() {
+        List<Rectangle> drained = new ArrayList<>(rectangles);
+        rectangles.clear();
+        return drained;
+    }
+}
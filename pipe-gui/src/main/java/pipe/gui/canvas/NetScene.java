@@ -0,0 +1,409 @@
+package pipe.gui.canvas;
+
+import pipe.utilities.math.ExtentTracker;
+import pipe.utilities.math.SpatialIndex;
+import uk.ac.imperial.pipe.models.petrinet.*;
+
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Retained scene of a Petri net: a {@link SceneNode} for every place, transition, arc and
+ * annotation, an index of where they are and the areas that have changed since the last
+ * paint. The scene listens to the model, so a change re-lays out only the nodes it touches.
+ */
+final class NetScene {
+
+    /**
+     * Distance outside an area that is still searched when painting it, so arc heads and
+     * weights that reach into the area are painted
+     */
+    static final int CULLING_MARGIN = 20;
+
+    /**
+     * Distance from an arc that still counts as clicking on it
+     */
+    static final double HIT_TOLERANCE = 3;
+
+    /**
+     * Index of the nodes for culling and hit testing
+     */
+    private final SpatialIndex<SceneNode<?>> index = new SpatialIndex<>();
+
+    /**
+     * Node of each component
+     */
+    private final Map<PetriNetComponent, SceneNode<?>> nodes = new IdentityHashMap<>();
+
+    /**
+     * Listener registered on each component, kept so it can be removed on deletion
+     */
+    private final Map<PetriNetComponent, PropertyChangeListener> listeners = new IdentityHashMap<>();
+
+    /**
+     * Listener registered on each arc point
+     */
+    private final Map<ArcPoint, PropertyChangeListener> pointListeners = new IdentityHashMap<>();
+
+    /**
+     * Arcs into or out of each place and transition
+     */
+    private final Map<Connectable, Set<ArcNode>> connectedArcs = new IdentityHashMap<>();
+
+    /**
+     * Areas changed since the last paint
+     */
+    private final DirtyRegion dirtyRegion = new DirtyRegion();
+
+    /**
+     * Told whenever the dirty region grows
+     */
+    private final Runnable changeListener;
+
+    /**
+     * Net the scene draws
+     */
+    private final PetriNet petriNet;
+
+    /**
+     * Listener registered on the net for components being added and deleted
+     */
+    private final PropertyChangeListener petriNetListener = new PetriNetListener();
+
+    /**
+     * Furthest edges of the nodes
+     */
+    private final ExtentTracker<SceneNode<?>> extent = new ExtentTracker<>();
+
+    /**
+     * Builds a node for every component in the net and listens for components being added
+     * and deleted
+     *
+     * @param petriNet       Petri net to draw
+     * @param changeListener told whenever part of the scene needs repainting
+     */
+    NetScene(PetriNet petriNet, Runnable changeListener) {
+        this.changeListener = changeListener;
+        this.petriNet = petriNet;
+        for (Annotation annotation : petriNet.getAnnotations()) {
+            addAnnotation(annotation);
+        }
+        for (Place place : petriNet.getPlaces()) {
+            addConnectable(new PlaceNode(place));
+        }
+        for (Transition transition : petriNet.getTransitions()) {
+            addConnectable(new TransitionNode(transition));
+        }
+        for (Arc<? extends Connectable, ? extends Connectable> arc : petriNet.getArcs()) {
+            addArc(arc);
+        }
+        dirtyRegion.drain();
+        petriNet.addPropertyChangeListener(petriNetListener);
+    }
+
+    /**
+     * Stops listening to the net and its components
+     */
+    void dispose() {
+        petriNet.removePropertyChangeListener(petriNetListener);
+        for (Map.Entry<PetriNetComponent, PropertyChangeListener> entry : listeners.entrySet()) {
+            entry.getKey().removePropertyChangeListener(entry.getValue());
+        }
+        for (Map.Entry<ArcPoint, PropertyChangeListener> entry : pointListeners.entrySet()) {
+            entry.getKey().removePropertyChangeListener(entry.getValue());
+        }
+        listeners.clear();
+        pointListeners.clear();
+    }
+
+    /**
+     * @param area area being painted
+     * @return nodes that paint in the area
+     */
+    Collection<SceneNode<?>> getNodes(Rectangle area) {
+        Rectangle search = new Rectangle(area);
+        search.grow(CULLING_MARGIN, CULLING_MARGIN);
+        return index.query(search);
+    }
+
+    /**
+     * @param point point on the canvas
+     * @return the topmost node under the point, places and transitions before arcs and arcs
+     * before annotations, null if there is none
+     */
+    SceneNode<?> getNodeAt(Point2D point) {
+        Rectangle2D area = new Rectangle2D.Double(point.getX() - HIT_TOLERANCE, point.getY() - HIT_TOLERANCE,
+                2 * HIT_TOLERANCE, 2 * HIT_TOLERANCE);
+        SceneNode<?> hit = null;
+        for (SceneNode<?> node : index.query(area)) {
+            if ((hit == null || node.getHitPriority() > hit.getHitPriority()) && node.contains(point,
+                    HIT_TOLERANCE)) {
+                hit = node;
+            }
+        }
+        return hit;
+    }
+
+    /**
+     * @param component component of the net
+     * @return node drawing the component, null if it is not in the scene
+     */
+    SceneNode<?> getNode(PetriNetComponent component) {
+        return nodes.get(component);
+    }
+
+    /**
+     * @return number of nodes in the scene
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return area from the origin to the furthest edges painted by any node
+     */
+    Rectangle getBounds() {
+        return new Rectangle(0, 0, extent.getMaxX(), extent.getMaxY());
+    }
+
+    /**
+     * @return areas changed since this was last called
+     */
+    List<Rectangle> drainDirtyRegion() {
+        return dirtyRegion.drain();
+    }
+
+    /**
+     * Adds a place or transition and re-lays it out, with its arcs when it moves, whenever
+     * it changes
+     *
+     * @param node node of the place or transition
+     */
+    private void addConnectable(final ConnectableNode<?> node) {
+        add(node);
+        PropertyChangeListener listener = new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                refresh(node);
+                String name = evt.getPropertyName();
+                if (name.equals(Connectable.X_CHANGE_MESSAGE) || name.equals(Connectable.Y_CHANGE_MESSAGE)) {
+                    for (ArcNode arcNode : getArcs(node.getComponent())) {
+                        refresh(arcNode);
+                    }
+                }
+            }
+        };
+        listen(node.getComponent(), listener);
+    }
+
+    /**
+     * Adds an annotation and re-lays it out whenever it changes
+     *
+     * @param annotation annotation to draw
+     */
+    private void addAnnotation(Annotation annotation) {
+        final AnnotationNode node = new AnnotationNode(annotation);
+        add(node);
+        listen(annotation, new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                refresh(node);
+            }
+        });
+    }
+
+    /**
+     * Adds an arc and re-lays it out whenever it, or one of its points, changes
+     *
+     * @param arc arc to draw
+     */
+    private void addArc(Arc<? extends Connectable, ? extends Connectable> arc) {
+        final ArcNode node = new ArcNode(arc);
+        connect(arc.getSource(), node);
+        connect(arc.getTarget(), node);
+        for (ArcPoint arcPoint : arc.getArcPoints()) {
+            listenToPoint(node, arcPoint);
+        }
+        add(node);
+        listen(arc, new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                String name = evt.getPropertyName();
+                if (name.equals(Arc.NEW_INTERMEDIATE_POINT_CHANGE_MESSAGE)) {
+                    listenToPoint(node, (ArcPoint) evt.getNewValue());
+                } else if (name.equals(Arc.DELETE_INTERMEDIATE_POINT_CHANGE_MESSAGE)) {
+                    ArcPoint arcPoint = (ArcPoint) evt.getOldValue();
+                    arcPoint.removePropertyChangeListener(pointListeners.remove(arcPoint));
+                }
+                refresh(node);
+            }
+        });
+    }
+
+    /**
+     * Re-lays out the arc when the point moves
+     *
+     * @param node     node of the arc
+     * @param arcPoint point of the arc
+     */
+    private void listenToPoint(final ArcNode node, ArcPoint arcPoint) {
+        PropertyChangeListener listener = new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                refresh(node);
+            }
+        };
+        arcPoint.addPropertyChangeListener(listener);
+        pointListeners.put(arcPoint, listener);
+    }
+
+    /**
+     * @param component component to listen to
+     * @param listener  listener to register and remember for removal
+     */
+    private void listen(PetriNetComponent component, PropertyChangeListener listener) {
+        component.addPropertyChangeListener(listener);
+        listeners.put(component, listener);
+    }
+
+    /**
+     * @param connectable place or transition
+     * @return nodes of the arcs into or out of it
+     */
+    private Collection<ArcNode> getArcs(Connectable connectable) {
+        Set<ArcNode> arcs = connectedArcs.get(connectable);
+        if (arcs == null) {
+            return Collections.emptySet();
+        }
+        return arcs;
+    }
+
+    /**
+     * @param connectable source or target of the arc, may be null
+     * @param node        node of an arc into or out of the connectable
+     */
+    private void connect(Connectable connectable, ArcNode node) {
+        if (connectable == null) {
+            return;
+        }
+        Set<ArcNode> arcs = connectedArcs.get(connectable);
+        if (arcs == null) {
+            arcs = Collections.newSetFromMap(new IdentityHashMap<ArcNode, Boolean>());
+            connectedArcs.put(connectable, arcs);
+        }
+        arcs.add(node);
+    }
+
+    /**
+     * @param connectable source or target of the arc, may be null
+     * @param node        node of an arc no longer in the net
+     */
+    private void disconnect(Connectable connectable, ArcNode node) {
+        Set<ArcNode> arcs = connectedArcs.get(connectable);
+        if (arcs != null) {
+            arcs.remove(node);
+            if (arcs.isEmpty()) {
+                connectedArcs.remove(connectable);
+            }
+        }
+    }
+
+    /**
+     * Lays out a new node and marks its area dirty
+     *
+     * @param node node to add
+     */
+    private void add(SceneNode<?> node) {
+        node.update();
+        node.addTo(index);
+        nodes.put(node.getComponent(), node);
+        extent.put(node, node.getBounds());
+        changed(node.getBounds());
+    }
+
+    /**
+     * Lays out a node again, marking both its old and new areas dirty
+     *
+     * @param node node whose component changed
+     */
+    private void refresh(SceneNode<?> node) {
+        if (nodes.get(node.getComponent()) != node) {
+            return;
+        }
+        dirtyRegion.add(node.getBounds());
+        node.update();
+        node.addTo(index);
+        extent.put(node, node.getBounds());
+        changed(node.getBounds());
+    }
+
+    /**
+     * Takes a deleted component out of the scene
+     *
+     * @param component component no longer in the net
+     */
+    private void remove(PetriNetComponent component) {
+        SceneNode<?> node = nodes.remove(component);
+        if (node == null) {
+            return;
+        }
+        index.remove(node);
+        extent.remove(node);
+        PropertyChangeListener listener = listeners.remove(component);
+        if (listener != null) {
+            component.removePropertyChangeListener(listener);
+        }
+        if (node instanceof ArcNode) {
+            Arc<? extends Connectable, ? extends Connectable> arc = ((ArcNode) node).getComponent();
+            disconnect(arc.getSource(), (ArcNode) node);
+            disconnect(arc.getTarget(), (ArcNode) node);
+            for (ArcPoint arcPoint : arc.getArcPoints()) {
+                PropertyChangeListener pointListener = pointListeners.remove(arcPoint);
+                if (pointListener != null) {
+                    arcPoint.removePropertyChangeListener(pointListener);
+                }
+            }
+        }
+        changed(node.getBounds());
+    }
+
+    /**
+     * @param area area to repaint
+     */
+    private void changed(Rectangle area) {
+        dirtyRegion.add(area);
+        changeListener.run();
+    }
+
+    /**
+     * Adds nodes for components added to the net and removes those of deleted ones
+     */
+    private class PetriNetListener implements PropertyChangeListener {
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            String name = evt.getPropertyName();
+            if (name.equals(PetriNet.NEW_PLACE_CHANGE_MESSAGE)) {
+                addConnectable(new PlaceNode((Place) evt.getNewValue()));
+            } else if (name.equals(PetriNet.NEW_TRANSITION_CHANGE_MESSAGE)) {
+                addConnectable(new TransitionNode((Transition) evt.getNewValue()));
+            } else if (name.equals(PetriNet.NEW_ARC_CHANGE_MESSAGE)) {
+                addArc((Arc<? extends Connectable, ? extends Connectable>) evt.getNewValue());
+            } else if (name.equals(PetriNet.NEW_ANNOTATION_CHANGE_MESSAGE)) {
+                addAnnotation((Annotation) evt.getNewValue());
+            } else if (name.equals(PetriNet.DELETE_PLACE_CHANGE_MESSAGE) || name.equals(
+                    PetriNet.DELETE_TRANSITION_CHANGE_MESSAGE) || name.equals(
+                    PetriNet.DELETE_ARC_CHANGE_MESSAGE) || name.equals(PetriNet.DELETE_ANNOTATION_CHANGE_MESSAGE)) {
+                remove((PetriNetComponent) evt.getOldValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package pipe.gui.canvas;
+
+import pipe.constants.GUIConstants;
+import pipe.controllers.PetriNetController;
+import uk.ac.imperial.pipe.exceptions.PetriNetComponentNotFoundException;
+import uk.ac.imperial.pipe.models.petrinet.Place;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.util.Map;
+
+/**
+ * Retained drawing of a place, painted as {@link pipe.views.PlaceView} paints it
+ */
+final class PlaceNode extends ConnectableNode<Place> {
+
+    /**
+     * Font of token counts
+     */
+    private static final Font TOKEN_FONT = new Font("Dialog", Font.PLAIN, 12);
+
+    /**
+     * Offsets of the token dots from the top left of the place, the first token is in the middle
+     */
+    private static final int[][] TOKEN_OFFSETS = {{12, 13}, {18, 6}, {6, 20}, {18, 20}, {6, 6}};
+
+    /**
+     * Most tokens drawn as dots, more are drawn as numbers
+     */
+    private static final int MAX_TOKEN_DOTS = 5;
+
+    /**
+     * Width and height of a token dot
+     */
+    private static final int TOKEN_SIZE = 4;
+
+    /**
+     * @param place place drawn
+     */
+    PlaceNode(Place place) {
+        super(place);
+    }
+
+    /**
+     * @return circle of the place
+     */
+    @Override
+    protected Shape createShape() {
+        return new Ellipse2D.Double(component.getX(), component.getY(), component.getWidth(), component.getHeight());
+    }
+
+    /**
+     * Paints the place with a thicker outline if it has a capacity, and its tokens
+     *
+     * @param batch      batch being painted
+     * @param controller controller for selection and token colours
+     */
+    @Override
+    void paint(ShapeBatch batch, PetriNetController controller) {
+        boolean selected = controller.isSelected(component);
+        batch.fill(ShapeBatch.NODE_LAYER,
+                selected ? GUIConstants.SELECTION_FILL_COLOUR : GUIConstants.ELEMENT_FILL_COLOUR, shape);
+        batch.draw(ShapeBatch.NODE_LAYER,
+                selected ? GUIConstants.SELECTION_LINE_COLOUR : GUIConstants.ELEMENT_LINE_COLOUR,
+                component.getCapacity() > 0 ? 2 : 1, shape);
+        if (component.getNumberOfTokensStored() > MAX_TOKEN_DOTS) {
+            paintTokenCounts(batch, controller);
+        } else {
+            paintTokenDots(batch, controller);
+        }
+        paintLabel(batch);
+    }
+
+    /**
+     * Paints a dot for each token
+     *
+     * @param batch      batch being painted
+     * @param controller controller for token colours
+     */
+    private void paintTokenDots(ShapeBatch batch, PetriNetController controller) {
+        int position = 0;
+        for (Map.Entry<String, Integer> entry : component.getTokenCounts().entrySet()) {
+            Color color = tokenColor(controller, entry.getKey());
+            for (int i = 0; i < entry.getValue() && position < MAX_TOKEN_DOTS; i++, position++) {
+                Shape dot = new Ellipse2D.Double(component.getX() + TOKEN_OFFSETS[position][0],
+                        component.getY() + TOKEN_OFFSETS[position][1], TOKEN_SIZE, TOKEN_SIZE);
+                batch.fill(ShapeBatch.TOKEN_LAYER, color, dot);
+                batch.draw(ShapeBatch.TOKEN_LAYER, color, 1, dot);
+            }
+        }
+    }
+
+    /**
+     * Paints the number of tokens of each colour, one line per token
+     *
+     * @param batch      batch being painted
+     * @param controller controller for token colours
+     */
+    private void paintTokenCounts(ShapeBatch batch, PetriNetController controller) {
+        int offset = 0;
+        for (Map.Entry<String, Integer> entry : component.getTokenCounts().entrySet()) {
+            int count = entry.getValue();
+            if (count != 0) {
+                int indent = count > 999 ? 0 : count > 99 ? 3 : count > 9 ? 7 : 12;
+                batch.text(TOKEN_FONT, tokenColor(controller, entry.getKey()), String.valueOf(count),
+                        component.getX() + indent, component.getY() + 10 + offset);
+            }
+            offset += 10;
+        }
+    }
+
+    /**
+     * @param controller controller of the Petri net
+     * @param tokenId    token id
+     * @return colour of the token, black if the token does not exist
+     */
+    private static Color tokenColor(PetriNetController controller, String tokenId) {
+        try {
+            return controller.getToken(tokenId).getColor();
+        } catch (PetriNetComponentNotFoundException e) {
+            return Color.BLACK;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package pipe.gui.canvas;
+
+import pipe.actions.gui.PipeApplicationModel;
+import pipe.controllers.PetriNetController;
+import pipe.gui.PetriNetTab;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+
+/**
+ * Draws a whole Petri net as one Swing component. The net is kept as a retained
+ * {@link NetScene}, only the nodes inside the area being repainted are drawn, and their
+ * shapes are batched so each colour is stroked or filled once per paint.
+ * <p>
+ * Used in place of a view component per place, transition, arc and annotation for nets so
+ * large that laying out and painting thousands of Swing components makes editing sluggish.
+ * The existing handlers still receive the mouse events, see {@link SceneEventDispatcher}.
+ * </p>
+ */
+public final class SceneCanvas extends JComponent {
+
+    /**
+     * System property overriding the number of components from which a net is drawn by a
+     * scene canvas when it is opened
+     */
+    public static final String THRESHOLD_PROPERTY = "pipe.canvas.threshold";
+
+    /**
+     * Nets with at least this many components are drawn by a scene canvas unless
+     * {@value #THRESHOLD_PROPERTY} is set
+     */
+    public static final int DEFAULT_LARGE_NET_THRESHOLD = 2000;
+
+    /**
+     * Controller of the net, for selection and animation state
+     */
+    private final PetriNetController controller;
+
+    /**
+     * Retained scene of the net
+     */
+    private final NetScene scene;
+
+    /**
+     * True if a repaint of the dirty region is waiting on the event queue
+     */
+    private boolean repaintScheduled = false;
+
+    /**
+     * Repaints the dirty region and grows the tab if the net has outgrown it
+     */
+    private final Runnable flush = new Runnable() {
+        @Override
+        public void run() {
+            repaintScheduled = false;
+            for (Rectangle area : scene.drainDirtyRegion()) {
+                repaint(area);
+            }
+            PetriNetTab tab = controller.getPetriNetTab();
+            Rectangle bounds = scene.getBounds();
+            Dimension size = tab.getPreferredSize();
+            if (bounds.x + bounds.width > size.width || bounds.y + bounds.height > size.height) {
+                tab.updatePreferredSize();
+            }
+        }
+    };
+
+    /**
+     * @param petriNet         net to draw
+     * @param controller       controller of the net
+     * @param applicationModel main PIPE application model
+     */
+    public SceneCanvas(PetriNet petriNet, PetriNetController controller, PipeApplicationModel applicationModel) {
+        this.controller = controller;
+        setOpaque(false);
+        setLayout(null);
+        scene = new NetScene(petriNet, new Runnable() {
+            @Override
+            public void run() {
+                scheduleRepaint();
+            }
+        });
+        SceneEventDispatcher dispatcher = new SceneEventDispatcher(this, scene, controller, applicationModel);
+        addMouseListener(dispatcher);
+        addMouseMotionListener(dispatcher);
+        addMouseWheelListener(dispatcher);
+    }
+
+    /**
+     * @param petriNet Petri net
+     * @return true if the net is large enough to be drawn by a scene canvas
+     */
+    public static boolean isLargeNet(PetriNet petriNet) {
+        int components = petriNet.getPlaces().size() + petriNet.getTransitions().size() + petriNet.getArcs().size()
+                + petriNet.getAnnotations().size();
+        return components >= getLargeNetThreshold();
+    }
+
+    /**
+     * @return number of components from which a net is drawn by a scene canvas, read from
+     * {@value #THRESHOLD_PROPERTY} if it is set to a whole number
+     */
+    public static int getLargeNetThreshold() {
+        return Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_LARGE_NET_THRESHOLD);
+    }
+
+    /**
+     * Stops drawing the net, so the canvas no longer listens to it once it has been taken
+     * off its tab
+     */
+    public void dispose() {
+        scene.dispose();
+    }
+
+    /**
+     * @return area covered by the net
+     */
+    public Rectangle getSceneBounds() {
+        return scene.getBounds();
+    }
+
+    /**
+     * Coalesces the changes made while handling one event into a single repaint
+     */
+    private void scheduleRepaint() {
+        if (!repaintScheduled) {
+            repaintScheduled = true;
+            SwingUtilities.invokeLater(flush);
+        }
+    }
+
+    /**
+     * Paints the nodes inside the clip
+     *
+     * @param g graphics
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            Rectangle clip = g2.getClipBounds();
+            if (clip == null) {
+                clip = getVisibleRect();
+            }
+            ShapeBatch batch = new ShapeBatch();
+            for (SceneNode<?> node : scene.getNodes(clip)) {
+                node.paint(batch, controller);
+            }
+            batch.paint(g2);
+        } finally {
+            g2.dispose();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package pipe.gui.canvas;
+
+import pipe.actions.gui.PipeApplicationModel;
+import pipe.controllers.PetriNetController;
+import pipe.gui.PetriNetTab;
+import pipe.handlers.AnnotationNoteHandler;
+import pipe.handlers.ArcHandler;
+import pipe.handlers.PlaceHandler;
+import pipe.handlers.TransitionAnimationHandler;
+import pipe.handlers.TransitionHandler;
+import uk.ac.imperial.pipe.models.petrinet.*;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.event.MouseInputAdapter;
+import java.awt.Component;
+import java.awt.Point;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Routes mouse events on the {@link SceneCanvas} to the handlers the component views would
+ * have had, so the existing controllers and handlers work unchanged when the net is drawn by
+ * one component.
+ * <p>
+ * The node under the mouse is found from the scene and its handlers are given the event as
+ * if it came from a component covering the node, so handlers that show pop up menus or
+ * convert points to the tab behave as they do for views. Events that miss every node go to
+ * whatever lies beneath the canvas on the tab, usually the selection manager or the tab
+ * itself. As with Swing, the target of a press keeps every event until the mouse is
+ * released.
+ * </p>
+ */
+final class SceneEventDispatcher extends MouseInputAdapter {
+
+    /**
+     * Canvas the events arrive on
+     */
+    private final SceneCanvas canvas;
+
+    /**
+     * Scene hit tested
+     */
+    private final NetScene scene;
+
+    /**
+     * Controller of the net, given to the handlers
+     */
+    private final PetriNetController controller;
+
+    /**
+     * Main PIPE application model, given to the handlers
+     */
+    private final PipeApplicationModel applicationModel;
+
+    /**
+     * Invisible component moved over the node an event is for, the source of the events the
+     * node's handlers receive
+     */
+    private final JComponent anchor = new JComponent() {
+    };
+
+    /**
+     * Node that received the last press, null if the press missed every node
+     */
+    private SceneNode<?> pressedNode = null;
+
+    /**
+     * Component beneath the canvas that received the last press, null if a node received it
+     */
+    private Component pressedComponent = null;
+
+    /**
+     * @param canvas           canvas the events arrive on
+     * @param scene            scene hit tested
+     * @param controller       controller of the net
+     * @param applicationModel main PIPE application model
+     */
+    SceneEventDispatcher(SceneCanvas canvas, NetScene scene, PetriNetController controller,
+                         PipeApplicationModel applicationModel) {
+        this.canvas = canvas;
+        this.scene = scene;
+        this.controller = controller;
+        this.applicationModel = applicationModel;
+        anchor.setOpaque(false);
+        canvas.add(anchor);
+    }
+
+    @Override
+    public void mousePressed(MouseEvent e) {
+        pressedNode = scene.getNodeAt(e.getPoint());
+        pressedComponent = pressedNode == null ? componentBeneath(e.getPoint()) : null;
+        forwardToPressed(e);
+        canvas.repaint(canvas.getVisibleRect());
+    }
+
+    @Override
+    public void mouseReleased(MouseEvent e) {
+        forwardToPressed(e);
+        canvas.repaint(canvas.getVisibleRect());
+    }
+
+    @Override
+    public void mouseClicked(MouseEvent e) {
+        forwardToPressed(e);
+    }
+
+    @Override
+    public void mouseDragged(MouseEvent e) {
+        forwardToPressed(e);
+    }
+
+    @Override
+    public void mouseMoved(MouseEvent e) {
+        forwardToPoint(e);
+    }
+
+    @Override
+    public void mouseWheelMoved(MouseWheelEvent e) {
+        forwardToPoint(e);
+    }
+
+    /**
+     * Sends the event to whatever received the last press
+     *
+     * @param e event on the canvas
+     */
+    private void forwardToPressed(MouseEvent e) {
+        if (pressedNode != null) {
+            forward(e, pressedNode);
+        } else if (pressedComponent != null) {
+            forward(e, pressedComponent);
+        } else {
+            forwardToPoint(e);
+        }
+    }
+
+    /**
+     * Sends the event to whatever is under the mouse
+     *
+     * @param e event on the canvas
+     */
+    private void forwardToPoint(MouseEvent e) {
+        SceneNode<?> node = scene.getNodeAt(e.getPoint());
+        if (node != null) {
+            forward(e, node);
+        } else {
+            forward(e, componentBeneath(e.getPoint()));
+        }
+    }
+
+    /**
+     * Gives the event to the handlers of the node, as if it came from a component covering
+     * the node
+     *
+     * @param e    event on the canvas
+     * @param node node the event is for
+     */
+    private void forward(MouseEvent e, SceneNode<?> node) {
+        if (node.getHandlers() == null) {
+            node.setHandlers(createHandlers(node.getComponent()));
+        }
+        anchor.setBounds(node.getBounds());
+        MouseEvent converted = SwingUtilities.convertMouseEvent(canvas, e, anchor);
+        List<MouseInputAdapter> handlers = node.getHandlers();
+        deliver(converted, handlers, handlers, handlers);
+        if (converted.isConsumed()) {
+            e.consume();
+        }
+    }
+
+    /**
+     * Gives the event to the listeners of a component beneath the canvas
+     *
+     * @param e      event on the canvas
+     * @param target component beneath the canvas
+     */
+    private void forward(MouseEvent e, Component target) {
+        MouseEvent converted = SwingUtilities.convertMouseEvent(canvas, e, target);
+        deliver(converted, Arrays.asList(target.getMouseListeners()),
+                Arrays.asList(target.getMouseMotionListeners()), Arrays.asList(target.getMouseWheelListeners()));
+    }
+
+    /**
+     * Calls the listener method matching the event
+     *
+     * @param e      event to deliver
+     * @param mouse  mouse listeners
+     * @param motion mouse motion listeners
+     * @param wheel  mouse wheel listeners
+     */
+    private static void deliver(MouseEvent e, Collection<? extends MouseListener> mouse,
+                                Collection<? extends MouseMotionListener> motion,
+                                Collection<? extends MouseWheelListener> wheel) {
+        switch (e.getID()) {
+            case MouseEvent.MOUSE_PRESSED:
+                for (MouseListener listener : mouse) {
+                    listener.mousePressed(e);
+                }
+                break;
+            case MouseEvent.MOUSE_RELEASED:
+                for (MouseListener listener : mouse) {
+                    listener.mouseReleased(e);
+                }
+                break;
+            case MouseEvent.MOUSE_CLICKED:
+                for (MouseListener listener : mouse) {
+                    listener.mouseClicked(e);
+                }
+                break;
+            case MouseEvent.MOUSE_DRAGGED:
+                for (MouseMotionListener listener : motion) {
+                    listener.mouseDragged(e);
+                }
+                break;
+            case MouseEvent.MOUSE_MOVED:
+                for (MouseMotionListener listener : motion) {
+                    listener.mouseMoved(e);
+                }
+                break;
+            case MouseEvent.MOUSE_WHEEL:
+                for (MouseWheelListener listener : wheel) {
+                    listener.mouseWheelMoved((MouseWheelEvent) e);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @param point point on the canvas
+     * @return the topmost component of the tab other than the canvas under the point, or the
+     * tab itself if there is none
+     */
+    private Component componentBeneath(Point point) {
+        PetriNetTab tab = controller.getPetriNetTab();
+        Point onTab = SwingUtilities.convertPoint(canvas, point, tab);
+        for (Component component : tab.getComponents()) {
+            if (component != canvas && component.isVisible() && component.getBounds().contains(onTab)) {
+                return component;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * Creates the handlers the component's view builder would have given its view
+     *
+     * @param component component the mouse has reached
+     * @return handlers of the component
+     */
+    private List<MouseInputAdapter> createHandlers(PetriNetComponent component) {
+        PetriNetTab tab = controller.getPetriNetTab();
+        List<MouseInputAdapter> handlers = new ArrayList<>();
+        if (component instanceof Place) {
+            handlers.add(new PlaceHandler(tab, (Place) component, controller, applicationModel));
+        } else if (component instanceof Transition) {
+            Transition transition = (Transition) component;
+            handlers.add(new TransitionHandler(tab, transition, controller, applicationModel));
+            handlers.add(new TransitionAnimationHandler(transition, controller));
+        } else if (component instanceof Arc) {
+            Arc<? extends Connectable, ? extends Connectable> arc =
+                    (Arc<? extends Connectable, ? extends Connectable>) component;
+            ArcHandler<? extends Connectable, ? extends Connectable> handler =
+                    new ArcHandler<>(tab, arc, controller, applicationModel);
+            handlers.add(handler);
+        } else if (component instanceof Annotation) {
+            handlers.add(new AnnotationNoteHandler(tab, (Annotation) component, controller, applicationModel));
+        }
+        return handlers;
+    }
+}
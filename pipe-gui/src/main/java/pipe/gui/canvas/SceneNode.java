@@ -0,0 +1,132 @@
+package pipe.gui.canvas;
+
+import pipe.controllers.PetriNetController;
+import pipe.utilities.math.SpatialIndex;
+import uk.ac.imperial.pipe.models.petrinet.PetriNetComponent;
+
+import javax.swing.event.MouseInputAdapter;
+import java.awt.Font;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+/**
+ * Retained drawing of one Petri net component. The geometry is worked out from the model
+ * when the component changes rather than on every paint.
+ *
+ * @param <T> component drawn
+ */
+abstract class SceneNode<T extends PetriNetComponent> {
+
+    /**
+     * Font of place and transition names and arc weights, as {@link pipe.views.TextLabel} uses
+     */
+    static final Font LABEL_FONT = new Font("Dialog", Font.BOLD, 10);
+
+    /**
+     * Measures text without a component to hand
+     */
+    private static final FontRenderContext FONT_CONTEXT = new FontRenderContext(null, true, true);
+
+    /**
+     * Component drawn
+     */
+    protected final T component;
+
+    /**
+     * Area painted by the node, including its labels
+     */
+    private Rectangle bounds = new Rectangle();
+
+    /**
+     * Mouse handlers of the component, created when the mouse first reaches it
+     */
+    private List<MouseInputAdapter> handlers = null;
+
+    /**
+     * @param component component drawn
+     */
+    SceneNode(T component) {
+        this.component = component;
+    }
+
+    /**
+     * Works out the geometry of the node from its component
+     *
+     * @return area painted by the node
+     */
+    protected abstract Rectangle layout();
+
+    /**
+     * Records the node in the index used for culling and hit testing
+     *
+     * @param index index of the scene
+     */
+    abstract void addTo(SpatialIndex<SceneNode<?>> index);
+
+    /**
+     * @param point     point on the canvas
+     * @param tolerance distance from thin lines that still counts as a hit
+     * @return true if the point is on the node
+     */
+    abstract boolean contains(Point2D point, double tolerance);
+
+    /**
+     * @return priority when several nodes are under the mouse, the highest wins
+     */
+    abstract int getHitPriority();
+
+    /**
+     * Adds the shapes and text of the node to the batch
+     *
+     * @param batch      batch being painted
+     * @param controller controller for selection, animation and token colours
+     */
+    abstract void paint(ShapeBatch batch, PetriNetController controller);
+
+    /**
+     * Re-reads the geometry from the component
+     */
+    final void update() {
+        bounds = layout();
+    }
+
+    /**
+     * @return component drawn
+     */
+    final T getComponent() {
+        return component;
+    }
+
+    /**
+     * @return area painted by the node, including its labels
+     */
+    final Rectangle getBounds() {
+        return bounds;
+    }
+
+    /**
+     * @return mouse handlers of the component, null if they have not been created
+     */
+    final List<MouseInputAdapter> getHandlers() {
+        return handlers;
+    }
+
+    /**
+     * @param handlers mouse handlers of the component
+     */
+    final void setHandlers(List<MouseInputAdapter> handlers) {
+        this.handlers = handlers;
+    }
+
+    /**
+     * @param font font of the text
+     * @param text text to measure
+     * @return bounds of the text relative to the start of its base line
+     */
+    static Rectangle2D measure(Font font, String text) {
+        return font.getStringBounds(text, FONT_CONTEXT);
+    }
+}
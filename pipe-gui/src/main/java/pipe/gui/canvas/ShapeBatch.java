@@ -0,0 +1,245 @@
+package pipe.gui.canvas;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the shapes of the nodes being painted into one path per layer, colour and stroke
+ * so that a frame costs a handful of fill and draw calls however many nodes are visible.
+ * <p>
+ * Layers are painted in order. Within a layer every fill is painted before any outline.
+ * </p>
+ */
+final class ShapeBatch {
+
+    /**
+     * Annotation boxes, painted below everything else
+     */
+    static final int ANNOTATION_LAYER = 0;
+
+    /**
+     * Arc lines
+     */
+    static final int ARC_LAYER = 1;
+
+    /**
+     * Arc heads, painted over the end of their lines
+     */
+    static final int ARC_HEAD_LAYER = 2;
+
+    /**
+     * Stacked outlines of infinite server transitions
+     */
+    static final int SHADOW_LAYER = 3;
+
+    /**
+     * Places and transitions
+     */
+    static final int NODE_LAYER = 4;
+
+    /**
+     * Tokens drawn as dots inside places
+     */
+    static final int TOKEN_LAYER = 5;
+
+    /**
+     * Number of layers
+     */
+    private static final int LAYERS = 6;
+
+    /**
+     * Filled shapes of each layer by colour
+     */
+    private final List<Map<Color, Path2D>> fills = new ArrayList<>();
+
+    /**
+     * Outlined shapes of each layer by colour and stroke
+     */
+    private final List<Map<Pen, Path2D>> outlines = new ArrayList<>();
+
+    /**
+     * Text drawn over every layer, grouped by font and colour
+     */
+    private final Map<Pen, List<Text>> texts = new LinkedHashMap<>();
+
+    /**
+     * Empty batch
+     */
+    ShapeBatch() {
+        for (int layer = 0; layer < LAYERS; layer++) {
+            fills.add(new LinkedHashMap<Color, Path2D>());
+            outlines.add(new LinkedHashMap<Pen, Path2D>());
+        }
+    }
+
+    /**
+     * @param layer layer to fill the shape in
+     * @param color fill colour
+     * @param shape shape to fill
+     */
+    void fill(int layer, Color color, Shape shape) {
+        Map<Color, Path2D> layerFills = fills.get(layer);
+        Path2D path = layerFills.get(color);
+        if (path == null) {
+            path = new Path2D.Double(Path2D.WIND_NON_ZERO);
+            layerFills.put(color, path);
+        }
+        path.append(shape, false);
+    }
+
+    /**
+     * @param layer layer to outline the shape in
+     * @param color line colour
+     * @param width line width
+     * @param shape shape to outline
+     */
+    void draw(int layer, Color color, float width, Shape shape) {
+        Map<Pen, Path2D> layerOutlines = outlines.get(layer);
+        Pen pen = new Pen(color, width, null);
+        Path2D path = layerOutlines.get(pen);
+        if (path == null) {
+            path = new Path2D.Double();
+            layerOutlines.put(pen, path);
+        }
+        path.append(shape, false);
+    }
+
+    /**
+     * @param font  font of the text
+     * @param color colour of the text
+     * @param text  text to draw
+     * @param x     x of the start of the base line
+     * @param y     y of the base line
+     */
+    void text(Font font, Color color, String text, float x, float y) {
+        Pen pen = new Pen(color, 0, font);
+        List<Text> runs = texts.get(pen);
+        if (runs == null) {
+            runs = new ArrayList<>();
+            texts.put(pen, runs);
+        }
+        runs.add(new Text(text, x, y));
+    }
+
+    /**
+     * Paints everything collected
+     *
+     * @param g2 graphics to paint on
+     */
+    void paint(Graphics2D g2) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int layer = 0; layer < LAYERS; layer++) {
+            for (Map.Entry<Color, Path2D> entry : fills.get(layer).entrySet()) {
+                g2.setColor(entry.getKey());
+                g2.fill(entry.getValue());
+            }
+            for (Map.Entry<Pen, Path2D> entry : outlines.get(layer).entrySet()) {
+                g2.setColor(entry.getKey().color);
+                g2.setStroke(new BasicStroke(entry.getKey().width));
+                g2.draw(entry.getValue());
+            }
+        }
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        for (Map.Entry<Pen, List<Text>> entry : texts.entrySet()) {
+            g2.setColor(entry.getKey().color);
+            g2.setFont(entry.getKey().font);
+            for (Text run : entry.getValue()) {
+                g2.drawString(run.text, run.x, run.y);
+            }
+        }
+    }
+
+    /**
+     * Colour with a line width or font, the key shapes and text are grouped by
+     */
+    private static final class Pen {
+
+        /**
+         * Colour
+         */
+        private final Color color;
+
+        /**
+         * Line width, zero for text
+         */
+        private final float width;
+
+        /**
+         * Font, null for shapes
+         */
+        private final Font font;
+
+        /**
+         * @param color colour
+         * @param width line width
+         * @param font  font
+         */
+        private Pen(Color color, float width, Font font) {
+            this.color = color;
+            this.width = width;
+            this.font = font;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Pen)) {
+                return false;
+            }
+            Pen pen = (Pen) o;
+            return Float.compare(pen.width, width) == 0 && color.equals(pen.color) && (font == null ?
+                    pen.font == null : font.equals(pen.font));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = color.hashCode();
+            result = 31 * result + Float.floatToIntBits(width);
+            result = 31 * result + (font == null ? 0 : font.hashCode());
+            return result;
+        }
+    }
+
+    /**
+     * Text at a position
+     */
+    private static final class Text {
+
+        /**
+         * Text to draw
+         */
+        private final String text;
+
+        /**
+         * x of the start of the base line
+         */
+        private final float x;
+
+        /**
+         * y of the base line
+         */
+        private final float y;
+
+        /**
+         * @param text text to draw
+         * @param x    x of the start of the base line
+         * @param y    y of the base line
+         */
+        private Text(String text, float x, float y) {
+            this.text = text;
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package pipe.gui.canvas;
+
+import pipe.constants.GUIConstants;
+import pipe.controllers.PetriNetController;
+import uk.ac.imperial.pipe.models.petrinet.Transition;
+
+import java.awt.Color;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Retained drawing of a transition, painted as {@link pipe.views.TransitionView} paints it
+ */
+final class TransitionNode extends ConnectableNode<Transition> {
+
+    /**
+     * Offset of each stacked outline drawn behind an infinite server transition
+     */
+    private static final int SHADOW_OFFSET = 2;
+
+    /**
+     * @param transition transition drawn
+     */
+    TransitionNode(Transition transition) {
+        super(transition);
+    }
+
+    /**
+     * @return rectangle of the transition rotated by its angle about its centre
+     */
+    @Override
+    protected Shape createShape() {
+        double width = component.getWidth();
+        double height = component.getHeight();
+        AffineTransform transform = AffineTransform.getTranslateInstance(component.getX() + width / 2,
+                component.getY() + height / 2);
+        transform.rotate(Math.toRadians(component.getAngle()));
+        return transform.createTransformedShape(new Rectangle2D.Double(-width / 2, -height / 2, width, height));
+    }
+
+    /**
+     * Paints timed transitions hollow and immediate ones solid, with stacked outlines
+     * behind infinite server transitions. Enabled transitions are outlined in red when
+     * animating.
+     *
+     * @param batch      batch being painted
+     * @param controller controller for selection and animation
+     */
+    @Override
+    void paint(ShapeBatch batch, PetriNetController controller) {
+        boolean selected = controller.isSelected(component);
+        Color line;
+        if (component.isEnabled() && controller.isInAnimationMode()) {
+            line = GUIConstants.ENABLED_TRANSITION_COLOUR;
+        } else if (selected) {
+            line = GUIConstants.SELECTION_LINE_COLOUR;
+        } else {
+            line = GUIConstants.ELEMENT_LINE_COLOUR;
+        }
+        Color fill = selected ? GUIConstants.SELECTION_FILL_COLOUR : GUIConstants.ELEMENT_FILL_COLOUR;
+
+        if (component.isInfiniteServer()) {
+            Color shadowFill = component.isTimed() ? fill : GUIConstants.ELEMENT_FILL_COLOUR;
+            for (int i = 2; i >= 1; i--) {
+                Shape shadow = AffineTransform.getTranslateInstance(SHADOW_OFFSET * i, -SHADOW_OFFSET * i)
+                        .createTransformedShape(shape);
+                batch.fill(ShapeBatch.SHADOW_LAYER, shadowFill, shadow);
+                batch.draw(ShapeBatch.SHADOW_LAYER, line, 1, shadow);
+            }
+        }
+        batch.fill(ShapeBatch.NODE_LAYER, component.isTimed() ? fill : line, shape);
+        batch.draw(ShapeBatch.NODE_LAYER, line, 1, shape);
+        paintLabel(batch);
+    }
+}
@@ -0,0 +1,34 @@
+package pipe.gui.plugin.concrete;
+
+import pipe.gui.analysis.SimulationAnalysis;
+import pipe.gui.plugin.GuiModule;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+
+import javax.swing.*;
+import java.awt.FileDialog;
+
+public class SimulationAnalysisModule implements GuiModule {
+    /**
+     * Starts the GSPN simulation module
+     * @param petriNet current Petri net to use
+     */
+    @Override
+    public void start(PetriNet petriNet) {
+        JFrame frame = new JFrame("GSPN simulation");
+        FileDialog selector = new FileDialog(frame, "Select petri net", FileDialog.LOAD);
+
+        frame.setContentPane(new SimulationAnalysis(petriNet, selector).getMainPanel());
+        frame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        frame.pack();
+        frame.setVisible(true);
+    }
+
+    /**
+     *
+     * @return GSPN Simulation
+     */
+    @Override
+    public String getName() {
+        return "GSPN Simulation";
+    }
+}
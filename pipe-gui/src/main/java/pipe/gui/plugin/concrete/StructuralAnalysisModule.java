@@ -0,0 +1,34 @@
+package pipe.gui.plugin.concrete;
+
+import pipe.gui.analysis.StructuralAnalysis;
+import pipe.gui.plugin.GuiModule;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+
+import javax.swing.*;
+import java.awt.FileDialog;
+
+public class StructuralAnalysisModule implements GuiModule {
+    /**
+     * Starts the structural analysis module
+     * @param petriNet current Petri net to use
+     */
+    @Override
+    public void start(PetriNet petriNet) {
+        JFrame frame = new JFrame("Structural analysis");
+        FileDialog selector = new FileDialog(frame, "Select petri net", FileDialog.LOAD);
+
+        frame.setContentPane(new StructuralAnalysis(petriNet, selector).getMainPanel());
+        frame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        frame.pack();
+        frame.setVisible(true);
+    }
+
+    /**
+     *
+     * @return Structural Analysis
+     */
+    @Override
+    public String getName() {
+        return "Structural Analysis";
+    }
+}
@@ -0,0 +1,128 @@
+package pipe.utilities.math;
+
+import java.awt.Rectangle;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the furthest right and bottom edges of a changing set of rectangles, so the extent
+ * of everything on the canvas is known without looking at every item when one moves.
+ * <p>
+ * The right and bottom edges are each kept in a sorted multiset, so adding, moving and
+ * removing an item costs O(log n) and the extent is read in O(1). Items are compared by
+ * identity.
+ * </p>
+ *
+ * @param <T> item type
+ */
+public final class ExtentTracker<T> {
+
+    /**
+     * Number of items whose right edge is at each x
+     */
+    private final TreeMap<Integer, Integer> rightEdges = new TreeMap<>();
+
+    /**
+     * Number of items whose bottom edge is at each y
+     */
+    private final TreeMap<Integer, Integer> bottomEdges = new TreeMap<>();
+
+    /**
+     * Bounds recorded for each item
+     */
+    private final Map<T, Rectangle> bounds = new IdentityHashMap<>();
+
+    /**
+     * Records the bounds of the item, replacing anything recorded for it before
+     *
+     * @param item   item to record
+     * @param bounds bounds of the item
+     */
+    public void put(T item, Rectangle bounds) {
+        Rectangle copy = new Rectangle(bounds);
+        Rectangle previous = this.bounds.put(item, copy);
+        if (previous != null) {
+            decrement(rightEdges, previous.x + previous.width);
+            decrement(bottomEdges, previous.y + previous.height);
+        }
+        increment(rightEdges, copy.x + copy.width);
+        increment(bottomEdges, copy.y + copy.height);
+    }
+
+    /**
+     * Forgets the item, does nothing if it is not recorded
+     *
+     * @param item item to forget
+     */
+    public void remove(T item) {
+        Rectangle previous = bounds.remove(item);
+        if (previous != null) {
+            decrement(rightEdges, previous.x + previous.width);
+            decrement(bottomEdges, previous.y + previous.height);
+        }
+    }
+
+    /**
+     * @param item item
+     * @return true if the item is recorded
+     */
+    public boolean contains(T item) {
+        return bounds.containsKey(item);
+    }
+
+    /**
+     * @return true if no items are recorded
+     */
+    public boolean isEmpty() {
+        return bounds.isEmpty();
+    }
+
+    /**
+     * Forgets every item
+     */
+    public void clear() {
+        bounds.clear();
+        rightEdges.clear();
+        bottomEdges.clear();
+    }
+
+    /**
+     * @return furthest right edge of any item, 0 if there are none
+     */
+    public int getMaxX() {
+        return rightEdges.isEmpty() ? 0 : rightEdges.lastKey();
+    }
+
+    /**
+     * @return furthest bottom edge of any item, 0 if there are none
+     */
+    public int getMaxY() {
+        return bottomEdges.isEmpty() ? 0 : bottomEdges.lastKey();
+    }
+
+    /**
+     * @param edges multiset of edges
+     * @param edge  edge to add
+     */
+    private static void increment(TreeMap<Integer, Integer> edges, int edge) {
+        Integer count = edges.get(edge);
+        edges.put(edge, count == null ? 1 : count + 1);
+    }
+
+    /**
+     * @param edges multiset of edges
+     * @param edge  edge to remove one of
+     */
+    private static void decrement(TreeMap<Integer, Integer> edges, int edge) {
+        Integer count = edges.get(edge);
+        if (count == null) {
+            return;
+        }
+        if (count == 1) {
+            edges.remove(edge);
+        } else {
+            edges.put(edge, count - 1);
+        }
+    }
+}
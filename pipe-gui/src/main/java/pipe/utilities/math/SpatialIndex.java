@@ -0,0 +1,350 @@
+package pipe.utilities.math;
+
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Uniform grid over the canvas recording which items lie in each cell, so the items under
+ * a rectangle are found by looking in the cells it covers rather than at every item.
+ * <p>
+ * Items are either rectangles or poly-lines. A poly-line is only recorded in the cells its
+ * segments pass through, so a long diagonal arc does not fill every cell of its bounding box.
+ * Items are compared by identity because the models they stand for change their equality
+ * as they move.
+ * </p>
+ *
+ * @param <T> item type
+ */
+public final class SpatialIndex<T> {
+
+    /**
+     * Width and height of a cell, a little larger than a place or transition
+     */
+    public static final int DEFAULT_CELL_SIZE = 128;
+
+    /**
+     * Width and height of a cell
+     */
+    private final int cellSize;
+
+    /**
+     * Items recorded in each non empty cell, keyed by {@link #key(int, int)}
+     */
+    private final Map<Long, Set<T>> cells = new HashMap<>();
+
+    /**
+     * Geometry and cells of every item
+     */
+    private final Map<T, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * Index with cells of {@link #DEFAULT_CELL_SIZE}
+     */
+    public SpatialIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * @param cellSize width and height of a cell
+     */
+    public SpatialIndex(int cellSize) {
+        if (cellSize < 1) {
+            throw new IllegalArgumentException("Cell size must be positive, not " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Records the item as a rectangle, replacing anything recorded for it before
+     *
+     * @param item   item to record
+     * @param bounds bounds of the item
+     */
+    public void put(T item, Rectangle bounds) {
+        Rectangle copy = new Rectangle(bounds);
+        Set<Long> keys = new HashSet<>();
+        addCells(copy.getMinX(), copy.getMinY(), copy.getMaxX(), copy.getMaxY(), keys);
+        replace(item, new Entry(copy, null, keys));
+    }
+
+    /**
+     * Records the item as the poly-line through the points, replacing anything recorded
+     * for it before
+     *
+     * @param item   item to record
+     * @param points points of the poly-line in order, an item with no points is removed
+     */
+    public void putPath(T item, List<? extends Point2D> points) {
+        if (points.isEmpty()) {
+            remove(item);
+            return;
+        }
+        double[] path = new double[points.size() * 2];
+        for (int i = 0; i < points.size(); i++) {
+            path[2 * i] = points.get(i).getX();
+            path[2 * i + 1] = points.get(i).getY();
+        }
+        Set<Long> keys = new HashSet<>();
+        addCells(path[0], path[1], path[0], path[1], keys);
+        for (int i = 2; i < path.length; i += 2) {
+            addSegmentCells(path[i - 2], path[i - 1], path[i], path[i + 1], keys);
+        }
+        replace(item, new Entry(null, path, keys));
+    }
+
+    /**
+     * @param item item to forget
+     * @return true if the item was recorded
+     */
+    public boolean remove(T item) {
+        Entry entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        removeFromCells(item, entry);
+        return true;
+    }
+
+    /**
+     * @param item item to look for
+     * @return true if the item is recorded
+     */
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    /**
+     * @return number of items recorded
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Forgets every item
+     */
+    public void clear() {
+        cells.clear();
+        entries.clear();
+    }
+
+    /**
+     * Finds the items that intersect the area. Like {@link Rectangle#intersects(Rectangle)}
+     * an empty area intersects nothing.
+     *
+     * @param area area to search
+     * @return items whose rectangle or poly-line intersects the area, each once
+     */
+    public Collection<T> query(Rectangle2D area) {
+        if (area.isEmpty() || entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int firstColumn = cell(area.getMinX());
+        int lastColumn = cell(area.getMaxX());
+        int firstRow = cell(area.getMinY());
+        int lastRow = cell(area.getMaxY());
+        Set<T> seen = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+        List<T> found = new ArrayList<>();
+        long covered = ((long) lastColumn - firstColumn + 1) * ((long) lastRow - firstRow + 1);
+        if (covered > cells.size()) {
+            for (Map.Entry<Long, Set<T>> cell : cells.entrySet()) {
+                long key = cell.getKey();
+                int column = (int) (key >> 32);
+                int row = (int) key;
+                if (column >= firstColumn && column <= lastColumn && row >= firstRow && row <= lastRow) {
+                    collect(cell.getValue(), area, seen, found);
+                }
+            }
+        } else {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                for (int row = firstRow; row <= lastRow; row++) {
+                    Set<T> items = cells.get(key(column, row));
+                    if (items != null) {
+                        collect(items, area, seen, found);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Adds the items of a cell that intersect the area and have not been seen yet
+     *
+     * @param items items of the cell
+     * @param area  area to search
+     * @param seen  items already tested
+     * @param found items intersecting the area
+     */
+    private void collect(Set<T> items, Rectangle2D area, Set<T> seen, List<T> found) {
+        for (T item : items) {
+            if (seen.add(item) && entries.get(item).intersects(area)) {
+                found.add(item);
+            }
+        }
+    }
+
+    /**
+     * @param item  item to record
+     * @param entry its new geometry
+     */
+    private void replace(T item, Entry entry) {
+        Entry previous = entries.put(item, entry);
+        if (previous != null) {
+            removeFromCells(item, previous);
+        }
+        for (Long key : entry.keys) {
+            Set<T> items = cells.get(key);
+            if (items == null) {
+                items = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+                cells.put(key, items);
+            }
+            items.add(item);
+        }
+    }
+
+    /**
+     * @param item  item to take out of its cells
+     * @param entry geometry the item was recorded with
+     */
+    private void removeFromCells(T item, Entry entry) {
+        for (Long key : entry.keys) {
+            Set<T> items = cells.get(key);
+            if (items != null) {
+                items.remove(item);
+                if (items.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the cells covered by a rectangle
+     *
+     * @param minX left edge
+     * @param minY top edge
+     * @param maxX right edge
+     * @param maxY bottom edge
+     * @param keys keys of the cells
+     */
+    private void addCells(double minX, double minY, double maxX, double maxY, Set<Long> keys) {
+        int lastColumn = cell(maxX);
+        int lastRow = cell(maxY);
+        for (int column = cell(minX); column <= lastColumn; column++) {
+            for (int row = cell(minY); row <= lastRow; row++) {
+                keys.add(key(column, row));
+            }
+        }
+    }
+
+    /**
+     * Adds the cells a line segment passes through, one column of cells at a time
+     *
+     * @param x0   x of one end
+     * @param y0   y of one end
+     * @param x1   x of the other end
+     * @param y1   y of the other end
+     * @param keys keys of the cells
+     */
+    private void addSegmentCells(double x0, double y0, double x1, double y1, Set<Long> keys) {
+        if (x0 > x1) {
+            addSegmentCells(x1, y1, x0, y0, keys);
+            return;
+        }
+        if (x0 == x1) {
+            addCells(x0, Math.min(y0, y1), x1, Math.max(y0, y1), keys);
+            return;
+        }
+        double slope = (y1 - y0) / (x1 - x0);
+        int lastColumn = cell(x1);
+        for (int column = cell(x0); column <= lastColumn; column++) {
+            double left = Math.max(x0, (double) column * cellSize);
+            double right = Math.min(x1, (double) (column + 1) * cellSize);
+            double leftY = y0 + (left - x0) * slope;
+            double rightY = y0 + (right - x0) * slope;
+            int lastRow = cell(Math.max(leftY, rightY));
+            for (int row = cell(Math.min(leftY, rightY)); row <= lastRow; row++) {
+                keys.add(key(column, row));
+            }
+        }
+    }
+
+    /**
+     * @param coordinate x or y coordinate
+     * @return column or row of the cell containing the coordinate
+     */
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * @param column column of the cell
+     * @param row    row of the cell
+     * @return key of the cell in {@link #cells}
+     */
+    private static long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Geometry of an item and the cells it was recorded in
+     */
+    private static final class Entry {
+
+        /**
+         * Bounds of a rectangle item, null for a poly-line
+         */
+        private final Rectangle bounds;
+
+        /**
+         * x, y pairs of a poly-line item, null for a rectangle
+         */
+        private final double[] path;
+
+        /**
+         * Keys of the cells the item is recorded in
+         */
+        private final Set<Long> keys;
+
+        /**
+         * @param bounds bounds of a rectangle item
+         * @param path   x, y pairs of a poly-line item
+         * @param keys   keys of the cells the item is recorded in
+         */
+        private Entry(Rectangle bounds, double[] path, Set<Long> keys) {
+            this.bounds = bounds;
+            this.path = path;
+            this.keys = keys;
+        }
+
+        /**
+         * @param area area to test
+         * @return true if the item intersects the area
+         */
+        private boolean intersects(Rectangle2D area) {
+            if (bounds != null) {
+                return bounds.intersects(area);
+            }
+            if (path.length == 2) {
+                return area.contains(path[0], path[1]);
+            }
+            for (int i = 2; i < path.length; i += 2) {
+                if (area.intersectsLine(path[i - 2], path[i - 1], path[i], path[i + 1])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -43,6 +43,7 @@ import pipe.actions.gui.GuiAction;
 import pipe.actions.gui.ImportAction;
 import pipe.actions.gui.PipeApplicationModel;
 import pipe.actions.gui.PrintAction;
+import pipe.actions.gui.SceneCanvasAction;
 import pipe.actions.gui.SelectAction;
 import pipe.actions.gui.SetZoomAction;
 import pipe.actions.gui.UnfoldAction;
@@ -133,6 +134,7 @@ public final class PipeApplicationBuilder {
         ExportPSAction exportPSAction = new ExportPSAction();
         ImportAction importAction = new ImportAction();
         GridAction toggleGrid = new GridAction(controller);
+        SceneCanvasAction sceneCanvasAction = new SceneCanvasAction(controller);
         ZoomOutAction zoomOutAction = new ZoomOutAction(zoomUI);
         ZoomInAction zoomInAction = new ZoomInAction(zoomUI);
         SetZoomAction zoomAction = new SetZoomAction("Zoom", "Select zoom percentage ", "", controller, view);
@@ -144,7 +146,7 @@ public final class PipeApplicationBuilder {
         return new PIPEComponents(chooseTokenClassAction, componentEditorManager, undoListener, componentCreatorManager,
                 animateActionManager, editorManager, tokenActionManager, printAction, exportPNGAction, selectAction,
                 exitAction, zoomAction, unfoldAction, zoomOutAction, zoomInAction, toggleGrid, importAction,
-                exportPSAction, exportTNAction, layoutAction);
+                exportPSAction, exportTNAction, layoutAction, sceneCanvasAction);
     }
 
     /**
@@ -329,6 +331,7 @@ public final class PipeApplicationBuilder {
 
         viewMenu.addSeparator();
         addMenuItem(viewMenu, pipeComponents.toggleGrid);
+        addMenuItem(viewMenu, pipeComponents.sceneCanvasAction);
 
         JMenu animateMenu = new JMenu("Animate");
         animateMenu.setMnemonic('A');
@@ -702,6 +705,11 @@ public final class PipeApplicationBuilder {
          */
         public final GridAction toggleGrid;
 
+        /**
+         * Switch the active tab between the large net canvas and the full editor
+         */
+        public final SceneCanvasAction sceneCanvasAction;
+
         /**
          * Import a module action
          */
@@ -738,6 +746,8 @@ public final class PipeApplicationBuilder {
          * @param importAction import action 
          * @param exportPSAction export PSA action 
          * @param exportTNAction export TN action
+         * @param layoutAction layout action
+         * @param sceneCanvasAction switch between the large net canvas and the full editor
          */
         private PIPEComponents(ChooseTokenClassAction chooseTokenClassAction,
                                ComponentEditorManager componentEditorManager, SimpleUndoListener undoListener,
@@ -747,7 +757,8 @@ public final class PipeApplicationBuilder {
                                ExportPNGAction exportPNGAction, SelectAction selectAction, ExitAction exitAction,
                                SetZoomAction zoomAction, UnfoldAction unfoldAction, ZoomOutAction zoomOutAction,
                                ZoomInAction zoomInAction, GridAction toggleGrid, ImportAction importAction,
-                               ExportPSAction exportPSAction, ExportTNAction exportTNAction, LayoutAction layoutAction) {
+                               ExportPSAction exportPSAction, ExportTNAction exportTNAction, LayoutAction layoutAction,
+                               SceneCanvasAction sceneCanvasAction) {
             this.chooseTokenClassAction = chooseTokenClassAction;
             this.componentEditorManager = componentEditorManager;
             this.undoListener = undoListener;
@@ -768,6 +779,7 @@ public final class PipeApplicationBuilder {
             this.exportPSAction = exportPSAction;
             this.exportTNAction = exportTNAction;
             this.layoutAction = layoutAction;
+            this.sceneCanvasAction = sceneCanvasAction;
         }
     }
 }
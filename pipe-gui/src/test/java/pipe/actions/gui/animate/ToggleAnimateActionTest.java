@@ -3,6 +3,7 @@ package pipe.actions.gui.animate;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import pipe.actions.gui.ToggleAnimateAction;
@@ -11,6 +12,7 @@ import pipe.controllers.application.PipeApplicationController;
 import pipe.controllers.GUIAnimator;
 import pipe.actions.gui.PipeApplicationModel;
 
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -54,6 +56,15 @@ public class ToggleAnimateActionTest {
         verify(animator).finish();
     }
 
+    @Test
+    public void marksAnimationFinishedAfterRestoringNet() {
+        when(petriNetController.toggleAnimation()).thenReturn(false);
+        action.actionPerformed(null);
+        InOrder inOrder = inOrder(animator, petriNetController);
+        inOrder.verify(animator).finish();
+        inOrder.verify(petriNetController).animationFinished();
+    }
+
     @Test
     public void togglesAnimation(){
         when(petriNetController.toggleAnimation()).thenReturn(false);
@@ -16,6 +16,7 @@ import uk.ac.imperial.pipe.visitor.TranslationVisitor;
 import uk.ac.imperial.pipe.visitor.component.PetriNetComponentVisitor;
 
 import javax.swing.event.UndoableEditListener;
+import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.UndoableEdit;
 import java.awt.Color;
 import java.awt.Point;
@@ -203,6 +204,159 @@ public class PetriNetControllerTest {
         assertFalse(controller.isSelected(arc));
     }
 
+    @Test
+    public void selectsPlaceAtItsNewLocationAfterMoving() {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+        place.setX(500);
+        place.setY(600);
+
+        controller.select(new Rectangle(0, 0, 20, 20));
+        assertFalse(controller.isSelected(place));
+
+        controller.select(new Rectangle(490, 590, 20, 20));
+        assertTrue(controller.isSelected(place));
+    }
+
+    @Test
+    public void doesNotSelectDeletedPlace() throws PetriNetComponentException {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+        net.remove(place);
+
+        controller.select(new Rectangle(0, 0, 100, 100));
+        assertFalse(controller.isSelected(place));
+    }
+
+    @Test
+    public void selectsArcsOfSelectedPlace() {
+        Place place = mock(Place.class);
+        when(place.getX()).thenReturn(0);
+        when(place.getY()).thenReturn(0);
+        when(place.getWidth()).thenReturn(10);
+        when(place.getHeight()).thenReturn(10);
+        net.addPlace(place);
+
+        InboundArc arc = mock(InboundArc.class);
+        when(arc.getSource()).thenReturn(place);
+        Point2D.Double start = new Point2D.Double(200, 200);
+        Point2D.Double end = new Point2D.Double(300, 300);
+        when(arc.getArcPoints()).thenReturn(Arrays.asList(new ArcPoint(start, false), new ArcPoint(end, false)));
+        net.addArc(arc);
+
+        controller.select(new Rectangle(0, 0, 20, 20));
+        assertTrue(controller.isSelected(arc));
+    }
+
+    @Test
+    public void newNetHasNotChanged() {
+        assertFalse(controller.hasChanged());
+    }
+
+    @Test
+    public void changedAfterAddingPlace() {
+        net.addPlace(new DiscretePlace("P0", "P0"));
+        assertTrue(controller.hasChanged());
+    }
+
+    @Test
+    public void notChangedAfterSaving() {
+        net.addPlace(new DiscretePlace("P0", "P0"));
+        controller.save();
+        assertFalse(controller.hasChanged());
+    }
+
+    @Test
+    public void changedAfterMovingSavedPlace() {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+        controller.save();
+        place.setX(100);
+        assertTrue(controller.hasChanged());
+    }
+
+    @Test
+    public void changedAfterUndoableEdit() {
+        controller.getUndoManager().addEdit(new AbstractUndoableEdit());
+        assertTrue(controller.hasChanged());
+    }
+
+    @Test
+    public void notChangedAfterUndoingBackToSave() {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+        controller.save();
+        place.setX(100);
+        controller.getUndoManager().addEdit(new AbstractUndoableEdit());
+        controller.getUndoManager().undo();
+        assertFalse(controller.hasChanged());
+    }
+
+    @Test
+    public void notChangedAfterRedoingBackToSave() {
+        controller.getUndoManager().addEdit(new AbstractUndoableEdit());
+        controller.save();
+        controller.getUndoManager().undo();
+        assertTrue(controller.hasChanged());
+        controller.getUndoManager().redo();
+        assertFalse(controller.hasChanged());
+    }
+
+    @Test
+    public void changedAfterUndoingToSaveAndAddingNewEdit() {
+        controller.getUndoManager().addEdit(new AbstractUndoableEdit());
+        controller.getUndoManager().undo();
+        controller.getUndoManager().addEdit(new AbstractUndoableEdit());
+        assertTrue(controller.hasChanged());
+    }
+
+    @Test
+    public void changeBypassingUndoManagerStillCountsAfterUndo() {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+        controller.getUndoManager().addEdit(new AbstractUndoableEdit());
+        controller.save();
+        place.setX(100);
+        controller.getUndoManager().undo();
+        controller.getUndoManager().redo();
+        assertTrue(controller.hasChanged());
+    }
+
+    @Test
+    public void changesToDeletedPlaceDoNotCount() throws PetriNetComponentException {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+        net.remove(place);
+        controller.save();
+        place.setX(100);
+        assertFalse(controller.hasChanged());
+    }
+
+    @Test
+    public void animationDoesNotCountAsChange() {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+        controller.save();
+        controller.toggleAnimation();
+        place.setX(100);
+        controller.toggleAnimation();
+        place.setX(0);
+        controller.animationFinished();
+        assertFalse(controller.hasChanged());
+    }
+
+    @Test
+    public void changesAfterAnimationCount() {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+        controller.save();
+        controller.toggleAnimation();
+        controller.toggleAnimation();
+        controller.animationFinished();
+        place.setX(100);
+        assertTrue(controller.hasChanged());
+    }
+
     @Test
     public void translatesSelectedItemsCorrectly() throws PetriNetComponentException {
         Transition transition = mock(Transition.class);
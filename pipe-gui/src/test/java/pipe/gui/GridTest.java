@@ -0,0 +1,70 @@
+package pipe.gui;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.*;
+
+public class GridTest {
+
+    private Grid grid;
+
+    private BufferedImage image;
+
+    @Before
+    public void setUp() {
+        grid = new Grid();
+        image = new BufferedImage(1000, 1000, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private void paint(double scale, int x, int y, int width, int height) {
+        Graphics2D g = image.createGraphics();
+        g.scale(scale, scale);
+        g.clipRect(x, y, width, height);
+        grid.drawGrid(g);
+        g.dispose();
+    }
+
+    @Test
+    public void drawsLinesAtGridSpacing() {
+        paint(1, 0, 0, 100, 100);
+
+        assertTrue(image.getRGB(15, 50) != 0);
+        assertEquals(0, image.getRGB(20, 50));
+    }
+
+    @Test
+    public void onlyRendersTilesInClip() {
+        paint(1, 10, 10, 20, 20);
+
+        assertEquals(1, grid.getTileCount());
+    }
+
+    @Test
+    public void reusesTilesForLaterPaints() {
+        paint(1, 0, 0, 1000, 1000);
+        int tiles = grid.getTileCount();
+        paint(1, 100, 100, 50, 50);
+
+        assertEquals(tiles, grid.getTileCount());
+    }
+
+    @Test
+    public void discardsTilesWhenZoomChanges() {
+        paint(1, 0, 0, 1000, 1000);
+        paint(2, 10, 10, 20, 20);
+
+        assertEquals(1, grid.getTileCount());
+    }
+
+    @Test
+    public void discardsTilesWhenSpacingChanges() {
+        paint(1, 0, 0, 1000, 1000);
+        grid.increment();
+
+        assertEquals(0, grid.getTileCount());
+    }
+}
@@ -0,0 +1,71 @@
+package pipe.gui.canvas;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DirtyRegionTest {
+
+    private DirtyRegion region;
+
+    @Before
+    public void setUp() {
+        region = new DirtyRegion();
+    }
+
+    @Test
+    public void mergesOverlappingAreas() {
+        region.add(new Rectangle(0, 0, 10, 10));
+        region.add(new Rectangle(5, 5, 10, 10));
+
+        assertEquals(Arrays.asList(new Rectangle(0, 0, 15, 15)), region.drain());
+    }
+
+    @Test
+    public void keepsSeparateAreasApart() {
+        region.add(new Rectangle(0, 0, 10, 10));
+        region.add(new Rectangle(100, 100, 10, 10));
+
+        assertEquals(2, region.drain().size());
+    }
+
+    @Test
+    public void mergesAreasJoinedByALaterOne() {
+        region.add(new Rectangle(0, 0, 10, 10));
+        region.add(new Rectangle(20, 0, 10, 10));
+        region.add(new Rectangle(5, 0, 20, 10));
+
+        assertEquals(Arrays.asList(new Rectangle(0, 0, 30, 10)), region.drain());
+    }
+
+    @Test
+    public void ignoresEmptyAreas() {
+        region.add(new Rectangle(5, 5, 0, 0));
+
+        assertTrue(region.isEmpty());
+    }
+
+    @Test
+    public void mergesEverythingWhenTooManyAreas() {
+        for (int i = 0; i <= DirtyRegion.MAX_RECTANGLES; i++) {
+            region.add(new Rectangle(i * 20, 0, 10, 10));
+        }
+
+        List<Rectangle> areas = region.drain();
+        assertEquals(1, areas.size());
+        assertEquals(new Rectangle(0, 0, DirtyRegion.MAX_RECTANGLES * 20 + 10, 10), areas.get(0));
+    }
+
+    @Test
+    public void emptyAfterDraining() {
+        region.add(new Rectangle(0, 0, 10, 10));
+        region.drain();
+
+        assertTrue(region.isEmpty());
+    }
+}
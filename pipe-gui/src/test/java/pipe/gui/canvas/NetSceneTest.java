@@ -0,0 +1,101 @@
+package pipe.gui.canvas;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.imperial.pipe.exceptions.PetriNetComponentException;
+import uk.ac.imperial.pipe.models.petrinet.DiscretePlace;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+import uk.ac.imperial.pipe.models.petrinet.Place;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+
+import static org.junit.Assert.*;
+
+public class NetSceneTest {
+
+    private PetriNet net;
+
+    private NetScene scene;
+
+    private int changes;
+
+    @Before
+    public void setUp() {
+        net = new PetriNet();
+        changes = 0;
+        scene = new NetScene(net, new Runnable() {
+            @Override
+            public void run() {
+                changes++;
+            }
+        });
+    }
+
+    @Test
+    public void addsNodeForNewPlace() {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+
+        assertEquals(1, scene.size());
+        assertNotNull(scene.getNode(place));
+        assertTrue(changes > 0);
+    }
+
+    @Test
+    public void findsPlaceUnderPoint() {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+
+        assertSame(place, scene.getNodeAt(new Point(5, 5)).getComponent());
+        assertNull(scene.getNodeAt(new Point(500, 500)));
+    }
+
+    @Test
+    public void findsPlaceAtItsNewLocationAfterMoving() {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+        scene.drainDirtyRegion();
+        place.setX(500);
+        place.setY(600);
+
+        assertNull(scene.getNodeAt(new Point(5, 5)));
+        assertSame(place, scene.getNodeAt(new Point(505, 605)).getComponent());
+        assertFalse(scene.drainDirtyRegion().isEmpty());
+    }
+
+    @Test
+    public void culledToArea() {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+        place.setX(1000);
+        place.setY(1000);
+
+        assertTrue(scene.getNodes(new Rectangle(0, 0, 100, 100)).isEmpty());
+        assertEquals(1, scene.getNodes(new Rectangle(950, 950, 100, 100)).size());
+    }
+
+    @Test
+    public void removesNodeOfDeletedPlace() throws PetriNetComponentException {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+        net.remove(place);
+
+        assertEquals(0, scene.size());
+        assertNull(scene.getNodeAt(new Point(5, 5)));
+    }
+
+    @Test
+    public void ignoresNetOnceDisposed() {
+        Place place = new DiscretePlace("P0", "P0");
+        net.addPlace(place);
+        scene.dispose();
+        changes = 0;
+
+        place.setX(500);
+        net.addPlace(new DiscretePlace("P1", "P1"));
+
+        assertEquals(0, changes);
+        assertEquals(1, scene.size());
+    }
+}
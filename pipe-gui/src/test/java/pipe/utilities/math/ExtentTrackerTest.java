@@ -0,0 +1,84 @@
+package pipe.utilities.math;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+
+import static org.junit.Assert.*;
+
+public class ExtentTrackerTest {
+
+    private ExtentTracker<String> tracker;
+
+    @Before
+    public void setUp() {
+        tracker = new ExtentTracker<>();
+    }
+
+    @Test
+    public void emptyTrackerHasNoExtent() {
+        assertTrue(tracker.isEmpty());
+        assertEquals(0, tracker.getMaxX());
+        assertEquals(0, tracker.getMaxY());
+    }
+
+    @Test
+    public void extentIsFurthestEdges() {
+        tracker.put("A", new Rectangle(10, 200, 30, 30));
+        tracker.put("B", new Rectangle(300, 0, 30, 30));
+
+        assertEquals(330, tracker.getMaxX());
+        assertEquals(230, tracker.getMaxY());
+    }
+
+    @Test
+    public void extentShrinksWhenFurthestItemMovesBack() {
+        tracker.put("A", new Rectangle(10, 10, 30, 30));
+        tracker.put("B", new Rectangle(300, 300, 30, 30));
+        tracker.put("B", new Rectangle(0, 0, 30, 30));
+
+        assertEquals(40, tracker.getMaxX());
+        assertEquals(40, tracker.getMaxY());
+    }
+
+    @Test
+    public void extentShrinksWhenFurthestItemRemoved() {
+        tracker.put("A", new Rectangle(10, 10, 30, 30));
+        tracker.put("B", new Rectangle(300, 300, 30, 30));
+        tracker.remove("B");
+
+        assertFalse(tracker.contains("B"));
+        assertEquals(40, tracker.getMaxX());
+        assertEquals(40, tracker.getMaxY());
+    }
+
+    @Test
+    public void keepsEdgeSharedByTwoItemsUntilBothGone() {
+        tracker.put("A", new Rectangle(100, 100, 30, 30));
+        tracker.put("B", new Rectangle(100, 100, 30, 30));
+        tracker.put("C", new Rectangle(0, 0, 10, 10));
+        tracker.remove("A");
+
+        assertEquals(130, tracker.getMaxX());
+        tracker.remove("B");
+        assertEquals(10, tracker.getMaxX());
+    }
+
+    @Test
+    public void removingUnknownItemDoesNothing() {
+        tracker.put("A", new Rectangle(0, 0, 10, 10));
+        tracker.remove("B");
+
+        assertEquals(10, tracker.getMaxX());
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        tracker.put("A", new Rectangle(0, 0, 10, 10));
+        tracker.clear();
+
+        assertTrue(tracker.isEmpty());
+        assertEquals(0, tracker.getMaxX());
+    }
+}
@@ -0,0 +1,86 @@
+package pipe.utilities.math;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.junit.Assert.*;
+
+public class SpatialIndexTest {
+
+    private SpatialIndex<String> index;
+
+    @Before
+    public void setUp() {
+        index = new SpatialIndex<>(10);
+    }
+
+    @Test
+    public void findsRectangleIntersectingArea() {
+        index.put("A", new Rectangle(5, 5, 10, 10));
+        index.put("B", new Rectangle(100, 100, 10, 10));
+
+        Collection<String> found = index.query(new Rectangle(0, 0, 8, 8));
+        assertEquals(Arrays.asList("A"), found);
+    }
+
+    @Test
+    public void findsRectangleAtNegativeCoordinates() {
+        index.put("A", new Rectangle(-25, -25, 10, 10));
+
+        assertEquals(1, index.query(new Rectangle(-20, -20, 2, 2)).size());
+    }
+
+    @Test
+    public void emptyAreaFindsNothing() {
+        index.put("A", new Rectangle(0, 0, 10, 10));
+
+        assertTrue(index.query(new Rectangle(5, 5, 0, 0)).isEmpty());
+    }
+
+    @Test
+    public void movedItemIsOnlyFoundAtItsNewLocation() {
+        index.put("A", new Rectangle(0, 0, 10, 10));
+        index.put("A", new Rectangle(200, 200, 10, 10));
+
+        assertTrue(index.query(new Rectangle(0, 0, 10, 10)).isEmpty());
+        assertEquals(1, index.query(new Rectangle(195, 195, 10, 10)).size());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void removedItemIsNotFound() {
+        index.put("A", new Rectangle(0, 0, 10, 10));
+        assertTrue(index.remove("A"));
+
+        assertTrue(index.query(new Rectangle(0, 0, 10, 10)).isEmpty());
+        assertFalse(index.contains("A"));
+    }
+
+    @Test
+    public void findsPathCrossingArea() {
+        index.putPath("Arc", Arrays.asList(new Point2D.Double(0, 0), new Point2D.Double(100, 100)));
+
+        assertEquals(1, index.query(new Rectangle(48, 48, 4, 4)).size());
+    }
+
+    @Test
+    public void doesNotFindPathWhoseBoundsOnlyContainArea() {
+        index.putPath("Arc", Arrays.asList(new Point2D.Double(0, 0), new Point2D.Double(100, 100)));
+
+        assertTrue(index.query(new Rectangle(80, 5, 10, 10)).isEmpty());
+    }
+
+    @Test
+    public void findsEachItemOnceWhenAreaCoversManyCells() {
+        index.put("A", new Rectangle(0, 0, 50, 50));
+        index.putPath("Arc", Arrays.asList(new Point2D.Double(0, 0), new Point2D.Double(100, 0),
+                new Point2D.Double(100, 100)));
+
+        assertEquals(2, index.query(new Rectangle(-1000, -1000, 5000, 5000)).size());
+    }
+}
@@ -1,30 +1,49 @@
 package pipe.gui.analysis;
 
 import org.rendersnake.HtmlCanvas;
+import pipe.gui.report.AbstractReportTable;
+import pipe.gui.report.ListReportTable;
+import pipe.gui.report.Report;
+import pipe.gui.statespace.ExplorationMonitor;
+import pipe.gui.statespace.NetSymmetry;
+import pipe.gui.statespace.SchedulerStatistics;
+import pipe.gui.statespace.SymmetricExplorerUtilities;
+import pipe.gui.steadystate.GeneratorMatrix;
+import pipe.gui.steadystate.ParallelRows;
+import pipe.gui.steadystate.SolverResult;
+import pipe.gui.steadystate.SolverSettings;
+import pipe.gui.steadystate.SparseSolver;
+import pipe.gui.steadystate.TransientSolver;
+import pipe.gui.sweep.ParameterSweep;
+import pipe.gui.sweep.SweepPoint;
 import pipe.gui.widget.GenerateResultsForm;
 import pipe.gui.widget.HTMLPane;
+import pipe.gui.widget.ProgressPanel;
+import pipe.gui.widget.ReportTablesPanel;
+import pipe.gui.widget.SolverSettingsPanel;
+import pipe.gui.widget.TransientTimesPanel;
 import pipe.gui.widget.StateSpaceLoader;
 import pipe.gui.widget.StateSpaceLoaderException;
+import pipe.gui.widget.SweepPanel;
 import pipe.reachability.algorithm.*;
-import pipe.steadystate.algorithm.ParallelGaussSeidel;
-import pipe.steadystate.algorithm.SteadyStateSolver;
 import pipe.steadystate.metrics.TokenMetrics;
 import pipe.steadystate.metrics.TransitionMetrics;
 import uk.ac.imperial.pipe.exceptions.InvalidRateException;
 import uk.ac.imperial.pipe.models.petrinet.PetriNet;
 import uk.ac.imperial.state.ClassifiedState;
-import uk.ac.imperial.state.Record;
 
 import javax.swing.*;
+import java.awt.BorderLayout;
 import java.awt.FileDialog;
+import java.awt.FlowLayout;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import static org.rendersnake.HtmlAttributesFactory.class_;
-import static org.rendersnake.HtmlAttributesFactory.type;
 
 /**
  * Performs the exploration and steady state analysis of a Petri net.
@@ -43,15 +62,74 @@ public class GSPNAnalysis {
             "td.empty{background:#ffffff}";
 
     /**
-     * If the state space is larger than this then we cannot display the results as tables.
+     * Tables with more rows than this are only shown a page at a time in the tables tab
      */
     private static final int MAX_DISPLAY_STATES = 200;
 
+    /**
+     * Maximum number of rows in the residual table, longer histories are sampled
+     */
+    private static final int MAX_RESIDUAL_ROWS = 50;
+
+    /**
+     * Maximum number of states explored
+     */
+    private static final int MAX_STATES = 1000000;
+
+    /**
+     * Exploration settings identifying the state space in the result cache
+     */
+    private static final String EXPLORER_SETTINGS = "bounded=" + MAX_STATES + ";vanishing=on-the-fly";
+
+    /**
+     * Creates the explorer utilities of the nets analysed
+     */
+    private static final StateSpaceLoader.ExplorerCreator EXPLORER_CREATOR = new StateSpaceLoader.ExplorerCreator() {
+        @Override
+        public ExplorerUtilities create(PetriNet petriNet) {
+            return new BoundedExplorerUtilities(petriNet, MAX_STATES);
+        }
+    };
+
+    /**
+     * Exploration settings of the state spaces reduced by symmetry
+     */
+    private static final String SYMMETRIC_EXPLORER_SETTINGS = EXPLORER_SETTINGS + ";symmetry=components";
+
+    /**
+     * Creates explorer utilities that explore one state of each orbit under the symmetries
+     * of the net, with the rates into each orbit lumped together
+     */
+    private static final StateSpaceLoader.ExplorerCreator SYMMETRIC_EXPLORER_CREATOR =
+            new StateSpaceLoader.ExplorerCreator() {
+                @Override
+                public ExplorerUtilities create(PetriNet petriNet) {
+                    return new SymmetricExplorerUtilities(new BoundedExplorerUtilities(petriNet, MAX_STATES),
+                            NetSymmetry.of(petriNet));
+                }
+            };
+
+    /**
+     * Creates the vanishing explorer of the nets analysed
+     */
+    private static final StateSpaceLoader.VanishingExplorerCreator VANISHING_CREATOR =
+            new StateSpaceLoader.VanishingExplorerCreator() {
+                @Override
+                public VanishingExplorer create(ExplorerUtilities utils) {
+                    return new OnTheFlyVanishingExplorer(utils);
+                }
+            };
+
     /**
      * Results HTML pane for displaying info
      */
     HTMLPane resultsPane = new HTMLPane();
 
+    /**
+     * Pages through the tables of the results and exports them
+     */
+    private final ReportTablesPanel tablesPanel = new ReportTablesPanel(HTML_STYLE);
+
     private JLabel textResultsLabel;
 
     private JButton goButton;
@@ -69,6 +147,31 @@ public class GSPNAnalysis {
 
     private StateSpaceLoader stateSpaceLoader;
 
+    /**
+     * Steady state solver choice and settings
+     */
+    private final SolverSettingsPanel solverSettingsPanel = new SolverSettingsPanel();
+
+    /**
+     * Time points for the transient analysis
+     */
+    private final TransientTimesPanel transientTimesPanel = new TransientTimesPanel();
+
+    /**
+     * Panel for sweeping a rate parameter
+     */
+    private final SweepPanel sweepPanel = new SweepPanel();
+
+    /**
+     * Progress of the background exploration and solve
+     */
+    private final ProgressPanel progressPanel = new ProgressPanel();
+
+    /**
+     * Explores one state of each orbit of nets with replicated components
+     */
+    private final JCheckBox symmetryCheckBox = new JCheckBox("Symmetry reduction");
+
     public GSPNAnalysis(FileDialog fileDialog) {
         stateSpaceLoader = new StateSpaceLoader(fileDialog);
         setUp();
@@ -80,117 +183,523 @@ public class GSPNAnalysis {
     private void setUp() {
 
         loadPanel.add(stateSpaceLoader.getMainPanel(), 0);
-        resultsPanel.add(resultsPane);
+        loadPanel.add(stateSpaceLoader.getCheckpointPanel().getPanel(), BorderLayout.SOUTH);
+        JTabbedPane resultsTabs = new JTabbedPane();
+        resultsTabs.addTab("Results", resultsPane);
+        resultsTabs.addTab("Tables", tablesPanel.getPanel());
+        resultsPanel.add(resultsTabs);
         GenerateResultsForm generateResultsForm = new GenerateResultsForm(new GenerateResultsForm.GoAction() {
             @Override
             public void go(int threads) {
                 showSteadyState(threads);
             }
         });
+        generatePanel.add(solverSettingsPanel.getPanel(), BorderLayout.NORTH);
         generatePanel.add(generateResultsForm.getPanel());
+        JPanel optionsPanel = new JPanel(new BorderLayout());
+        JPanel explorationPanel = new JPanel(new BorderLayout());
+        JPanel symmetryPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        symmetryCheckBox.setToolTipText("Swap identical copies of a component to explore one state of each orbit, "
+                + "the measures stay exact");
+        symmetryPanel.add(symmetryCheckBox);
+        explorationPanel.add(transientTimesPanel.getPanel(), BorderLayout.NORTH);
+        explorationPanel.add(symmetryPanel, BorderLayout.SOUTH);
+        optionsPanel.add(explorationPanel, BorderLayout.NORTH);
+        optionsPanel.add(sweepPanel.getPanel(), BorderLayout.CENTER);
+        optionsPanel.add(progressPanel.getPanel(), BorderLayout.SOUTH);
+        generatePanel.add(optionsPanel, BorderLayout.SOUTH);
     }
 
     /**
-     * Loads the steady state and if the number of states is < MAX_DISPLAY_STATES we display steady state information
+     * Loads and solves the steady state, showing tables of at most MAX_DISPLAY_STATES rows
+     * in full and larger ones a page at a time. The exploration and solve run on a background
+     * thread so the UI stays responsive and can stop them.
      */
-    private void showSteadyState(int threads) {
+    private void showSteadyState(final int threads) {
+        if (progressPanel.isRunning()) {
+            return;
+        }
+        final SolverSettings solverSettings;
+        final double[] transientTimes;
+        final String sweepParameter;
+        final double[] sweepValues;
+        final StateSpaceLoader.Settings loaderSettings;
         try {
-            StateSpaceExplorer.StateSpaceExplorerResults results =
-                    stateSpaceLoader.calculateResults(new StateSpaceLoader.ExplorerCreator() {
-                                                          @Override
-                                                          public ExplorerUtilities create(PetriNet petriNet) {
-                                                              return new BoundedExplorerUtilities(petriNet, 1000000);
-                                                          }
-                                                      }, new StateSpaceLoader.VanishingExplorerCreator() {
-                                                          @Override
-                                                          public VanishingExplorer create(ExplorerUtilities utils) {
-                                                              return new OnTheFlyVanishingExplorer(utils);
-                                                          }
-                                                      }, threads
-                    );
-            displayResultsOnCanvas(results);
-        } catch (IOException | InterruptedException | ExecutionException | InvalidRateException | TimelessTrapException e) {
-            e.printStackTrace();
-        } catch (StateSpaceLoaderException e) {
+            loaderSettings = stateSpaceLoader.getSettings();
+            solverSettings = solverSettingsPanel.getSettings(threads);
+            transientTimes = transientTimesPanel.getTimes();
+            sweepParameter = sweepPanel.isSweeping() ? sweepPanel.getParameter() : null;
+            sweepValues = sweepPanel.isSweeping() ? sweepPanel.getValues() : null;
+        } catch (IllegalArgumentException | StateSpaceLoaderException e) {
             JOptionPane.showMessageDialog(mainPanel, e.getMessage(), "GSPN Analysis Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        final boolean symmetric = symmetryCheckBox.isSelected();
+        final ExplorationMonitor monitor = new ExplorationMonitor();
+        SwingWorker<Report, Void> worker = new SwingWorker<Report, Void>() {
+            @Override
+            protected Report doInBackground() throws Exception {
+                StateSpaceLoader.ExplorerCreator creator = symmetric ? SYMMETRIC_EXPLORER_CREATOR : EXPLORER_CREATOR;
+                StateSpaceExplorer.StateSpaceExplorerResults results =
+                        stateSpaceLoader.calculateResults(loaderSettings, creator, VANISHING_CREATOR, threads, monitor,
+                                symmetric ? SYMMETRIC_EXPLORER_SETTINGS : EXPLORER_SETTINGS);
+                PetriNet petriNet = loaderSettings.getPetriNet();
+                NetSymmetry symmetry = symmetric && petriNet != null ? NetSymmetry.of(petriNet) : null;
+                if (sweepParameter != null) {
+                    return renderSweep(petriNet, sweepParameter, sweepValues, solverSettings, creator, symmetry);
+                }
+                return renderResults(results, petriNet, solverSettings, transientTimes, symmetry, creator);
+            }
+
+            @Override
+            protected void done() {
+                showResults(this, monitor);
+            }
+        };
+        progressPanel.start(monitor, worker);
+        worker.execute();
+    }
+
+    /**
+     * Displays the results of a finished background job, called on the event dispatch thread
+     *
+     * @param worker  finished job
+     * @param monitor monitor of the job's exploration
+     */
+    private void showResults(SwingWorker<Report, Void> worker, ExplorationMonitor monitor) {
+        try {
+            Report report = worker.get();
+            resultsPane.setText(report.toHtml(HTML_STYLE, MAX_DISPLAY_STATES));
+            tablesPanel.setReport(report);
+            progressPanel.finish(stateSpaceLoader.isCached() ? "Finished: state space read from the result cache" :
+                    "Finished: " + monitor.snapshot());
+        } catch (CancellationException e) {
+            progressPanel.finish("Stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InterruptedException) {
+                progressPanel.finish("Stopped");
+            } else if (cause instanceof StateSpaceLoaderException) {
+                progressPanel.finish(" ");
+                JOptionPane.showMessageDialog(mainPanel, cause.getMessage(), "GSPN Analysis Error",
+                        JOptionPane.ERROR_MESSAGE);
+            } else {
+                cause.printStackTrace();
+                progressPanel.finish("Failed: " + cause.getMessage());
+            }
         }
     }
 
 
-    private void displayResultsOnCanvas(StateSpaceExplorer.StateSpaceExplorerResults results)
-            throws IOException, StateSpaceLoaderException {
-        HtmlCanvas html = new HtmlCanvas();
-        html.html().head();
-        html.style(type("text/css").media("screen")).content(HTML_STYLE);
-        html._head();
-        html.body();
-        if (results.numberOfStates < MAX_DISPLAY_STATES) {
-            StateSpaceLoader.Results stateSpace = stateSpaceLoader.loadStateSpace();
-            solveSteadyState(stateSpace.records, stateSpace.stateMappings, html);
+    /**
+     * Reports the results of the exploration, solving the steady state if the exploration
+     * finished within MAX_STATES. Tables with a row per state are produced as they are
+     * displayed or exported rather than built up front.
+     *
+     * @param results exploration results
+     * @param petriNet       net the state space was explored from, null if it was loaded from binaries
+     * @param solverSettings
+     * @param transientTimes time points for transient analysis, may be empty
+     * @param symmetry       symmetries the state space was reduced by, null if it was not
+     * @param creator        creator the state space was explored with
+     * @return results report
+     * @throws IOException
+     * @throws StateSpaceLoaderException
+     * @throws InterruptedException
+     * @throws TimelessTrapException
+     * @throws InvalidRateException
+     */
+    private Report renderResults(StateSpaceExplorer.StateSpaceExplorerResults results, PetriNet petriNet,
+                                 SolverSettings solverSettings, double[] transientTimes, NetSymmetry symmetry,
+                                 StateSpaceLoader.ExplorerCreator creator)
+            throws IOException, StateSpaceLoaderException, InterruptedException, TimelessTrapException,
+            InvalidRateException {
+        Report report = new Report();
+        SchedulerStatistics scheduler = stateSpaceLoader.getSchedulerStatistics();
+        if (scheduler != null) {
+            displayScheduler(report, scheduler);
+        }
+        if (symmetry != null) {
+            displaySymmetry(report, symmetry);
+        }
+        report.addText("Number of states: " + results.numberOfStates);
+        report.addText("Number of transitions: " + results.processedTransitions);
+        if (results.numberOfStates >= MAX_STATES) {
+            report.addText("The exploration stopped at " + MAX_STATES
+                    + " states, use GSPN Simulation to estimate the measures of larger nets");
         } else {
-            html.write("State space is too large to show tabular results");
-            html.br();
-            html.write("Number of states: " + results.numberOfStates);
-            html.br();
-            html.write("Number of transitions: " + results.processedTransitions);
-        }
-        html._body()._html();
-        resultsPane.setText(html.toHtml());
+            solveSteadyState(stateSpaceLoader.loadGeneratorMatrix(), stateSpaceLoader.loadStateMappings(), report,
+                    petriNet, solverSettings, transientTimes, symmetry, creator);
+        }
+        return report;
     }
 
     /**
-     * Solves the steady state and adds the results to the html canvas
+     * Solves the explored state space for each value of the rate parameter and reports the
+     * measures of every point side by side
      *
-     * @param records
-     * @param stateMappings
-     * @param html
+     * @param petriNet       net the state space was explored from, null if it was loaded from binaries
+     * @param parameter      id of the rate parameter
+     * @param values         values of the rate parameter
+     * @param solverSettings solver settings, the thread count is the number of points solved at once
+     * @param creator        creator the state space was explored with
+     * @param symmetry       symmetries the state space was reduced by, null if it was not
+     * @return results report
+     * @throws IOException
+     * @throws StateSpaceLoaderException if the sweep cannot be run on the state space
+     * @throws InterruptedException
+     */
+    private Report renderSweep(PetriNet petriNet, String parameter, double[] values, SolverSettings solverSettings,
+                               StateSpaceLoader.ExplorerCreator creator, NetSymmetry symmetry)
+            throws IOException, StateSpaceLoaderException, InterruptedException {
+        if (petriNet == null) {
+            throw new StateSpaceLoaderException("A parameter sweep needs a Petri net rather than state space binaries");
+        }
+        List<SweepPoint> points;
+        ExecutorService executorService = Executors.newFixedThreadPool(solverSettings.getThreads());
+        try {
+            ParameterSweep sweep = new ParameterSweep(petriNet, parameter,
+                    stateSpaceLoader.loadStateMappings(), creator, VANISHING_CREATOR, solverSettings);
+            points = sweep.run(values, executorService);
+        } catch (IllegalArgumentException e) {
+            throw new StateSpaceLoaderException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw new StateSpaceLoaderException("Sweep failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Report report = new Report();
+        displaySweepConvergence(report, parameter, points);
+        displaySweepTokens(report, parameter, points, symmetry);
+        displaySweepThroughputs(report, parameter, points, symmetry);
+        return report;
+    }
+
+    /**
+     * @param report
+     * @param parameter
+     * @param points
+     */
+    private void displaySweepConvergence(Report report, String parameter, List<SweepPoint> points) {
+        ListReportTable table = new ListReportTable("Solver convergence over " + parameter, parameter, "Iterations",
+                "Final residual", "Converged");
+        for (SweepPoint point : points) {
+            SolverResult solverResult = point.getSolverResult();
+            table.addRow(Double.toString(point.getValue()), Integer.toString(solverResult.getIterations()),
+                    String.format("%.3e", solverResult.getResidual()), solverResult.isConverged() ? "Yes" : "No");
+        }
+        report.addTable(table);
+    }
+
+    /**
+     * @param report
+     * @param parameter
+     * @param points
+     * @param symmetry symmetries the state space was reduced by, null if it was not
      */
-    private void solveSteadyState(Collection<Record> records, Map<Integer, ClassifiedState> stateMappings,
-                                  HtmlCanvas html) {
+    private void displaySweepTokens(Report report, String parameter, List<SweepPoint> points,
+                                    NetSymmetry symmetry) {
+        Map<String, Map<String, Double>> first = points.get(0).getAverageTokens();
+        List<String> places = new ArrayList<>(first.keySet());
+        Collections.sort(places);
+        List<String> tokens = new ArrayList<>(first.get(places.get(0)).keySet());
+        Collections.sort(tokens);
+        List<String> headers = new ArrayList<>();
+        headers.add(parameter);
+        for (String place : places) {
+            for (String token : tokens) {
+                headers.add(tokens.size() == 1 ? place : place + " (" + token + ")");
+            }
+        }
+        ListReportTable table = new ListReportTable("Average token counts over " + parameter, headers);
+        for (SweepPoint point : points) {
+            List<String> row = new ArrayList<>();
+            row.add(Double.toString(point.getValue()));
+            Map<String, Map<String, Double>> averageTokens =
+                    symmetry == null ? point.getAverageTokens() : symmetry.averageTokens(point.getAverageTokens());
+            for (String place : places) {
+                for (String token : tokens) {
+                    row.add(doubleToString(averageTokens.get(place).get(token)));
+                }
+            }
+            table.addRow(row);
+        }
+        report.addTable(table);
+    }
 
-        ExecutorService executorService = Executors.newFixedThreadPool(8);
+    /**
+     * @param report
+     * @param parameter
+     * @param points
+     * @param symmetry symmetries the state space was reduced by, null if it was not
+     */
+    private void displaySweepThroughputs(Report report, String parameter, List<SweepPoint> points,
+                                         NetSymmetry symmetry) {
+        List<String> transitions = new ArrayList<>(points.get(0).getThroughputs().keySet());
+        Collections.sort(transitions);
+        List<String> headers = new ArrayList<>();
+        headers.add(parameter);
+        headers.addAll(transitions);
+        ListReportTable table = new ListReportTable("Average timed transition throughputs over " + parameter,
+                headers);
+        for (SweepPoint point : points) {
+            List<String> row = new ArrayList<>();
+            row.add(Double.toString(point.getValue()));
+            Map<String, Double> throughputs =
+                    symmetry == null ? point.getThroughputs() : symmetry.averageThroughputs(point.getThroughputs());
+            for (String transition : transitions) {
+                row.add(doubleToString(throughputs.get(transition)));
+            }
+            table.addRow(row);
+        }
+        report.addTable(table);
+    }
 
+    /**
+     * Solves the steady state and adds the results to the report
+     *
+     * @param matrix
+     * @param stateMappings
+     * @param report
+     * @param petriNet       net the state space was explored from, null if it was loaded from binaries
+     * @param solverSettings
+     * @param transientTimes time points for transient analysis, may be empty
+     * @param symmetry       symmetries the state space was reduced by, null if it was not
+     * @param creator        creator the state space was explored with
+     * @throws InterruptedException
+     * @throws TimelessTrapException
+     * @throws InvalidRateException
+     */
+    private void solveSteadyState(GeneratorMatrix matrix, Map<Integer, ClassifiedState> stateMappings,
+                                  Report report, PetriNet petriNet, SolverSettings solverSettings,
+                                  double[] transientTimes,
+                                  NetSymmetry symmetry, StateSpaceLoader.ExplorerCreator creator)
+            throws InterruptedException, TimelessTrapException, InvalidRateException {
+        int threads = solverSettings.getThreads();
+        ExecutorService executorService = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
         try {
-            displayStates(html, stateMappings);
-            SteadyStateSolver steadyStateSolver = new ParallelGaussSeidel(8, executorService, 10);
-            Map<Integer, Double> steadyState = steadyStateSolver.solve(new ArrayList<>(records));
-
-            displaySteadyState(html, steadyState);
-            displayMetrics(html, steadyState, stateMappings);
-        } catch (IOException e) {
-            e.printStackTrace();
+            int[] ids = sortedIds(stateMappings.keySet());
+            displayStates(report, stateMappings, ids);
+            ParallelRows rows = new ParallelRows(executorService, threads);
+            SolverResult solverResult = stateSpaceLoader.findCachedSolution(solverSettings);
+            if (solverResult == null) {
+                SparseSolver steadyStateSolver = solverSettings.createSolver(rows);
+                solverResult = steadyStateSolver.solve(matrix, progressPanel.getSolverListener());
+                stateSpaceLoader.cacheSolution(solverSettings, solverResult);
+            }
+            Map<Integer, Double> steadyState = matrix.toDistribution(solverResult.getDistribution());
+
+            displayConvergence(report, solverResult, solverSettings);
+            displaySteadyState(report, steadyState);
+            displayMetrics(report, steadyState, stateMappings, petriNet, symmetry);
+            if (transientTimes.length > 0) {
+                solveTransient(report, matrix, stateMappings, ids, transientTimes, rows, petriNet, symmetry,
+                        creator);
+            }
         } finally {
-            executorService.shutdownNow();
+            if (executorService != null) {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Solves the transient distribution at each time point starting from the initial state,
+     * or from the tangible states it leads to if it is vanishing, and reports the state
+     * probabilities and the average token counts over time. The initial state is found from
+     * the net, so state spaces loaded from binaries have no transient results.
+     *
+     * @param report
+     * @param matrix
+     * @param stateMappings
+     * @param ids           sorted state ids
+     * @param times
+     * @param rows
+     * @param petriNet net the state space was explored from, null if it was loaded from binaries
+     * @param symmetry symmetries the state space was reduced by, null if it was not
+     * @param creator  creator the state space was explored with
+     * @throws InterruptedException
+     * @throws TimelessTrapException
+     * @throws InvalidRateException
+     */
+    private void solveTransient(Report report, GeneratorMatrix matrix, Map<Integer, ClassifiedState> stateMappings,
+                                final int[] ids, double[] times, ParallelRows rows, PetriNet petriNet,
+                                NetSymmetry symmetry, StateSpaceLoader.ExplorerCreator creator)
+            throws InterruptedException, TimelessTrapException, InvalidRateException {
+        if (petriNet == null) {
+            report.addText("The initial state of a state space loaded from binaries is not known so transient "
+                    + "results cannot be shown");
+            return;
+        }
+        ExplorerUtilities utilities = creator.create(petriNet);
+        double[] initial = TransientSolver.initialDistribution(matrix, stateMappings, utilities,
+                VANISHING_CREATOR.create(utilities));
+        TransientSolver transientSolver = new TransientSolver(rows, TransientSolver.DEFAULT_EPSILON);
+        final double[][] distributions = transientSolver.solve(matrix, initial, times);
+
+        List<String> timeHeaders = new ArrayList<>();
+        timeHeaders.add("State");
+        for (double time : times) {
+            timeHeaders.add("t = " + time);
+        }
+        report.addTable(new AbstractReportTable("Transient distribution", timeHeaders) {
+            @Override
+            public int getRowCount() {
+                return ids.length;
+            }
+
+            @Override
+            public List<String> getRow(int index) {
+                List<String> row = new ArrayList<>(distributions.length + 1);
+                row.add(Integer.toString(ids[index]));
+                for (double[] distribution : distributions) {
+                    row.add(doubleToString(distribution[ids[index]]));
+                }
+                return row;
+            }
+        });
+
+        List<String> places = getPlaces(stateMappings);
+        List<String> tokens = new ArrayList<>(getTokens(stateMappings.values()));
+        Collections.sort(tokens);
+        List<String> headers = new ArrayList<>();
+        headers.add("Time");
+        for (String place : places) {
+            for (String token : tokens) {
+                headers.add(tokens.size() == 1 ? place : place + " (" + token + ")");
+            }
+        }
+        ListReportTable metrics = new ListReportTable("Transient average token counts", headers);
+        for (int i = 0; i < times.length; i++) {
+            Map<String, Map<String, Double>> averageTokens =
+                    TokenMetrics.averageTokensOnPlace(stateMappings, matrix.toDistribution(distributions[i]));
+            if (symmetry != null) {
+                averageTokens = symmetry.averageTokens(averageTokens);
+            }
+            List<String> row = new ArrayList<>();
+            row.add(Double.toString(times[i]));
+            for (String place : places) {
+                for (String token : tokens) {
+                    row.add(doubleToString(averageTokens.get(place).get(token)));
+                }
+            }
+            metrics.addRow(row);
+        }
+        report.addTable(metrics);
+    }
+
+    /**
+     * Displays the chunk and batch sizes the parallel explorer settled on and how busy
+     * each of its worker threads was
+     *
+     * @param report
+     * @param scheduler
+     */
+    private void displayScheduler(Report report, SchedulerStatistics scheduler) {
+        ListReportTable table = new ListReportTable("Exploration scheduling", "Setting", "Value");
+        table.addRow("Threads", Integer.toString(scheduler.getThreads()));
+        table.addRow("Chunk size", Integer.toString(scheduler.getChunkSize()));
+        table.addRow("Batch size", Integer.toString(scheduler.getBatchSize()));
+        table.addRow("Batches", Integer.toString(scheduler.getBatches()));
+        table.addRow("Time per state (us)", String.format("%.2f", scheduler.getNanosPerState() / 1000));
+        table.addRow("Chunks stolen", Long.toString(scheduler.getSteals()));
+        double[] utilisation = scheduler.getUtilisation();
+        for (int i = 0; i < utilisation.length; i++) {
+            table.addRow("Worker " + (i + 1) + " utilisation", String.format("%.1f%%", utilisation[i] * 100));
+        }
+        report.addTable(table);
+    }
+
+    /**
+     * Displays the replicated components the state space was reduced by
+     *
+     * @param report
+     * @param symmetry
+     */
+    private void displaySymmetry(Report report, NetSymmetry symmetry) {
+        if (symmetry.getComponentCount() == 0) {
+            report.addText("No replicated components were found, the state space was not reduced");
+            return;
+        }
+        ListReportTable table = new ListReportTable("Symmetry reduction", "Component", "Copies");
+        for (int component = 0; component < symmetry.getComponentCount(); component++) {
+            List<String> nodes = new ArrayList<>(symmetry.getPlaces(component, 0));
+            nodes.addAll(symmetry.getTransitions(component, 0));
+            table.addRow(String.valueOf(nodes), Integer.toString(symmetry.getCopies(component)));
+        }
+        report.addTable(table);
+        report.addText("States are orbit representatives with the copies of each component sorted by marking, "
+                + "the averages are over the full state space");
+    }
+
+    /**
+     * Displays how the solver converged and its residual over the iterations, sampled down
+     * to at most MAX_RESIDUAL_ROWS rows
+     *
+     * @param report
+     * @param solverResult
+     * @param solverSettings
+     */
+    private void displayConvergence(Report report, SolverResult solverResult, SolverSettings solverSettings) {
+        ListReportTable table = new ListReportTable("Solver convergence", "Setting", "Value");
+        table.addRow("Solver", solverResult.getMethod().toString());
+        table.addRow("Threads", Integer.toString(solverSettings.getThreads()));
+        table.addRow("Tolerance", String.format("%.3e", solverSettings.getTolerance()));
+        table.addRow("Iterations", Integer.toString(solverResult.getIterations()));
+        table.addRow("Final residual", String.format("%.3e", solverResult.getResidual()));
+        table.addRow("Converged", solverResult.isConverged() ? "Yes" : "No");
+        table.addRow("Time (ms)", Long.toString(solverResult.getElapsedMillis()));
+        report.addTable(table);
+
+        double[] residuals = solverResult.getResiduals();
+        int step = Math.max(1, (residuals.length + MAX_RESIDUAL_ROWS - 1) / MAX_RESIDUAL_ROWS);
+        ListReportTable residualTable = new ListReportTable("Residual per iteration", "Iteration", "Residual");
+        for (int i = 0; i < residuals.length; i += step) {
+            residualTable.addRow(Integer.toString(i + 1), String.format("%.3e", residuals[i]));
+        }
+        if (residuals.length > 0 && (residuals.length - 1) % step != 0) {
+            residualTable.addRow(Integer.toString(residuals.length),
+                    String.format("%.3e", residuals[residuals.length - 1]));
         }
+        report.addTable(residualTable);
     }
 
     /**
      * Displays the state mappings for each token
      *
-     * @param html
+     * @param report
      * @param stateMappings
-     * @throws IOException
+     * @param ids           sorted state ids
      */
-    private void displayStates(HtmlCanvas html, Map<Integer, ClassifiedState> stateMappings) throws IOException {
+    private void displayStates(Report report, Map<Integer, ClassifiedState> stateMappings, int[] ids) {
         Collection<String> tokens = getTokens(stateMappings.values());
         for (String token : tokens) {
-            buildTokenTable(html, stateMappings, token);
+            buildTokenTable(report, stateMappings, ids, token);
         }
     }
 
     /**
      * Displays the steady state information in a table
      *
-     * @param html
+     * @param report
      * @param steadyState
-     * @throws IOException
      */
-    private void displaySteadyState(HtmlCanvas html, Map<Integer, Double> steadyState) throws IOException {
-        List<TableRow> rows = new LinkedList<>();
-        for (Map.Entry<Integer, Double> entry : steadyState.entrySet()) {
-            rows.add(new TableRow(entry.getKey().toString(), doubleToString(entry.getValue())));
-        }
-        addTable(html, rows, Arrays.asList("State", "Distribution"), "Steady state distribution");
+    private void displaySteadyState(Report report, final Map<Integer, Double> steadyState) {
+        final int[] ids = sortedIds(steadyState.keySet());
+        report.addTable(new AbstractReportTable("Steady state distribution", Arrays.asList("State", "Distribution")) {
+            @Override
+            public int getRowCount() {
+                return ids.length;
+            }
+
+            @Override
+            public List<String> getRow(int index) {
+                return Arrays.asList(Integer.toString(ids[index]), doubleToString(steadyState.get(ids[index])));
+            }
+        });
     }
 
     /**
@@ -200,20 +709,27 @@ public class GSPNAnalysis {
      * - the average number of tokens on each place
      * - the average transition  throughput if loaded from a Petri net
      *
-     * @param html
+     * @param report
      * @param steadyState
      * @param stateMappings
-     * @throws IOException
+     * @param petriNet      net the state space was explored from, null if it was loaded from binaries
+     * @param symmetry      symmetries the state space was reduced by, null if it was not
      */
-    private void displayMetrics(HtmlCanvas html, Map<Integer, Double> steadyState,
-                                Map<Integer, ClassifiedState> stateMappings) throws IOException {
+    private void displayMetrics(Report report, Map<Integer, Double> steadyState,
+                                Map<Integer, ClassifiedState> stateMappings, PetriNet petriNet,
+                                NetSymmetry symmetry) {
         Map<String, Map<String, Double>> averageTokens = TokenMetrics.averageTokensOnPlace(stateMappings, steadyState);
-        buildAverageMetrics(averageTokens, html);
-        if (!stateSpaceLoader.isBinaryLoadChecked()) {
-            PetriNet petriNet = stateSpaceLoader.getPetriNet();
+        if (symmetry != null) {
+            averageTokens = symmetry.averageTokens(averageTokens);
+        }
+        buildAverageMetrics(averageTokens, report);
+        if (petriNet != null) {
             Map<String, Double> throughputs =
                     TransitionMetrics.getTransitionThroughput(stateMappings, steadyState, petriNet);
-            displayThroughputs(throughputs, html);
+            if (symmetry != null) {
+                throughputs = symmetry.averageThroughputs(throughputs);
+            }
+            displayThroughputs(throughputs, report);
         }
 
 
@@ -237,36 +753,55 @@ public class GSPNAnalysis {
     }
 
     /**
-     * @param html
+     * @param report
      * @param stateMappings
+     * @param ids           sorted state ids
      * @param token
-     * @throws IOException
      */
-    private void buildTokenTable(HtmlCanvas html, Map<Integer, ClassifiedState> stateMappings, String token)
-            throws IOException {
-        List<Integer> ids = new ArrayList<>(stateMappings.keySet());
-        Collections.sort(ids);
-        List<String> places = getPlaces(stateMappings);
+    private void buildTokenTable(Report report, final Map<Integer, ClassifiedState> stateMappings, final int[] ids,
+                                 final String token) {
+        final List<String> places = getPlaces(stateMappings);
+        List<String> headers = new ArrayList<>(places);
+        headers.add(0, "State");
+        report.addTable(new AbstractReportTable("State markings for " + token + " token", headers) {
+            @Override
+            public int getRowCount() {
+                return ids.length;
+            }
 
-        List<TableRow> rows = new ArrayList<>();
-        for (Integer id : ids) {
-            ClassifiedState state = stateMappings.get(id);
-            TableRow row = new TableRow(id.toString());
-            for (String place : places) {
-                Integer count = state.getTokens(place).get(token);
-                row.addCell(count.toString());
+            @Override
+            public List<String> getRow(int index) {
+                ClassifiedState state = stateMappings.get(ids[index]);
+                List<String> row = new ArrayList<>(places.size() + 1);
+                row.add(Integer.toString(ids[index]));
+                for (String place : places) {
+                    Integer count = state.getTokens(place).get(token);
+                    row.add(count.toString());
+                }
+                return row;
             }
-            rows.add(row);
+        });
+    }
+
+    /**
+     * @param keys state ids
+     * @return the ids in ascending order
+     */
+    private static int[] sortedIds(Collection<Integer> keys) {
+        int[] ids = new int[keys.size()];
+        int i = 0;
+        for (Integer id : keys) {
+            ids[i++] = id;
         }
-        places.add(0, "State");
-        addTable(html, rows, places, "State markings for " + token + " token");
+        Arrays.sort(ids);
+        return ids;
     }
 
     /**
      * @param value
      * @return string representation rounded to 3 decimal places
      */
-    private String doubleToString(Double value) {
+    private static String doubleToString(Double value) {
         return String.format("%.3f", value);
     }
 
@@ -279,7 +814,7 @@ public class GSPNAnalysis {
      * @param title     itle of the table
      * @throws IOException if IO error occurs 
      */
-    public void addTable(HtmlCanvas html, List<TableRow> tableRows, List<String> headers, String title)
+    public static void addTable(HtmlCanvas html, List<TableRow> tableRows, List<String> headers, String title)
             throws IOException {
         html.h2().content(title);
         html.table();
@@ -304,51 +839,51 @@ public class GSPNAnalysis {
     }
 
     /**
-     * Creates and adds to the html canvas a table for each token colour
+     * Creates and adds to the report a table for each token colour
      * containing the average number of tokens in the place
      *
      * @param averageTokens
-     * @param html
-     * @throws IOException
+     * @param report
      */
-    private void buildAverageMetrics(Map<String, Map<String, Double>> averageTokens, HtmlCanvas html)
-            throws IOException {
+    private void buildAverageMetrics(Map<String, Map<String, Double>> averageTokens, Report report) {
         List<String> places = new ArrayList<>(averageTokens.keySet());
         Collections.sort(places);
         List<String> tokens = new ArrayList<>(averageTokens.get(places.get(0)).keySet());
         Collections.sort(tokens);
 
-        List<TableRow> rows = new ArrayList<>();
+        List<String> headers = new ArrayList<>(tokens);
+        headers.add(0, "Place");
+        ListReportTable table = new ListReportTable("Average token counts", headers);
         for (String place : places) {
             Map<String, Double> average = averageTokens.get(place);
-            TableRow row = new TableRow(place);
+            List<String> row = new ArrayList<>();
+            row.add(place);
             for (String token : tokens) {
                 Double count = average.get(token);
-                row.addCell(doubleToString(count));
+                row.add(doubleToString(count));
             }
-            rows.add(row);
+            table.addRow(row);
         }
-        tokens.add(0, "Place");
-        addTable(html, rows, tokens, "Average token counts");
+        report.addTable(table);
     }
 
     /**
      * Creates and displays a table for the given throughputs
      *
      * @param throughputs
-     * @param html
-     * @throws IOException
+     * @param report
      */
-    private void displayThroughputs(Map<String, Double> throughputs, HtmlCanvas html) throws IOException {
+    private void displayThroughputs(Map<String, Double> throughputs, Report report) {
         List<String> transitions = new ArrayList<>(throughputs.keySet());
         Collections.sort(transitions);
 
-        List<TableRow> rows = new ArrayList<>();
+        ListReportTable table = new ListReportTable("Average timed transition throughputs", "Transition",
+                "Throughput");
         for (String transition : transitions) {
             Double average = throughputs.get(transition);
-            rows.add(new TableRow(transition, doubleToString(average)));
+            table.addRow(transition, doubleToString(average));
         }
-        addTable(html, rows, Arrays.asList("Transition", "Throughput"), "Average timed transition throughputs");
+        report.addTable(table);
     }
 
     /**
@@ -0,0 +1,288 @@
+package pipe.gui.analysis;
+
+import org.rendersnake.HtmlCanvas;
+import pipe.gui.simulation.Estimate;
+import pipe.gui.simulation.GSPNSimulator;
+import pipe.gui.simulation.SimulationResult;
+import pipe.gui.simulation.SimulationSettings;
+import pipe.gui.widget.GenerateResultsForm;
+import pipe.gui.widget.HTMLPane;
+import pipe.gui.widget.ProgressPanel;
+import pipe.gui.widget.SimulationSettingsPanel;
+import pipe.gui.widget.StateSpaceLoader;
+import pipe.gui.widget.StateSpaceLoaderException;
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.TimelessTrapException;
+import pipe.reachability.algorithm.UnboundedExplorerUtilities;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+
+import javax.swing.*;
+import java.awt.BorderLayout;
+import java.awt.FileDialog;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.rendersnake.HtmlAttributesFactory.type;
+
+/**
+ * Estimates the steady state measures of a Petri net by simulation rather than exploring
+ * its state space, for nets too large for {@link GSPNAnalysis}. Displays the estimates with
+ * their confidence intervals.
+ */
+public class SimulationAnalysis {
+
+    /**
+     * Creates the explorer utilities firing the transitions of each replication. Simulations
+     * are not limited in the states they visit so these are not bounded, and because they
+     * cache every marking fired from each replication creates new ones for every batch
+     */
+    private static final StateSpaceLoader.ExplorerCreator EXPLORER_CREATOR = new StateSpaceLoader.ExplorerCreator() {
+        @Override
+        public ExplorerUtilities create(PetriNet petriNet) {
+            return new UnboundedExplorerUtilities(petriNet);
+        }
+    };
+
+    /**
+     * Main panel of the module
+     */
+    private final JPanel mainPanel = new JPanel(new BorderLayout());
+
+    /**
+     * Results HTML pane for displaying the estimates
+     */
+    private final HTMLPane resultsPane = new HTMLPane();
+
+    /**
+     * Precision and run length settings
+     */
+    private final SimulationSettingsPanel settingsPanel = new SimulationSettingsPanel();
+
+    /**
+     * Progress of the background simulation
+     */
+    private final ProgressPanel progressPanel = new ProgressPanel();
+
+    /**
+     * Petri net choice
+     */
+    private final StateSpaceLoader stateSpaceLoader;
+
+    /**
+     * Sets up the UI with the "use current Petri net" disabled
+     *
+     * @param fileDialog dialog for loading Petri nets
+     */
+    public SimulationAnalysis(FileDialog fileDialog) {
+        stateSpaceLoader = new StateSpaceLoader(fileDialog);
+        setUp();
+    }
+
+    /**
+     * Sets up the UI with "use current Petri net" set to the petriNet parameter
+     *
+     * @param petriNet   current Petri net
+     * @param fileDialog dialog for loading Petri nets
+     */
+    public SimulationAnalysis(PetriNet petriNet, FileDialog fileDialog) {
+        stateSpaceLoader = new StateSpaceLoader(petriNet, fileDialog);
+        setUp();
+    }
+
+    /**
+     * Sets up the UI
+     */
+    private void setUp() {
+        mainPanel.add(stateSpaceLoader.getMainPanel(), BorderLayout.NORTH);
+        mainPanel.add(resultsPane, BorderLayout.CENTER);
+        GenerateResultsForm generateResultsForm = new GenerateResultsForm(new GenerateResultsForm.GoAction() {
+            @Override
+            public void go(int threads) {
+                simulate(threads);
+            }
+        });
+        JPanel generatePanel = new JPanel(new BorderLayout());
+        generatePanel.add(settingsPanel.getPanel(), BorderLayout.NORTH);
+        generatePanel.add(generateResultsForm.getPanel(), BorderLayout.CENTER);
+        generatePanel.add(progressPanel.getPanel(), BorderLayout.SOUTH);
+        mainPanel.add(generatePanel, BorderLayout.SOUTH);
+    }
+
+    /**
+     * @return main panel of the module
+     */
+    public JPanel getMainPanel() {
+        return mainPanel;
+    }
+
+    /**
+     * Simulates the chosen net on a background thread so the UI stays responsive and can stop it
+     *
+     * @param threads number of replications simulated at once
+     */
+    private void simulate(int threads) {
+        if (progressPanel.isRunning()) {
+            return;
+        }
+        final SimulationSettings settings;
+        try {
+            settings = settingsPanel.getSettings(threads);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(mainPanel, e.getMessage(), "GSPN Simulation Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        SwingWorker<String, Void> worker = new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                return renderResults(settings);
+            }
+
+            @Override
+            protected void done() {
+                showResults(this);
+            }
+        };
+        progressPanel.startSimulation(worker);
+        worker.execute();
+    }
+
+    /**
+     * Displays the results of a finished background simulation, called on the event dispatch thread
+     *
+     * @param worker finished job
+     */
+    private void showResults(SwingWorker<String, Void> worker) {
+        try {
+            resultsPane.setText(worker.get());
+            progressPanel.finish("Finished");
+        } catch (CancellationException e) {
+            progressPanel.finish("Stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InterruptedException) {
+                progressPanel.finish("Stopped");
+            } else if (cause instanceof StateSpaceLoaderException) {
+                progressPanel.finish(" ");
+                JOptionPane.showMessageDialog(mainPanel, cause.getMessage(), "GSPN Simulation Error",
+                        JOptionPane.ERROR_MESSAGE);
+            } else {
+                cause.printStackTrace();
+                progressPanel.finish("Failed: " + cause.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Simulates the net and renders the estimates
+     *
+     * @param settings simulation settings
+     * @return results HTML
+     * @throws IOException
+     * @throws StateSpaceLoaderException if no net has been chosen or a replication fails
+     * @throws InterruptedException
+     */
+    private String renderResults(SimulationSettings settings)
+            throws IOException, StateSpaceLoaderException, InterruptedException {
+        PetriNet petriNet = stateSpaceLoader.getPetriNet();
+        if (stateSpaceLoader.isBinaryLoadChecked() || petriNet == null) {
+            throw new StateSpaceLoaderException("Please choose a Petri net to simulate");
+        }
+        SimulationResult result;
+        ExecutorService executorService = Executors.newFixedThreadPool(settings.getThreads());
+        try {
+            GSPNSimulator simulator = new GSPNSimulator(petriNet, EXPLORER_CREATOR, settings);
+            result = simulator.run(executorService, progressPanel.getSimulationListener());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            String message = cause instanceof TimelessTrapException ?
+                    "The net entered a cycle of immediate transitions it cannot leave" : cause.getMessage();
+            throw new StateSpaceLoaderException("Simulation failed: " + message, cause);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        HtmlCanvas html = new HtmlCanvas();
+        html.html().head();
+        html.style(type("text/css").media("screen")).content(GSPNAnalysis.HTML_STYLE);
+        html._head();
+        html.body();
+        displaySummary(html, result, settings);
+        displayAverageTokens(html, result.getAverageTokens());
+        displayThroughputs(html, result.getThroughputs());
+        html._body()._html();
+        return html.toHtml();
+    }
+
+    /**
+     * @param html
+     * @param result
+     * @param settings
+     * @throws IOException
+     */
+    private void displaySummary(HtmlCanvas html, SimulationResult result, SimulationSettings settings)
+            throws IOException {
+        List<GSPNAnalysis.TableRow> rows = new ArrayList<>();
+        rows.add(new GSPNAnalysis.TableRow("Batches", Integer.toString(result.getBatches())));
+        rows.add(new GSPNAnalysis.TableRow("Replications", Integer.toString(result.getReplications())));
+        rows.add(new GSPNAnalysis.TableRow("Simulated time",
+                String.format("%.1f", result.getBatches() * settings.getBatchTime())));
+        rows.add(new GSPNAnalysis.TableRow("Confidence level",
+                String.format("%.1f%%", settings.getConfidence() * 100)));
+        rows.add(new GSPNAnalysis.TableRow("Target precision",
+                String.format("%.1f%%", settings.getPrecision() * 100)));
+        rows.add(new GSPNAnalysis.TableRow("Precision reached", result.isConverged() ? "Yes" : "No"));
+        rows.add(new GSPNAnalysis.TableRow("Time (ms)", Long.toString(result.getElapsedMillis())));
+        GSPNAnalysis.addTable(html, rows, Arrays.asList("Setting", "Value"), "Simulation");
+    }
+
+    /**
+     * @param html
+     * @param averageTokens
+     * @throws IOException
+     */
+    private void displayAverageTokens(HtmlCanvas html, Map<String, Map<String, Estimate>> averageTokens)
+            throws IOException {
+        List<String> places = new ArrayList<>(averageTokens.keySet());
+        Collections.sort(places);
+        if (places.isEmpty()) {
+            return;
+        }
+        List<String> tokens = new ArrayList<>(averageTokens.get(places.get(0)).keySet());
+        Collections.sort(tokens);
+        List<String> headers = new ArrayList<>();
+        headers.add("Place");
+        headers.addAll(tokens);
+        List<GSPNAnalysis.TableRow> rows = new ArrayList<>();
+        for (String place : places) {
+            GSPNAnalysis.TableRow row = new GSPNAnalysis.TableRow(place);
+            for (String token : tokens) {
+                row.addCell(averageTokens.get(place).get(token).toString());
+            }
+            rows.add(row);
+        }
+        GSPNAnalysis.addTable(html, rows, headers, "Average token counts");
+    }
+
+    /**
+     * @param html
+     * @param throughputs
+     * @throws IOException
+     */
+    private void displayThroughputs(HtmlCanvas html, Map<String, Estimate> throughputs) throws IOException {
+        List<String> transitions = new ArrayList<>(throughputs.keySet());
+        Collections.sort(transitions);
+        List<GSPNAnalysis.TableRow> rows = new ArrayList<>();
+        for (String transition : transitions) {
+            rows.add(new GSPNAnalysis.TableRow(transition, throughputs.get(transition).toString()));
+        }
+        GSPNAnalysis.addTable(html, rows, Arrays.asList("Transition", "Throughput"),
+                "Average timed transition throughputs");
+    }
+}
@@ -0,0 +1,427 @@
+package pipe.gui.analysis;
+
+import org.rendersnake.HtmlCanvas;
+import pipe.gui.structural.FarkasInvariants;
+import pipe.gui.structural.IncidenceMatrix;
+import pipe.gui.structural.Invariant;
+import pipe.gui.structural.NetStructure;
+import pipe.gui.structural.Siphons;
+import pipe.gui.widget.GenerateResultsForm;
+import pipe.gui.widget.HTMLPane;
+import pipe.gui.widget.ProgressPanel;
+import pipe.gui.widget.StateSpaceLoader;
+import pipe.gui.widget.StateSpaceLoaderException;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+
+import javax.swing.*;
+import java.awt.BorderLayout;
+import java.awt.FileDialog;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.rendersnake.HtmlAttributesFactory.type;
+
+/**
+ * Analyses the structure of a Petri net without exploring its state space: its place and
+ * transition invariants, the token bounds the place invariants prove, and its minimal siphons
+ * and traps.
+ * <p>
+ * The invariant engines are kept between runs, so analysing the current net again after
+ * changing the weight of a single arc only redoes the last step of the computation.
+ * </p>
+ */
+public class StructuralAnalysis {
+
+    /**
+     * Most steps the siphon and trap searches take before giving up
+     */
+    private static final int SEARCH_STEPS = 100000;
+
+    /**
+     * Main panel of the module
+     */
+    private final JPanel mainPanel = new JPanel(new BorderLayout());
+
+    /**
+     * Results HTML pane
+     */
+    private final HTMLPane resultsPane = new HTMLPane();
+
+    /**
+     * Progress of the background analysis
+     */
+    private final ProgressPanel progressPanel = new ProgressPanel();
+
+    /**
+     * Computes place invariants, re-using the previous run's results
+     */
+    private final FarkasInvariants placeInvariants = new FarkasInvariants();
+
+    /**
+     * Computes transition invariants, re-using the previous run's results
+     */
+    private final FarkasInvariants transitionInvariants = new FarkasInvariants();
+
+    /**
+     * Petri net choice
+     */
+    private final StateSpaceLoader stateSpaceLoader;
+
+    /**
+     * Sets up the UI with the "use current Petri net" disabled
+     *
+     * @param fileDialog dialog for loading Petri nets
+     */
+    public StructuralAnalysis(FileDialog fileDialog) {
+        stateSpaceLoader = new StateSpaceLoader(fileDialog);
+        setUp();
+    }
+
+    /**
+     * Sets up the UI with "use current Petri net" set to the petriNet parameter
+     *
+     * @param petriNet   current Petri net
+     * @param fileDialog dialog for loading Petri nets
+     */
+    public StructuralAnalysis(PetriNet petriNet, FileDialog fileDialog) {
+        stateSpaceLoader = new StateSpaceLoader(petriNet, fileDialog);
+        setUp();
+    }
+
+    /**
+     * Sets up the UI
+     */
+    private void setUp() {
+        mainPanel.add(stateSpaceLoader.getMainPanel(), BorderLayout.NORTH);
+        mainPanel.add(resultsPane, BorderLayout.CENTER);
+        GenerateResultsForm generateResultsForm = new GenerateResultsForm(new GenerateResultsForm.GoAction() {
+            @Override
+            public void go(int threads) {
+                analyse(threads);
+            }
+        });
+        JPanel generatePanel = new JPanel(new BorderLayout());
+        generatePanel.add(generateResultsForm.getPanel(), BorderLayout.CENTER);
+        generatePanel.add(progressPanel.getPanel(), BorderLayout.SOUTH);
+        mainPanel.add(generatePanel, BorderLayout.SOUTH);
+    }
+
+    /**
+     * @return main panel of the module
+     */
+    public JPanel getMainPanel() {
+        return mainPanel;
+    }
+
+    /**
+     * Analyses the chosen net on a background thread so the UI stays responsive and can stop it
+     *
+     * @param threads number of threads to compute the invariants with
+     */
+    private void analyse(final int threads) {
+        if (progressPanel.isRunning()) {
+            return;
+        }
+        SwingWorker<String, Void> worker = new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                return renderResults(threads);
+            }
+
+            @Override
+            protected void done() {
+                showResults(this);
+            }
+        };
+        progressPanel.startAnalysis(worker);
+        worker.execute();
+    }
+
+    /**
+     * Displays the results of a finished background analysis, called on the event dispatch thread
+     *
+     * @param worker finished job
+     */
+    private void showResults(SwingWorker<String, Void> worker) {
+        try {
+            resultsPane.setText(worker.get());
+            progressPanel.finish("Finished");
+        } catch (CancellationException e) {
+            progressPanel.finish("Stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InterruptedException) {
+                progressPanel.finish("Stopped");
+            } else if (cause instanceof StateSpaceLoaderException) {
+                progressPanel.finish(" ");
+                JOptionPane.showMessageDialog(mainPanel, cause.getMessage(), "Structural Analysis Error",
+                        JOptionPane.ERROR_MESSAGE);
+            } else {
+                cause.printStackTrace();
+                progressPanel.finish("Failed: " + cause.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Analyses the net and renders the results
+     *
+     * @param threads number of threads to compute the invariants with
+     * @return results HTML
+     * @throws IOException
+     * @throws StateSpaceLoaderException if no net has been chosen or its arc weights are not constant
+     * @throws InterruptedException
+     */
+    private String renderResults(int threads) throws IOException, StateSpaceLoaderException, InterruptedException {
+        PetriNet petriNet = stateSpaceLoader.getPetriNet();
+        if (stateSpaceLoader.isBinaryLoadChecked() || petriNet == null) {
+            throw new StateSpaceLoaderException("Please choose a Petri net to analyse");
+        }
+        long start = System.currentTimeMillis();
+        NetStructure net;
+        try {
+            net = NetStructure.of(petriNet);
+        } catch (IllegalArgumentException e) {
+            throw new StateSpaceLoaderException(e.getMessage(), e);
+        }
+        IncidenceMatrix incidence = net.getIncidenceMatrix();
+        List<Invariant> pInvariants;
+        List<Invariant> tInvariants;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            pInvariants = placeInvariants.compute(incidence, executorService, threads);
+            tInvariants = transitionInvariants.compute(incidence.transpose(), executorService, threads);
+        } finally {
+            executorService.shutdownNow();
+        }
+        Siphons siphons = Siphons.findSiphons(net, SEARCH_STEPS);
+        Siphons traps = Siphons.findTraps(net, SEARCH_STEPS);
+        long elapsed = System.currentTimeMillis() - start;
+
+        HtmlCanvas html = new HtmlCanvas();
+        html.html().head();
+        html.style(type("text/css").media("screen")).content(GSPNAnalysis.HTML_STYLE);
+        html._head();
+        html.body();
+        displaySummary(html, net, pInvariants, tInvariants, siphons, traps, elapsed);
+        displayPlaceInvariants(html, net, pInvariants);
+        displayBounds(html, net, pInvariants);
+        displayTransitionInvariants(html, incidence, tInvariants);
+        displaySiphons(html, net, siphons);
+        displayTraps(html, net, traps);
+        html._body()._html();
+        return html.toHtml();
+    }
+
+    /**
+     * @param html
+     * @param net
+     * @param pInvariants
+     * @param tInvariants
+     * @param siphons
+     * @param traps
+     * @param elapsed
+     * @throws IOException
+     */
+    private void displaySummary(HtmlCanvas html, NetStructure net, List<Invariant> pInvariants,
+                                List<Invariant> tInvariants, Siphons siphons, Siphons traps, long elapsed)
+            throws IOException {
+        IncidenceMatrix incidence = net.getIncidenceMatrix();
+        boolean siphonsMarked = true;
+        for (BitSet siphon : siphons.getSets()) {
+            siphonsMarked &= siphons.isInitiallyMarked(siphons.largestTrapWithin(siphon));
+        }
+        List<GSPNAnalysis.TableRow> rows = new ArrayList<>();
+        rows.add(new GSPNAnalysis.TableRow("Places", Integer.toString(net.getPlaces().size())));
+        rows.add(new GSPNAnalysis.TableRow("Transitions", Integer.toString(net.getTransitions().size())));
+        rows.add(new GSPNAnalysis.TableRow("Place invariants", Integer.toString(pInvariants.size())));
+        rows.add(new GSPNAnalysis.TableRow("Transition invariants", Integer.toString(tInvariants.size())));
+        rows.add(new GSPNAnalysis.TableRow("Structurally bounded",
+                yesNo(covers(pInvariants, incidence.getRowCount()))));
+        rows.add(new GSPNAnalysis.TableRow("Covered by transition invariants",
+                yesNo(covers(tInvariants, incidence.getColumnCount()))));
+        rows.add(new GSPNAnalysis.TableRow("Minimal siphons", count(siphons)));
+        rows.add(new GSPNAnalysis.TableRow("Minimal traps", count(traps)));
+        rows.add(new GSPNAnalysis.TableRow("Every siphon contains a marked trap",
+                siphons.isComplete() ? yesNo(siphonsMarked) : "Unknown"));
+        rows.add(new GSPNAnalysis.TableRow("Re-used previous invariants",
+                yesNo(placeInvariants.isIncremental() || transitionInvariants.isIncremental())));
+        rows.add(new GSPNAnalysis.TableRow("Time (ms)", Long.toString(elapsed)));
+        GSPNAnalysis.addTable(html, rows, Arrays.asList("Property", "Value"), "Structure");
+    }
+
+    /**
+     * @param html
+     * @param net
+     * @param pInvariants
+     * @throws IOException
+     */
+    private void displayPlaceInvariants(HtmlCanvas html, NetStructure net, List<Invariant> pInvariants)
+            throws IOException {
+        List<GSPNAnalysis.TableRow> rows = new ArrayList<>();
+        for (Invariant invariant : pInvariants) {
+            rows.add(new GSPNAnalysis.TableRow(format(invariant, net.getIncidenceMatrix(), true),
+                    Long.toString(weightedTokens(net, invariant))));
+        }
+        GSPNAnalysis.addTable(html, rows, Arrays.asList("Invariant", "Weighted token count"), "Place invariants");
+    }
+
+    /**
+     * Displays the most tokens each place can ever hold according to the place invariants
+     * covering it
+     *
+     * @param html
+     * @param net
+     * @param pInvariants
+     * @throws IOException
+     */
+    private void displayBounds(HtmlCanvas html, NetStructure net, List<Invariant> pInvariants) throws IOException {
+        IncidenceMatrix incidence = net.getIncidenceMatrix();
+        List<GSPNAnalysis.TableRow> rows = new ArrayList<>();
+        for (int row = 0; row < incidence.getRowCount(); row++) {
+            long bound = Long.MAX_VALUE;
+            for (Invariant invariant : pInvariants) {
+                int coefficient = invariant.getCoefficientOf(row);
+                if (coefficient > 0) {
+                    bound = Math.min(bound, weightedTokens(net, invariant) / coefficient);
+                }
+            }
+            rows.add(new GSPNAnalysis.TableRow(incidence.getRowLabel(row),
+                    bound == Long.MAX_VALUE ? "Not covered" : Long.toString(bound)));
+        }
+        GSPNAnalysis.addTable(html, rows, Arrays.asList("Place", "Token bound"), "Structural bounds");
+    }
+
+    /**
+     * @param html
+     * @param incidence
+     * @param tInvariants
+     * @throws IOException
+     */
+    private void displayTransitionInvariants(HtmlCanvas html, IncidenceMatrix incidence, List<Invariant> tInvariants)
+            throws IOException {
+        List<GSPNAnalysis.TableRow> rows = new ArrayList<>();
+        for (Invariant invariant : tInvariants) {
+            rows.add(new GSPNAnalysis.TableRow(format(invariant, incidence, false)));
+        }
+        GSPNAnalysis.addTable(html, rows, Collections.singletonList("Invariant"), "Transition invariants");
+    }
+
+    /**
+     * @param html
+     * @param net
+     * @param siphons
+     * @throws IOException
+     */
+    private void displaySiphons(HtmlCanvas html, NetStructure net, Siphons siphons) throws IOException {
+        List<GSPNAnalysis.TableRow> rows = new ArrayList<>();
+        for (BitSet siphon : siphons.getSets()) {
+            rows.add(new GSPNAnalysis.TableRow(format(siphon, net), yesNo(siphons.isInitiallyMarked(siphon)),
+                    yesNo(siphons.isInitiallyMarked(siphons.largestTrapWithin(siphon)))));
+        }
+        GSPNAnalysis.addTable(html, rows, Arrays.asList("Places", "Initially marked", "Contains a marked trap"),
+                "Minimal siphons");
+    }
+
+    /**
+     * @param html
+     * @param net
+     * @param traps
+     * @throws IOException
+     */
+    private void displayTraps(HtmlCanvas html, NetStructure net, Siphons traps) throws IOException {
+        List<GSPNAnalysis.TableRow> rows = new ArrayList<>();
+        for (BitSet trap : traps.getSets()) {
+            rows.add(new GSPNAnalysis.TableRow(format(trap, net), yesNo(traps.isInitiallyMarked(trap))));
+        }
+        GSPNAnalysis.addTable(html, rows, Arrays.asList("Places", "Initially marked"), "Minimal traps");
+    }
+
+    /**
+     * @param net       analysed net
+     * @param invariant place invariant
+     * @return weighted token count of the invariant in the initial marking
+     */
+    private static long weightedTokens(NetStructure net, Invariant invariant) {
+        long total = 0;
+        for (int k = 0; k < invariant.size(); k++) {
+            total += (long) invariant.getCoefficient(k) * net.getInitialMarking(invariant.getIndex(k));
+        }
+        return total;
+    }
+
+    /**
+     * @param invariants invariants
+     * @param size       number of rows or columns they are over
+     * @return true if every row or column is in the support of an invariant
+     */
+    private static boolean covers(List<Invariant> invariants, int size) {
+        BitSet covered = new BitSet();
+        for (Invariant invariant : invariants) {
+            for (int k = 0; k < invariant.size(); k++) {
+                covered.set(invariant.getIndex(k));
+            }
+        }
+        return covered.cardinality() == size;
+    }
+
+    /**
+     * @param invariant invariant to format
+     * @param incidence matrix it is an invariant of
+     * @param rows      true if its indices are rows of the matrix, false if columns
+     * @return weighted sum of the labels of its indices
+     */
+    private static String format(Invariant invariant, IncidenceMatrix incidence, boolean rows) {
+        StringBuilder builder = new StringBuilder();
+        for (int k = 0; k < invariant.size(); k++) {
+            if (k > 0) {
+                builder.append(" + ");
+            }
+            if (invariant.getCoefficient(k) != 1) {
+                builder.append(invariant.getCoefficient(k)).append(' ');
+            }
+            int index = invariant.getIndex(k);
+            builder.append(rows ? incidence.getRowLabel(index) : incidence.getColumnLabel(index));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param places set of place indices
+     * @param net    net they belong to
+     * @return comma separated place ids
+     */
+    private static String format(BitSet places, NetStructure net) {
+        StringBuilder builder = new StringBuilder();
+        for (int p = places.nextSetBit(0); p >= 0; p = places.nextSetBit(p + 1)) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(net.getPlaces().get(p));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param search siphon or trap search
+     * @return number of sets found, noting if the search stopped early
+     */
+    private static String count(Siphons search) {
+        String count = Integer.toString(search.getSets().size());
+        return search.isComplete() ? count : count + " (search stopped early)";
+    }
+
+    /**
+     * @param value boolean to display
+     * @return Yes or No
+     */
+    private static String yesNo(boolean value) {
+        return value ? "Yes" : "No";
+    }
+}
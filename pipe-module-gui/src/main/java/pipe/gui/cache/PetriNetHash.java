@@ -0,0 +1,219 @@
+package pipe.gui.cache;
+
+import uk.ac.imperial.pipe.models.petrinet.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Canonical hash of everything in a Petri net that affects its state space and steady state.
+ * <p>
+ * Components are hashed in id order so that two nets with the same structure hash the same
+ * regardless of the order their components were added in. Names, positions and annotations
+ * do not change the analysis so are left out.
+ * </p>
+ */
+public final class PetriNetHash {
+
+    /**
+     * Digest algorithm
+     */
+    private static final String ALGORITHM = "SHA-256";
+
+    /**
+     * Private constructor for utility class
+     */
+    private PetriNetHash() {
+    }
+
+    /**
+     * @param petriNet net to hash
+     * @return hex encoded hash of the net's structure, rates and initial marking
+     */
+    public static String of(PetriNet petriNet) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeTokens(out, petriNet.getTokens());
+            writeRateParameters(out, petriNet.getRateParameters());
+            writePlaces(out, petriNet.getPlaces());
+            writeTransitions(out, petriNet.getTransitions());
+            writeArcs(out, petriNet.getArcs());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not hash Petri net", e);
+        }
+        return digest(bytes.toByteArray());
+    }
+
+    /**
+     * @param parts strings to combine
+     * @return hex encoded hash of the strings, each prefixed by its length so that the
+     * combination is unambiguous
+     */
+    public static String combine(String... parts) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (String part : parts) {
+                writeString(out, part);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not hash strings", e);
+        }
+        return digest(bytes.toByteArray());
+    }
+
+    /**
+     * @param out    output
+     * @param tokens tokens of the net
+     * @throws IOException never, the output is in memory
+     */
+    private static void writeTokens(DataOutputStream out, Collection<Token> tokens) throws IOException {
+        List<String> ids = new ArrayList<>();
+        for (Token token : tokens) {
+            ids.add(token.getId());
+        }
+        Collections.sort(ids);
+        out.writeInt(ids.size());
+        for (String id : ids) {
+            writeString(out, id);
+        }
+    }
+
+    /**
+     * @param out        output
+     * @param parameters rate parameters of the net
+     * @throws IOException never, the output is in memory
+     */
+    private static void writeRateParameters(DataOutputStream out, Collection<RateParameter> parameters)
+            throws IOException {
+        List<RateParameter> sorted = sortedById(parameters);
+        out.writeInt(sorted.size());
+        for (RateParameter parameter : sorted) {
+            writeString(out, parameter.getId());
+            writeString(out, parameter.getExpression());
+        }
+    }
+
+    /**
+     * @param out    output
+     * @param places places of the net
+     * @throws IOException never, the output is in memory
+     */
+    private static void writePlaces(DataOutputStream out, Collection<Place> places) throws IOException {
+        List<Place> sorted = sortedById(places);
+        out.writeInt(sorted.size());
+        for (Place place : sorted) {
+            writeString(out, place.getId());
+            out.writeInt(place.getCapacity());
+            writeMap(out, place.getTokenCounts());
+        }
+    }
+
+    /**
+     * @param out         output
+     * @param transitions transitions of the net
+     * @throws IOException never, the output is in memory
+     */
+    private static void writeTransitions(DataOutputStream out, Collection<Transition> transitions)
+            throws IOException {
+        List<Transition> sorted = sortedById(transitions);
+        out.writeInt(sorted.size());
+        for (Transition transition : sorted) {
+            writeString(out, transition.getId());
+            out.writeBoolean(transition.isTimed());
+            out.writeBoolean(transition.isInfiniteServer());
+            out.writeInt(transition.getPriority());
+            writeString(out, transition.getRateExpr());
+        }
+    }
+
+    /**
+     * @param out  output
+     * @param arcs arcs of the net
+     * @throws IOException never, the output is in memory
+     */
+    private static void writeArcs(DataOutputStream out, Collection<Arc<? extends Connectable, ? extends Connectable>> arcs)
+            throws IOException {
+        List<String> keys = new ArrayList<>();
+        Map<String, Arc<? extends Connectable, ? extends Connectable>> byKey = new HashMap<>();
+        for (Arc<? extends Connectable, ? extends Connectable> arc : arcs) {
+            String key = arc.getSource().getId() + "\u0000" + arc.getTarget().getId() + "\u0000" + arc.getType();
+            keys.add(key);
+            byKey.put(key, arc);
+        }
+        Collections.sort(keys);
+        out.writeInt(keys.size());
+        for (String key : keys) {
+            writeString(out, key);
+            writeMap(out, byKey.get(key).getTokenWeights());
+        }
+    }
+
+    /**
+     * @param components components to sort
+     * @param <T>        component type
+     * @return components in id order
+     */
+    private static <T extends PetriNetComponent> List<T> sortedById(Collection<T> components) {
+        List<T> sorted = new ArrayList<>(components);
+        Collections.sort(sorted, new Comparator<T>() {
+            @Override
+            public int compare(T first, T second) {
+                return first.getId().compareTo(second.getId());
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * @param out output
+     * @param map map written in key order
+     * @throws IOException never, the output is in memory
+     */
+    private static void writeMap(DataOutputStream out, Map<String, ?> map) throws IOException {
+        Map<String, ?> sorted = new TreeMap<>(map);
+        out.writeInt(sorted.size());
+        for (Map.Entry<String, ?> entry : sorted.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, String.valueOf(entry.getValue()));
+        }
+    }
+
+    /**
+     * Writes the string with its length, null is written as a length of -1
+     *
+     * @param out   output
+     * @param value string to write, may be null
+     * @throws IOException never, the output is in memory
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @param bytes bytes to digest
+     * @return hex encoded digest
+     */
+    private static String digest(byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance(ALGORITHM).digest(bytes);
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b & 0xff));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
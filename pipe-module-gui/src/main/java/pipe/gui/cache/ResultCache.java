@@ -0,0 +1,389 @@
+package pipe.gui.cache;
+
+import pipe.gui.statespace.StateSpaceGenerator;
+import pipe.gui.steadystate.SolverMethod;
+import pipe.gui.steadystate.SolverResult;
+import pipe.gui.steadystate.SolverSettings;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * On disk cache of explored state spaces and their steady state solutions, addressed by a
+ * hash of the Petri net and the exploration settings so that analysing an unchanged net
+ * again does not explore or solve it again.
+ * <p>
+ * Every cached state space is a directory named by its key holding the state space
+ * binaries and one file per set of solver settings it has been solved with. State spaces
+ * are explored into a staging directory and only renamed into place once complete, so a
+ * directory named by a key is always complete. The least recently used entries are deleted
+ * whenever the cache grows beyond its disk budget.
+ * </p>
+ */
+public final class ResultCache {
+
+    /**
+     * System property overriding the cache directory
+     */
+    public static final String DIRECTORY_PROPERTY = "pipe.cache.dir";
+
+    /**
+     * System property overriding the disk budget in megabytes, zero disables the cache
+     */
+    public static final String BUDGET_PROPERTY = "pipe.cache.mb";
+
+    /**
+     * Default disk budget in megabytes
+     */
+    public static final long DEFAULT_BUDGET_MB = 1024;
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = Logger.getLogger(ResultCache.class.getName());
+
+    /**
+     * Marks the directories of state spaces still being explored
+     */
+    private static final String STAGING_SUFFIX = ".partial";
+
+    /**
+     * Prefix of the solution files
+     */
+    private static final String SOLUTION_PREFIX = "solution-";
+
+    /**
+     * Identifies a solution file
+     */
+    private static final int SOLUTION_MAGIC = 0x50534f4c;
+
+    /**
+     * Cache shared by the analysis modules, created on first use
+     */
+    private static ResultCache defaultCache;
+
+    /**
+     * Directory holding the entries
+     */
+    private final Path directory;
+
+    /**
+     * Maximum number of bytes the entries may take up
+     */
+    private final long budgetBytes;
+
+    /**
+     * @param directory   directory holding the entries, created if it does not exist
+     * @param budgetBytes maximum number of bytes the entries may take up
+     * @throws IOException if the directory cannot be created
+     */
+    public ResultCache(Path directory, long budgetBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * The cache lives in .pipe/cache in the user's home directory unless overridden by the
+     * {@value #DIRECTORY_PROPERTY} system property.
+     *
+     * @return cache shared by the analysis modules, null if it has been disabled by setting
+     * {@value #BUDGET_PROPERTY} to zero
+     * @throws IOException if the cache directory cannot be created
+     */
+    public static synchronized ResultCache getDefault() throws IOException {
+        long budget = Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET_MB);
+        if (budget <= 0) {
+            return null;
+        }
+        if (defaultCache == null) {
+            String location = System.getProperty(DIRECTORY_PROPERTY);
+            Path path = location == null ? Paths.get(System.getProperty("user.home"), ".pipe", "cache") :
+                    Paths.get(location);
+            defaultCache = new ResultCache(path, budget * 1024 * 1024);
+        }
+        return defaultCache;
+    }
+
+    /**
+     * @param petriNet         net to explore
+     * @param explorerSettings description of every exploration setting that changes the
+     *                         state space, such as the state limit
+     * @return key of the state space
+     */
+    public static String key(PetriNet petriNet, String explorerSettings) {
+        return PetriNetHash.combine(PetriNetHash.of(petriNet), explorerSettings);
+    }
+
+    /**
+     * @param settings solver settings
+     * @return description of every setting that changes the solution, the thread count only
+     * changes how quickly it is found so is left out
+     */
+    public static String solverKey(SolverSettings settings) {
+        return settings.getMethod().getKey() + ";" + settings.getTolerance() + ";" + settings.getMaxIterations()
+                + ";" + settings.getRelaxation() + ";" + settings.getKrylovDimension();
+    }
+
+    /**
+     * @param key key of the state space
+     * @return generator reading the cached state space, null if it is not cached
+     * @throws IOException if the entry cannot be marked as used
+     */
+    public synchronized StateSpaceGenerator find(String key) throws IOException {
+        Path entry = directory.resolve(key);
+        StateSpaceGenerator generator = generatorFor(entry);
+        if (!Files.exists(generator.getTransitions()) || !Files.exists(generator.getStates())) {
+            return null;
+        }
+        touch(entry);
+        return generator;
+    }
+
+    /**
+     * @param key key of the state space about to be explored
+     * @return new directory to explore the state space into before committing it
+     * @throws IOException if the directory cannot be created
+     */
+    public Path stage(String key) throws IOException {
+        return Files.createTempDirectory(directory, key + STAGING_SUFFIX);
+    }
+
+    /**
+     * Moves a completely explored state space into the cache, evicting the least recently
+     * used entries if the cache is now over budget
+     *
+     * @param key     key of the state space
+     * @param staging directory returned by {@link #stage(String)} the state space was explored into
+     * @return generator reading the cached state space
+     * @throws IOException if the state space cannot be moved into the cache
+     */
+    public synchronized StateSpaceGenerator commit(String key, Path staging) throws IOException {
+        Path entry = directory.resolve(key);
+        if (Files.exists(entry)) {
+            discard(staging);
+        } else {
+            Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+        }
+        touch(entry);
+        evict(key);
+        return generatorFor(entry);
+    }
+
+    /**
+     * Deletes a staging directory whose exploration did not complete
+     *
+     * @param staging directory returned by {@link #stage(String)}
+     */
+    public void discard(Path staging) {
+        try {
+            deleteRecursively(staging);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not delete " + staging, e);
+        }
+    }
+
+    /**
+     * @param key      key of the state space
+     * @param settings solver settings
+     * @return cached solution of the state space with the settings, null if it has not been solved with them
+     * @throws IOException if the solution cannot be read
+     */
+    public synchronized SolverResult findSolution(String key, SolverSettings settings) throws IOException {
+        Path file = solutionFile(key, settings);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file.toFile())))) {
+            if (in.readInt() != SOLUTION_MAGIC) {
+                throw new IOException(file + " is not a cached solution");
+            }
+            SolverMethod method = SolverMethod.fromKey(in.readUTF());
+            boolean converged = in.readBoolean();
+            long elapsedMillis = in.readLong();
+            double[] distribution = readDoubles(in);
+            double[] residuals = readDoubles(in);
+            touch(directory.resolve(key));
+            return new SolverResult(method, distribution, residuals, converged, elapsedMillis);
+        }
+    }
+
+    /**
+     * Stores the solution of a cached state space
+     *
+     * @param key      key of the state space, which must have been committed
+     * @param settings solver settings used
+     * @param result   solution
+     * @throws IOException if the solution cannot be written
+     */
+    public synchronized void storeSolution(String key, SolverSettings settings, SolverResult result)
+            throws IOException {
+        Path file = solutionFile(key, settings);
+        if (!Files.isDirectory(file.getParent())) {
+            return;
+        }
+        Path temporary = Files.createTempFile(file.getParent(), SOLUTION_PREFIX, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temporary.toFile())))) {
+                out.writeInt(SOLUTION_MAGIC);
+                out.writeUTF(result.getMethod().getKey());
+                out.writeBoolean(result.isConverged());
+                out.writeLong(result.getElapsedMillis());
+                writeDoubles(out, result.getDistribution());
+                writeDoubles(out, result.getResiduals());
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        touch(file.getParent());
+        evict(key);
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache fits its budget. Staging
+     * directories and the entry being used are never deleted.
+     *
+     * @param keep key of the entry in use
+     * @throws IOException if the entries cannot be listed
+     */
+    private void evict(String keep) throws IOException {
+        final List<Path> entries = new ArrayList<>();
+        final List<Long> sizes = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                if (Files.isDirectory(entry) && !entry.getFileName().toString().contains(STAGING_SUFFIX)) {
+                    long size = size(entry);
+                    entries.add(entry);
+                    sizes.add(size);
+                    total += size;
+                }
+            }
+        }
+        if (total <= budgetBytes) {
+            return;
+        }
+        final List<FileTime> used = new ArrayList<>();
+        for (Path entry : entries) {
+            used.add(Files.getLastModifiedTime(entry));
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            order.add(i);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                return used.get(first).compareTo(used.get(second));
+            }
+        });
+        for (int index : order) {
+            if (total <= budgetBytes) {
+                break;
+            }
+            Path entry = entries.get(index);
+            if (entry.getFileName().toString().equals(keep)) {
+                continue;
+            }
+            try {
+                deleteRecursively(entry);
+                total -= sizes.get(index);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not evict " + entry, e);
+            }
+        }
+    }
+
+    /**
+     * @param entry entry directory
+     * @return generator reading the state space in the directory
+     */
+    private static StateSpaceGenerator generatorFor(Path entry) {
+        return new StateSpaceGenerator(entry.resolve(StateSpaceGenerator.TRANSITIONS_FILE),
+                entry.resolve(StateSpaceGenerator.STATES_FILE));
+    }
+
+    /**
+     * @param key      key of the state space
+     * @param settings solver settings
+     * @return file the solution with the settings is stored in
+     */
+    private Path solutionFile(String key, SolverSettings settings) {
+        return directory.resolve(key).resolve(SOLUTION_PREFIX + PetriNetHash.combine(solverKey(settings)) + ".bin");
+    }
+
+    /**
+     * Marks the entry as just used
+     *
+     * @param entry entry directory
+     * @throws IOException if the modification time cannot be set
+     */
+    private static void touch(Path entry) throws IOException {
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    /**
+     * @param entry entry directory
+     * @return total size of the files in the directory
+     * @throws IOException if the directory cannot be listed
+     */
+    private static long size(Path entry) throws IOException {
+        long size = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(entry)) {
+            for (Path file : stream) {
+                size += Files.size(file);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @param path directory of files to delete along with the directory itself
+     * @throws IOException if a file cannot be deleted
+     */
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+            for (Path file : stream) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * @param out    output
+     * @param values values to write with their length
+     * @throws IOException if the write fails
+     */
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        out.writeInt(values.length);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    /**
+     * @param in input
+     * @return values written by {@link #writeDoubles(DataOutputStream, double[])}
+     * @throws IOException if the read fails
+     */
+    private static double[] readDoubles(DataInputStream in) throws IOException {
+        double[] values = new double[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+}
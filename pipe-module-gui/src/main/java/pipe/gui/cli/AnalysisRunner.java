@@ -0,0 +1,928 @@
+package pipe.gui.cli;
+
+import pipe.gui.cache.ResultCache;
+import pipe.gui.statespace.BitstateExplorer;
+import pipe.gui.statespace.NetSymmetry;
+import pipe.gui.statespace.SchedulerStatistics;
+import pipe.gui.statespace.StateSpaceGenerator;
+import pipe.gui.statespace.SymmetricExplorerUtilities;
+import pipe.gui.steadystate.GeneratorMatrix;
+import pipe.gui.steadystate.GeneratorMatrixBuilder;
+import pipe.gui.steadystate.ConvergenceListener;
+import pipe.gui.steadystate.ParallelRows;
+import pipe.gui.steadystate.SolverMethod;
+import pipe.gui.steadystate.SolverResult;
+import pipe.gui.steadystate.SolverSettings;
+import pipe.gui.steadystate.SparseSolver;
+import pipe.gui.steadystate.TransientSolver;
+import pipe.reachability.algorithm.*;
+import pipe.steadystate.metrics.TokenMetrics;
+import pipe.steadystate.metrics.TransitionMetrics;
+import uk.ac.imperial.pipe.exceptions.InvalidRateException;
+import uk.ac.imperial.pipe.io.PetriNetIOImpl;
+import uk.ac.imperial.pipe.io.PetriNetReader;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+import uk.ac.imperial.state.ClassifiedState;
+
+import javax.xml.bind.JAXBException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Command line entry point for running state space exploration and steady state analysis
+ * over a batch of PNML files without starting the GUI.
+ * <p>
+ * For each model a {@code <model>.json} results file is written to the output directory
+ * and a line is appended to {@code summary.csv}. AWT is forced into headless mode so
+ * this can be run on servers with no display.
+ * </p>
+ */
+public final class AnalysisRunner {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = Logger.getLogger(AnalysisRunner.class.getName());
+
+    /**
+     * Usage message printed on invalid arguments
+     */
+    private static final String USAGE = "Usage: AnalysisRunner [options] <petri net.xml>...\n" +
+            "  -t, --threads <n>       number of exploration and solver threads (default 1)\n" +
+            "  -m, --max-states <n>    maximum number of states to explore (default 1000000)\n" +
+            "  -o, --output <dir>      directory to write results into (default .)\n" +
+            "      --coverability      generate the coverability graph\n" +
+            "      --vanishing         include vanishing states, disables steady state analysis\n" +
+            "      --symmetry          explore one state per orbit of swapping identical components\n" +
+            "      --explore-only      do not solve the steady state\n" +
+            "      --bitstate <mb>     only hunt deadlocks and timeless traps, recording visited states\n" +
+            "                          in a <mb> megabyte bit table that may miss a few of them,\n" +
+            "                          unlimited in states unless --max-states is given\n" +
+            "      --hashes <n>        bits set per state in the bitstate table (default 3)\n" +
+            "      --distribution      include the full steady state distribution in the results\n" +
+            "      --keep-binaries     keep the state space binaries next to the results\n" +
+            "      --solver <name>     gauss-seidel, jacobi, sor, power or gmres (default gauss-seidel)\n" +
+            "      --tolerance <x>     residual tolerance of the solver (default 1e-8)\n" +
+            "      --max-iterations <n> maximum number of solver iterations (default 10000)\n" +
+            "      --relaxation <x>    SOR relaxation factor in (0, 2) (default 1.0)\n" +
+            "      --krylov <n>        GMRES restart dimension (default 30)\n" +
+            "      --times <t1,t2,...> also solve the transient distribution at these times\n" +
+            "      --checkpoint-dir <dir> explore into <dir>/<model>, checkpointing and resuming from it\n" +
+            "      --checkpoint-interval <s> seconds between checkpoints (default 60)\n";
+
+    /**
+     * Number of exploration and solver threads
+     */
+    private int threads = 1;
+
+    /**
+     * Steady state solver
+     */
+    private SolverMethod solverMethod = SolverMethod.GAUSS_SEIDEL;
+
+    /**
+     * Solver residual tolerance
+     */
+    private double tolerance = SolverSettings.DEFAULT_TOLERANCE;
+
+    /**
+     * Maximum number of solver iterations
+     */
+    private int maxIterations = SolverSettings.DEFAULT_MAX_ITERATIONS;
+
+    /**
+     * SOR relaxation factor
+     */
+    private double relaxation = SolverSettings.DEFAULT_RELAXATION;
+
+    /**
+     * GMRES restart dimension
+     */
+    private int krylovDimension = SolverSettings.DEFAULT_KRYLOV_DIMENSION;
+
+    /**
+     * Time points for transient analysis, empty for none
+     */
+    private double[] transientTimes = new double[0];
+
+    /**
+     * Solver settings, validated once the arguments have been parsed
+     */
+    private SolverSettings solverSettings;
+
+    /**
+     * Maximum number of states to explore for bounded nets
+     */
+    private int maxStates = 1000000;
+
+    /**
+     * True if the maximum number of states was given, otherwise bitstate exploration is unlimited
+     */
+    private boolean maxStatesGiven = false;
+
+    /**
+     * Directory results are written into
+     */
+    private Path outputDirectory = Paths.get(".");
+
+    /**
+     * True if the coverability graph rather than the reachability graph should be generated
+     */
+    private boolean coverability = false;
+
+    /**
+     * True if the state space is reduced by the symmetries of the net
+     */
+    private boolean symmetry = false;
+
+    /**
+     * True if vanishing states are kept in the state space
+     */
+    private boolean includeVanishing = false;
+
+    /**
+     * Size of the bitstate table in megabytes, zero for a full exploration
+     */
+    private int bitstateMegabytes = 0;
+
+    /**
+     * Number of bits set per state in the bitstate table
+     */
+    private int bitstateHashes = BitstateExplorer.DEFAULT_HASHES;
+
+    /**
+     * True if only exploration is performed
+     */
+    private boolean exploreOnly = false;
+
+    /**
+     * True if the full steady state distribution is written out
+     */
+    private boolean writeDistribution = false;
+
+    /**
+     * True if the state space binaries are kept
+     */
+    private boolean keepBinaries = false;
+
+    /**
+     * Directory containing a checkpoint directory per model, null if exploration is not checkpointed
+     */
+    private Path checkpointDirectory = null;
+
+    /**
+     * Seconds between checkpoints
+     */
+    private int checkpointInterval = 60;
+
+    /**
+     * Petri net files to analyse
+     */
+    private final List<Path> models = new ArrayList<>();
+
+    /**
+     * Private constructor, use {@link #main(String[])}
+     */
+    private AnalysisRunner() {
+    }
+
+    /**
+     * Runs the analysis of each model passed on the command line
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        AnalysisRunner runner = new AnalysisRunner();
+        try {
+            runner.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        try {
+            int failures = runner.run();
+            System.exit(failures == 0 ? 0 : 1);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Parses the command line arguments into this runners settings
+     *
+     * @param args command line arguments
+     */
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-t":
+                case "--threads":
+                    threads = parsePositive(arg, argument(args, ++i, arg));
+                    break;
+                case "-m":
+                case "--max-states":
+                    maxStates = parsePositive(arg, argument(args, ++i, arg));
+                    maxStatesGiven = true;
+                    break;
+                case "-o":
+                case "--output":
+                    outputDirectory = Paths.get(argument(args, ++i, arg));
+                    break;
+                case "--coverability":
+                    coverability = true;
+                    break;
+                case "--vanishing":
+                    includeVanishing = true;
+                    break;
+                case "--symmetry":
+                    symmetry = true;
+                    break;
+                case "--explore-only":
+                    exploreOnly = true;
+                    break;
+                case "--bitstate":
+                    bitstateMegabytes = parsePositive(arg, argument(args, ++i, arg));
+                    break;
+                case "--hashes":
+                    bitstateHashes = parsePositive(arg, argument(args, ++i, arg));
+                    break;
+                case "--distribution":
+                    writeDistribution = true;
+                    break;
+                case "--keep-binaries":
+                    keepBinaries = true;
+                    break;
+                case "--solver":
+                    solverMethod = SolverMethod.fromKey(argument(args, ++i, arg));
+                    break;
+                case "--tolerance":
+                    tolerance = parseDouble(arg, argument(args, ++i, arg));
+                    break;
+                case "--max-iterations":
+                    maxIterations = parsePositive(arg, argument(args, ++i, arg));
+                    break;
+                case "--relaxation":
+                    relaxation = parseDouble(arg, argument(args, ++i, arg));
+                    break;
+                case "--times":
+                    transientTimes = TransientSolver.parseTimes(argument(args, ++i, arg));
+                    break;
+                case "--krylov":
+                    krylovDimension = parsePositive(arg, argument(args, ++i, arg));
+                    break;
+                case "--checkpoint-dir":
+                    checkpointDirectory = Paths.get(argument(args, ++i, arg));
+                    break;
+                case "--checkpoint-interval":
+                    checkpointInterval = parsePositive(arg, argument(args, ++i, arg));
+                    break;
+                default:
+                    if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                    }
+                    models.add(Paths.get(arg));
+            }
+        }
+        if (models.isEmpty()) {
+            throw new IllegalArgumentException("No Petri nets specified");
+        }
+        if (symmetry && coverability) {
+            throw new IllegalArgumentException("--symmetry cannot be combined with --coverability");
+        }
+        if (bitstateMegabytes > 0 && (coverability || checkpointDirectory != null)) {
+            throw new IllegalArgumentException("--bitstate cannot be combined with --coverability or --checkpoint-dir");
+        }
+        solverSettings = new SolverSettings(solverMethod, tolerance, maxIterations, relaxation, krylovDimension,
+                threads);
+    }
+
+    /**
+     * @param args   command line arguments
+     * @param index  index of the option argument
+     * @param option option requiring the argument
+     * @return the argument at index
+     */
+    private static String argument(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    /**
+     * @param option option being parsed
+     * @param value  value to parse
+     * @return value as a positive integer
+     */
+    private static int parsePositive(String option, String value) {
+        try {
+            int result = Integer.parseInt(value);
+            if (result < 1) {
+                throw new IllegalArgumentException(option + " must be at least 1");
+            }
+            return result;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value, e);
+        }
+    }
+
+    /**
+     * @param option option being parsed
+     * @param value  value to parse
+     * @return value as a double
+     */
+    private static double parseDouble(String option, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value, e);
+        }
+    }
+
+    /**
+     * Analyses every model, continuing on to the next model if one fails
+     *
+     * @return number of models that failed
+     * @throws IOException if the summary cannot be written
+     */
+    private int run() throws IOException {
+        Files.createDirectories(outputDirectory);
+        int failures = 0;
+        try (PrintWriter summary = new PrintWriter(
+                Files.newBufferedWriter(outputDirectory.resolve("summary.csv"), StandardCharsets.UTF_8))) {
+            summary.println("model,status,states,transitions,explore_ms,solve_ms");
+            for (Path model : models) {
+                ModelResult result = analyse(model);
+                if (result.error != null) {
+                    failures++;
+                }
+                summary.println(result.toCsv());
+                summary.flush();
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Runs the analysis on a single model and writes its results file
+     *
+     * @param model path to the PNML file
+     * @return summary of the analysis
+     */
+    private ModelResult analyse(Path model) {
+        if (bitstateMegabytes > 0) {
+            return hunt(model);
+        }
+        ModelResult result = new ModelResult(baseName(model));
+        StateSpaceGenerator generator = null;
+        try {
+            PetriNet petriNet = read(model);
+            generator = checkpointDirectory == null ? StateSpaceGenerator.temporary() :
+                    StateSpaceGenerator.inDirectory(checkpointDirectory.resolve(result.name));
+            NetSymmetry netSymmetry = symmetry ? NetSymmetry.of(petriNet) : null;
+            ExplorerUtilities explorerUtilities = createExplorerUtilities(petriNet, netSymmetry);
+            VanishingExplorer vanishingExplorer = createVanishingExplorer(explorerUtilities);
+
+            boolean solve = !exploreOnly && !includeVanishing;
+            GeneratorMatrixBuilder matrixBuilder = solve ? new GeneratorMatrixBuilder() : null;
+            long start = System.nanoTime();
+            StateSpaceExplorer.StateSpaceExplorerResults results =
+                    explore(generator, petriNet, explorerUtilities, vanishingExplorer, matrixBuilder);
+            result.exploreMillis = elapsedMillis(start);
+            result.states = results.numberOfStates;
+            result.transitions = results.processedTransitions;
+            result.scheduler = generator.getSchedulerStatistics();
+
+            Solution solution = null;
+            Map<Integer, ClassifiedState> stateMappings = null;
+            if (solve) {
+                start = System.nanoTime();
+                stateMappings = generator.readMappings();
+                GeneratorMatrix matrix = matrixBuilder.build();
+                double[] initial = transientTimes.length == 0 ? null : TransientSolver.initialDistribution(
+                        matrix, stateMappings, explorerUtilities, vanishingExplorer);
+                solution = solve(result.name, matrix, initial);
+                result.solveMillis = elapsedMillis(start);
+            }
+            writeResults(result, petriNet, stateMappings, solution, netSymmetry);
+            if (keepBinaries) {
+                Files.copy(generator.getTransitions(), outputDirectory.resolve(result.name + ".transitions"),
+                        StandardCopyOption.REPLACE_EXISTING);
+                Files.copy(generator.getStates(), outputDirectory.resolve(result.name + ".states"),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | JAXBException | InvalidRateException | TimelessTrapException | ExecutionException
+                | RuntimeException e) {
+            result.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            LOGGER.log(Level.SEVERE, "Failed to analyse " + model, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.error = "Interrupted";
+        } finally {
+            if (generator != null) {
+                generator.close();
+            }
+            if (generator != null && checkpointDirectory == null) {
+                deleteQuietly(generator.getTransitions());
+                deleteQuietly(generator.getStates());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Hunts for deadlocks and timeless traps with a memory bounded bitstate exploration and
+     * writes what it found to the model's results file
+     *
+     * @param model path to the PNML file
+     * @return summary of the exploration
+     */
+    private ModelResult hunt(Path model) {
+        ModelResult result = new ModelResult(baseName(model));
+        try {
+            PetriNet petriNet = read(model);
+            NetSymmetry netSymmetry = symmetry ? NetSymmetry.of(petriNet) : null;
+            ExplorerUtilities utilities = new UnboundedExplorerUtilities(petriNet);
+            if (netSymmetry != null) {
+                utilities = new SymmetricExplorerUtilities(utilities, netSymmetry);
+            }
+            long limit = maxStatesGiven ? maxStates : Long.MAX_VALUE;
+            BitstateExplorer explorer = new BitstateExplorer(utilities, bitstateMegabytes * 8L * 1024 * 1024,
+                    bitstateHashes, BitstateExplorer.DEFAULT_MAX_STACK_BYTES, limit);
+            BitstateExplorer.Results bitstate = explorer.explore();
+            result.states = bitstate.states;
+            result.transitions = bitstate.transitions;
+            result.exploreMillis = bitstate.millis;
+            writeBitstateResults(result, bitstate, netSymmetry);
+        } catch (IOException | JAXBException | RuntimeException e) {
+            result.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            LOGGER.log(Level.SEVERE, "Failed to analyse " + model, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.error = "Interrupted";
+        }
+        return result;
+    }
+
+    /**
+     * Explores the state space, checkpointing into the model's checkpoint directory and
+     * continuing from any checkpoint already there if a checkpoint directory was given
+     *
+     * @param generator         generator to explore into
+     * @param petriNet          net being explored
+     * @param explorerUtilities explorer utilities
+     * @param vanishingExplorer vanishing explorer
+     * @param matrixBuilder     builder of the generator matrix, may be null
+     * @return state space explorer results
+     * @throws TimelessTrapException unable to exit cyclic vanishing state
+     * @throws InterruptedException  thread interrupted
+     * @throws ExecutionException    task aborted due to exception
+     * @throws IOException           error doing IO
+     * @throws InvalidRateException  functional rate expression invalid
+     */
+    private StateSpaceExplorer.StateSpaceExplorerResults explore(StateSpaceGenerator generator, PetriNet petriNet,
+                                                                 ExplorerUtilities explorerUtilities,
+                                                                 VanishingExplorer vanishingExplorer,
+                                                                 GeneratorMatrixBuilder matrixBuilder)
+            throws IOException, TimelessTrapException, ExecutionException, InvalidRateException, InterruptedException {
+        if (checkpointDirectory == null) {
+            return generator.generate(explorerUtilities, vanishingExplorer, threads, matrixBuilder);
+        }
+        Path checkpoint = StateSpaceGenerator.checkpointFile(generator.getTransitions().getParent());
+        return generator.generateCheckpointed(explorerUtilities, vanishingExplorer, threads, matrixBuilder,
+                ResultCache.key(petriNet, getExplorerSettings()), checkpoint, checkpointInterval * 1000L);
+    }
+
+    /**
+     * @return description of every option that changes the explored state space, identifying
+     * the checkpoints written with them
+     */
+    private String getExplorerSettings() {
+        String explorer = coverability ? "coverability" : "bounded=" + maxStates;
+        String vanishing = ";vanishing=" + (includeVanishing ? "simple" : "on-the-fly");
+        return explorer + vanishing + (symmetry ? ";symmetry=components" : "");
+    }
+
+    /**
+     * @param model path to PNML file
+     * @return Petri net read from the file
+     * @throws JAXBException if the file is not a valid PNML file
+     * @throws IOException   if the file cannot be found
+     */
+    private PetriNet read(Path model) throws JAXBException, IOException {
+        PetriNetReader reader = new PetriNetIOImpl();
+        return reader.read(model.toAbsolutePath().toString());
+    }
+
+    /**
+     * @param petriNet    net to explore
+     * @param netSymmetry symmetries to reduce the state space by, null to explore it in full
+     * @return coverability or bounded reachability explorer utilities
+     */
+    private ExplorerUtilities createExplorerUtilities(PetriNet petriNet, NetSymmetry netSymmetry) {
+        if (coverability) {
+            return new CoverabilityExplorerUtilities(new UnboundedExplorerUtilities(petriNet));
+        }
+        ExplorerUtilities utilities = new BoundedExplorerUtilities(petriNet, maxStates);
+        return netSymmetry == null ? utilities : new SymmetricExplorerUtilities(utilities, netSymmetry);
+    }
+
+    /**
+     * @param explorerUtilities explorer utilities
+     * @return vanishing explorer that either keeps or removes vanishing states
+     */
+    private VanishingExplorer createVanishingExplorer(ExplorerUtilities explorerUtilities) {
+        if (includeVanishing) {
+            return new SimpleVanishingExplorer();
+        }
+        return new OnTheFlyVanishingExplorer(explorerUtilities);
+    }
+
+    /**
+     * Solves the steady state, logging the residual of each iteration at FINE level, followed
+     * by the transient distribution from the initial state if any time points were given
+     *
+     * @param name    model name for the log
+     * @param matrix  generator matrix assembled during exploration
+     * @param initial distribution at time zero, null if no time points were given
+     * @return steady state and transient solution
+     * @throws InterruptedException if interrupted while solving
+     */
+    private Solution solve(final String name, GeneratorMatrix matrix, double[] initial) throws InterruptedException {
+        ExecutorService executorService = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try {
+            ParallelRows rows = new ParallelRows(executorService, threads);
+            SparseSolver solver = solverSettings.createSolver(rows);
+            SolverResult solverResult = solver.solve(matrix, new ConvergenceListener() {
+                @Override
+                public void iterationCompleted(int iteration, double residual) {
+                    LOGGER.log(Level.FINE, "{0}: iteration {1} residual {2}",
+                            new Object[]{name, iteration, residual});
+                }
+            });
+            if (!solverResult.isConverged()) {
+                LOGGER.log(Level.WARNING, "{0}: {1} did not converge within {2} iterations",
+                        new Object[]{name, solverResult.getMethod(), solverResult.getIterations()});
+            }
+            Solution solution = new Solution(solverResult, matrix.toDistribution(solverResult.getDistribution()));
+            if (initial != null) {
+                TransientSolver transientSolver = new TransientSolver(rows, TransientSolver.DEFAULT_EPSILON);
+                double[][] distributions = transientSolver.solve(matrix, initial, transientTimes);
+                for (double[] distribution : distributions) {
+                    solution.transientStates.add(matrix.toDistribution(distribution));
+                }
+            }
+            return solution;
+        } finally {
+            if (executorService != null) {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Writes the results of a single model as JSON
+     *
+     * @param result        summary of the analysis
+     * @param petriNet      analysed net
+     * @param stateMappings state mappings, null if the steady state was not solved
+     * @param solution      steady state and transient solution, null if it was not solved
+     * @param netSymmetry   symmetries the state space was reduced by, null if it was not
+     * @throws IOException if the write fails
+     */
+    private void writeResults(ModelResult result, PetriNet petriNet, Map<Integer, ClassifiedState> stateMappings,
+                              Solution solution, NetSymmetry netSymmetry) throws IOException {
+        try (Writer out = Files.newBufferedWriter(outputDirectory.resolve(result.name + ".json"),
+                StandardCharsets.UTF_8)) {
+            JsonWriter json = new JsonWriter(out);
+            json.beginObject();
+            json.name("model").value(result.name);
+            json.name("threads").value(threads);
+            json.name("states").value(result.states);
+            json.name("transitions").value(result.transitions);
+            json.name("exploreMillis").value(result.exploreMillis);
+            if (result.scheduler != null) {
+                writeScheduler(json, result.scheduler);
+            }
+            if (netSymmetry != null) {
+                writeSymmetry(json, netSymmetry);
+            }
+            if (solution != null) {
+                Map<Integer, Double> steadyState = solution.steadyState;
+                json.name("solveMillis").value(result.solveMillis);
+                writeSolver(json, solution.solverResult);
+                Map<String, Map<String, Double>> averageTokens =
+                        TokenMetrics.averageTokensOnPlace(stateMappings, steadyState);
+                Map<String, Double> throughputs =
+                        TransitionMetrics.getTransitionThroughput(stateMappings, steadyState, petriNet);
+                if (netSymmetry != null) {
+                    averageTokens = netSymmetry.averageTokens(averageTokens);
+                    throughputs = netSymmetry.averageThroughputs(throughputs);
+                }
+                writeAverageTokens(json, averageTokens);
+                writeDoubles(json, "throughputs", throughputs);
+                if (writeDistribution) {
+                    json.name("steadyState").beginObject();
+                    for (Map.Entry<Integer, Double> entry : new TreeMap<>(steadyState).entrySet()) {
+                        json.name(entry.getKey().toString()).value(entry.getValue());
+                    }
+                    json.endObject();
+                }
+                writeTransient(json, stateMappings, solution.transientStates, netSymmetry);
+            }
+            json.endObject();
+            json.flush();
+        }
+    }
+
+    /**
+     * Writes the findings of a bitstate exploration of a single model as JSON
+     *
+     * @param result      summary of the exploration
+     * @param bitstate    findings of the exploration
+     * @param netSymmetry symmetries the state space was reduced by, null if it was not
+     * @throws IOException if the write fails
+     */
+    private void writeBitstateResults(ModelResult result, BitstateExplorer.Results bitstate,
+                                      NetSymmetry netSymmetry) throws IOException {
+        try (Writer out = Files.newBufferedWriter(outputDirectory.resolve(result.name + ".json"),
+                StandardCharsets.UTF_8)) {
+            JsonWriter json = new JsonWriter(out);
+            json.beginObject();
+            json.name("model").value(result.name);
+            json.name("states").value(bitstate.states);
+            json.name("vanishingStates").value(bitstate.vanishingStates);
+            json.name("transitions").value(bitstate.transitions);
+            json.name("exploreMillis").value(bitstate.millis);
+            if (netSymmetry != null) {
+                writeSymmetry(json, netSymmetry);
+            }
+            json.name("bitstate").beginObject();
+            json.name("bits").value(bitstate.bits);
+            json.name("hashes").value(bitstate.hashes);
+            json.name("fillRatio").value(bitstate.fillRatio);
+            json.name("estimatedMissedStates").value(bitstate.missedStates);
+            json.name("coverage").value(bitstate.getCoverage());
+            json.name("skippedStates").value(bitstate.skippedStates);
+            json.name("complete").value(bitstate.isComplete());
+            json.endObject();
+            json.name("deadlocks").value(bitstate.deadlocks);
+            if (bitstate.deadlock != null) {
+                json.name("deadlock").value(bitstate.deadlock.toString());
+            }
+            json.name("timelessTraps").value(bitstate.timelessTraps);
+            if (bitstate.timelessTrap != null) {
+                json.name("timelessTrap").value(bitstate.timelessTrap.toString());
+            }
+            json.endObject();
+            json.flush();
+        }
+    }
+
+    /**
+     * @param json      writer
+     * @param scheduler parameters chosen by the parallel explorer
+     * @throws IOException if the write fails
+     */
+    private void writeScheduler(JsonWriter json, SchedulerStatistics scheduler) throws IOException {
+        json.name("scheduler").beginObject();
+        json.name("threads").value(scheduler.getThreads());
+        json.name("chunkSize").value(scheduler.getChunkSize());
+        json.name("batchSize").value(scheduler.getBatchSize());
+        json.name("batches").value(scheduler.getBatches());
+        json.name("nanosPerState").value(scheduler.getNanosPerState());
+        json.name("steals").value(scheduler.getSteals());
+        json.name("utilisation").beginArray();
+        for (double utilisation : scheduler.getUtilisation()) {
+            json.value(utilisation);
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    /**
+     * @param json        writer
+     * @param netSymmetry symmetries the state space was reduced by
+     * @throws IOException if the write fails
+     */
+    private void writeSymmetry(JsonWriter json, NetSymmetry netSymmetry) throws IOException {
+        json.name("symmetry").beginArray();
+        for (int component = 0; component < netSymmetry.getComponentCount(); component++) {
+            json.beginObject();
+            json.name("copies").value(netSymmetry.getCopies(component));
+            json.name("places").beginArray();
+            for (String place : netSymmetry.getPlaces(component, 0)) {
+                json.value(place);
+            }
+            json.endArray();
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    /**
+     * @param json         writer
+     * @param solverResult solver convergence
+     * @throws IOException if the write fails
+     */
+    private void writeSolver(JsonWriter json, SolverResult solverResult) throws IOException {
+        json.name("solver").beginObject();
+        json.name("method").value(solverResult.getMethod().getKey());
+        json.name("tolerance").value(solverSettings.getTolerance());
+        json.name("iterations").value(solverResult.getIterations());
+        json.name("residual").value(solverResult.getResidual());
+        json.name("converged").value(solverResult.isConverged());
+        json.name("residuals").beginArray();
+        for (double residual : solverResult.getResiduals()) {
+            json.value(residual);
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    /**
+     * Writes the average token counts at each transient time point
+     *
+     * @param json            writer
+     * @param stateMappings   state mappings
+     * @param transientStates distribution at each time point
+     * @param netSymmetry     symmetries the state space was reduced by, null if it was not
+     * @throws IOException if the write fails
+     */
+    private void writeTransient(JsonWriter json, Map<Integer, ClassifiedState> stateMappings,
+                                List<Map<Integer, Double>> transientStates, NetSymmetry netSymmetry)
+            throws IOException {
+        if (transientStates.isEmpty()) {
+            return;
+        }
+        json.name("transient").beginArray();
+        for (int i = 0; i < transientStates.size(); i++) {
+            json.beginObject();
+            json.name("time").value(transientTimes[i]);
+            Map<String, Map<String, Double>> averageTokens =
+                    TokenMetrics.averageTokensOnPlace(stateMappings, transientStates.get(i));
+            writeAverageTokens(json, netSymmetry == null ? averageTokens : netSymmetry.averageTokens(averageTokens));
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    /**
+     * @param json          writer
+     * @param averageTokens place -&gt; token -&gt; average count
+     * @throws IOException if the write fails
+     */
+    private void writeAverageTokens(JsonWriter json, Map<String, Map<String, Double>> averageTokens)
+            throws IOException {
+        json.name("averageTokens").beginObject();
+        for (Map.Entry<String, Map<String, Double>> entry : new TreeMap<>(averageTokens).entrySet()) {
+            writeDoubles(json, entry.getKey(), entry.getValue());
+        }
+        json.endObject();
+    }
+
+    /**
+     * Writes a sorted name -&gt; value object
+     *
+     * @param json   writer
+     * @param name   member name of the object
+     * @param values values to write
+     * @throws IOException if the write fails
+     */
+    private void writeDoubles(JsonWriter json, String name, Map<String, Double> values) throws IOException {
+        json.name(name).beginObject();
+        for (Map.Entry<String, Double> entry : new TreeMap<>(values).entrySet()) {
+            json.name(entry.getKey()).value(entry.getValue());
+        }
+        json.endObject();
+    }
+
+    /**
+     * @param start start time in nano seconds
+     * @return milliseconds since start
+     */
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    /**
+     * @param model path to the model
+     * @return file name without its extension
+     */
+    private static String baseName(Path model) {
+        String name = model.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /**
+     * @param path to delete
+     */
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not delete " + path);
+        }
+    }
+
+    /**
+     * Steady state and transient solution of a single model
+     */
+    private static final class Solution {
+        /**
+         * Steady state solver convergence
+         */
+        private final SolverResult solverResult;
+
+        /**
+         * Steady state distribution
+         */
+        private final Map<Integer, Double> steadyState;
+
+        /**
+         * Distribution at each transient time point
+         */
+        private final List<Map<Integer, Double>> transientStates = new ArrayList<>();
+
+        /**
+         * @param solverResult steady state solver convergence
+         * @param steadyState  steady state distribution
+         */
+        private Solution(SolverResult solverResult, Map<Integer, Double> steadyState) {
+            this.solverResult = solverResult;
+            this.steadyState = steadyState;
+        }
+    }
+
+    /**
+     * Summary of the analysis of a single model
+     */
+    private static final class ModelResult {
+        /**
+         * Model name
+         */
+        private final String name;
+
+        /**
+         * Number of states
+         */
+        private long states;
+
+        /**
+         * Number of transitions
+         */
+        private long transitions;
+
+        /**
+         * Exploration time
+         */
+        private long exploreMillis;
+
+        /**
+         * Parallel exploration scheduling, null if the state space was explored sequentially
+         */
+        private SchedulerStatistics scheduler;
+
+        /**
+         * Steady state solution time
+         */
+        private long solveMillis;
+
+        /**
+         * Error message, null if the analysis succeeded
+         */
+        private String error;
+
+        /**
+         * @param name model name
+         */
+        private ModelResult(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return comma separated summary line
+         */
+        private String toCsv() {
+            String status = error == null ? "ok" : "\"" + error.replace("\"", "'") + "\"";
+            return name + "," + status + "," + states + "," + transitions + "," + exploreMillis + "," + solveMillis;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package pipe.gui.cli;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Minimal streaming JSON writer used to output machine readable analysis results
+ * without holding the whole document in memory.
+ * <p>
+ * Callers are responsible for producing a well formed document, i.e. names are only
+ * written inside objects and every begin has a matching end.
+ * </p>
+ */
+public class JsonWriter {
+
+    /**
+     * Underlying writer
+     */
+    private final Writer writer;
+
+    /**
+     * For each open object/array, true if it already contains an element
+     */
+    private final Deque<Boolean> hasElements = new ArrayDeque<>();
+
+    /**
+     * True if a name has just been written and its value is expected next
+     */
+    private boolean afterName = false;
+
+    /**
+     * @param writer to write the JSON to
+     */
+    public JsonWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Begins a JSON object
+     *
+     * @return this
+     * @throws IOException if the write fails
+     */
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        writer.write('{');
+        hasElements.push(false);
+        return this;
+    }
+
+    /**
+     * Ends the current JSON object
+     *
+     * @return this
+     * @throws IOException if the write fails
+     */
+    public JsonWriter endObject() throws IOException {
+        hasElements.pop();
+        writer.write('}');
+        return this;
+    }
+
+    /**
+     * Begins a JSON array
+     *
+     * @return this
+     * @throws IOException if the write fails
+     */
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        writer.write('[');
+        hasElements.push(false);
+        return this;
+    }
+
+    /**
+     * Ends the current JSON array
+     *
+     * @return this
+     * @throws IOException if the write fails
+     */
+    public JsonWriter endArray() throws IOException {
+        hasElements.pop();
+        writer.write(']');
+        return this;
+    }
+
+    /**
+     * Writes the name of the next member of the current object
+     *
+     * @param name member name
+     * @return this
+     * @throws IOException if the write fails
+     */
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        writeString(name);
+        writer.write(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * @param value string value, null is written as JSON null
+     * @return this
+     * @throws IOException if the write fails
+     */
+    public JsonWriter value(String value) throws IOException {
+        beforeValue();
+        if (value == null) {
+            writer.write("null");
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    /**
+     * @param value integral value
+     * @return this
+     * @throws IOException if the write fails
+     */
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        writer.write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * @param value floating point value, NaN and infinities are written as null
+     * @return this
+     * @throws IOException if the write fails
+     */
+    public JsonWriter value(double value) throws IOException {
+        beforeValue();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writer.write("null");
+        } else {
+            writer.write(Double.toString(value));
+        }
+        return this;
+    }
+
+    /**
+     * @param value boolean value
+     * @return this
+     * @throws IOException if the write fails
+     */
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        writer.write(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Flushes the underlying writer
+     *
+     * @throws IOException if the flush fails
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Writes a comma if required before a value
+     *
+     * @throws IOException if the write fails
+     */
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else {
+            separate();
+        }
+    }
+
+    /**
+     * Writes a comma if the current object/array already contains an element
+     *
+     * @throws IOException if the write fails
+     */
+    private void separate() throws IOException {
+        if (!hasElements.isEmpty()) {
+            if (hasElements.peek()) {
+                writer.write(',');
+            } else {
+                hasElements.pop();
+                hasElements.push(true);
+            }
+        }
+    }
+
+    /**
+     * Writes the string quoting and escaping it
+     *
+     * @param value to write
+     * @throws IOException if the write fails
+     */
+    private void writeString(String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,173 @@
+package pipe.gui.reachability;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Uniform grid over the positions of the drawn states, so that hit testing and finding the
+ * states inside the visible area only look at the cells nearby rather than every state.
+ * <p>
+ * Cells are hashed by their coordinates so that empty areas of a sparse layout take no memory.
+ * </p>
+ */
+final class GridIndex {
+
+    /**
+     * Width and height of a cell in layout coordinates
+     */
+    private final double cellSize;
+
+    /**
+     * Non empty cells by packed cell coordinates
+     */
+    private final Map<Long, Cell> cells = new HashMap<>();
+
+    /**
+     * @param cellSize width and height of a cell in layout coordinates
+     */
+    GridIndex(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Removes every state
+     */
+    void clear() {
+        cells.clear();
+    }
+
+    /**
+     * @param id state id
+     * @param x  layout x coordinate of the state
+     * @param y  layout y coordinate of the state
+     */
+    void add(int id, double x, double y) {
+        long key = key(cell(x), cell(y));
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            cell = new Cell();
+            cells.put(key, cell);
+        }
+        cell.add(id);
+    }
+
+    /**
+     * @param x      layout x coordinate
+     * @param y      layout y coordinate
+     * @param radius maximum distance
+     * @param xs     layout x coordinate of each state
+     * @param ys     layout y coordinate of each state
+     * @return closest state within the radius of the point, -1 if there is none
+     */
+    int nearest(double x, double y, double radius, float[] xs, float[] ys) {
+        int closest = -1;
+        double best = radius * radius;
+        for (int column = cell(x - radius); column <= cell(x + radius); column++) {
+            for (int row = cell(y - radius); row <= cell(y + radius); row++) {
+                Cell cell = cells.get(key(column, row));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size; i++) {
+                    int id = cell.ids[i];
+                    double dx = xs[id] - x;
+                    double dy = ys[id] - y;
+                    double distance = dx * dx + dy * dy;
+                    if (distance <= best) {
+                        best = distance;
+                        closest = id;
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * @param minX smallest layout x coordinate of the area
+     * @param minY smallest layout y coordinate of the area
+     * @param maxX largest layout x coordinate of the area
+     * @param maxY largest layout y coordinate of the area
+     * @return states in the cells overlapping the area, which may include a few just outside it
+     */
+    int[] query(double minX, double minY, double maxX, double maxY) {
+        int fromColumn = cell(minX);
+        int toColumn = cell(maxX);
+        int fromRow = cell(minY);
+        int toRow = cell(maxY);
+        Cell result = new Cell();
+        if ((double) (toColumn - fromColumn + 1) * (toRow - fromRow + 1) > cells.size()) {
+            for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+                int column = (int) (entry.getKey() >> 32);
+                int row = (int) (long) entry.getKey();
+                if (column >= fromColumn && column <= toColumn && row >= fromRow && row <= toRow) {
+                    result.addAll(entry.getValue());
+                }
+            }
+        } else {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                for (int row = fromRow; row <= toRow; row++) {
+                    Cell cell = cells.get(key(column, row));
+                    if (cell != null) {
+                        result.addAll(cell);
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(result.ids, result.size);
+    }
+
+    /**
+     * @param coordinate layout coordinate
+     * @return cell coordinate containing it
+     */
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * @param column cell column
+     * @param row    cell row
+     * @return packed cell coordinates
+     */
+    private static long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xffffffffL);
+    }
+
+    /**
+     * Growable list of the states in a cell
+     */
+    private static final class Cell {
+        /**
+         * State ids
+         */
+        private int[] ids = new int[4];
+
+        /**
+         * Number of states
+         */
+        private int size = 0;
+
+        /**
+         * @param id state id to add
+         */
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        /**
+         * @param other cell whose states to add
+         */
+        private void addAll(Cell other) {
+            if (size + other.size > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(size + other.size, ids.length * 2));
+            }
+            System.arraycopy(other.ids, 0, ids, size, other.size);
+            size += other.size;
+        }
+    }
+}
@@ -12,25 +12,35 @@ import net.sourceforge.jpowergraph.swing.SwingJGraphPane;
 import net.sourceforge.jpowergraph.swing.SwingJGraphScrollPane;
 import net.sourceforge.jpowergraph.swing.manipulator.SwingPopupDisplayer;
 import net.sourceforge.jpowergraph.swtswinginteraction.color.JPowerGraphColor;
+import pipe.gui.statespace.ExplorationMonitor;
+import pipe.gui.statespace.ReductionStatistics;
+import pipe.gui.statespace.SchedulerStatistics;
+import pipe.gui.statespace.StateGraph;
+import pipe.gui.statespace.StronglyConnectedComponents;
+import pipe.gui.statespace.StubbornSetExplorerUtilities;
+import pipe.gui.symbolic.SymbolicExplorer;
+import pipe.gui.symbolic.SymbolicStateSpace;
 import pipe.gui.widget.GenerateResultsForm;
+import pipe.gui.widget.ProgressPanel;
 import pipe.gui.widget.StateSpaceLoader;
 import pipe.gui.widget.StateSpaceLoaderException;
 import pipe.reachability.algorithm.*;
-import uk.ac.imperial.pipe.exceptions.InvalidRateException;
 import uk.ac.imperial.pipe.models.petrinet.PetriNet;
 import uk.ac.imperial.state.ClassifiedState;
 import uk.ac.imperial.state.Record;
 
 import javax.swing.*;
+import java.awt.BorderLayout;
+import java.awt.CardLayout;
 import java.awt.Container;
 import java.awt.FileDialog;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -46,10 +56,21 @@ public class ReachabilityGraph {
     private static final Logger LOGGER = Logger.getLogger(ReachabilityGraph.class.getName());
 
     /**
-     * Maximum number of states to graphically display
+     * Maximum number of states to display with a force directed layout, larger state spaces
+     * are shown in the {@link StateGraphViewer}
      */
     private static final int MAX_STATES_TO_DISPLAY = 100;
 
+    /**
+     * Card showing the force directed graph
+     */
+    private static final String SMALL_GRAPH_CARD = "small";
+
+    /**
+     * Card showing the large state space viewer
+     */
+    private static final String LARGE_GRAPH_CARD = "large";
+
 
     private JPanel panel1;
 
@@ -76,6 +97,16 @@ public class ReachabilityGraph {
 
     private JRadioButton coverabilityButton;
 
+    /**
+     * Radio button to explore the reachable markings as a decision diagram instead of a graph
+     */
+    private JRadioButton symbolicButton;
+
+    /**
+     * Check box to only fire a stubborn set of the enabled transitions in each state
+     */
+    private JCheckBox partialOrderCheckBox;
+
     private JTextField maxStatesField;
 
     private JPanel stateLoadingPanel;
@@ -84,8 +115,28 @@ public class ReachabilityGraph {
 
     private DefaultGraph graph = new DefaultGraph();
 
+    /**
+     * Viewer for state spaces with more than {@link #MAX_STATES_TO_DISPLAY} states
+     */
+    private final StateGraphViewer largeGraphViewer = new StateGraphViewer();
+
+    /**
+     * Switches between the small and large graph
+     */
+    private final CardLayout graphCards = new CardLayout();
+
+    /**
+     * Contains the small and large graph
+     */
+    private final JPanel graphPanel = new JPanel(graphCards);
+
     private StateSpaceLoader stateSpaceLoader;
 
+    /**
+     * Progress of the background exploration
+     */
+    private final ProgressPanel progressPanel = new ProgressPanel();
+
 
     /**
      * When selecting use current Petri net the petri net used will be
@@ -104,15 +155,20 @@ public class ReachabilityGraph {
      */
     private void setUp() {
         JPanel pane = setupGraph();
-        resultsPanel.add(pane);
+        graphPanel.add(pane, SMALL_GRAPH_CARD);
+        graphPanel.add(largeGraphViewer.getPanel(), LARGE_GRAPH_CARD);
+        resultsPanel.add(graphPanel);
         stateLoadingPanel.add(stateSpaceLoader.getMainPanel(), 0);
+        stateLoadingPanel.add(stateSpaceLoader.getCheckpointPanel().getPanel(), BorderLayout.SOUTH);
 
         ActionListener disableListener = new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 reachabilityButton.setEnabled(false);
                 coverabilityButton.setEnabled(false);
+                symbolicButton.setEnabled(false);
                 includeVanishingStatesCheckBox.setEnabled(false);
+                partialOrderCheckBox.setEnabled(false);
             }
         };
 
@@ -121,7 +177,9 @@ public class ReachabilityGraph {
             public void actionPerformed(ActionEvent e) {
                 reachabilityButton.setEnabled(true);
                 coverabilityButton.setEnabled(true);
+                symbolicButton.setEnabled(true);
                 includeVanishingStatesCheckBox.setEnabled(true);
+                partialOrderCheckBox.setEnabled(true);
             }
         };
 //
@@ -140,6 +198,7 @@ public class ReachabilityGraph {
             }
         });
         generatePanel.add(resultsForm.getPanel());
+        generatePanel.add(progressPanel.getPanel(), BorderLayout.SOUTH);
     }
 
     /**
@@ -184,35 +243,170 @@ public class ReachabilityGraph {
      * in a temporary file.
      * <p>
      * These results are then read in and turned into a graphical representation using mxGraph
-     * which is displayed to the user
+     * which is displayed to the user. Exploration runs on a background thread and can be
+     * stopped from the progress panel.
      * </p>
      * @param threads number of threads to use to explore the state space
      */
-    private void calculateResults(int threads) {
+    private void calculateResults(final int threads) {
+        if (progressPanel.isRunning()) {
+            return;
+        }
+        if (symbolicButton.isSelected() && !stateSpaceLoader.isBinaryLoadChecked()) {
+            calculateSymbolicResults();
+            return;
+        }
+        final StateSpaceLoader.Settings loaderSettings;
         try {
-            StateSpaceExplorer.StateSpaceExplorerResults results =
-                    stateSpaceLoader.calculateResults(new StateSpaceLoader.ExplorerCreator() {
-                                                          @Override
-                                                          public ExplorerUtilities create(PetriNet petriNet) {
-                                                              return getExplorerUtilities(petriNet);
-                                                          }
-                                                      }, new StateSpaceLoader.VanishingExplorerCreator() {
-                                                          @Override
-                                                          public VanishingExplorer create(ExplorerUtilities utils) {
-                                                              return getVanishingExplorer(utils);
-                                                          }
-                                                      }, threads
-                    );
-            updateTextResults(results.numberOfStates, results.processedTransitions);
-            if (results.numberOfStates <= MAX_STATES_TO_DISPLAY) {
-                StateSpaceLoader.Results stateSpace = stateSpaceLoader.loadStateSpace();
-                updateGraph(stateSpace.records, stateSpace.stateMappings);
-            }
-
-        } catch (InvalidRateException | TimelessTrapException | IOException | InterruptedException | ExecutionException e) {
-            LOGGER.log(Level.SEVERE, e.toString());
+            loaderSettings = stateSpaceLoader.getSettings();
         } catch (StateSpaceLoaderException e) {
             JOptionPane.showMessageDialog(panel1, e.getMessage(), "GSPN Analysis Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        final boolean coverability = coverabilityButton.isSelected();
+        final boolean includeVanishing = includeVanishingStatesCheckBox.isSelected();
+        final int maxStates = Integer.valueOf(maxStatesField.getText());
+        final ReductionStatistics reduction =
+                partialOrderCheckBox.isSelected() && !coverability ? new ReductionStatistics() : null;
+        final ExplorationMonitor monitor = new ExplorationMonitor();
+        SwingWorker<Exploration, Void> worker = new SwingWorker<Exploration, Void>() {
+            @Override
+            protected Exploration doInBackground() throws Exception {
+                StateSpaceLoader.ExplorerCreator creator = new StateSpaceLoader.ExplorerCreator() {
+                    @Override
+                    public ExplorerUtilities create(PetriNet petriNet) {
+                        return getExplorerUtilities(petriNet, coverability, maxStates, reduction);
+                    }
+                };
+                StateSpaceLoader.VanishingExplorerCreator vanishingCreator =
+                        new StateSpaceLoader.VanishingExplorerCreator() {
+                            @Override
+                            public VanishingExplorer create(ExplorerUtilities utils) {
+                                return getVanishingExplorer(utils, includeVanishing);
+                            }
+                        };
+                StateSpaceExplorer.StateSpaceExplorerResults results =
+                        stateSpaceLoader.calculateResults(loaderSettings, creator, vanishingCreator, threads, monitor,
+                                getExplorerSettings(coverability, maxStates, includeVanishing, reduction != null));
+                if (results.numberOfStates <= MAX_STATES_TO_DISPLAY) {
+                    return new Exploration(results, stateSpaceLoader.loadStateSpace());
+                }
+                StateGraph stateGraph = stateSpaceLoader.loadStateGraph();
+                return new Exploration(results, stateGraph, stateSpaceLoader.loadStateMappings(),
+                        new StronglyConnectedComponents(stateGraph));
+            }
+
+            @Override
+            protected void done() {
+                showResults(this, monitor, reduction);
+            }
+        };
+        progressPanel.start(monitor, worker);
+        worker.execute();
+    }
+
+    /**
+     * Explores the reachable markings of the Petri net as a decision diagram on a background
+     * thread, reporting how many there are, whether a dead marking is reachable and the bound
+     * of each place without ever listing the states
+     */
+    private void calculateSymbolicResults() {
+        final PetriNet petriNet = stateSpaceLoader.getPetriNet();
+        if (petriNet == null) {
+            JOptionPane.showMessageDialog(panel1, "Please load a Petri net to explore", "GSPN Analysis Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        SwingWorker<SymbolicStateSpace, Void> worker = new SwingWorker<SymbolicStateSpace, Void>() {
+            @Override
+            protected SymbolicStateSpace doInBackground() throws Exception {
+                return new SymbolicExplorer(petriNet, SymbolicExplorer.DEFAULT_MAX_NODES).explore();
+            }
+
+            @Override
+            protected void done() {
+                showSymbolicResults(this);
+            }
+        };
+        progressPanel.startAnalysis(worker);
+        worker.execute();
+    }
+
+    /**
+     * Displays the results of a finished symbolic exploration, called on the event dispatch thread
+     *
+     * @param worker finished exploration
+     */
+    private void showSymbolicResults(SwingWorker<SymbolicStateSpace, Void> worker) {
+        try {
+            SymbolicStateSpace stateSpace = worker.get();
+            progressPanel.finish("Finished: " + stateSpace.getNodes() + " decision diagram nodes ("
+                    + stateSpace.getPeakNodes() + " created) in " + stateSpace.getMillis() + " ms"
+                    + (stateSpace.isSaturation() ? " by saturation" : " by chaining"));
+            graph.clear();
+            graphCards.show(graphPanel, SMALL_GRAPH_CARD);
+            updateSymbolicTextResults(stateSpace);
+        } catch (CancellationException e) {
+            progressPanel.finish("Stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InterruptedException) {
+                progressPanel.finish("Stopped");
+            } else if (cause instanceof IllegalArgumentException) {
+                progressPanel.finish(" ");
+                JOptionPane.showMessageDialog(panel1, cause.getMessage(), "GSPN Analysis Error",
+                        JOptionPane.ERROR_MESSAGE);
+            } else {
+                LOGGER.log(Level.SEVERE, cause.toString());
+                progressPanel.finish("Failed: " + cause.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Displays the results of a finished background exploration, called on the event dispatch thread
+     *
+     * @param worker    finished exploration
+     * @param monitor   monitor of the exploration
+     * @param reduction statistics of the partial order reduction, null if the state space was not reduced
+     */
+    private void showResults(SwingWorker<Exploration, Void> worker, ExplorationMonitor monitor,
+                             ReductionStatistics reduction) {
+        try {
+            Exploration exploration = worker.get();
+            SchedulerStatistics scheduler = stateSpaceLoader.getSchedulerStatistics();
+            if (stateSpaceLoader.isCached()) {
+                progressPanel.finish("Finished: state space read from the result cache");
+            } else {
+                progressPanel.finish("Finished: " + monitor.snapshot() + (scheduler == null ? "" : "; " + scheduler));
+            }
+            updateTextResults(exploration.results.numberOfStates, exploration.results.processedTransitions,
+                    stateSpaceLoader.isCached() ? null : reduction);
+            if (exploration.stateSpace != null) {
+                updateGraph(exploration.stateSpace.records, exploration.stateSpace.stateMappings);
+                graphCards.show(graphPanel, SMALL_GRAPH_CARD);
+            } else {
+                largeGraphViewer.setStateSpace(exploration.stateGraph, exploration.states, exploration.components);
+                graphCards.show(graphPanel, LARGE_GRAPH_CARD);
+            }
+        } catch (CancellationException e) {
+            progressPanel.finish("Stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InterruptedException) {
+                progressPanel.finish("Stopped");
+            } else if (cause instanceof StateSpaceLoaderException) {
+                progressPanel.finish(" ");
+                JOptionPane.showMessageDialog(panel1, cause.getMessage(), "GSPN Analysis Error",
+                        JOptionPane.ERROR_MESSAGE);
+            } else {
+                LOGGER.log(Level.SEVERE, cause.toString());
+                progressPanel.finish("Failed: " + cause.getMessage());
+            }
         }
     }
 
@@ -223,19 +417,42 @@ public class ReachabilityGraph {
         stateSpaceLoader.saveBinaryFiles();
     }
 
+    /**
+     * @param coverability     true if the coverability graph is being generated
+     * @param maxStates        maximum number of states to explore for the reachability graph
+     * @param includeVanishing true if vanishing states are kept in the graph
+     * @param reduce           true if only stubborn sets of transitions are fired
+     * @return exploration settings identifying the state space in the result cache
+     */
+    private static String getExplorerSettings(boolean coverability, int maxStates, boolean includeVanishing,
+                                              boolean reduce) {
+        String explorer = coverability ? "coverability" : "bounded=" + maxStates;
+        String vanishing = ";vanishing=" + (includeVanishing ? "simple" : "on-the-fly");
+        return explorer + vanishing + (reduce ? ";reduction=stubborn" : "");
+    }
+
     /**
      * Creates the explorer utilities based upon whether the coverability or reachability graph
      * is being generate
      *
-     * @param petriNet to be displayed
+     * @param petriNet     to be displayed
+     * @param coverability true if the coverability graph is being generated
+     * @param maxStates    maximum number of states to explore for the reachability graph
+     * @param reduction    statistics of the partial order reduction of the reachability graph,
+     *                     null to explore every interleaving
      * @return explorer utilities for generating state space
      */
-    private ExplorerUtilities getExplorerUtilities(PetriNet petriNet) {
-        if (coverabilityButton.isSelected()) {
+    private static ExplorerUtilities getExplorerUtilities(PetriNet petriNet, boolean coverability, int maxStates,
+                                                          ReductionStatistics reduction) {
+        if (coverability) {
             return new CoverabilityExplorerUtilities(new UnboundedExplorerUtilities(petriNet));
         }
 
-        return new BoundedExplorerUtilities(petriNet, Integer.valueOf(maxStatesField.getText()));
+        ExplorerUtilities utilities = new BoundedExplorerUtilities(petriNet, maxStates);
+        if (reduction != null) {
+            return new StubbornSetExplorerUtilities(petriNet, utilities, reduction);
+        }
+        return utilities;
 
     }
 
@@ -244,10 +461,12 @@ public class ReachabilityGraph {
      * vanishing states are to be included in the graph, else it is {@link pipe.reachability.algorithm.OnTheFlyVanishingExplorer}
      *
      * @param explorerUtilities utilities for analysis 
+     * @param includeVanishing  true if vanishing states are to be included in the graph
      * @return vanishing explorer
      */
-    private VanishingExplorer getVanishingExplorer(ExplorerUtilities explorerUtilities) {
-        if (includeVanishingStatesCheckBox.isSelected()) {
+    private static VanishingExplorer getVanishingExplorer(ExplorerUtilities explorerUtilities,
+                                                          boolean includeVanishing) {
+        if (includeVanishing) {
             return new SimpleVanishingExplorer();
         }
         return new OnTheFlyVanishingExplorer(explorerUtilities);
@@ -258,13 +477,44 @@ public class ReachabilityGraph {
      *
      * @param states      number of states
      * @param transitions number of transitions
+     * @param reduction   statistics of the partial order reduction, null if the exploration was not reduced
      */
-    private void updateTextResults(int states, int transitions) {
+    private void updateTextResults(int states, int transitions, ReductionStatistics reduction) {
         StringBuilder results = new StringBuilder();
         results.append("Results: ").append(states).append(" states and ").append(transitions).append(" transitions");
+        if (reduction != null) {
+            results.append("; partial order reduction ").append(reduction);
+        }
         textResultsLabel.setText(results.toString());
     }
 
+    /**
+     * Updates the text results with the state counts, deadlock and place bounds of a symbolic exploration
+     *
+     * @param stateSpace symbolically explored state space
+     */
+    private void updateSymbolicTextResults(SymbolicStateSpace stateSpace) {
+        StringBuilder results = new StringBuilder("<html>");
+        results.append("Results: ").append(stateSpace.getStates()).append(" states, ")
+               .append(stateSpace.getTangibleStates()).append(" tangible");
+        if (stateSpace.hasDeadlock()) {
+            results.append("<br>").append(stateSpace.getDeadlocks()).append(" dead states, for example ")
+                   .append(escape(stateSpace.getDeadlock().toString()));
+        } else {
+            results.append("<br>No dead states");
+        }
+        results.append("<br>Place bounds: ").append(escape(stateSpace.getBounds().toString()));
+        textResultsLabel.setText(results.append("</html>").toString());
+    }
+
+    /**
+     * @param text plain text
+     * @return text that displays unchanged in an HTML label
+     */
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
     /**
      * Updates the mxGraph to display the records
      *
@@ -365,4 +615,62 @@ public class ReachabilityGraph {
     public Container getMainPanel() {
         return panel1;
     }
+
+    /**
+     * Results of a background exploration
+     */
+    private static final class Exploration {
+        /**
+         * Number of states and transitions explored
+         */
+        private final StateSpaceExplorer.StateSpaceExplorerResults results;
+
+        /**
+         * State space to draw in full, null if it is too large to display
+         */
+        private final StateSpaceLoader.Results stateSpace;
+
+        /**
+         * Graph of a state space too large to display in full, null if it is small
+         */
+        private final StateGraph stateGraph;
+
+        /**
+         * States of a state space too large to display in full, null if it is small
+         */
+        private final Map<Integer, ClassifiedState> states;
+
+        /**
+         * Strongly connected components of a state space too large to display in full, null if it is small
+         */
+        private final StronglyConnectedComponents components;
+
+        /**
+         * @param results    number of states and transitions explored
+         * @param stateSpace state space to draw in full
+         */
+        private Exploration(StateSpaceExplorer.StateSpaceExplorerResults results,
+                            StateSpaceLoader.Results stateSpace) {
+            this.results = results;
+            this.stateSpace = stateSpace;
+            this.stateGraph = null;
+            this.states = null;
+            this.components = null;
+        }
+
+        /**
+         * @param results    number of states and transitions explored
+         * @param stateGraph graph of a state space too large to display in full
+         * @param states     states of the state space
+         * @param components strongly connected components of the graph
+         */
+        private Exploration(StateSpaceExplorer.StateSpaceExplorerResults results, StateGraph stateGraph,
+                            Map<Integer, ClassifiedState> states, StronglyConnectedComponents components) {
+            this.results = results;
+            this.stateSpace = null;
+            this.stateGraph = stateGraph;
+            this.states = states;
+            this.components = components;
+        }
+    }
 }
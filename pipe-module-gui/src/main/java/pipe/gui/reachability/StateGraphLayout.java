@@ -0,0 +1,244 @@
+package pipe.gui.reachability;
+
+import pipe.gui.statespace.StateGraph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Positions of the states of a {@link StateGraph} that have been revealed in the viewer.
+ * <p>
+ * States are revealed a neighbourhood at a time: the unrevealed neighbours of a state are
+ * placed on rings around it in the first free slots, so expanding a state never moves the
+ * states already shown. The whole graph can instead be laid out at once in layers by
+ * breadth first distance from the initial state, which is linear in the size of the graph
+ * where force directed layouts are not.
+ * </p>
+ */
+final class StateGraphLayout {
+
+    /**
+     * Distance between neighbouring states in layout coordinates
+     */
+    static final float SPACING = 60;
+
+    /**
+     * Graph being laid out
+     */
+    private final StateGraph graph;
+
+    /**
+     * Layout x coordinate of each revealed state
+     */
+    private final float[] xs;
+
+    /**
+     * Layout y coordinate of each revealed state
+     */
+    private final float[] ys;
+
+    /**
+     * States that have been revealed
+     */
+    private final BitSet revealed = new BitSet();
+
+    /**
+     * Revealed states by position for hit testing and culling
+     */
+    private final GridIndex index = new GridIndex(SPACING * 4);
+
+    /**
+     * @param graph graph to lay out
+     */
+    StateGraphLayout(StateGraph graph) {
+        this.graph = graph;
+        xs = new float[graph.getStateCount()];
+        ys = new float[graph.getStateCount()];
+    }
+
+    /**
+     * @return layout x coordinate of each state, only meaningful for revealed states
+     */
+    float[] getXs() {
+        return xs;
+    }
+
+    /**
+     * @return layout y coordinate of each state, only meaningful for revealed states
+     */
+    float[] getYs() {
+        return ys;
+    }
+
+    /**
+     * @param state state id
+     * @return true if the state has been placed
+     */
+    boolean isRevealed(int state) {
+        return revealed.get(state);
+    }
+
+    /**
+     * @return number of states placed
+     */
+    int getRevealedCount() {
+        return revealed.cardinality();
+    }
+
+    /**
+     * @return index of the revealed states' positions
+     */
+    GridIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Hides every state
+     */
+    void clear() {
+        revealed.clear();
+        index.clear();
+    }
+
+    /**
+     * Places a state at a position
+     *
+     * @param state state id
+     * @param x     layout x coordinate
+     * @param y     layout y coordinate
+     */
+    void reveal(int state, float x, float y) {
+        xs[state] = x;
+        ys[state] = y;
+        revealed.set(state);
+        index.add(state, x, y);
+    }
+
+    /**
+     * Places the unrevealed successors and then predecessors of a revealed state around it
+     *
+     * @param state revealed state id
+     * @param limit maximum number of states to reveal
+     * @return number of states revealed
+     */
+    int revealNeighbourhood(int state, int limit) {
+        int added = 0;
+        int slot = 0;
+        for (int i = 0; i < graph.getSuccessorCount(state) && added < limit; i++) {
+            int successor = graph.getSuccessor(state, i);
+            if (!revealed.get(successor)) {
+                slot = placeNear(successor, state, slot);
+                added++;
+            }
+        }
+        for (int i = 0; i < graph.getPredecessorCount(state) && added < limit; i++) {
+            int predecessor = graph.getPredecessor(state, i);
+            if (!revealed.get(predecessor)) {
+                slot = placeNear(predecessor, state, slot);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Lays out every state in layers by breadth first distance from the root, ignoring the
+     * direction of transitions. States that cannot be reached from the root are laid out
+     * beneath in further layers.
+     *
+     * @param root state id of the first layer
+     */
+    void revealAll(int root) {
+        clear();
+        int states = graph.getStateCount();
+        int[] level = new int[states];
+        Arrays.fill(level, -1);
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        int baseLevel = 0;
+        int unvisited = 0;
+        for (int start = root; start >= 0; start = unvisited < states ? unvisited : -1) {
+            level[start] = baseLevel;
+            queue[tail++] = start;
+            while (head < tail) {
+                int state = queue[head++];
+                for (int i = 0; i < graph.getSuccessorCount(state); i++) {
+                    tail = visit(graph.getSuccessor(state, i), level[state] + 1, level, queue, tail);
+                }
+                for (int i = 0; i < graph.getPredecessorCount(state); i++) {
+                    tail = visit(graph.getPredecessor(state, i), level[state] + 1, level, queue, tail);
+                }
+            }
+            baseLevel = level[queue[tail - 1]] + 2;
+            while (unvisited < states && (level[unvisited] >= 0 || !graph.isPresent(unvisited))) {
+                unvisited++;
+            }
+        }
+        int levels = baseLevel;
+        int[] widths = new int[levels];
+        for (int i = 0; i < tail; i++) {
+            widths[level[queue[i]]]++;
+        }
+        int[] placed = new int[levels];
+        for (int i = 0; i < tail; i++) {
+            int state = queue[i];
+            int row = level[state];
+            float x = (placed[row]++ - (widths[row] - 1) / 2f) * SPACING;
+            reveal(state, x, row * SPACING * 2);
+        }
+    }
+
+    /**
+     * @param state    neighbour of a state being visited
+     * @param distance its breadth first distance if not yet visited
+     * @param level    breadth first distance of each state, -1 if unvisited
+     * @param queue    breadth first queue
+     * @param tail     end of the queue
+     * @return new end of the queue
+     */
+    private static int visit(int state, int distance, int[] level, int[] queue, int tail) {
+        if (level[state] >= 0) {
+            return tail;
+        }
+        level[state] = distance;
+        queue[tail] = state;
+        return tail + 1;
+    }
+
+    /**
+     * Places a state in the first free slot on the rings around a revealed state
+     *
+     * @param state  state id to place
+     * @param centre revealed state to place it around
+     * @param slot   slot to start looking from
+     * @return slot after the one used
+     */
+    private int placeNear(int state, int centre, int slot) {
+        int current = slot;
+        while (true) {
+            int ring = 1;
+            int remaining = current;
+            while (remaining >= slots(ring)) {
+                remaining -= slots(ring);
+                ring++;
+            }
+            double angle = 2 * Math.PI * remaining / slots(ring);
+            float x = (float) (xs[centre] + ring * SPACING * Math.cos(angle));
+            float y = (float) (ys[centre] + ring * SPACING * Math.sin(angle));
+            current++;
+            if (index.nearest(x, y, SPACING * 0.6, xs, ys) < 0) {
+                reveal(state, x, y);
+                return current;
+            }
+        }
+    }
+
+    /**
+     * @param ring ring number, starting at one
+     * @return number of slots on the ring
+     */
+    private static int slots(int ring) {
+        return 6 * ring;
+    }
+}
@@ -0,0 +1,577 @@
+package pipe.gui.reachability;
+
+import pipe.gui.statespace.MappedStates;
+import pipe.gui.statespace.StateGraph;
+import pipe.gui.statespace.StronglyConnectedComponents;
+import uk.ac.imperial.state.ClassifiedState;
+
+import javax.swing.*;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Draws the revealed part of a large state space and lets the user pan, zoom, select states
+ * and expand their neighbourhoods.
+ * <p>
+ * Only the states inside the visible area are drawn, found through the layout's
+ * {@link GridIndex}, and the amount of detail drawn depends on the zoom. Close up states are
+ * drawn with their ids and transitions with their rates; further out states become dots and
+ * transitions plain lines, which are left out once there are too many to draw quickly; zoomed
+ * right out the states of each strongly connected component are drawn as a single cluster.
+ * </p>
+ */
+@SuppressWarnings("serial")
+final class StateGraphView extends JComponent {
+
+    /**
+     * Radius of a state in layout coordinates
+     */
+    private static final float NODE_RADIUS = 14;
+
+    /**
+     * Below this zoom strongly connected components are drawn as clusters
+     */
+    private static final double CLUSTER_SCALE = 0.15;
+
+    /**
+     * At and above this zoom states are labelled and transitions show their rates
+     */
+    private static final double DETAIL_SCALE = 0.6;
+
+    /**
+     * Maximum number of transitions drawn at once
+     */
+    private static final int MAX_EDGES = 20000;
+
+    /**
+     * Zoom factor of one mouse wheel notch
+     */
+    private static final double ZOOM_STEP = 1.25;
+
+    /**
+     * Colour of tangible states, as in the small graph
+     */
+    private static final Color TANGIBLE_COLOR = new Color(255, 102, 102);
+
+    /**
+     * Colour of vanishing states, as in the small graph
+     */
+    private static final Color VANISHING_COLOR = new Color(182, 220, 255);
+
+    /**
+     * Colour of clusters
+     */
+    private static final Color CLUSTER_COLOR = new Color(200, 120, 200);
+
+    /**
+     * Colour of the selected state
+     */
+    private static final Color SELECTED_COLOR = new Color(255, 170, 0);
+
+    /**
+     * Colour of transitions
+     */
+    private static final Color EDGE_COLOR = Color.GRAY;
+
+    /**
+     * Listener notified when the selected state changes
+     */
+    interface SelectionListener {
+        /**
+         * @param state selected state id, -1 if no state is selected
+         */
+        void selected(int state);
+    }
+
+    /**
+     * Graph being drawn
+     */
+    private StateGraph graph;
+
+    /**
+     * Markings of the states, read on demand
+     */
+    private Map<Integer, ClassifiedState> states;
+
+    /**
+     * Strongly connected components of the graph
+     */
+    private StronglyConnectedComponents components;
+
+    /**
+     * Positions of the revealed states
+     */
+    private StateGraphLayout layout;
+
+    /**
+     * States whose tangibility has been looked up
+     */
+    private final BitSet classified = new BitSet();
+
+    /**
+     * Vanishing states amongst those looked up
+     */
+    private final BitSet vanishing = new BitSet();
+
+    /**
+     * Screen pixels per layout unit
+     */
+    private double scale = 1;
+
+    /**
+     * Screen x coordinate of the layout origin
+     */
+    private double offsetX = 0;
+
+    /**
+     * Screen y coordinate of the layout origin
+     */
+    private double offsetY = 0;
+
+    /**
+     * Selected state id, -1 if none is selected
+     */
+    private int selected = -1;
+
+    /**
+     * Notified when the selection changes, may be null
+     */
+    private SelectionListener selectionListener;
+
+    /**
+     * Sets up panning, zooming, selecting and expanding with the mouse
+     */
+    StateGraphView() {
+        setBackground(Color.WHITE);
+        setOpaque(true);
+        setPreferredSize(new Dimension(1000, 500));
+        setToolTipText("");
+        MouseAdapter mouse = new MouseAdapter() {
+            private Point last;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                last = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                offsetX += e.getX() - last.x;
+                offsetY += e.getY() - last.y;
+                last = e.getPoint();
+                repaint();
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int state = stateAt(e.getX(), e.getY());
+                select(state);
+                if (e.getClickCount() == 2 && state >= 0) {
+                    expand(state);
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(Math.pow(ZOOM_STEP, -e.getWheelRotation()), e.getX(), e.getY());
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    /**
+     * Shows a new state space, revealing the neighbourhood of its initial state
+     *
+     * @param graph      graph of the state space
+     * @param states     markings of the states
+     * @param components strongly connected components of the graph
+     */
+    void setStateSpace(StateGraph graph, Map<Integer, ClassifiedState> states,
+                       StronglyConnectedComponents components) {
+        this.graph = graph;
+        this.states = states;
+        this.components = components;
+        layout = new StateGraphLayout(graph);
+        classified.clear();
+        vanishing.clear();
+        reset();
+    }
+
+    /**
+     * @param listener notified when the selected state changes
+     */
+    void setSelectionListener(SelectionListener listener) {
+        selectionListener = listener;
+    }
+
+    /**
+     * @return graph being drawn, null if there is none
+     */
+    StateGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return strongly connected components of the graph being drawn
+     */
+    StronglyConnectedComponents getStronglyConnectedComponents() {
+        return components;
+    }
+
+    /**
+     * @return selected state id, -1 if none is selected
+     */
+    int getSelected() {
+        return selected;
+    }
+
+    /**
+     * @return number of states revealed
+     */
+    int getRevealedCount() {
+        return layout == null ? 0 : layout.getRevealedCount();
+    }
+
+    /**
+     * @param state state id
+     * @return marking of the state
+     */
+    ClassifiedState getState(int state) {
+        return states.get(state);
+    }
+
+    /**
+     * Hides everything except the initial state and its neighbourhood
+     */
+    void reset() {
+        if (graph == null) {
+            return;
+        }
+        layout.clear();
+        int initial = initialState();
+        if (initial >= 0) {
+            layout.reveal(initial, 0, 0);
+            layout.revealNeighbourhood(initial, Integer.MAX_VALUE);
+        }
+        select(initial);
+        fit();
+    }
+
+    /**
+     * Lays out and reveals every state
+     */
+    void showAll() {
+        if (graph == null) {
+            return;
+        }
+        int initial = initialState();
+        if (initial >= 0) {
+            layout.revealAll(initial);
+        }
+        fit();
+    }
+
+    /**
+     * Reveals the neighbourhood of a state
+     *
+     * @param state revealed state id
+     */
+    void expand(int state) {
+        if (graph != null && state >= 0 && layout.isRevealed(state)) {
+            layout.revealNeighbourhood(state, Integer.MAX_VALUE);
+            repaint();
+        }
+    }
+
+    /**
+     * Zooms and pans so that every revealed state is visible
+     */
+    void fit() {
+        float[] xs = layout.getXs();
+        float[] ys = layout.getYs();
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int state = 0; state < xs.length; state++) {
+            if (layout.isRevealed(state)) {
+                minX = Math.min(minX, xs[state]);
+                minY = Math.min(minY, ys[state]);
+                maxX = Math.max(maxX, xs[state]);
+                maxY = Math.max(maxY, ys[state]);
+            }
+        }
+        if (minX > maxX) {
+            return;
+        }
+        double margin = NODE_RADIUS * 3;
+        double width = Math.max(1, getWidth() > 0 ? getWidth() : getPreferredSize().width);
+        double height = Math.max(1, getHeight() > 0 ? getHeight() : getPreferredSize().height);
+        scale = Math.min(2, Math.min(width / (maxX - minX + 2 * margin), height / (maxY - minY + 2 * margin)));
+        offsetX = width / 2 - scale * (minX + maxX) / 2;
+        offsetY = height / 2 - scale * (minY + maxY) / 2;
+        repaint();
+    }
+
+    /**
+     * @param factor amount to multiply the zoom by
+     * @param x      screen x coordinate to keep fixed
+     * @param y      screen y coordinate to keep fixed
+     */
+    private void zoom(double factor, int x, int y) {
+        offsetX = x - (x - offsetX) * factor;
+        offsetY = y - (y - offsetY) * factor;
+        scale *= factor;
+        repaint();
+    }
+
+    /**
+     * @param state state id to select, -1 to clear the selection
+     */
+    private void select(int state) {
+        selected = state;
+        if (selectionListener != null) {
+            selectionListener.selected(state);
+        }
+        repaint();
+    }
+
+    /**
+     * @param x screen x coordinate
+     * @param y screen y coordinate
+     * @return revealed state drawn at the point, -1 if there is none
+     */
+    private int stateAt(int x, int y) {
+        if (graph == null) {
+            return -1;
+        }
+        double radius = Math.max(NODE_RADIUS, 4 / scale);
+        return layout.getIndex().nearest((x - offsetX) / scale, (y - offsetY) / scale, radius, layout.getXs(),
+                layout.getYs());
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        int state = stateAt(event.getX(), event.getY());
+        return state < 0 ? null : "State " + state + ": " + states.get(state);
+    }
+
+    /**
+     * @return lowest state id in the state space, the initial state, -1 if it is empty
+     */
+    private int initialState() {
+        for (int state = 0; state < graph.getStateCount(); state++) {
+            if (graph.isPresent(state)) {
+                return state;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param state state id
+     * @return true if the state is vanishing, looked up once and remembered
+     */
+    private boolean isVanishing(int state) {
+        if (!classified.get(state)) {
+            boolean tangible = states instanceof MappedStates ? ((MappedStates) states).isTangible(state) :
+                    states.get(state).isTangible();
+            vanishing.set(state, !tangible);
+            classified.set(state);
+        }
+        return vanishing.get(state);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if (graph == null) {
+            return;
+        }
+        Graphics2D graphics = (Graphics2D) g.create();
+        try {
+            double margin = NODE_RADIUS * 2;
+            int[] visible = layout.getIndex().query(-offsetX / scale - margin, -offsetY / scale - margin,
+                    (getWidth() - offsetX) / scale + margin, (getHeight() - offsetY) / scale + margin);
+            if (scale < CLUSTER_SCALE && components != null) {
+                paintClusters(graphics, visible);
+            } else {
+                paintStates(graphics, visible, scale >= DETAIL_SCALE);
+            }
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    /**
+     * Draws the visible states and the transitions out of them
+     *
+     * @param g       graphics
+     * @param visible states in the visible area
+     * @param detail  true to label states and transitions
+     */
+    private void paintStates(Graphics2D g, int[] visible, boolean detail) {
+        float[] xs = layout.getXs();
+        float[] ys = layout.getYs();
+        if (detail) {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        }
+        int edges = 0;
+        for (int state : visible) {
+            edges += graph.getSuccessorCount(state);
+        }
+        if (edges <= MAX_EDGES) {
+            g.setColor(EDGE_COLOR);
+            for (int state : visible) {
+                for (int i = 0; i < graph.getSuccessorCount(state); i++) {
+                    int successor = graph.getSuccessor(state, i);
+                    if (successor != state && layout.isRevealed(successor)) {
+                        paintEdge(g, xs[state], ys[state], xs[successor], ys[successor], detail ?
+                                String.format("%.2f", graph.getRate(state, i)) : null);
+                    }
+                }
+            }
+        }
+        double radius = Math.max(1.5, NODE_RADIUS * scale);
+        for (int state : visible) {
+            double x = screenX(xs[state]);
+            double y = screenY(ys[state]);
+            g.setColor(state == selected ? SELECTED_COLOR : isVanishing(state) ? VANISHING_COLOR : TANGIBLE_COLOR);
+            g.fill(new Ellipse2D.Double(x - radius, y - radius, 2 * radius, 2 * radius));
+            if (detail) {
+                String label = Integer.toString(state);
+                FontMetrics metrics = g.getFontMetrics();
+                g.setColor(Color.BLACK);
+                g.drawString(label, (float) (x - metrics.stringWidth(label) / 2.0),
+                        (float) (y + metrics.getAscent() / 2.0 - 1));
+            }
+        }
+    }
+
+    /**
+     * Draws a transition as a line, with an arrow head and its rate when labelled
+     *
+     * @param g     graphics
+     * @param fromX layout x coordinate of the source
+     * @param fromY layout y coordinate of the source
+     * @param toX   layout x coordinate of the target
+     * @param toY   layout y coordinate of the target
+     * @param label rate to draw, null to draw a plain line
+     */
+    private void paintEdge(Graphics2D g, double fromX, double fromY, double toX, double toY, String label) {
+        double x1 = screenX(fromX);
+        double y1 = screenY(fromY);
+        double x2 = screenX(toX);
+        double y2 = screenY(toY);
+        if (label == null) {
+            g.draw(new Line2D.Double(x1, y1, x2, y2));
+            return;
+        }
+        double length = Math.hypot(x2 - x1, y2 - y1);
+        double radius = NODE_RADIUS * scale;
+        if (length <= 2 * radius) {
+            return;
+        }
+        double ux = (x2 - x1) / length;
+        double uy = (y2 - y1) / length;
+        double endX = x2 - ux * radius;
+        double endY = y2 - uy * radius;
+        g.draw(new Line2D.Double(x1 + ux * radius, y1 + uy * radius, endX, endY));
+        Path2D.Double head = new Path2D.Double();
+        head.moveTo(0, 0);
+        head.lineTo(-8, -4);
+        head.lineTo(-8, 4);
+        head.closePath();
+        AffineTransform transform = AffineTransform.getTranslateInstance(endX, endY);
+        transform.rotate(ux, uy);
+        g.fill(transform.createTransformedShape(head));
+        g.drawString(label, (float) ((x1 + 2 * x2) / 3), (float) ((y1 + 2 * y2) / 3));
+    }
+
+    /**
+     * Draws each strongly connected component's visible states as one cluster at their centre,
+     * sized by the number of states, with a line for every pair of clusters joined by a transition
+     *
+     * @param g       graphics
+     * @param visible states in the visible area
+     */
+    private void paintClusters(Graphics2D g, int[] visible) {
+        float[] xs = layout.getXs();
+        float[] ys = layout.getYs();
+        Map<Integer, double[]> clusters = new HashMap<>();
+        for (int state : visible) {
+            int component = components.getComponent(state);
+            double[] cluster = clusters.get(component);
+            if (cluster == null) {
+                cluster = new double[3];
+                clusters.put(component, cluster);
+            }
+            cluster[0] += xs[state];
+            cluster[1] += ys[state];
+            cluster[2]++;
+        }
+        Set<Long> joined = new HashSet<>();
+        g.setColor(EDGE_COLOR);
+        for (int state : visible) {
+            if (joined.size() >= MAX_EDGES) {
+                break;
+            }
+            int from = components.getComponent(state);
+            for (int i = 0; i < graph.getSuccessorCount(state); i++) {
+                int to = components.getComponent(graph.getSuccessor(state, i));
+                double[] target = clusters.get(to);
+                if (to != from && target != null && joined.add(((long) from << 32) | (to & 0xffffffffL))) {
+                    double[] source = clusters.get(from);
+                    paintEdge(g, source[0] / source[2], source[1] / source[2], target[0] / target[2],
+                            target[1] / target[2], null);
+                }
+            }
+        }
+        int selectedComponent = selected >= 0 ? components.getComponent(selected) : -1;
+        for (Map.Entry<Integer, double[]> entry : clusters.entrySet()) {
+            double[] cluster = entry.getValue();
+            double x = screenX(cluster[0] / cluster[2]);
+            double y = screenY(cluster[1] / cluster[2]);
+            double radius = cluster[2] == 1 ? 1.5 : Math.min(40, 2 + 2 * Math.sqrt(cluster[2]));
+            g.setColor(entry.getKey() == selectedComponent ? SELECTED_COLOR :
+                    cluster[2] == 1 ? TANGIBLE_COLOR : CLUSTER_COLOR);
+            g.fill(new Ellipse2D.Double(x - radius, y - radius, 2 * radius, 2 * radius));
+        }
+    }
+
+    /**
+     * @param x layout x coordinate
+     * @return screen x coordinate
+     */
+    private double screenX(double x) {
+        return x * scale + offsetX;
+    }
+
+    /**
+     * @param y layout y coordinate
+     * @return screen y coordinate
+     */
+    private double screenY(double y) {
+        return y * scale + offsetY;
+    }
+}
@@ -0,0 +1,133 @@
+package pipe.gui.reachability;
+
+import pipe.gui.statespace.StateGraph;
+import pipe.gui.statespace.StronglyConnectedComponents;
+import uk.ac.imperial.state.ClassifiedState;
+
+import javax.swing.*;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Map;
+
+/**
+ * Viewer for state spaces too large to lay out and draw in full. It starts from the
+ * neighbourhood of the initial state; double clicking a state, or selecting it and pressing
+ * expand, reveals its neighbours. Show all lays out every state, which stays responsive
+ * for hundreds of thousands of states because only the visible ones are drawn.
+ */
+public class StateGraphViewer {
+
+    /**
+     * Panel containing the toolbar, graph and status
+     */
+    private final JPanel mainPanel = new JPanel(new BorderLayout());
+
+    /**
+     * Draws the graph
+     */
+    private final StateGraphView view = new StateGraphView();
+
+    /**
+     * Describes the selected state
+     */
+    private final JLabel statusLabel = new JLabel(" ");
+
+    /**
+     * Lays out the panel
+     */
+    public StateGraphViewer() {
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        toolbar.add(button("Expand selected", new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                view.expand(view.getSelected());
+                updateStatus();
+            }
+        }));
+        toolbar.add(button("Show all", new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                view.showAll();
+                updateStatus();
+            }
+        }));
+        toolbar.add(button("Reset", new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                view.reset();
+            }
+        }));
+        toolbar.add(button("Fit", new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                view.fit();
+            }
+        }));
+        toolbar.add(new JLabel("Drag to pan, scroll to zoom, double click a state to expand it"));
+        mainPanel.add(toolbar, BorderLayout.NORTH);
+        mainPanel.add(view, BorderLayout.CENTER);
+        mainPanel.add(statusLabel, BorderLayout.SOUTH);
+        view.setSelectionListener(new StateGraphView.SelectionListener() {
+            @Override
+            public void selected(int state) {
+                updateStatus();
+            }
+        });
+    }
+
+    /**
+     * @param text   button text
+     * @param action action performed when the button is pressed
+     * @return button
+     */
+    private static JButton button(String text, ActionListener action) {
+        JButton button = new JButton(text);
+        button.addActionListener(action);
+        return button;
+    }
+
+    /**
+     * Shows a new state space, starting from the neighbourhood of its initial state
+     *
+     * @param graph      graph of the state space
+     * @param states     markings of the states, read on demand
+     * @param components strongly connected components of the graph
+     */
+    public void setStateSpace(StateGraph graph, Map<Integer, ClassifiedState> states,
+                              StronglyConnectedComponents components) {
+        view.setStateSpace(graph, states, components);
+        updateStatus();
+    }
+
+    /**
+     * Describes the selected state and how much of the graph is shown
+     */
+    private void updateStatus() {
+        StateGraph graph = view.getGraph();
+        if (graph == null) {
+            statusLabel.setText(" ");
+            return;
+        }
+        StringBuilder status = new StringBuilder();
+        status.append("Showing ").append(view.getRevealedCount()).append(" states. ");
+        int state = view.getSelected();
+        if (state >= 0) {
+            StronglyConnectedComponents components = view.getStronglyConnectedComponents();
+            status.append("State ").append(state).append(": ").append(view.getState(state))
+                  .append(", ").append(graph.getSuccessorCount(state)).append(" successors, ")
+                  .append(graph.getPredecessorCount(state)).append(" predecessors, ")
+                  .append(components.getSize(components.getComponent(state)))
+                  .append(" states in its strongly connected component");
+        }
+        statusLabel.setText(status.toString());
+    }
+
+    /**
+     * @return panel to add to other GUI's
+     */
+    public JPanel getPanel() {
+        return mainPanel;
+    }
+}
@@ -0,0 +1,41 @@
+package pipe.gui.report;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Report table with a fixed title and headers whose rows are computed by subclasses when
+ * they are asked for
+ */
+public abstract class AbstractReportTable implements ReportTable {
+
+    /**
+     * Title of the table
+     */
+    private final String title;
+
+    /**
+     * Column headers
+     */
+    private final List<String> headers;
+
+    /**
+     * @param title   title of the table
+     * @param headers column headers
+     */
+    protected AbstractReportTable(String title, List<String> headers) {
+        this.title = title;
+        this.headers = Collections.unmodifiableList(new ArrayList<>(headers));
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+
+    @Override
+    public List<String> getHeaders() {
+        return headers;
+    }
+}
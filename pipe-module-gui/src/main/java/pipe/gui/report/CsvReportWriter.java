@@ -0,0 +1,93 @@
+package pipe.gui.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes a report as comma separated values. Each table starts with a line holding its
+ * title, followed by its header line and rows, and is separated from the next by a blank
+ * line. Paragraphs of text are written as single quoted cells.
+ */
+public final class CsvReportWriter implements ReportWriter {
+
+    /**
+     * Underlying writer
+     */
+    private final Writer writer;
+
+    /**
+     * True once anything has been written, so later sections are preceded by a blank line
+     */
+    private boolean started = false;
+
+    /**
+     * @param writer to write the values to
+     */
+    public CsvReportWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void text(String text) throws IOException {
+        separate();
+        line(Collections.singletonList(text));
+    }
+
+    @Override
+    public void beginTable(String title, List<String> headers) throws IOException {
+        separate();
+        line(Collections.singletonList(title));
+        line(headers);
+    }
+
+    @Override
+    public void row(List<String> cells) throws IOException {
+        line(cells);
+    }
+
+    @Override
+    public void endTable() {
+        // Tables are only separated once the next section starts
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Writes a blank line between sections
+     *
+     * @throws IOException if the write fails
+     */
+    private void separate() throws IOException {
+        if (started) {
+            writer.write('\n');
+        }
+        started = true;
+    }
+
+    /**
+     * @param cells cells of the line, quoted where they contain commas, quotes or line breaks
+     * @throws IOException if the write fails
+     */
+    private void line(List<String> cells) throws IOException {
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String cell = cells.get(i);
+            if (cell.indexOf(',') >= 0 || cell.indexOf('"') >= 0 || cell.indexOf('\n') >= 0
+                    || cell.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(cell.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(cell);
+            }
+        }
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,107 @@
+package pipe.gui.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes a report as an HTML document, with the same table layout and alternating row
+ * classes as the tables rendered in the analysis windows
+ */
+public final class HtmlReportWriter implements ReportWriter {
+
+    /**
+     * Underlying writer
+     */
+    private final Writer writer;
+
+    /**
+     * Number of rows written in the current table
+     */
+    private int rows = 0;
+
+    /**
+     * Writes the head of the document
+     *
+     * @param writer to write the HTML to
+     * @param style  CSS style sheet of the document
+     * @throws IOException if the write fails
+     */
+    public HtmlReportWriter(Writer writer, String style) throws IOException {
+        this.writer = writer;
+        writer.write("<html><head><style type=\"text/css\" media=\"screen\">");
+        writer.write(style);
+        writer.write("</style></head><body>\n");
+    }
+
+    @Override
+    public void text(String text) throws IOException {
+        escape(text);
+        writer.write("<br/>\n");
+    }
+
+    @Override
+    public void beginTable(String title, List<String> headers) throws IOException {
+        writer.write("<h2>");
+        escape(title);
+        writer.write("</h2><table><tr>");
+        for (String header : headers) {
+            writer.write("<th>");
+            escape(header);
+            writer.write("</th>");
+        }
+        writer.write("</tr>\n");
+        rows = 0;
+    }
+
+    @Override
+    public void row(List<String> cells) throws IOException {
+        writer.write(rows % 2 == 0 ? "<tr class=\"even\">" : "<tr class=\"odd\">");
+        for (String cell : cells) {
+            writer.write("<td>");
+            escape(cell);
+            writer.write("</td>");
+        }
+        writer.write("</tr>\n");
+        rows++;
+    }
+
+    @Override
+    public void endTable() throws IOException {
+        writer.write("</table>\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.write("</body></html>\n");
+        writer.flush();
+    }
+
+    /**
+     * Writes text with the HTML special characters escaped
+     *
+     * @param text to write
+     * @throws IOException if the write fails
+     */
+    private void escape(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<':
+                    writer.write("&lt;");
+                    break;
+                case '>':
+                    writer.write("&gt;");
+                    break;
+                case '&':
+                    writer.write("&amp;");
+                    break;
+                case '"':
+                    writer.write("&quot;");
+                    break;
+                default:
+                    writer.write(c);
+            }
+        }
+    }
+}
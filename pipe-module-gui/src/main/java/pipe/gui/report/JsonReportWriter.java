@@ -0,0 +1,77 @@
+package pipe.gui.report;
+
+import pipe.gui.cli.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes a report as a JSON object holding an array of sections. A paragraph is written as
+ * {@code {"text": ...}} and a table as {@code {"title": ..., "headers": [...], "rows": [[...]]}}.
+ */
+public final class JsonReportWriter implements ReportWriter {
+
+    /**
+     * Streaming JSON writer
+     */
+    private final JsonWriter json;
+
+    /**
+     * Starts the report object
+     *
+     * @param writer to write the JSON to
+     * @throws IOException if the write fails
+     */
+    public JsonReportWriter(Writer writer) throws IOException {
+        json = new JsonWriter(writer);
+        json.beginObject();
+        json.name("sections").beginArray();
+    }
+
+    @Override
+    public void text(String text) throws IOException {
+        json.beginObject();
+        json.name("text").value(text);
+        json.endObject();
+    }
+
+    @Override
+    public void beginTable(String title, List<String> headers) throws IOException {
+        json.beginObject();
+        json.name("title").value(title);
+        json.name("headers");
+        strings(headers);
+        json.name("rows").beginArray();
+    }
+
+    @Override
+    public void row(List<String> cells) throws IOException {
+        strings(cells);
+    }
+
+    @Override
+    public void endTable() throws IOException {
+        json.endArray();
+        json.endObject();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    /**
+     * @param values strings to write as an array
+     * @throws IOException if the write fails
+     */
+    private void strings(List<String> values) throws IOException {
+        json.beginArray();
+        for (String value : values) {
+            json.value(value);
+        }
+        json.endArray();
+    }
+}
@@ -0,0 +1,61 @@
+package pipe.gui.report;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Report table whose rows are held in a list, for the small tables whose size depends on
+ * the places and transitions of the net rather than on its state space
+ */
+public final class ListReportTable extends AbstractReportTable {
+
+    /**
+     * Rows added so far
+     */
+    private final List<List<String>> rows = new ArrayList<>();
+
+    /**
+     * @param title   title of the table
+     * @param headers column headers
+     */
+    public ListReportTable(String title, List<String> headers) {
+        super(title, headers);
+    }
+
+    /**
+     * @param title   title of the table
+     * @param headers column headers
+     */
+    public ListReportTable(String title, String... headers) {
+        this(title, Arrays.asList(headers));
+    }
+
+    /**
+     * @param cells cells of the row to append
+     * @return this
+     */
+    public ListReportTable addRow(String... cells) {
+        return addRow(Arrays.asList(cells));
+    }
+
+    /**
+     * @param cells cells of the row to append
+     * @return this
+     */
+    public ListReportTable addRow(List<String> cells) {
+        rows.add(Collections.unmodifiableList(new ArrayList<>(cells)));
+        return this;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public List<String> getRow(int index) {
+        return rows.get(index);
+    }
+}
@@ -0,0 +1,106 @@
+package pipe.gui.report;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ordered paragraphs and tables making up the results of an analysis. The report only
+ * refers to its tables, whose rows are produced as they are written, so it can be streamed
+ * to a file in any {@link ReportFormat} or paged through in the GUI however many states the
+ * analysed net has.
+ */
+public final class Report {
+
+    /**
+     * Paragraphs as strings and tables as report tables, in order
+     */
+    private final List<Object> sections = new ArrayList<>();
+
+    /**
+     * Tables of the report, in order
+     */
+    private final List<ReportTable> tables = new ArrayList<>();
+
+    /**
+     * @param text paragraph to append
+     * @return this
+     */
+    public Report addText(String text) {
+        sections.add(text);
+        return this;
+    }
+
+    /**
+     * @param table table to append
+     * @return this
+     */
+    public Report addTable(ReportTable table) {
+        sections.add(table);
+        tables.add(table);
+        return this;
+    }
+
+    /**
+     * @return tables of the report, in order
+     */
+    public List<ReportTable> getTables() {
+        return Collections.unmodifiableList(tables);
+    }
+
+    /**
+     * Writes the whole report
+     *
+     * @param writer writer of the report's format
+     * @throws IOException if the write fails
+     */
+    public void write(ReportWriter writer) throws IOException {
+        write(writer, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Writes the report, replacing the tables with more than the given number of rows by a
+     * note of their size
+     *
+     * @param writer  writer of the report's format
+     * @param maxRows most rows of a table to write in full
+     * @throws IOException if the write fails
+     */
+    public void write(ReportWriter writer, int maxRows) throws IOException {
+        for (Object section : sections) {
+            if (section instanceof ReportTable) {
+                ReportTable table = (ReportTable) section;
+                int rows = table.getRowCount();
+                if (rows > maxRows) {
+                    writer.text(table.getTitle() + ": " + rows + " rows, too many to show here");
+                    continue;
+                }
+                writer.beginTable(table.getTitle(), table.getHeaders());
+                for (int i = 0; i < rows; i++) {
+                    writer.row(table.getRow(i));
+                }
+                writer.endTable();
+            } else {
+                writer.text((String) section);
+            }
+        }
+        writer.finish();
+    }
+
+    /**
+     * @param style   CSS style sheet of the document
+     * @param maxRows most rows of a table to include in full
+     * @return the report as an HTML document for display
+     */
+    public String toHtml(String style, int maxRows) {
+        StringWriter html = new StringWriter();
+        try {
+            write(new HtmlReportWriter(html, style), maxRows);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a string failed", e);
+        }
+        return html.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package pipe.gui.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * File formats a report can be exported in
+ */
+public enum ReportFormat {
+    HTML("HTML", "html"),
+    CSV("CSV", "csv"),
+    JSON("JSON", "json");
+
+    /**
+     * Name shown to the user
+     */
+    private final String name;
+
+    /**
+     * File extension, without the dot
+     */
+    private final String extension;
+
+    /**
+     * @param name      name shown to the user
+     * @param extension file extension
+     */
+    ReportFormat(String name, String extension) {
+        this.name = name;
+        this.extension = extension;
+    }
+
+    /**
+     * @return file extension, without the dot
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param writer writer to write the report to
+     * @param style  CSS style sheet, only used by HTML reports
+     * @return report writer of this format
+     * @throws IOException if the start of the report cannot be written
+     */
+    public ReportWriter open(Writer writer, String style) throws IOException {
+        switch (this) {
+            case HTML:
+                return new HtmlReportWriter(writer, style);
+            case CSV:
+                return new CsvReportWriter(writer);
+            default:
+                return new JsonReportWriter(writer);
+        }
+    }
+
+    /**
+     * @param fileName name of a file
+     * @return the format whose extension the file has, null if none matches
+     */
+    public static ReportFormat fromFileName(String fileName) {
+        String lower = fileName.toLowerCase();
+        for (ReportFormat format : values()) {
+            if (lower.endsWith("." + format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,32 @@
+package pipe.gui.report;
+
+import java.util.List;
+
+/**
+ * Table of an analysis report whose rows are produced on demand, so that tables with a row
+ * per state can be written out or shown a page at a time without ever being held in memory
+ * as a whole.
+ */
+public interface ReportTable {
+
+    /**
+     * @return title of the table
+     */
+    String getTitle();
+
+    /**
+     * @return column headers
+     */
+    List<String> getHeaders();
+
+    /**
+     * @return number of rows
+     */
+    int getRowCount();
+
+    /**
+     * @param index row index, from 0 to {@link #getRowCount()} - 1
+     * @return cells of the row, one per header
+     */
+    List<String> getRow(int index);
+}
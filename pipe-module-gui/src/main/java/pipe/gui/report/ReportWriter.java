@@ -0,0 +1,46 @@
+package pipe.gui.report;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a report in a particular format as it is produced, one paragraph or table row at a
+ * time, so the memory used does not depend on the size of the report
+ */
+public interface ReportWriter {
+
+    /**
+     * @param text paragraph of text
+     * @throws IOException if the write fails
+     */
+    void text(String text) throws IOException;
+
+    /**
+     * Starts a table, followed by its rows and {@link #endTable()}
+     *
+     * @param title   title of the table
+     * @param headers column headers
+     * @throws IOException if the write fails
+     */
+    void beginTable(String title, List<String> headers) throws IOException;
+
+    /**
+     * @param cells cells of the next row of the current table
+     * @throws IOException if the write fails
+     */
+    void row(List<String> cells) throws IOException;
+
+    /**
+     * Ends the current table
+     *
+     * @throws IOException if the write fails
+     */
+    void endTable() throws IOException;
+
+    /**
+     * Ends the report and flushes everything written, without closing the underlying writer
+     *
+     * @throws IOException if the write fails
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,127 @@
+package pipe.gui.simulation;
+
+/**
+ * Running totals of the batch means of every measure, giving Student t confidence
+ * intervals on the assumption that batches are long enough to be independent.
+ * <p>
+ * Batch means are added about a shift, the first batch's values, so that the sums of
+ * squares do not lose precision when the variance is small compared to the mean.
+ * </p>
+ */
+final class BatchMeans {
+
+    /**
+     * Shift subtracted from every value, the first batch's means
+     */
+    private double[] shift;
+
+    /**
+     * Sum of the shifted values of each measure
+     */
+    private final double[] sums;
+
+    /**
+     * Sum of the squared shifted values of each measure
+     */
+    private final double[] squares;
+
+    /**
+     * Number of batches added
+     */
+    private int batches = 0;
+
+    /**
+     * @param measures number of measures in every batch
+     */
+    BatchMeans(int measures) {
+        sums = new double[measures];
+        squares = new double[measures];
+    }
+
+    /**
+     * @param means mean of every measure over one batch
+     */
+    void add(double[] means) {
+        if (shift == null) {
+            shift = means.clone();
+        }
+        for (int i = 0; i < sums.length; i++) {
+            double value = means[i] - shift[i];
+            sums[i] += value;
+            squares[i] += value * value;
+        }
+        batches++;
+    }
+
+    /**
+     * @return number of batches added
+     */
+    int getBatches() {
+        return batches;
+    }
+
+    /**
+     * @param confidence confidence level
+     * @return estimate of every measure, the half widths are infinite with fewer than two batches
+     */
+    Estimate[] estimates(double confidence) {
+        Estimate[] estimates = new Estimate[sums.length];
+        double quantile = batches < 2 ? Double.POSITIVE_INFINITY : studentQuantile((1 + confidence) / 2, batches - 1);
+        for (int i = 0; i < sums.length; i++) {
+            double mean = batches == 0 ? 0 : sums[i] / batches;
+            double halfWidth = Double.POSITIVE_INFINITY;
+            if (batches >= 2) {
+                double variance = Math.max(0, (squares[i] - batches * mean * mean) / (batches - 1));
+                halfWidth = variance == 0 ? 0 : quantile * Math.sqrt(variance / batches);
+            }
+            estimates[i] = new Estimate(batches == 0 ? 0 : mean + shift[i], halfWidth);
+        }
+        return estimates;
+    }
+
+    /**
+     * Approximates the Student t quantile from the normal quantile with the Cornish-Fisher
+     * expansion, accurate to three significant figures from four degrees of freedom
+     *
+     * @param p                probability
+     * @param degreesOfFreedom degrees of freedom
+     * @return quantile of the t distribution
+     */
+    static double studentQuantile(double p, int degreesOfFreedom) {
+        double z = normalQuantile(p);
+        double v = degreesOfFreedom;
+        double z2 = z * z;
+        return z + z * (z2 + 1) / (4 * v) + z * ((5 * z2 + 16) * z2 + 3) / (96 * v * v)
+                + z * (((3 * z2 + 19) * z2 + 17) * z2 - 15) / (384 * v * v * v);
+    }
+
+    /**
+     * Acklam's rational approximation of the standard normal quantile, relative error below 1.2e-9
+     *
+     * @param p probability in (0, 1)
+     * @return quantile of the standard normal distribution
+     */
+    static double normalQuantile(double p) {
+        double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        double low = 0.02425;
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            return -normalQuantile(1 - p);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
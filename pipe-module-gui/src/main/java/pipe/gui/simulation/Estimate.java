@@ -0,0 +1,56 @@
+package pipe.gui.simulation;
+
+/**
+ * Simulation estimate of a measure with its confidence interval
+ */
+public final class Estimate {
+
+    /**
+     * Mean of the batch means
+     */
+    private final double mean;
+
+    /**
+     * Half width of the confidence interval
+     */
+    private final double halfWidth;
+
+    /**
+     * @param mean      mean of the batch means
+     * @param halfWidth half width of the confidence interval
+     */
+    public Estimate(double mean, double halfWidth) {
+        this.mean = mean;
+        this.halfWidth = halfWidth;
+    }
+
+    /**
+     * @return mean of the batch means
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return half width of the confidence interval
+     */
+    public double getHalfWidth() {
+        return halfWidth;
+    }
+
+    /**
+     * @return half width relative to the mean, zero if the measure never varied and infinite
+     * if it varied about a zero mean
+     */
+    public double getRelativeHalfWidth() {
+        if (halfWidth == 0) {
+            return 0;
+        }
+        return mean == 0 ? Double.POSITIVE_INFINITY : halfWidth / Math.abs(mean);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.4g +/- %.2g", mean, halfWidth);
+    }
+}
@@ -0,0 +1,200 @@
+package pipe.gui.simulation;
+
+import pipe.gui.widget.StateSpaceLoader;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+import uk.ac.imperial.pipe.models.petrinet.Place;
+import uk.ac.imperial.pipe.models.petrinet.Token;
+import uk.ac.imperial.pipe.models.petrinet.Transition;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Estimates the steady state measures of a GSPN by discrete event simulation, for nets whose
+ * state spaces are too large to explore and solve.
+ * <p>
+ * Independent replications of the net, each with its own random seed, run in parallel. Every
+ * replication discards a warm up period and then contributes a fixed number of batches, whose
+ * time averaged token counts and throughputs are pooled into batch means confidence
+ * intervals. New replications are started as old ones finish until every interval is within
+ * the target precision of its mean, or the batch or time limit is reached.
+ * </p>
+ */
+public final class GSPNSimulator {
+
+    /**
+     * Milliseconds to wait for a batch before checking for failed replications and the time limit
+     */
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * Net to simulate, never modified
+     */
+    private final PetriNet petriNet;
+
+    /**
+     * Creates the explorer utilities firing the transitions of each replication
+     */
+    private final StateSpaceLoader.ExplorerCreator creator;
+
+    /**
+     * Run length and precision settings
+     */
+    private final SimulationSettings settings;
+
+    /**
+     * Place ids in measure order
+     */
+    private final String[] places;
+
+    /**
+     * Token ids in measure order
+     */
+    private final String[] tokens;
+
+    /**
+     * Timed transition id to position of its throughput in the measures
+     */
+    private final Map<String, Integer> transitions = new LinkedHashMap<>();
+
+    /**
+     * @param petriNet net to simulate, it is not modified
+     * @param creator  creates the explorer utilities firing the transitions, these should not
+     *                 bound the number of states and are created afresh for every batch
+     * @param settings run length and precision settings
+     */
+    public GSPNSimulator(PetriNet petriNet, StateSpaceLoader.ExplorerCreator creator, SimulationSettings settings) {
+        this.petriNet = petriNet;
+        this.creator = creator;
+        this.settings = settings;
+        List<String> placeIds = new ArrayList<>();
+        for (Place place : petriNet.getPlaces()) {
+            placeIds.add(place.getId());
+        }
+        Collections.sort(placeIds);
+        places = placeIds.toArray(new String[placeIds.size()]);
+        List<String> tokenIds = new ArrayList<>();
+        for (Token token : petriNet.getTokens()) {
+            tokenIds.add(token.getId());
+        }
+        Collections.sort(tokenIds);
+        tokens = tokenIds.toArray(new String[tokenIds.size()]);
+        List<String> timed = new ArrayList<>();
+        for (Transition transition : petriNet.getTransitions()) {
+            if (transition.isTimed()) {
+                timed.add(transition.getId());
+            }
+        }
+        Collections.sort(timed);
+        for (String id : timed) {
+            transitions.put(id, places.length * tokens.length + transitions.size());
+        }
+    }
+
+    /**
+     * Simulates until the estimates are precise enough or a limit is reached
+     *
+     * @param executorService executor to run the replications on, it should have at least
+     *                        as many threads as the settings
+     * @param listener        notified after every batch, may be null
+     * @return estimates of the average tokens and timed transition throughputs
+     * @throws InterruptedException if the calling thread is interrupted, running replications
+     *                              are cancelled
+     * @throws ExecutionException   if a replication fails, for example on an invalid rate or
+     *                              a timeless trap
+     */
+    public SimulationResult run(ExecutorService executorService, SimulationListener listener)
+            throws InterruptedException, ExecutionException {
+        long start = System.currentTimeMillis();
+        BlockingQueue<double[]> batches = new LinkedBlockingQueue<>();
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(executorService);
+        List<Future<Void>> running = new ArrayList<>();
+        BatchMeans statistics = new BatchMeans(places.length * tokens.length + transitions.size());
+        Estimate[] estimates = statistics.estimates(settings.getConfidence());
+        boolean converged = false;
+        int replications = 0;
+        try {
+            for (; replications < settings.getThreads(); replications++) {
+                running.add(completionService.submit(replication(replications, batches)));
+            }
+            while (statistics.getBatches() < settings.getMaxBatches()
+                    && System.currentTimeMillis() - start < settings.getMaxMillis()) {
+                double[] means = batches.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (means != null) {
+                    statistics.add(means);
+                    estimates = statistics.estimates(settings.getConfidence());
+                    double worst = worstRelativeHalfWidth(estimates);
+                    if (listener != null) {
+                        listener.batchCompleted(statistics.getBatches(), worst);
+                    }
+                    if (statistics.getBatches() >= settings.getMinBatches() && worst <= settings.getPrecision()) {
+                        converged = true;
+                        break;
+                    }
+                }
+                Future<Void> finished;
+                while ((finished = completionService.poll()) != null) {
+                    running.remove(finished);
+                    finished.get();
+                    running.add(completionService.submit(replication(replications++, batches)));
+                }
+            }
+        } finally {
+            for (Future<Void> future : running) {
+                future.cancel(true);
+            }
+        }
+        return new SimulationResult(averageTokens(estimates), throughputs(estimates), statistics.getBatches(),
+                replications, converged, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * @param number  number of the replication, offsetting its seed
+     * @param batches receives the replication's batch means
+     * @return new replication
+     */
+    private Replication replication(int number, BlockingQueue<double[]> batches) {
+        return new Replication(petriNet, creator, places, tokens, transitions, settings, settings.getSeed() + number,
+                batches);
+    }
+
+    /**
+     * @param estimates estimate of every measure
+     * @return largest relative half width
+     */
+    private static double worstRelativeHalfWidth(Estimate[] estimates) {
+        double worst = 0;
+        for (Estimate estimate : estimates) {
+            worst = Math.max(worst, estimate.getRelativeHalfWidth());
+        }
+        return worst;
+    }
+
+    /**
+     * @param estimates estimate of every measure
+     * @return place id to token id to estimated average number of tokens
+     */
+    private Map<String, Map<String, Estimate>> averageTokens(Estimate[] estimates) {
+        Map<String, Map<String, Estimate>> averageTokens = new HashMap<>();
+        for (int place = 0; place < places.length; place++) {
+            Map<String, Estimate> placeTokens = new HashMap<>();
+            for (int token = 0; token < tokens.length; token++) {
+                placeTokens.put(tokens[token], estimates[place * tokens.length + token]);
+            }
+            averageTokens.put(places[place], placeTokens);
+        }
+        return averageTokens;
+    }
+
+    /**
+     * @param estimates estimate of every measure
+     * @return timed transition id to estimated throughput
+     */
+    private Map<String, Estimate> throughputs(Estimate[] estimates) {
+        Map<String, Estimate> throughputs = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : transitions.entrySet()) {
+            throughputs.put(entry.getKey(), estimates[entry.getValue()]);
+        }
+        return throughputs;
+    }
+}
@@ -0,0 +1,295 @@
+package pipe.gui.simulation;
+
+import pipe.gui.widget.StateSpaceLoader;
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.TimelessTrapException;
+import uk.ac.imperial.pipe.exceptions.InvalidRateException;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+import uk.ac.imperial.pipe.models.petrinet.Transition;
+import uk.ac.imperial.pipe.visitor.ClonePetriNet;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+
+/**
+ * One independent run of the net from its initial marking. After a warm up period whose
+ * measures are discarded the run is split into batches of equal simulated time, and the time
+ * averaged token counts and transition throughputs of each batch are handed to the simulator.
+ * <p>
+ * Timed transitions race: the sojourn in a tangible marking is exponential with the total rate
+ * of its enabled transitions and each fires with probability proportional to its rate.
+ * Enabled immediate transitions fire without delay, chosen in proportion to their weights.
+ * </p>
+ * <p>
+ * Each replication works on its own copy of the net and its own explorer utilities so that
+ * replications share nothing. The utilities cache the successors of every marking they fire
+ * from, which over a long run is most of the state space, so they are replaced after the warm
+ * up and after every batch and hold at most the markings visited in one batch.
+ * </p>
+ */
+final class Replication implements Callable<Void> {
+
+    /**
+     * Maximum number of immediate firings in a row before the net is assumed to be stuck in
+     * a cycle of vanishing markings
+     */
+    private static final int MAX_VANISHING_FIRINGS = 1000000;
+
+    /**
+     * Net being simulated, never modified
+     */
+    private final PetriNet petriNet;
+
+    /**
+     * Creates the explorer utilities of the copy of the net
+     */
+    private final StateSpaceLoader.ExplorerCreator creator;
+
+    /**
+     * Ids of the measured places
+     */
+    private final String[] places;
+
+    /**
+     * Ids of the measured tokens
+     */
+    private final String[] tokens;
+
+    /**
+     * Position of each timed transition's throughput after the token counts
+     */
+    private final Map<String, Integer> transitions;
+
+    /**
+     * Run length settings
+     */
+    private final SimulationSettings settings;
+
+    /**
+     * Random number source of this replication
+     */
+    private final Random random;
+
+    /**
+     * Receives the means of each completed batch
+     */
+    private final BlockingQueue<double[]> batches;
+
+    /**
+     * This replication's copy of the net
+     */
+    private PetriNet copy;
+
+    /**
+     * Explorer utilities of the copy of the net, replaced after every batch to drop their cache
+     */
+    private ExplorerUtilities utilities;
+
+    /**
+     * Current tangible marking
+     */
+    private ClassifiedState state;
+
+    /**
+     * Token counts of the current marking in measure order
+     */
+    private double[] counts;
+
+    /**
+     * Simulated time
+     */
+    private double now = 0;
+
+    /**
+     * Simulated time at which the next timed transition fires, infinite if the marking is dead
+     */
+    private double nextTime;
+
+    /**
+     * Timed transition firing next
+     */
+    private Transition nextTransition;
+
+    /**
+     * Marking reached by firing the next timed transition
+     */
+    private ClassifiedState nextState;
+
+    /**
+     * Total weight of the transitions enabled in the marking last passed to {@link #choose(ClassifiedState)}
+     */
+    private double weights;
+
+    /**
+     * @param petriNet    net being simulated, it is copied rather than modified
+     * @param creator     creates the explorer utilities of the copy
+     * @param places      ids of the measured places
+     * @param tokens      ids of the measured tokens
+     * @param transitions position of each timed transition's throughput after the token counts
+     * @param settings    run length settings
+     * @param seed        seed of the random numbers
+     * @param batches     receives the means of each completed batch
+     */
+    Replication(PetriNet petriNet, StateSpaceLoader.ExplorerCreator creator, String[] places, String[] tokens,
+                Map<String, Integer> transitions, SimulationSettings settings, long seed,
+                BlockingQueue<double[]> batches) {
+        this.petriNet = petriNet;
+        this.creator = creator;
+        this.places = places;
+        this.tokens = tokens;
+        this.transitions = transitions;
+        this.settings = settings;
+        this.random = new Random(seed);
+        this.batches = batches;
+    }
+
+    /**
+     * Simulates the warm up and every batch
+     *
+     * @return null
+     * @throws InvalidRateException  if a rate cannot be evaluated
+     * @throws TimelessTrapException if a cycle of vanishing markings cannot be left
+     * @throws InterruptedException  if the simulation is stopped
+     */
+    @Override
+    public Void call() throws InvalidRateException, TimelessTrapException, InterruptedException {
+        copy = ClonePetriNet.clone(petriNet);
+        utilities = creator.create(copy);
+        enter(utilities.getCurrentState());
+        int measures = places.length * tokens.length + transitions.size();
+        double[] discarded = new double[measures];
+        simulate(settings.getWarmupTime(), discarded);
+        for (int batch = 0; batch < settings.getBatchesPerReplication(); batch++) {
+            utilities = creator.create(copy);
+            double[] means = new double[measures];
+            simulate(now + settings.getBatchTime(), means);
+            for (int i = 0; i < measures; i++) {
+                means[i] /= settings.getBatchTime();
+            }
+            batches.put(means);
+        }
+        return null;
+    }
+
+    /**
+     * Advances the simulation to the end time, adding the token time integrals and firing
+     * counts to the totals
+     *
+     * @param end    simulated time to stop at
+     * @param totals token counts integrated over time followed by timed transition firings
+     * @throws InvalidRateException  if a rate cannot be evaluated
+     * @throws TimelessTrapException if a cycle of vanishing markings cannot be left
+     * @throws InterruptedException  if the simulation is stopped
+     */
+    private void simulate(double end, double[] totals)
+            throws InvalidRateException, TimelessTrapException, InterruptedException {
+        int steps = 0;
+        while (nextTime <= end) {
+            if ((++steps & 0x3ff) == 0 && Thread.interrupted()) {
+                throw new InterruptedException("Simulation stopped");
+            }
+            accumulate(nextTime, totals);
+            Integer position = transitions.get(nextTransition.getId());
+            if (position != null) {
+                totals[position]++;
+            }
+            enter(nextState);
+        }
+        accumulate(end, totals);
+    }
+
+    /**
+     * Adds the current token counts integrated up to the time to the totals and moves the
+     * clock on to it
+     *
+     * @param time   simulated time to move to
+     * @param totals token time integrals in measure order
+     */
+    private void accumulate(double time, double[] totals) {
+        double elapsed = time - now;
+        for (int i = 0; i < counts.length; i++) {
+            totals[i] += counts[i] * elapsed;
+        }
+        now = time;
+    }
+
+    /**
+     * Moves to the marking, firing immediate transitions until a tangible marking is reached,
+     * and schedules the next timed firing
+     *
+     * @param marking marking reached
+     * @throws InvalidRateException  if a rate cannot be evaluated
+     * @throws TimelessTrapException if a cycle of vanishing markings cannot be left
+     */
+    private void enter(ClassifiedState marking) throws InvalidRateException, TimelessTrapException {
+        ClassifiedState current = marking;
+        int firings = 0;
+        while (!current.isTangible()) {
+            if (++firings > MAX_VANISHING_FIRINGS || !choose(current)) {
+                throw new TimelessTrapException();
+            }
+            current = nextState;
+        }
+        state = current;
+        counts = tokenCounts(state);
+        double totalRate = choose(state) ? weights : 0;
+        nextTime = totalRate > 0 ? now - Math.log(1 - random.nextDouble()) / totalRate : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Picks the next transition to fire from the marking in proportion to the rates or weights
+     * of the enabled transitions, setting {@link #nextTransition}, {@link #nextState} and
+     * {@link #weights}
+     *
+     * @param marking marking to fire from
+     * @return false if no transition with a positive rate or weight is enabled
+     * @throws InvalidRateException if a rate cannot be evaluated
+     */
+    private boolean choose(ClassifiedState marking) throws InvalidRateException {
+        Map<ClassifiedState, Collection<Transition>> successors = utilities.getSuccessorsWithTransitions(marking);
+        List<Transition> enabled = new ArrayList<>();
+        List<ClassifiedState> reached = new ArrayList<>();
+        List<Double> cumulative = new ArrayList<>();
+        weights = 0;
+        for (Map.Entry<ClassifiedState, Collection<Transition>> entry : successors.entrySet()) {
+            for (Transition transition : entry.getValue()) {
+                double weight = utilities.getWeightOfTransitions(marking, Collections.singleton(transition));
+                if (weight > 0) {
+                    weights += weight;
+                    enabled.add(transition);
+                    reached.add(entry.getKey());
+                    cumulative.add(weights);
+                }
+            }
+        }
+        if (enabled.isEmpty()) {
+            return false;
+        }
+        double target = random.nextDouble() * weights;
+        int chosen = 0;
+        while (chosen < enabled.size() - 1 && cumulative.get(chosen) <= target) {
+            chosen++;
+        }
+        nextTransition = enabled.get(chosen);
+        nextState = reached.get(chosen);
+        return true;
+    }
+
+    /**
+     * @param marking tangible marking
+     * @return number of each measured token on each measured place, in measure order
+     */
+    private double[] tokenCounts(ClassifiedState marking) {
+        double[] values = new double[places.length * tokens.length];
+        for (int place = 0; place < places.length; place++) {
+            Map<String, Integer> placeTokens = marking.getTokens(places[place]);
+            for (int token = 0; token < tokens.length; token++) {
+                Integer count = placeTokens == null ? null : placeTokens.get(tokens[token]);
+                values[place * tokens.length + token] = count == null ? 0 : count;
+            }
+        }
+        return values;
+    }
+}
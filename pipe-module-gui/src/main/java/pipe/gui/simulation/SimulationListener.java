@@ -0,0 +1,16 @@
+package pipe.gui.simulation;
+
+/**
+ * Listener notified by the {@link GSPNSimulator} every time a batch completes
+ */
+public interface SimulationListener {
+
+    /**
+     * Called on the thread running the simulator after a batch has been added to the estimates
+     *
+     * @param batches           number of batches completed
+     * @param relativeHalfWidth largest relative half width of the confidence intervals,
+     *                          infinite until there are enough batches to estimate it
+     */
+    void batchCompleted(int batches, double relativeHalfWidth);
+}
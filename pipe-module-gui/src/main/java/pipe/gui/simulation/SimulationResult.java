@@ -0,0 +1,99 @@
+package pipe.gui.simulation;
+
+import java.util.Map;
+
+/**
+ * Steady state measures of a net estimated by simulation
+ */
+public final class SimulationResult {
+
+    /**
+     * Place id to token id to estimated average number of tokens
+     */
+    private final Map<String, Map<String, Estimate>> averageTokens;
+
+    /**
+     * Timed transition id to estimated throughput
+     */
+    private final Map<String, Estimate> throughputs;
+
+    /**
+     * Number of batches the estimates are based on
+     */
+    private final int batches;
+
+    /**
+     * Number of replications started
+     */
+    private final int replications;
+
+    /**
+     * True if every confidence interval reached the target precision
+     */
+    private final boolean converged;
+
+    /**
+     * Wall clock time taken
+     */
+    private final long elapsedMillis;
+
+    /**
+     * @param averageTokens place id to token id to estimated average number of tokens
+     * @param throughputs   timed transition id to estimated throughput
+     * @param batches       number of batches the estimates are based on
+     * @param replications  number of replications started
+     * @param converged     true if every confidence interval reached the target precision
+     * @param elapsedMillis wall clock time taken
+     */
+    public SimulationResult(Map<String, Map<String, Estimate>> averageTokens, Map<String, Estimate> throughputs,
+                            int batches, int replications, boolean converged, long elapsedMillis) {
+        this.averageTokens = averageTokens;
+        this.throughputs = throughputs;
+        this.batches = batches;
+        this.replications = replications;
+        this.converged = converged;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return place id to token id to estimated average number of tokens
+     */
+    public Map<String, Map<String, Estimate>> getAverageTokens() {
+        return averageTokens;
+    }
+
+    /**
+     * @return timed transition id to estimated throughput
+     */
+    public Map<String, Estimate> getThroughputs() {
+        return throughputs;
+    }
+
+    /**
+     * @return number of batches the estimates are based on
+     */
+    public int getBatches() {
+        return batches;
+    }
+
+    /**
+     * @return number of replications started
+     */
+    public int getReplications() {
+        return replications;
+    }
+
+    /**
+     * @return true if every confidence interval reached the target precision
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * @return wall clock time taken
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,233 @@
+package pipe.gui.simulation;
+
+/**
+ * Immutable settings of a {@link GSPNSimulator} run
+ */
+public final class SimulationSettings {
+
+    /**
+     * Default relative half width of the confidence intervals to stop at
+     */
+    public static final double DEFAULT_PRECISION = 0.05;
+
+    /**
+     * Default confidence level of the intervals
+     */
+    public static final double DEFAULT_CONFIDENCE = 0.95;
+
+    /**
+     * Default simulated time discarded at the start of each replication
+     */
+    public static final double DEFAULT_WARMUP_TIME = 100;
+
+    /**
+     * Default simulated time of a batch
+     */
+    public static final double DEFAULT_BATCH_TIME = 100;
+
+    /**
+     * Default number of batches simulated by each replication
+     */
+    public static final int DEFAULT_BATCHES_PER_REPLICATION = 10;
+
+    /**
+     * Default number of batches collected before the precision is checked
+     */
+    public static final int DEFAULT_MIN_BATCHES = 30;
+
+    /**
+     * Default maximum number of batches
+     */
+    public static final int DEFAULT_MAX_BATCHES = 100000;
+
+    /**
+     * Default maximum wall clock time
+     */
+    public static final long DEFAULT_MAX_MILLIS = 10 * 60 * 1000;
+
+    /**
+     * Relative half width of the confidence intervals to stop at
+     */
+    private final double precision;
+
+    /**
+     * Confidence level of the intervals
+     */
+    private final double confidence;
+
+    /**
+     * Simulated time discarded at the start of each replication
+     */
+    private final double warmupTime;
+
+    /**
+     * Simulated time of a batch
+     */
+    private final double batchTime;
+
+    /**
+     * Number of batches simulated by each replication
+     */
+    private final int batchesPerReplication;
+
+    /**
+     * Number of batches collected before the precision is checked
+     */
+    private final int minBatches;
+
+    /**
+     * Maximum number of batches
+     */
+    private final int maxBatches;
+
+    /**
+     * Maximum wall clock time
+     */
+    private final long maxMillis;
+
+    /**
+     * Number of replications simulated at once
+     */
+    private final int threads;
+
+    /**
+     * Seed of the first replication, replication i is seeded with seed + i
+     */
+    private final long seed;
+
+    /**
+     * Settings with the default run length
+     *
+     * @param precision relative half width of the confidence intervals to stop at
+     * @param threads   number of replications simulated at once
+     * @param seed      seed of the first replication
+     */
+    public SimulationSettings(double precision, int threads, long seed) {
+        this(precision, DEFAULT_CONFIDENCE, DEFAULT_WARMUP_TIME, DEFAULT_BATCH_TIME, DEFAULT_BATCHES_PER_REPLICATION,
+                DEFAULT_MIN_BATCHES, DEFAULT_MAX_BATCHES, DEFAULT_MAX_MILLIS, threads, seed);
+    }
+
+    /**
+     * @param precision             relative half width of the confidence intervals to stop at, in (0, 1)
+     * @param confidence            confidence level of the intervals, in (0, 1)
+     * @param warmupTime            simulated time discarded at the start of each replication
+     * @param batchTime             simulated time of a batch
+     * @param batchesPerReplication number of batches simulated by each replication
+     * @param minBatches            number of batches collected before the precision is checked, at least two
+     * @param maxBatches            maximum number of batches
+     * @param maxMillis             maximum wall clock time
+     * @param threads               number of replications simulated at once
+     * @param seed                  seed of the first replication
+     */
+    public SimulationSettings(double precision, double confidence, double warmupTime, double batchTime,
+                              int batchesPerReplication, int minBatches, int maxBatches, long maxMillis, int threads,
+                              long seed) {
+        if (precision <= 0 || precision >= 1) {
+            throw new IllegalArgumentException("Precision must be between 0 and 1");
+        }
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("Confidence must be between 0 and 1");
+        }
+        if (warmupTime < 0 || Double.isNaN(warmupTime) || Double.isInfinite(warmupTime)) {
+            throw new IllegalArgumentException("Warm up time must be a non negative number");
+        }
+        if (batchTime <= 0 || Double.isNaN(batchTime) || Double.isInfinite(batchTime)) {
+            throw new IllegalArgumentException("Batch time must be positive");
+        }
+        if (batchesPerReplication < 1) {
+            throw new IllegalArgumentException("Batches per replication must be at least one");
+        }
+        if (minBatches < 2) {
+            throw new IllegalArgumentException("Minimum batches must be at least two");
+        }
+        if (maxBatches < minBatches) {
+            throw new IllegalArgumentException("Maximum batches must be at least the minimum batches");
+        }
+        if (maxMillis < 1) {
+            throw new IllegalArgumentException("Maximum time must be positive");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be at least one");
+        }
+        this.precision = precision;
+        this.confidence = confidence;
+        this.warmupTime = warmupTime;
+        this.batchTime = batchTime;
+        this.batchesPerReplication = batchesPerReplication;
+        this.minBatches = minBatches;
+        this.maxBatches = maxBatches;
+        this.maxMillis = maxMillis;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    /**
+     * @return relative half width of the confidence intervals to stop at
+     */
+    public double getPrecision() {
+        return precision;
+    }
+
+    /**
+     * @return confidence level of the intervals
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * @return simulated time discarded at the start of each replication
+     */
+    public double getWarmupTime() {
+        return warmupTime;
+    }
+
+    /**
+     * @return simulated time of a batch
+     */
+    public double getBatchTime() {
+        return batchTime;
+    }
+
+    /**
+     * @return number of batches simulated by each replication
+     */
+    public int getBatchesPerReplication() {
+        return batchesPerReplication;
+    }
+
+    /**
+     * @return number of batches collected before the precision is checked
+     */
+    public int getMinBatches() {
+        return minBatches;
+    }
+
+    /**
+     * @return maximum number of batches
+     */
+    public int getMaxBatches() {
+        return maxBatches;
+    }
+
+    /**
+     * @return maximum wall clock time
+     */
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    /**
+     * @return number of replications simulated at once
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return seed of the first replication
+     */
+    public long getSeed() {
+        return seed;
+    }
+}
@@ -0,0 +1,498 @@
+package pipe.gui.statespace;
+
+import pipe.reachability.algorithm.*;
+import uk.ac.imperial.io.StateProcessor;
+import uk.ac.imperial.pipe.exceptions.InvalidRateException;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Breadth first state space explorer which expands the frontier in batches on a work stealing
+ * pool, sizing the work from the observed cost of expanding a state.
+ * <p>
+ * Each batch of frontier states is split recursively into chunks which idle workers steal
+ * from busy ones, so wide frontiers keep every core busy. The time spent expanding each state
+ * is measured and smoothed; the chunk size is chosen so that a chunk takes roughly
+ * {@link #TARGET_CHUNK_NANOS} and the batch size so that every worker has several chunks to
+ * steal. Cheap states therefore get large chunks and few synchronisation points, expensive
+ * ones small chunks and good balance.
+ * </p>
+ * <p>
+ * Successors are computed in parallel but numbered and written sequentially in frontier
+ * order, so state ids do not depend on the number of threads. Explored states are kept as
+ * packed markings in a {@link CompactStateIndex} and the frontier as a queue of their ids.
+ * </p>
+ */
+public class AdaptiveStateSpaceExplorer implements StateSpaceExplorer {
+
+    /**
+     * Aimed for time to expand a chunk of states
+     */
+    private static final long TARGET_CHUNK_NANOS = 500000;
+
+    /**
+     * Number of chunks per worker in each batch, giving idle workers something to steal
+     */
+    private static final int CHUNKS_PER_THREAD = 8;
+
+    /**
+     * Chunk size used until the cost of a state has been measured
+     */
+    private static final int INITIAL_CHUNK_SIZE = 8;
+
+    /**
+     * Largest chunk size
+     */
+    private static final int MAX_CHUNK_SIZE = 1024;
+
+    /**
+     * Largest batch size
+     */
+    private static final int MAX_BATCH_SIZE = 1 << 16;
+
+    /**
+     * Weight of the latest batch in the smoothed cost per state
+     */
+    private static final double SMOOTHING = 0.3;
+
+    /**
+     * Explorer utilities
+     */
+    private final ExplorerUtilities explorerUtilities;
+
+    /**
+     * Vanishing explorer
+     */
+    private final VanishingExplorer vanishingExplorer;
+
+    /**
+     * Processor the explored states and transitions are written to
+     */
+    private final StateProcessor processor;
+
+    /**
+     * Number of worker threads
+     */
+    private final int threads;
+
+    /**
+     * Every state given an id so far
+     */
+    private CompactStateIndex explored = new CompactStateIndex();
+
+    /**
+     * Ids of the states whose successors are still to be explored
+     */
+    private final IntQueue frontier = new IntQueue();
+
+    /**
+     * Number of transitions written so far
+     */
+    private long processedTransitions = 0;
+
+    /**
+     * True once {@link #continueFrom(CompactStateIndex, int[], long)} has been called
+     */
+    private boolean continued = false;
+
+    /**
+     * Time each worker thread has spent expanding states, by thread id
+     */
+    private final ConcurrentMap<Long, AtomicLong> busyNanos = new ConcurrentHashMap<>();
+
+    /**
+     * Total time spent in parallel expansion
+     */
+    private long expandNanos = 0;
+
+    /**
+     * Smoothed time to expand a state, zero until measured
+     */
+    private double nanosPerState = 0;
+
+    /**
+     * Current number of states per chunk
+     */
+    private int chunkSize = INITIAL_CHUNK_SIZE;
+
+    /**
+     * Current number of frontier states per batch
+     */
+    private int batchSize;
+
+    /**
+     * Number of batches expanded
+     */
+    private int batches = 0;
+
+    /**
+     * Number of chunks stolen
+     */
+    private long steals = 0;
+
+    /**
+     * @param explorerUtilities explorer utilities
+     * @param vanishingExplorer vanishing explorer
+     * @param processor         processor to write the results to
+     * @param threads           number of worker threads
+     */
+    public AdaptiveStateSpaceExplorer(ExplorerUtilities explorerUtilities, VanishingExplorer vanishingExplorer,
+                                      StateProcessor processor, int threads) {
+        this.explorerUtilities = explorerUtilities;
+        this.vanishingExplorer = vanishingExplorer;
+        this.processor = processor;
+        this.threads = threads;
+        batchSize = threads * INITIAL_CHUNK_SIZE * CHUNKS_PER_THREAD;
+    }
+
+    /**
+     * Continues a previous exploration rather than starting from the initial state
+     *
+     * @param states      every state explored so far, numbered by their ids
+     * @param frontierIds ids of the states still to be expanded, in order
+     * @param transitions number of transitions already written
+     */
+    protected void continueFrom(CompactStateIndex states, int[] frontierIds, long transitions) {
+        explored = states;
+        frontier.clear();
+        for (int id : frontierIds) {
+            frontier.add(id);
+        }
+        processedTransitions = transitions;
+        continued = true;
+    }
+
+    /**
+     * @return number of states given an id so far
+     */
+    protected int getStateCount() {
+        return explored.size();
+    }
+
+    /**
+     * @return ids of the states still to be expanded, in order
+     */
+    protected int[] getFrontierIds() {
+        return frontier.toArray();
+    }
+
+    /**
+     * Called after every batch once its states and transitions have been written
+     *
+     * @throws IOException if the subclass fails to record its progress
+     */
+    protected void batchCompleted() throws IOException {
+        // No action by default
+    }
+
+    /**
+     * Called between batches when the exploring thread has been interrupted, before the
+     * {@link InterruptedException} is thrown
+     *
+     * @throws IOException if the subclass fails to record its progress
+     */
+    protected void beforeInterrupt() throws IOException {
+        // No action by default
+    }
+
+    /**
+     * Explores the state space, or continues exploring it. The exploring thread is checked
+     * for interrupts between batches.
+     *
+     * @param initialState initial state, ignored when continuing
+     * @return state space explorer results
+     * @throws TimelessTrapException unable to exit cyclic vanishing state
+     * @throws InterruptedException  thread interrupted
+     * @throws ExecutionException    task aborted due to exception
+     * @throws InvalidRateException  functional rate expression invalid
+     * @throws IOException           if a subclass fails to record its progress
+     */
+    @Override
+    public StateSpaceExplorerResults generate(ClassifiedState initialState)
+            throws TimelessTrapException, InterruptedException, ExecutionException, InvalidRateException,
+            IOException {
+        if (!continued) {
+            explore(initialState);
+        }
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        try {
+            while (!frontier.isEmpty() && explorerUtilities.canExploreMore(explored.size())) {
+                if (Thread.interrupted()) {
+                    beforeInterrupt();
+                    throw new InterruptedException("State space exploration interrupted");
+                }
+                int[] batch = new int[Math.min(frontier.size(), batchSize)];
+                List<ClassifiedState> states = new ArrayList<>(batch.length);
+                for (int i = 0; i < batch.length; i++) {
+                    batch[i] = frontier.poll();
+                    states.add(explored.get(batch[i]));
+                }
+                List<Map<ClassifiedState, Double>> successors = expand(states, pool);
+                for (int i = 0; i < batch.length; i++) {
+                    write(batch[i], successors.get(i));
+                }
+                batchCompleted();
+            }
+        } finally {
+            if (pool != null) {
+                steals += pool.getStealCount();
+                pool.shutdownNow();
+            }
+        }
+        return new StateSpaceExplorerResults((int) processedTransitions, explored.size());
+    }
+
+    /**
+     * @return parameters chosen by the scheduler and the utilisation of each worker so far
+     */
+    public SchedulerStatistics getStatistics() {
+        List<Long> ids = new ArrayList<>(busyNanos.keySet());
+        Collections.sort(ids);
+        double[] utilisation = new double[ids.size()];
+        for (int i = 0; i < utilisation.length; i++) {
+            utilisation[i] = expandNanos == 0 ? 0 : busyNanos.get(ids.get(i)).get() / (double) expandNanos;
+        }
+        return new SchedulerStatistics(threads, chunkSize, batchSize, batches, nanosPerState, steals, utilisation);
+    }
+
+    /**
+     * Numbers the initial state, or the tangible states it leads to if it is vanishing, and
+     * adds them to the frontier
+     *
+     * @param initialState initial state
+     * @throws TimelessTrapException unable to exit cyclic vanishing state
+     * @throws InvalidRateException  functional rate expression invalid
+     */
+    private void explore(ClassifiedState initialState) throws TimelessTrapException, InvalidRateException {
+        if (initialState.isTangible()) {
+            register(initialState);
+        } else {
+            for (StateRateRecord record : vanishingExplorer.explore(initialState, 1.0)) {
+                register(record.getState());
+            }
+        }
+    }
+
+    /**
+     * Computes the successors of the batch and retunes the chunk and batch sizes from the
+     * time it took
+     *
+     * @param states states to compute the successors of
+     * @param pool   work stealing pool, null to compute them on this thread
+     * @return tangible successors of each state with their rates, in batch order
+     * @throws TimelessTrapException unable to exit cyclic vanishing state
+     * @throws InvalidRateException  functional rate expression invalid
+     */
+    private List<Map<ClassifiedState, Double>> expand(List<ClassifiedState> states, ForkJoinPool pool)
+            throws TimelessTrapException, InvalidRateException {
+        @SuppressWarnings("unchecked")
+        Map<ClassifiedState, Double>[] results = new Map[states.size()];
+        AtomicLong batchBusy = new AtomicLong();
+        long start = System.nanoTime();
+        ExpandTask task = new ExpandTask(states, results, 0, states.size(), chunkSize, batchBusy);
+        try {
+            if (pool == null) {
+                task.compute();
+            } else {
+                pool.invoke(task);
+            }
+        } catch (SuccessorException e) {
+            if (e.getCause() instanceof TimelessTrapException) {
+                throw (TimelessTrapException) e.getCause();
+            }
+            throw (InvalidRateException) e.getCause();
+        }
+        expandNanos += System.nanoTime() - start;
+        adapt(states.size(), batchBusy.get());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Updates the smoothed cost per state and derives the chunk and batch sizes from it
+     *
+     * @param expanded number of states in the batch
+     * @param busy     total worker time spent expanding them
+     */
+    private void adapt(int expanded, long busy) {
+        batches++;
+        double measured = busy / (double) expanded;
+        nanosPerState = nanosPerState == 0 ? measured : SMOOTHING * measured + (1 - SMOOTHING) * nanosPerState;
+        chunkSize = (int) Math.max(1, Math.min(MAX_CHUNK_SIZE, TARGET_CHUNK_NANOS / Math.max(1, nanosPerState)));
+        batchSize = (int) Math.max(threads, Math.min(MAX_BATCH_SIZE, (long) threads * chunkSize * CHUNKS_PER_THREAD));
+    }
+
+    /**
+     * @param state tangible state
+     * @return tangible successors of the state with their summed rates, vanishing successors
+     * are explored through to the tangible states they lead to
+     * @throws TimelessTrapException unable to exit cyclic vanishing state
+     * @throws InvalidRateException  functional rate expression invalid
+     */
+    private Map<ClassifiedState, Double> tangibleSuccessors(ClassifiedState state)
+            throws TimelessTrapException, InvalidRateException {
+        Map<ClassifiedState, Double> rates = new LinkedHashMap<>();
+        for (ClassifiedState successor : explorerUtilities.getSuccessors(state)) {
+            double rate = explorerUtilities.rate(state, successor);
+            if (successor.isTangible()) {
+                add(rates, successor, rate);
+            } else {
+                for (StateRateRecord record : vanishingExplorer.explore(successor, rate)) {
+                    add(rates, record.getState(), record.getRate());
+                }
+            }
+        }
+        return rates;
+    }
+
+    /**
+     * @param rates map to add the rate to
+     * @param state successor state
+     * @param rate  rate to add to any existing rate of the successor
+     */
+    private static void add(Map<ClassifiedState, Double> rates, ClassifiedState state, double rate) {
+        Double previous = rates.get(state);
+        rates.put(state, previous == null ? rate : previous + rate);
+    }
+
+    /**
+     * Numbers any new successors and writes the transitions of the state
+     *
+     * @param state      id of the explored state
+     * @param successors tangible successors with their rates
+     */
+    private void write(int state, Map<ClassifiedState, Double> successors) {
+        Map<Integer, Double> successorRates = new HashMap<>();
+        for (Map.Entry<ClassifiedState, Double> entry : successors.entrySet()) {
+            int id = register(entry.getKey());
+            Double previous = successorRates.get(id);
+            successorRates.put(id, previous == null ? entry.getValue() : previous + entry.getValue());
+        }
+        processor.processTransitions(state, successorRates);
+        processedTransitions += successorRates.size();
+    }
+
+    /**
+     * Gives a state seen for the first time the next id, writes it and adds it to the frontier
+     *
+     * @param state state reached
+     * @return id of the state
+     */
+    private int register(ClassifiedState state) {
+        int count = explored.size();
+        int id = explored.add(state);
+        if (id == count) {
+            processor.processState(state, id);
+            frontier.add(id);
+        }
+        return id;
+    }
+
+    /**
+     * @param nanos time the current thread spent expanding states
+     */
+    private void recordBusy(long nanos) {
+        Long id = Thread.currentThread().getId();
+        AtomicLong busy = busyNanos.get(id);
+        if (busy == null) {
+            busyNanos.putIfAbsent(id, new AtomicLong());
+            busy = busyNanos.get(id);
+        }
+        busy.addAndGet(nanos);
+    }
+
+    /**
+     * Expands a range of a batch, splitting it in half until it is no larger than a chunk so
+     * that idle workers can steal the halves
+     */
+    private final class ExpandTask extends RecursiveAction {
+        /**
+         * States of the batch
+         */
+        private final List<ClassifiedState> states;
+
+        /**
+         * Successors of each state of the batch
+         */
+        private final Map<ClassifiedState, Double>[] results;
+
+        /**
+         * First state of the range
+         */
+        private final int from;
+
+        /**
+         * End of the range, exclusive
+         */
+        private final int to;
+
+        /**
+         * Largest range expanded without splitting
+         */
+        private final int chunk;
+
+        /**
+         * Total worker time spent on the batch
+         */
+        private final AtomicLong batchBusy;
+
+        /**
+         * @param states    states of the batch
+         * @param results   successors of each state of the batch
+         * @param from      first state of the range
+         * @param to        end of the range, exclusive
+         * @param chunk     largest range expanded without splitting
+         * @param batchBusy total worker time spent on the batch
+         */
+        private ExpandTask(List<ClassifiedState> states, Map<ClassifiedState, Double>[] results, int from, int to,
+                           int chunk, AtomicLong batchBusy) {
+            this.states = states;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.batchBusy = batchBusy;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > chunk) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ExpandTask(states, results, from, middle, chunk, batchBusy),
+                        new ExpandTask(states, results, middle, to, chunk, batchBusy));
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                for (int i = from; i < to; i++) {
+                    results[i] = tangibleSuccessors(states.get(i));
+                }
+            } catch (TimelessTrapException | InvalidRateException e) {
+                throw new SuccessorException(e);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                batchBusy.addAndGet(elapsed);
+                recordBusy(elapsed);
+            }
+        }
+    }
+
+    /**
+     * Carries the checked exceptions of successor computation out of the pool
+     */
+    private static final class SuccessorException extends RuntimeException {
+        /**
+         * @param cause timeless trap or invalid rate
+         */
+        private SuccessorException(Exception cause) {
+            super(cause);
+        }
+    }
+}
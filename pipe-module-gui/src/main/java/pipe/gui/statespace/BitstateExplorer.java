@@ -0,0 +1,478 @@
+package pipe.gui.statespace;
+
+import pipe.reachability.algorithm.ExplorerUtilities;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.util.*;
+
+/**
+ * Memory bounded exploration for quickly hunting deadlocks and timeless traps before
+ * committing to a full exploration.
+ * <p>
+ * Visited markings are recorded in a {@link BitstateTable} of a fixed size rather than
+ * stored, so a few hundred megabytes are enough for billions of states. The price is that a
+ * new marking is now and then taken to be already visited and its successors are missed.
+ * The chance of this at each step is known from the fraction of bits set, from which the
+ * number of missed states and the coverage of the exploration are estimated.
+ * </p>
+ * <p>
+ * Markings waiting to be expanded are kept encoded on a stack, so the search is depth first
+ * and the stack stays small for most nets. Once the stack reaches its limit further new
+ * markings are skipped and the exploration is reported as incomplete.
+ * </p>
+ * <p>
+ * Vanishing markings are not recorded one by one. Each time a vanishing marking is first
+ * entered its vanishing closure is searched exactly, and a closure containing a marking from
+ * which no tangible marking can be reached is reported as a timeless trap rather than
+ * stopping the search with a {@link pipe.reachability.algorithm.TimelessTrapException}.
+ * </p>
+ */
+public final class BitstateExplorer {
+
+    /**
+     * Default number of bits set for each marking
+     */
+    public static final int DEFAULT_HASHES = 3;
+
+    /**
+     * Default limit of the stack of markings to expand, in bytes
+     */
+    public static final int DEFAULT_MAX_STACK_BYTES = 64 << 20;
+
+    /**
+     * Most vanishing markings in a single closure before it is taken to be a timeless trap
+     */
+    public static final int MAX_VANISHING_CLOSURE = 1 << 16;
+
+    /**
+     * Number of states expanded between checks for interrupts
+     */
+    private static final int INTERRUPT_CHECK_INTERVAL = 1 << 12;
+
+    /**
+     * Utilities for finding successors
+     */
+    private final ExplorerUtilities explorerUtilities;
+
+    /**
+     * Visited markings
+     */
+    private final BitstateTable visited;
+
+    /**
+     * Limit of the stack of markings to expand, in bytes
+     */
+    private final int maxStackBytes;
+
+    /**
+     * Most tangible states to visit
+     */
+    private final long maxStates;
+
+    /**
+     * Codec of the net's markings, set when exploration starts
+     */
+    private MarkingCodec codec;
+
+    /**
+     * Buffer each marking is encoded into
+     */
+    private byte[] buffer;
+
+    /**
+     * Encoded markings to expand, each followed by its four byte length
+     */
+    private byte[] stack = new byte[1 << 12];
+
+    /**
+     * Number of bytes used on the stack
+     */
+    private int stackSize = 0;
+
+    /**
+     * Tangible states visited
+     */
+    private long states = 0;
+
+    /**
+     * Vanishing states visited
+     */
+    private long vanishingStates = 0;
+
+    /**
+     * Successors examined
+     */
+    private long transitions = 0;
+
+    /**
+     * Estimated number of new states wrongly taken to be visited
+     */
+    private double missedStates = 0;
+
+    /**
+     * New tangible states left unexpanded because the stack was full
+     */
+    private long skippedStates = 0;
+
+    /**
+     * Deadlocked states found
+     */
+    private long deadlocks = 0;
+
+    /**
+     * First deadlocked state found, null if none
+     */
+    private ClassifiedState deadlock = null;
+
+    /**
+     * Timeless traps found
+     */
+    private long timelessTraps = 0;
+
+    /**
+     * A vanishing state of the first timeless trap found, null if none
+     */
+    private ClassifiedState timelessTrap = null;
+
+    /**
+     * @param explorerUtilities utilities for finding successors
+     * @param bits              size of the table of visited markings in bits, rounded down to a power of two
+     * @param hashes            number of bits set for each marking
+     * @param maxStackBytes     limit of the stack of markings to expand, in bytes
+     * @param maxStates         most tangible states to visit
+     */
+    public BitstateExplorer(ExplorerUtilities explorerUtilities, long bits, int hashes, int maxStackBytes,
+                            long maxStates) {
+        this.explorerUtilities = explorerUtilities;
+        this.visited = new BitstateTable(bits, hashes);
+        this.maxStackBytes = maxStackBytes;
+        this.maxStates = maxStates;
+    }
+
+    /**
+     * Explores the state space from the current state of the explorer utilities
+     *
+     * @return what the exploration found and how much of the state space it is likely to have covered
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public Results explore() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        ClassifiedState initial = explorerUtilities.getCurrentState();
+        codec = MarkingCodec.fromState(initial);
+        buffer = new byte[codec.getMaxEncodedSize()];
+        boolean stopped = false;
+        long expanded = 0;
+        visit(initial);
+        while (stackSize > 0) {
+            if (states >= maxStates) {
+                stopped = true;
+                break;
+            }
+            if ((++expanded & (INTERRUPT_CHECK_INTERVAL - 1)) == 0 && Thread.interrupted()) {
+                throw new InterruptedException("Bitstate exploration stopped");
+            }
+            ClassifiedState state = pop();
+            Collection<ClassifiedState> successors = explorerUtilities.getSuccessors(state);
+            transitions += successors.size();
+            if (successors.isEmpty()) {
+                deadlocked(state);
+            }
+            for (ClassifiedState successor : successors) {
+                visit(successor);
+            }
+        }
+        return new Results(states, vanishingStates, transitions, missedStates, skippedStates, stopped,
+                deadlocks, deadlock, timelessTraps, timelessTrap, visited.getBits(), visited.getHashes(),
+                visited.fillRatio(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Pushes a tangible state that has not been visited, or searches the closure of a vanishing
+     * state entered for the first time. A new tangible state that does not fit on the stack is
+     * recorded as visited but skipped, so it is counted as skipped once however often it is
+     * reached.
+     *
+     * @param state state reached
+     */
+    private void visit(ClassifiedState state) {
+        int length = codec.encode(state, buffer);
+        if (!record(length, state.isTangible())) {
+            return;
+        }
+        if (state.isTangible()) {
+            if (stackSize + length + 4 > maxStackBytes) {
+                skippedStates++;
+            } else {
+                push(length);
+            }
+        } else {
+            exploreVanishing(state);
+        }
+    }
+
+    /**
+     * @param length   length of the encoded marking in the buffer
+     * @param tangible true if the marking is tangible
+     * @return true if the marking had not been visited
+     */
+    private boolean record(int length, boolean tangible) {
+        double falsePositive = visited.falsePositiveProbability();
+        if (!visited.add(buffer, length)) {
+            return false;
+        }
+        if (tangible) {
+            states++;
+        } else {
+            vanishingStates++;
+        }
+        if (falsePositive > 0) {
+            missedStates += falsePositive < 1 ? falsePositive / (1 - falsePositive) : Double.POSITIVE_INFINITY;
+        }
+        return true;
+    }
+
+    /**
+     * Searches every vanishing state reachable from a vanishing state through vanishing states,
+     * visits the tangible states they lead to and records the closure if it has no way out
+     *
+     * @param entry vanishing state entered for the first time
+     */
+    private void exploreVanishing(ClassifiedState entry) {
+        Map<ClassifiedState, Integer> index = new HashMap<>();
+        List<ClassifiedState> closure = new ArrayList<>();
+        List<List<Integer>> predecessors = new ArrayList<>();
+        Deque<Integer> exits = new ArrayDeque<>();
+        Set<ClassifiedState> tangible = new HashSet<>();
+        index.put(entry, 0);
+        closure.add(entry);
+        predecessors.add(new ArrayList<Integer>());
+        for (int current = 0; current < closure.size(); current++) {
+            if (closure.size() > MAX_VANISHING_CLOSURE) {
+                trapped(entry);
+                return;
+            }
+            Collection<ClassifiedState> successors = explorerUtilities.getSuccessors(closure.get(current));
+            transitions += successors.size();
+            if (successors.isEmpty()) {
+                deadlocked(closure.get(current));
+                exits.add(current);
+            }
+            for (ClassifiedState successor : successors) {
+                if (successor.isTangible()) {
+                    tangible.add(successor);
+                    exits.add(current);
+                    continue;
+                }
+                Integer id = index.get(successor);
+                if (id == null) {
+                    id = closure.size();
+                    index.put(successor, id);
+                    closure.add(successor);
+                    predecessors.add(new ArrayList<Integer>());
+                }
+                predecessors.get(id).add(current);
+            }
+        }
+
+        boolean[] escapes = new boolean[closure.size()];
+        int escaping = 0;
+        while (!exits.isEmpty()) {
+            int id = exits.poll();
+            if (escapes[id]) {
+                continue;
+            }
+            escapes[id] = true;
+            escaping++;
+            exits.addAll(predecessors.get(id));
+        }
+        if (escaping < closure.size()) {
+            for (int id = 0; id < closure.size(); id++) {
+                if (!escapes[id]) {
+                    trapped(closure.get(id));
+                    break;
+                }
+            }
+        }
+        for (int id = 1; id < closure.size(); id++) {
+            record(codec.encode(closure.get(id), buffer), false);
+        }
+        for (ClassifiedState state : tangible) {
+            visit(state);
+        }
+    }
+
+    /**
+     * @param state state with no successors
+     */
+    private void deadlocked(ClassifiedState state) {
+        if (deadlock == null) {
+            deadlock = state;
+        }
+        deadlocks++;
+    }
+
+    /**
+     * @param state vanishing state from which no tangible state can be reached
+     */
+    private void trapped(ClassifiedState state) {
+        if (timelessTrap == null) {
+            timelessTrap = state;
+        }
+        timelessTraps++;
+    }
+
+    /**
+     * Pushes the marking encoded in the buffer
+     *
+     * @param length length of the encoding
+     */
+    private void push(int length) {
+        if (stackSize + length + 4 > stack.length) {
+            stack = Arrays.copyOf(stack, Math.max(stack.length * 2, stackSize + length + 4));
+        }
+        System.arraycopy(buffer, 0, stack, stackSize, length);
+        stackSize += length;
+        stack[stackSize++] = (byte) (length >>> 24);
+        stack[stackSize++] = (byte) (length >>> 16);
+        stack[stackSize++] = (byte) (length >>> 8);
+        stack[stackSize++] = (byte) length;
+    }
+
+    /**
+     * @return state removed from the top of the stack
+     */
+    private ClassifiedState pop() {
+        int length = (stack[stackSize - 4] & 0xFF) << 24 | (stack[stackSize - 3] & 0xFF) << 16
+                | (stack[stackSize - 2] & 0xFF) << 8 | stack[stackSize - 1] & 0xFF;
+        stackSize -= length + 4;
+        return codec.decode(stack, stackSize);
+    }
+
+    /**
+     * Findings of a bitstate exploration
+     */
+    public static final class Results {
+
+        /**
+         * Tangible states visited
+         */
+        public final long states;
+
+        /**
+         * Vanishing states visited
+         */
+        public final long vanishingStates;
+
+        /**
+         * Successors examined
+         */
+        public final long transitions;
+
+        /**
+         * Estimated number of new states wrongly taken to be visited
+         */
+        public final double missedStates;
+
+        /**
+         * New tangible states left unexpanded because the stack of states to expand was full
+         */
+        public final long skippedStates;
+
+        /**
+         * True if the exploration stopped at the state limit with states left to expand
+         */
+        public final boolean stopped;
+
+        /**
+         * Deadlocked states found
+         */
+        public final long deadlocks;
+
+        /**
+         * First deadlocked state found, null if none
+         */
+        public final ClassifiedState deadlock;
+
+        /**
+         * Timeless traps found
+         */
+        public final long timelessTraps;
+
+        /**
+         * A vanishing state of the first timeless trap found, null if none
+         */
+        public final ClassifiedState timelessTrap;
+
+        /**
+         * Size of the table of visited markings in bits
+         */
+        public final long bits;
+
+        /**
+         * Number of bits set for each marking
+         */
+        public final int hashes;
+
+        /**
+         * Fraction of the table's bits set at the end
+         */
+        public final double fillRatio;
+
+        /**
+         * Time taken in milliseconds
+         */
+        public final long millis;
+
+        /**
+         * @param states          tangible states visited
+         * @param vanishingStates vanishing states visited
+         * @param transitions     successors examined
+         * @param missedStates    estimated number of states missed by hash collisions
+         * @param skippedStates   new tangible states left unexpanded because the stack was full
+         * @param stopped         true if the state limit was reached
+         * @param deadlocks       deadlocked states found
+         * @param deadlock        first deadlocked state found
+         * @param timelessTraps   timeless traps found
+         * @param timelessTrap    a state of the first timeless trap found
+         * @param bits            size of the table in bits
+         * @param hashes          number of bits set for each marking
+         * @param fillRatio       fraction of the bits set
+         * @param millis          time taken
+         */
+        private Results(long states, long vanishingStates, long transitions, double missedStates,
+                        long skippedStates, boolean stopped, long deadlocks, ClassifiedState deadlock,
+                        long timelessTraps, ClassifiedState timelessTrap, long bits, int hashes, double fillRatio,
+                        long millis) {
+            this.states = states;
+            this.vanishingStates = vanishingStates;
+            this.transitions = transitions;
+            this.missedStates = missedStates;
+            this.skippedStates = skippedStates;
+            this.stopped = stopped;
+            this.deadlocks = deadlocks;
+            this.deadlock = deadlock;
+            this.timelessTraps = timelessTraps;
+            this.timelessTrap = timelessTrap;
+            this.bits = bits;
+            this.hashes = hashes;
+            this.fillRatio = fillRatio;
+            this.millis = millis;
+        }
+
+        /**
+         * @return estimated fraction of the reachable states visited, ignoring states skipped
+         * because the stack was full or the state limit was reached
+         */
+        public double getCoverage() {
+            double visited = states + vanishingStates;
+            return visited == 0 ? 1 : visited / (visited + missedStates);
+        }
+
+        /**
+         * @return true if every state was expanded apart from those lost to hash collisions
+         */
+        public boolean isComplete() {
+            return skippedStates == 0 && !stopped;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package pipe.gui.statespace;
+
+/**
+ * Fixed size Bloom filter of encoded markings. A marking is recorded by setting the bits of
+ * its hashes, so a marking never recorded is occasionally reported as seen once enough bits
+ * are set, but the table never grows however many markings are added.
+ * <p>
+ * The hashes are derived from two 64 bit hashes of the encoding by double hashing, which
+ * behaves like independent hash functions for the table sizes used here.
+ * </p>
+ */
+final class BitstateTable {
+
+    /**
+     * Smallest table, in bits
+     */
+    static final long MIN_BITS = 1L << 6;
+
+    /**
+     * Largest table, in bits, the most a single long array can hold
+     */
+    static final long MAX_BITS = 1L << 36;
+
+    /**
+     * Bits of the table
+     */
+    private final long[] words;
+
+    /**
+     * Number of bits minus one, the number of bits is a power of two
+     */
+    private final long mask;
+
+    /**
+     * Number of bits set for each marking
+     */
+    private final int hashes;
+
+    /**
+     * Number of bits set
+     */
+    private long setBits = 0;
+
+    /**
+     * @param bits   requested size in bits, rounded down to a power of two between
+     *               {@link #MIN_BITS} and {@link #MAX_BITS}
+     * @param hashes number of bits set for each marking, at least one
+     */
+    BitstateTable(long bits, int hashes) {
+        if (hashes < 1) {
+            throw new IllegalArgumentException("At least one hash is needed, not " + hashes);
+        }
+        long size = Long.highestOneBit(Math.max(MIN_BITS, Math.min(MAX_BITS, bits)));
+        words = new long[(int) (size >>> 6)];
+        mask = size - 1;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Records a marking
+     *
+     * @param encoding encoded marking
+     * @param length   number of bytes of the encoding
+     * @return true if the marking was new, false if every one of its bits was already set
+     */
+    boolean add(byte[] encoding, int length) {
+        long first = 0xcbf29ce484222325L;
+        long second = 0x9e3779b97f4a7c15L;
+        for (int i = 0; i < length; i++) {
+            first = (first ^ (encoding[i] & 0xFF)) * 0x100000001b3L;
+            second = Long.rotateLeft(second ^ (encoding[i] & 0xFF), 23) * 0xbf58476d1ce4e5b9L;
+        }
+        first = mix(first);
+        second = mix(second ^ length) | 1;
+        boolean added = false;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (first + i * second) & mask;
+            int word = (int) (bit >>> 6);
+            long flag = 1L << bit;
+            if ((words[word] & flag) == 0) {
+                words[word] |= flag;
+                setBits++;
+                added = true;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * @param hash hash to mix
+     * @return hash with every input bit affecting every output bit
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * @return probability that a marking never recorded is reported as seen
+     */
+    double falsePositiveProbability() {
+        return Math.pow(fillRatio(), hashes);
+    }
+
+    /**
+     * @return fraction of the bits set
+     */
+    double fillRatio() {
+        return (double) setBits / (mask + 1);
+    }
+
+    /**
+     * @return size of the table in bits
+     */
+    long getBits() {
+        return mask + 1;
+    }
+
+    /**
+     * @return number of bits set for each marking
+     */
+    int getHashes() {
+        return hashes;
+    }
+}
@@ -0,0 +1,124 @@
+package pipe.gui.statespace;
+
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.VanishingExplorer;
+import uk.ac.imperial.io.StateProcessor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Adaptive explorer which periodically writes a {@link StateSpaceCheckpoint} so that a long
+ * exploration can be continued after a crash or after being stopped.
+ * <p>
+ * Checkpoints are only ever taken between batches, when every state with an id has been
+ * written and every state in the frontier is waiting to be explored. If the exploring thread
+ * is interrupted a final checkpoint is written before the {@link InterruptedException} is
+ * thrown.
+ * </p>
+ * <p>
+ * The explorers in the reachability library keep their explored set and frontier private,
+ * which is why checkpointed exploration uses this explorer rather than wrapping them.
+ * </p>
+ */
+public class CheckpointingStateSpaceExplorer extends AdaptiveStateSpaceExplorer {
+
+    /**
+     * Writer of the binaries, used to take checkpoints
+     */
+    private final MappedStateSpaceWriter writer;
+
+    /**
+     * Key of the net and exploration settings, recorded in every checkpoint
+     */
+    private final String key;
+
+    /**
+     * File the checkpoints are written to
+     */
+    private final Path checkpointPath;
+
+    /**
+     * Minimum time between checkpoints in milliseconds
+     */
+    private final long intervalMillis;
+
+    /**
+     * Time the last checkpoint was written
+     */
+    private long lastCheckpoint = System.currentTimeMillis();
+
+    /**
+     * @param explorerUtilities explorer utilities
+     * @param vanishingExplorer vanishing explorer
+     * @param writer            writer of the binaries, used to take checkpoints
+     * @param processor         processor to write the results to, typically the writer
+     * @param threads           number of worker threads
+     * @param key               key of the net and exploration settings, recorded in every checkpoint
+     * @param checkpointPath    file the checkpoints are written to
+     * @param intervalMillis    minimum time between checkpoints in milliseconds
+     */
+    public CheckpointingStateSpaceExplorer(ExplorerUtilities explorerUtilities, VanishingExplorer vanishingExplorer,
+                                           MappedStateSpaceWriter writer, StateProcessor processor, int threads,
+                                           String key, Path checkpointPath, long intervalMillis) {
+        super(explorerUtilities, vanishingExplorer, processor, threads);
+        this.writer = writer;
+        this.key = key;
+        this.checkpointPath = checkpointPath;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Continues from a checkpoint rather than from the initial state
+     *
+     * @param states     every state written before the checkpoint, numbered by their ids
+     * @param checkpoint checkpoint to continue from
+     * @throws IOException if the states do not match the checkpoint
+     */
+    public void restore(CompactStateIndex states, StateSpaceCheckpoint checkpoint) throws IOException {
+        if (states.size() != checkpoint.getNextId()) {
+            throw new IOException("Checkpoint expects " + checkpoint.getNextId() + " states but " + states.size()
+                    + " were written");
+        }
+        int[] frontier = checkpoint.getFrontier();
+        for (int id : frontier) {
+            if (id < 0 || id >= states.size()) {
+                throw new IOException("Frontier state " + id + " was not written before the checkpoint");
+            }
+        }
+        continueFrom(states, frontier, checkpoint.getPosition().transitionCount);
+    }
+
+    /**
+     * Writes a checkpoint if the interval has elapsed since the last one
+     *
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    protected void batchCompleted() throws IOException {
+        long now = System.currentTimeMillis();
+        if (now - lastCheckpoint >= intervalMillis) {
+            checkpoint();
+            lastCheckpoint = now;
+        }
+    }
+
+    /**
+     * Writes a checkpoint to continue from
+     *
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    protected void beforeInterrupt() throws IOException {
+        checkpoint();
+    }
+
+    /**
+     * Flushes the binaries and atomically replaces the checkpoint file
+     *
+     * @throws IOException if the checkpoint cannot be written
+     */
+    private void checkpoint() throws IOException {
+        new StateSpaceCheckpoint(key, writer.checkpoint(), getStateCount(), getFrontierIds()).write(checkpointPath);
+    }
+}
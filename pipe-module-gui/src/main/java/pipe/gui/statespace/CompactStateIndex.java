@@ -0,0 +1,134 @@
+package pipe.gui.statespace;
+
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.util.Arrays;
+
+/**
+ * Set of explored states numbered in the order they were added, stored as packed markings.
+ * <p>
+ * States are held as {@link MarkingCodec} encodings end to end in one byte array and found
+ * through an open addressing table of ids, so hashing and equality work on the packed bytes
+ * and no per state objects are kept. A state of a net with a few dozen places costs tens of
+ * bytes rather than the strings and nested token maps of a {@link ClassifiedState}, which is
+ * only rebuilt by {@link #get(int)} when needed.
+ * </p>
+ */
+public final class CompactStateIndex {
+
+    /**
+     * Marker for an empty table slot
+     */
+    private static final int EMPTY = -1;
+
+    /**
+     * Packed markings in id order
+     */
+    private final PackedMarkings markings = new PackedMarkings();
+
+    /**
+     * Hash of each state by id, so the table can be grown without decoding
+     */
+    private int[] hashes = new int[1 << 8];
+
+    /**
+     * Open addressing table of ids, at most half full
+     */
+    private int[] table = newTable(1 << 9);
+
+    /**
+     * @param capacity number of slots, a power of two
+     * @return empty table
+     */
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    /**
+     * @return number of states
+     */
+    public int size() {
+        return markings.size();
+    }
+
+    /**
+     * @param state state to look for
+     * @return id of the state, -1 if it has not been added
+     */
+    public int indexOf(ClassifiedState state) {
+        if (markings.size() == 0) {
+            return -1;
+        }
+        int length = markings.encode(state);
+        int hash = markings.hashScratch(length);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (hashes[id] == hash && markings.matchesScratch(id, length)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param state state to add
+     * @return id of the state, the next id if it had not already been added
+     */
+    public int add(ClassifiedState state) {
+        int length = markings.encode(state);
+        int hash = markings.hashScratch(length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        for (; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (hashes[id] == hash && markings.matchesScratch(id, length)) {
+                return id;
+            }
+        }
+        int id = markings.appendScratch(length);
+        if (id == hashes.length) {
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        hashes[id] = hash;
+        table[slot] = id;
+        if (2 * markings.size() > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Doubles the table
+     */
+    private void rehash() {
+        int[] grown = newTable(table.length * 2);
+        int mask = grown.length - 1;
+        for (int id = 0; id < markings.size(); id++) {
+            int slot = hashes[id] & mask;
+            while (grown[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            grown[slot] = id;
+        }
+        table = grown;
+    }
+
+    /**
+     * @param id state id
+     * @return state with the id, rebuilt from its packed marking
+     */
+    public ClassifiedState get(int id) {
+        return markings.get(id);
+    }
+
+    /**
+     * @param id state id
+     * @return true if the state is tangible
+     */
+    public boolean isTangible(int id) {
+        return markings.isTangible(id);
+    }
+}
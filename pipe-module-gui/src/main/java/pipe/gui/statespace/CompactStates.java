@@ -0,0 +1,102 @@
+package pipe.gui.statespace;
+
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.util.*;
+
+/**
+ * Read only map of state id to classified state holding the states as packed markings.
+ * <p>
+ * Used for state mappings that have to be held on the heap, such as those read from legacy
+ * Kryo binaries, so that only the packed bytes and the sorted ids are retained. Classified
+ * states are rebuilt whenever they are requested.
+ * </p>
+ */
+public final class CompactStates extends AbstractMap<Integer, ClassifiedState> {
+
+    /**
+     * Packed markings in id order
+     */
+    private final PackedMarkings markings = new PackedMarkings();
+
+    /**
+     * Sorted ids, ids[i] is the id of the marking at position i
+     */
+    private final int[] ids;
+
+    /**
+     * @param states states to pack
+     */
+    public CompactStates(Map<Integer, ClassifiedState> states) {
+        ids = new int[states.size()];
+        int index = 0;
+        for (Integer id : states.keySet()) {
+            ids[index++] = id;
+        }
+        Arrays.sort(ids);
+        for (int id : ids) {
+            markings.append(states.get(id));
+        }
+        markings.trim();
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && Arrays.binarySearch(ids, (Integer) key) >= 0;
+    }
+
+    @Override
+    public ClassifiedState get(Object key) {
+        if (!(key instanceof Integer)) {
+            return null;
+        }
+        int position = Arrays.binarySearch(ids, (Integer) key);
+        return position < 0 ? null : markings.get(position);
+    }
+
+    /**
+     * @return entries decoded lazily in id order
+     */
+    @Override
+    public Set<Entry<Integer, ClassifiedState>> entrySet() {
+        return new AbstractSet<Entry<Integer, ClassifiedState>>() {
+            @Override
+            public Iterator<Entry<Integer, ClassifiedState>> iterator() {
+                return new Iterator<Entry<Integer, ClassifiedState>>() {
+                    private int position = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < ids.length;
+                    }
+
+                    @Override
+                    public Entry<Integer, ClassifiedState> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<Integer, ClassifiedState> entry =
+                                new SimpleImmutableEntry<>(ids[position], markings.get(position));
+                        position++;
+                        return entry;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException("Compact states are read only");
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ids.length;
+            }
+        };
+    }
+}
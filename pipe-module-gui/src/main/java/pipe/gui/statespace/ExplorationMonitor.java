@@ -0,0 +1,162 @@
+package pipe.gui.statespace;
+
+import pipe.reachability.algorithm.ExplorerUtilities;
+import uk.ac.imperial.io.StateProcessor;
+import uk.ac.imperial.pipe.exceptions.InvalidRateException;
+import uk.ac.imperial.pipe.models.petrinet.Transition;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Observes a running exploration so that its progress can be shown and so that it can be
+ * stopped from another thread.
+ * <p>
+ * Progress is counted by wrapping the {@link StateProcessor} the explorer writes to. Every
+ * explorer writes a state when it is first discovered and writes its transitions once it
+ * has been expanded, so the number of states written but not yet expanded is the size of
+ * the frontier regardless of the explorer used.
+ * </p>
+ * <p>
+ * Explorers are stopped by interrupting the exploring thread. Since not every explorer polls
+ * for interrupts, the wrapped {@link ExplorerUtilities} also reports that no more states can
+ * be explored once {@link #cancel()} has been called, which ends the exploration loops of
+ * the library explorers.
+ * </p>
+ */
+public final class ExplorationMonitor {
+
+    /**
+     * Number of states discovered
+     */
+    private final AtomicInteger states = new AtomicInteger();
+
+    /**
+     * Number of states whose successors have been written
+     */
+    private final AtomicInteger expanded = new AtomicInteger();
+
+    /**
+     * Number of transitions written
+     */
+    private final AtomicLong transitions = new AtomicLong();
+
+    /**
+     * Time monitoring started
+     */
+    private final long startMillis = System.currentTimeMillis();
+
+    /**
+     * True once the exploration has been asked to stop
+     */
+    private volatile boolean cancelled = false;
+
+    /**
+     * Asks the exploration to stop as soon as possible
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true if the exploration has been asked to stop
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return progress of the exploration so far
+     */
+    public ExplorationProgress snapshot() {
+        Runtime runtime = Runtime.getRuntime();
+        return new ExplorationProgress(states.get(), expanded.get(), transitions.get(),
+                System.currentTimeMillis() - startMillis, runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * @param processor processor the explorer writes to
+     * @return processor counting everything written before forwarding it
+     */
+    public StateProcessor monitor(final StateProcessor processor) {
+        return new StateProcessor() {
+            @Override
+            public void processTransitions(int state, Map<Integer, Double> successorRates) {
+                processor.processTransitions(state, successorRates);
+                transitions.addAndGet(successorRates.size());
+                expanded.incrementAndGet();
+            }
+
+            @Override
+            public void processState(ClassifiedState state, int id) {
+                processor.processState(state, id);
+                states.incrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * Counts states already written before exploration continued from a checkpoint
+     *
+     * @param explored states written before the checkpoint
+     * @param frontier states among them still to be expanded
+     * @param written  transitions written before the checkpoint
+     */
+    void restored(int explored, int frontier, long written) {
+        states.addAndGet(explored);
+        expanded.addAndGet(explored - frontier);
+        transitions.addAndGet(written);
+    }
+
+    /**
+     * @param utilities explorer utilities
+     * @return explorer utilities which stop the exploration once cancelled
+     */
+    public ExplorerUtilities monitor(final ExplorerUtilities utilities) {
+        return new ExplorerUtilities() {
+            @Override
+            public Map<ClassifiedState, Collection<Transition>> getSuccessorsWithTransitions(ClassifiedState state) {
+                return utilities.getSuccessorsWithTransitions(state);
+            }
+
+            @Override
+            public Collection<ClassifiedState> getSuccessors(ClassifiedState state) {
+                return utilities.getSuccessors(state);
+            }
+
+            @Override
+            public double rate(ClassifiedState state, ClassifiedState successor) throws InvalidRateException {
+                return utilities.rate(state, successor);
+            }
+
+            @Override
+            public ClassifiedState getCurrentState() {
+                return utilities.getCurrentState();
+            }
+
+            @Override
+            public Collection<Transition> getTransitions(ClassifiedState state, ClassifiedState successor) {
+                return utilities.getTransitions(state, successor);
+            }
+
+            @Override
+            public double getWeightOfTransitions(ClassifiedState state, Iterable<Transition> transitions)
+                    throws InvalidRateException {
+                return utilities.getWeightOfTransitions(state, transitions);
+            }
+
+            @Override
+            public Collection<Transition> getAllEnabledTransitions(ClassifiedState state) {
+                return utilities.getAllEnabledTransitions(state);
+            }
+
+            @Override
+            public boolean canExploreMore(int stateCount) {
+                return !cancelled && utilities.canExploreMore(stateCount);
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package pipe.gui.statespace;
+
+/**
+ * Snapshot of the progress of an exploration taken by an {@link ExplorationMonitor}
+ */
+public final class ExplorationProgress {
+
+    /**
+     * Number of states discovered
+     */
+    private final int states;
+
+    /**
+     * Number of states whose successors have been written
+     */
+    private final int expanded;
+
+    /**
+     * Number of transitions written
+     */
+    private final long transitions;
+
+    /**
+     * Time since the exploration started
+     */
+    private final long elapsedMillis;
+
+    /**
+     * Heap in use when the snapshot was taken
+     */
+    private final long usedMemory;
+
+    /**
+     * @param states        number of states discovered
+     * @param expanded      number of states whose successors have been written
+     * @param transitions   number of transitions written
+     * @param elapsedMillis time since the exploration started
+     * @param usedMemory    heap in use in bytes
+     */
+    public ExplorationProgress(int states, int expanded, long transitions, long elapsedMillis, long usedMemory) {
+        this.states = states;
+        this.expanded = expanded;
+        this.transitions = transitions;
+        this.elapsedMillis = elapsedMillis;
+        this.usedMemory = usedMemory;
+    }
+
+    /**
+     * @return number of states discovered
+     */
+    public int getStates() {
+        return states;
+    }
+
+    /**
+     * @return number of states discovered but not yet expanded
+     */
+    public int getFrontier() {
+        return Math.max(0, states - expanded);
+    }
+
+    /**
+     * @return number of transitions written
+     */
+    public long getTransitions() {
+        return transitions;
+    }
+
+    /**
+     * @return time since the exploration started in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return average number of states discovered per second
+     */
+    public double getStatesPerSecond() {
+        return elapsedMillis == 0 ? 0 : states * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * @return heap in use in bytes
+     */
+    public long getUsedMemory() {
+        return usedMemory;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d states, %d in frontier, %d transitions, %.0f states/s, %d MB used", states,
+                getFrontier(), transitions, getStatesPerSecond(), usedMemory / (1024 * 1024));
+    }
+}
@@ -0,0 +1,92 @@
+package pipe.gui.statespace;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Growable ring buffer of primitive ints used as an exploration frontier of state ids
+ */
+final class IntQueue {
+
+    /**
+     * Elements, from head wrapping round to tail
+     */
+    private int[] elements = new int[1 << 8];
+
+    /**
+     * Index of the first element
+     */
+    private int head = 0;
+
+    /**
+     * Number of elements
+     */
+    private int size = 0;
+
+    /**
+     * @return number of elements
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return true if there are no elements
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param value element to add at the tail
+     */
+    void add(int value) {
+        ensureCapacity();
+        elements[(head + size) & (elements.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * @return element removed from the head
+     * @throws NoSuchElementException if the queue is empty
+     */
+    int poll() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Removes every element
+     */
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * @return elements from head to tail
+     */
+    int[] toArray() {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = elements[(head + i) & (elements.length - 1)];
+        }
+        return values;
+    }
+
+    /**
+     * Doubles the buffer if it is full, the length is always a power of two
+     */
+    private void ensureCapacity() {
+        if (size == elements.length) {
+            int[] grown = Arrays.copyOf(toArray(), elements.length * 2);
+            elements = grown;
+            head = 0;
+        }
+    }
+}
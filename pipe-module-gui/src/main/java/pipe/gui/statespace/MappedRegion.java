@@ -0,0 +1,206 @@
+package pipe.gui.statespace;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read only memory mapping of an entire file.
+ * <p>
+ * A single {@link MappedByteBuffer} can address at most 2GB so the file is mapped
+ * as a series of fixed size segments. Values which straddle a segment boundary are
+ * assembled byte by byte, all other reads go straight to the mapped buffer.
+ * </p>
+ * <p>
+ * The segments stay mapped until {@link #close()} is called, or failing that until they are
+ * garbage collected. The region must not be read once it is closed.
+ * </p>
+ */
+final class MappedRegion {
+
+    /**
+     * Log 2 of the segment size
+     */
+    private static final int SEGMENT_BITS = 30;
+
+    /**
+     * Size of each mapped segment in bytes
+     */
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+    /**
+     * Mask to find the offset within a segment
+     */
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /**
+     * Mapped segments of the file, null once closed
+     */
+    private MappedByteBuffer[] segments;
+
+    /**
+     * Size of the file in bytes
+     */
+    private final long size;
+
+    /**
+     * @param segments mapped segments
+     * @param size     size of the file
+     */
+    private MappedRegion(MappedByteBuffer[] segments, long size) {
+        this.segments = segments;
+        this.size = size;
+    }
+
+    /**
+     * Maps the whole file into memory. The channel is closed once mapped, the mapping
+     * remains valid until the region is closed.
+     *
+     * @param path file to map
+     * @return mapped region
+     * @throws IOException if the file cannot be mapped
+     */
+    static MappedRegion map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int count = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+            MappedByteBuffer[] segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+            return new MappedRegion(segments, size);
+        }
+    }
+
+    /**
+     * Unmaps the segments straight away rather than waiting for them to be garbage collected,
+     * so the file can be deleted or rewritten on platforms that lock mapped files. If this JVM
+     * does not allow it the segments are left to the garbage collector.
+     */
+    void close() {
+        MappedByteBuffer[] mapped = segments;
+        segments = null;
+        if (mapped != null) {
+            for (MappedByteBuffer segment : mapped) {
+                unmap(segment);
+            }
+        }
+    }
+
+    /**
+     * Releases the buffer's mapping with the cleaner of the JVM, Unsafe.invokeCleaner on Java 9
+     * and later and the buffer's own cleaner before that
+     *
+     * @param buffer mapped buffer
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Before Java 9, fall through to the buffer's cleaner
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                Method clean = cleaner.getClass().getMethod("clean");
+                clean.setAccessible(true);
+                clean.invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not supported by this JVM, the mapping is released when the buffer is collected
+        }
+    }
+
+    /**
+     * @return size of the mapped file in bytes
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * @param position absolute position in the file
+     * @return byte at position
+     */
+    byte getByte(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK));
+    }
+
+    /**
+     * @param position absolute position in the file
+     * @return big endian int at position
+     */
+    int getInt(long position) {
+        MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_BITS)];
+        int offset = (int) (position & SEGMENT_MASK);
+        if (offset + 4 <= segment.limit()) {
+            return segment.getInt(offset);
+        }
+        return (int) getSlow(position, 4);
+    }
+
+    /**
+     * @param position absolute position in the file
+     * @return big endian long at position
+     */
+    long getLong(long position) {
+        MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_BITS)];
+        int offset = (int) (position & SEGMENT_MASK);
+        if (offset + 8 <= segment.limit()) {
+            return segment.getLong(offset);
+        }
+        return getSlow(position, 8);
+    }
+
+    /**
+     * @param position absolute position in the file
+     * @return big endian double at position
+     */
+    double getDouble(long position) {
+        return Double.longBitsToDouble(getLong(position));
+    }
+
+    /**
+     * Reads a string stored as an int byte length followed by its UTF-8 bytes
+     *
+     * @param position absolute position in the file
+     * @return string at position
+     */
+    String getString(long position) {
+        int length = getInt(position);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = getByte(position + 4 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Assembles a big endian value which straddles a segment boundary
+     *
+     * @param position absolute position in the file
+     * @param bytes    number of bytes in the value
+     * @return value
+     */
+    private long getSlow(long position, int bytes) {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = (value << 8) | (getByte(position + i) & 0xFF);
+        }
+        return value;
+    }
+}
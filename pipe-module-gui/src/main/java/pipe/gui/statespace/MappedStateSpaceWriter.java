@@ -0,0 +1,330 @@
+package pipe.gui.statespace;
+
+import uk.ac.imperial.io.StateProcessor;
+import uk.ac.imperial.state.ClassifiedState;
+import uk.ac.imperial.state.HashedClassifiedState;
+import uk.ac.imperial.state.HashedStateBuilder;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * State processor which streams the explored state space into the memory mapped
+ * store format described in {@link StateSpaceStore}.
+ * <p>
+ * The place and token schema of the states file is taken from the first state processed.
+ * {@link #finish()} must be called once exploration has completed to write the indexes,
+ * otherwise the files are left unreadable. IO errors during exploration are rethrown as an
+ * {@link IllegalStateException} with the {@link IOException} as its cause.
+ * </p>
+ * <p>
+ * {@link #checkpoint()} flushes both files and returns a {@link Position} from which writing
+ * can later be continued with {@link #resume(Path, Path, Position, StateProcessor)}.
+ * </p>
+ */
+public class MappedStateSpaceWriter implements StateProcessor, Closeable {
+
+    /**
+     * Message of the exception wrapping IO errors, since the {@link StateProcessor}
+     * methods cannot throw checked exceptions
+     */
+    public static final String WRITE_ERROR = "Could not write state space binaries";
+
+    /**
+     * Transitions file writer
+     */
+    private final StoreFileWriter transitions;
+
+    /**
+     * States file writer
+     */
+    private final StoreFileWriter states;
+
+    /**
+     * Sorted place names of the schema, null until the first state is processed
+     */
+    private List<String> places;
+
+    /**
+     * Sorted token names of the schema, null until the first state is processed
+     */
+    private List<String> tokens;
+
+    /**
+     * Total number of transitions written
+     */
+    private long transitionCount = 0;
+
+    /**
+     * @param transitionsPath destination of the transitions
+     * @param statesPath      destination of the states
+     * @throws IOException if the files cannot be created
+     */
+    public MappedStateSpaceWriter(Path transitionsPath, Path statesPath) throws IOException {
+        this(new StoreFileWriter(transitionsPath, StateSpaceStore.TRANSITIONS),
+                new StoreFileWriter(statesPath, StateSpaceStore.STATES));
+    }
+
+    /**
+     * @param transitions transitions file writer
+     * @param states      states file writer
+     */
+    private MappedStateSpaceWriter(StoreFileWriter transitions, StoreFileWriter states) {
+        this.transitions = transitions;
+        this.states = states;
+    }
+
+    /**
+     * Reopens a pair of partially written files at a checkpoint. Every state and transition
+     * record before the checkpoint is replayed to the given processor, states first, so that
+     * the caller can rebuild whatever it held in memory when the checkpoint was taken.
+     *
+     * @param transitionsPath destination of the transitions
+     * @param statesPath      destination of the states
+     * @param position        position returned by {@link #checkpoint()}
+     * @param replay          processor the existing records are replayed to
+     * @return writer appending after the checkpoint
+     * @throws IOException if the files cannot be read or reopened
+     */
+    public static MappedStateSpaceWriter resume(Path transitionsPath, Path statesPath, Position position,
+                                                StateProcessor replay) throws IOException {
+        StoreFileWriter statesWriter = StoreFileWriter.resume(statesPath, StateSpaceStore.STATES,
+                position.statesLength);
+        StoreFileWriter transitionsWriter;
+        try {
+            replayStates(statesPath, statesWriter, position, replay);
+            transitionsWriter = StoreFileWriter.resume(transitionsPath, StateSpaceStore.TRANSITIONS,
+                    position.transitionsLength);
+        } catch (IOException | RuntimeException e) {
+            statesWriter.close();
+            throw e;
+        }
+        try {
+            replayTransitions(transitionsPath, transitionsWriter, position, replay);
+        } catch (IOException | RuntimeException e) {
+            statesWriter.close();
+            transitionsWriter.close();
+            throw e;
+        }
+        MappedStateSpaceWriter writer = new MappedStateSpaceWriter(transitionsWriter, statesWriter);
+        writer.transitionCount = position.transitionCount;
+        if (!position.places.isEmpty()) {
+            writer.places = new ArrayList<>(position.places);
+            writer.tokens = new ArrayList<>(position.tokens);
+        }
+        return writer;
+    }
+
+    /**
+     * Restores the index entries of the states before the checkpoint and replays them
+     *
+     * @param path     states file
+     * @param writer   resumed writer
+     * @param position checkpoint position
+     * @param replay   processor to replay the states to
+     * @throws IOException if the file cannot be read
+     */
+    private static void replayStates(Path path, StoreFileWriter writer, Position position, StateProcessor replay)
+            throws IOException {
+        try (DataInputStream input = open(path)) {
+            long offset = StateSpaceStore.HEADER_SIZE;
+            while (offset < position.statesLength) {
+                int id = input.readInt();
+                boolean tangible = input.readByte() != 0;
+                HashedStateBuilder builder = new HashedStateBuilder();
+                for (String place : position.places) {
+                    for (String token : position.tokens) {
+                        builder.placeWithToken(place, token, input.readInt());
+                    }
+                }
+                writer.restoreRecord(id, offset);
+                replay.processState(tangible ? HashedClassifiedState.tangibleState(builder.build()) :
+                        HashedClassifiedState.vanishingState(builder.build()), id);
+                offset += 5 + 4L * position.places.size() * position.tokens.size();
+            }
+        }
+    }
+
+    /**
+     * Restores the index entries of the transitions before the checkpoint and replays them
+     *
+     * @param path     transitions file
+     * @param writer   resumed writer
+     * @param position checkpoint position
+     * @param replay   processor to replay the transitions to
+     * @throws IOException if the file cannot be read
+     */
+    private static void replayTransitions(Path path, StoreFileWriter writer, Position position,
+                                          StateProcessor replay) throws IOException {
+        try (DataInputStream input = open(path)) {
+            long offset = StateSpaceStore.HEADER_SIZE;
+            while (offset < position.transitionsLength) {
+                int state = input.readInt();
+                int count = input.readInt();
+                Map<Integer, Double> successors = new HashMap<>();
+                for (int i = 0; i < count; i++) {
+                    successors.put(input.readInt(), input.readDouble());
+                }
+                writer.restoreRecord(state, offset);
+                replay.processTransitions(state, successors);
+                offset += 8 + (long) StateSpaceStore.SUCCESSOR_SIZE * count;
+            }
+        }
+    }
+
+    /**
+     * @param path store file
+     * @return stream positioned at the first record
+     * @throws IOException if the file cannot be opened
+     */
+    private static DataInputStream open(Path path) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+        input.skipBytes(StateSpaceStore.HEADER_SIZE);
+        return input;
+    }
+
+    /**
+     * Writes the successors of the state with their rates
+     *
+     * @param state          integer id of the state
+     * @param successorRates successor id to rate
+     */
+    @Override
+    public synchronized void processTransitions(int state, Map<Integer, Double> successorRates) {
+        try {
+            DataOutputStream out = transitions.beginRecord(state);
+            out.writeInt(state);
+            out.writeInt(successorRates.size());
+            for (Map.Entry<Integer, Double> entry : successorRates.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeDouble(entry.getValue());
+            }
+            transitionCount += successorRates.size();
+        } catch (IOException e) {
+            throw new IllegalStateException(WRITE_ERROR, e);
+        }
+    }
+
+    /**
+     * Writes the token counts of the state
+     *
+     * @param state classified state
+     * @param id    integer id of the state
+     */
+    @Override
+    public synchronized void processState(ClassifiedState state, int id) {
+        if (places == null) {
+            initialiseSchema(state);
+        }
+        try {
+            DataOutputStream out = states.beginRecord(id);
+            out.writeInt(id);
+            out.writeByte(state.isTangible() ? 1 : 0);
+            for (String place : places) {
+                Map<String, Integer> counts = state.getTokens(place);
+                for (String token : tokens) {
+                    Integer count = counts.get(token);
+                    out.writeInt(count == null ? 0 : count);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(WRITE_ERROR, e);
+        }
+    }
+
+    /**
+     * Takes the places and tokens from the state, all states of a Petri net share them
+     *
+     * @param state first state processed
+     */
+    private void initialiseSchema(ClassifiedState state) {
+        MarkingCodec codec = MarkingCodec.fromState(state);
+        places = new ArrayList<>(codec.getPlaces());
+        tokens = new ArrayList<>(codec.getTokens());
+    }
+
+    /**
+     * Flushes both files so that writing can be resumed from this point
+     *
+     * @return position to resume from
+     * @throws IOException if the files cannot be flushed
+     */
+    public synchronized Position checkpoint() throws IOException {
+        List<String> empty = Collections.emptyList();
+        return new Position(transitions.flush(), states.flush(), transitionCount,
+                places == null ? empty : places, tokens == null ? empty : tokens);
+    }
+
+    /**
+     * Writes the indexes and headers of both files
+     *
+     * @throws IOException if the files cannot be written
+     */
+    public synchronized void finish() throws IOException {
+        List<String> empty = Collections.emptyList();
+        transitions.finish(transitionCount, empty, empty);
+        states.finish(0, places == null ? empty : places, tokens == null ? empty : tokens);
+    }
+
+    /**
+     * Closes the underlying files, if {@link #finish()} has not been called they will not be readable
+     *
+     * @throws IOException if the files cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            transitions.close();
+        } finally {
+            states.close();
+        }
+    }
+
+    /**
+     * Point in a pair of partially written files from which writing can be resumed
+     */
+    public static final class Position {
+        /**
+         * Length of the transitions file
+         */
+        public final long transitionsLength;
+
+        /**
+         * Length of the states file
+         */
+        public final long statesLength;
+
+        /**
+         * Number of transitions written
+         */
+        public final long transitionCount;
+
+        /**
+         * Sorted place names of the states schema, empty if no states have been written
+         */
+        public final List<String> places;
+
+        /**
+         * Sorted token names of the states schema, empty if no states have been written
+         */
+        public final List<String> tokens;
+
+        /**
+         * @param transitionsLength length of the transitions file
+         * @param statesLength      length of the states file
+         * @param transitionCount   number of transitions written
+         * @param places            sorted place names of the states schema
+         * @param tokens            sorted token names of the states schema
+         */
+        public Position(long transitionsLength, long statesLength, long transitionCount, List<String> places,
+                        List<String> tokens) {
+            this.transitionsLength = transitionsLength;
+            this.statesLength = statesLength;
+            this.transitionCount = transitionCount;
+            this.places = Collections.unmodifiableList(new ArrayList<>(places));
+            this.tokens = Collections.unmodifiableList(new ArrayList<>(tokens));
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package pipe.gui.statespace;
+
+import uk.ac.imperial.state.ClassifiedState;
+import uk.ac.imperial.state.HashedClassifiedState;
+import uk.ac.imperial.state.HashedStateBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Read only, memory mapped view of a states file written by {@link MappedStateSpaceWriter}
+ * as a map of state id to the classified state it represents.
+ * <p>
+ * Every state record has the same size so token counts can be read directly with
+ * {@link #getTokenCount(int, int, int)}. Classified states are only built when
+ * requested through the {@link Map} interface.
+ * </p>
+ */
+public final class MappedStates extends AbstractMap<Integer, ClassifiedState> implements Closeable {
+
+    /**
+     * Mapped file
+     */
+    private final MappedRegion region;
+
+    /**
+     * Parsed header
+     */
+    private final StateSpaceStore.Header header;
+
+    /**
+     * Sorted place names
+     */
+    private final List<String> places;
+
+    /**
+     * Sorted token names
+     */
+    private final List<String> tokens;
+
+    /**
+     * Size of a single state record in bytes
+     */
+    private final int recordSize;
+
+    /**
+     * @param region mapped file
+     * @param header parsed header
+     */
+    private MappedStates(MappedRegion region, StateSpaceStore.Header header) {
+        this.region = region;
+        this.header = header;
+        long position = header.schemaOffset;
+        places = new ArrayList<>();
+        position = readNames(position, places);
+        tokens = new ArrayList<>();
+        readNames(position, tokens);
+        recordSize = 5 + 4 * places.size() * tokens.size();
+    }
+
+    /**
+     * @param path states file
+     * @return mapped view of the file
+     * @throws IOException if the file is not a states store
+     */
+    public static MappedStates open(Path path) throws IOException {
+        MappedRegion region = MappedRegion.map(path);
+        return new MappedStates(region, new StateSpaceStore.Header(region, StateSpaceStore.STATES));
+    }
+
+    /**
+     * Unmaps the file, the view must not be used afterwards
+     */
+    @Override
+    public void close() {
+        region.close();
+    }
+
+    /**
+     * @param position start of the names
+     * @param names    list to add the names to
+     * @return position after the names
+     */
+    private long readNames(long position, List<String> names) {
+        int count = region.getInt(position);
+        long current = position + 4;
+        for (int i = 0; i < count; i++) {
+            String name = region.getString(current);
+            names.add(name);
+            current += 4 + region.getInt(current);
+        }
+        return current;
+    }
+
+    /**
+     * @return sorted place names, the place index used by {@link #getTokenCount(int, int, int)}
+     */
+    public List<String> getPlaceNames() {
+        return Collections.unmodifiableList(places);
+    }
+
+    /**
+     * @return sorted token names, the token index used by {@link #getTokenCount(int, int, int)}
+     */
+    public List<String> getTokenNames() {
+        return Collections.unmodifiableList(tokens);
+    }
+
+    /**
+     * @return largest state id + 1
+     */
+    public int getIndexSize() {
+        return header.indexEntries;
+    }
+
+    /**
+     * @param id state id
+     * @return true if there is a state with this id
+     */
+    public boolean hasState(int id) {
+        return offset(id) != StateSpaceStore.NO_RECORD;
+    }
+
+    /**
+     * @param id state id
+     * @return true if the state is tangible
+     */
+    public boolean isTangible(int id) {
+        return region.getByte(checkedOffset(id) + 4) != 0;
+    }
+
+    /**
+     * @param id    state id
+     * @param place index of the place in {@link #getPlaceNames()}
+     * @param token index of the token in {@link #getTokenNames()}
+     * @return number of tokens of the given colour on the place in the state
+     */
+    public int getTokenCount(int id, int place, int token) {
+        return region.getInt(checkedOffset(id) + 5 + 4L * (place * tokens.size() + token));
+    }
+
+    /**
+     * @return number of states
+     */
+    @Override
+    public int size() {
+        return header.records;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && hasState((Integer) key);
+    }
+
+    @Override
+    public ClassifiedState get(Object key) {
+        if (!(key instanceof Integer)) {
+            return null;
+        }
+        long offset = offset((Integer) key);
+        return offset == StateSpaceStore.NO_RECORD ? null : decode(offset);
+    }
+
+    /**
+     * @return entries decoded lazily in file order
+     */
+    @Override
+    public Set<Entry<Integer, ClassifiedState>> entrySet() {
+        return new AbstractSet<Entry<Integer, ClassifiedState>>() {
+            @Override
+            public Iterator<Entry<Integer, ClassifiedState>> iterator() {
+                return new Iterator<Entry<Integer, ClassifiedState>>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < header.records;
+                    }
+
+                    @Override
+                    public Entry<Integer, ClassifiedState> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        long offset = StateSpaceStore.HEADER_SIZE + (long) recordSize * index++;
+                        return new SimpleImmutableEntry<>(region.getInt(offset), decode(offset));
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException("Mapped states are read only");
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return header.records;
+            }
+        };
+    }
+
+    /**
+     * @param id state id
+     * @return offset of the state record, NO_RECORD if there is none
+     */
+    private long offset(int id) {
+        if (id < 0 || id >= header.indexEntries) {
+            return StateSpaceStore.NO_RECORD;
+        }
+        return region.getLong(header.indexOffset + 8L * id);
+    }
+
+    /**
+     * @param id state id
+     * @return offset of the state record
+     * @throws NoSuchElementException if there is no such state
+     */
+    private long checkedOffset(int id) {
+        long offset = offset(id);
+        if (offset == StateSpaceStore.NO_RECORD) {
+            throw new NoSuchElementException("No state with id " + id);
+        }
+        return offset;
+    }
+
+    /**
+     * @param offset start of a state record
+     * @return classified state the record represents
+     */
+    private ClassifiedState decode(long offset) {
+        HashedStateBuilder builder = new HashedStateBuilder();
+        long position = offset + 5;
+        for (String place : places) {
+            for (String token : tokens) {
+                builder.placeWithToken(place, token, region.getInt(position));
+                position += 4;
+            }
+        }
+        if (region.getByte(offset + 4) != 0) {
+            return HashedClassifiedState.tangibleState(builder.build());
+        }
+        return HashedClassifiedState.vanishingState(builder.build());
+    }
+}
@@ -0,0 +1,236 @@
+package pipe.gui.statespace;
+
+import uk.ac.imperial.state.Record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractCollection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Read only, memory mapped view of a transitions file written by {@link MappedStateSpaceWriter}.
+ * <p>
+ * Records are decoded on demand so iterating over the collection, or looking up a single
+ * state via {@link #getRecord(int)}, never materialises the whole state space on the heap.
+ * {@link Cursor} gives access to the successors without creating any objects at all.
+ * </p>
+ */
+public final class MappedTransitions extends AbstractCollection<Record> implements Closeable {
+
+    /**
+     * Mapped file
+     */
+    private final MappedRegion region;
+
+    /**
+     * Parsed header
+     */
+    private final StateSpaceStore.Header header;
+
+    /**
+     * @param region mapped file
+     * @param header parsed header
+     */
+    private MappedTransitions(MappedRegion region, StateSpaceStore.Header header) {
+        this.region = region;
+        this.header = header;
+    }
+
+    /**
+     * @param path transitions file
+     * @return mapped view of the file
+     * @throws IOException if the file is not a transitions store
+     */
+    public static MappedTransitions open(Path path) throws IOException {
+        MappedRegion region = MappedRegion.map(path);
+        return new MappedTransitions(region, new StateSpaceStore.Header(region, StateSpaceStore.TRANSITIONS));
+    }
+
+    /**
+     * Unmaps the file, the view must not be used afterwards
+     */
+    @Override
+    public void close() {
+        region.close();
+    }
+
+    /**
+     * @return number of states with a transitions record
+     */
+    @Override
+    public int size() {
+        return header.records;
+    }
+
+    /**
+     * @return total number of transitions in the state space
+     */
+    public long getTransitionCount() {
+        return header.transitions;
+    }
+
+    /**
+     * @return largest state id + 1
+     */
+    public int getIndexSize() {
+        return header.indexEntries;
+    }
+
+    /**
+     * @param state state id
+     * @return true if there is a record for the state
+     */
+    public boolean hasRecord(int state) {
+        return offset(state) != StateSpaceStore.NO_RECORD;
+    }
+
+    /**
+     * @param state state id
+     * @return number of successors of the state, zero if it has no record
+     */
+    public int getSuccessorCount(int state) {
+        long offset = offset(state);
+        return offset == StateSpaceStore.NO_RECORD ? 0 : region.getInt(offset + 4);
+    }
+
+    /**
+     * @param state state id
+     * @return decoded record for the state, or null if there is none
+     */
+    public Record getRecord(int state) {
+        long offset = offset(state);
+        return offset == StateSpaceStore.NO_RECORD ? null : decode(offset);
+    }
+
+    /**
+     * @return cursor positioned before the first record in file order
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * @return iterator decoding each record in file order
+     */
+    @Override
+    public Iterator<Record> iterator() {
+        final Cursor cursor = cursor();
+        return new Iterator<Record>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public Record next() {
+                if (!cursor.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                cursor.next();
+                return decode(cursor.position);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Mapped transitions are read only");
+            }
+        };
+    }
+
+    /**
+     * @param state state id
+     * @return offset of the states record, NO_RECORD if it has none
+     */
+    private long offset(int state) {
+        if (state < 0 || state >= header.indexEntries) {
+            return StateSpaceStore.NO_RECORD;
+        }
+        return region.getLong(header.indexOffset + 8L * state);
+    }
+
+    /**
+     * @param offset start of a record
+     * @return decoded record
+     */
+    private Record decode(long offset) {
+        int state = region.getInt(offset);
+        int count = region.getInt(offset + 4);
+        Map<Integer, Double> successors = new HashMap<>();
+        long position = offset + 8;
+        for (int i = 0; i < count; i++) {
+            successors.put(region.getInt(position), region.getDouble(position + 4));
+            position += StateSpaceStore.SUCCESSOR_SIZE;
+        }
+        return new Record(state, successors);
+    }
+
+    /**
+     * Allocation free, forward only cursor over the records in file order
+     */
+    public final class Cursor {
+        /**
+         * Offset of the current record
+         */
+        private long position = -1;
+
+        /**
+         * Offset of the next record
+         */
+        private long nextPosition = StateSpaceStore.HEADER_SIZE;
+
+        /**
+         * Private constructor
+         */
+        private Cursor() {
+        }
+
+        /**
+         * @return true if there is another record
+         */
+        public boolean hasNext() {
+            return nextPosition < header.indexOffset;
+        }
+
+        /**
+         * Moves on to the next record
+         */
+        public void next() {
+            position = nextPosition;
+            nextPosition = position + 8 + (long) StateSpaceStore.SUCCESSOR_SIZE * successors();
+        }
+
+        /**
+         * @return id of the current state
+         */
+        public int state() {
+            return region.getInt(position);
+        }
+
+        /**
+         * @return number of successors of the current state
+         */
+        public int successors() {
+            return region.getInt(position + 4);
+        }
+
+        /**
+         * @param index successor index
+         * @return id of the indexth successor
+         */
+        public int successor(int index) {
+            return region.getInt(position + 8 + (long) StateSpaceStore.SUCCESSOR_SIZE * index);
+        }
+
+        /**
+         * @param index successor index
+         * @return rate of the transition to the indexth successor
+         */
+        public double rate(int index) {
+            return region.getDouble(position + 12 + (long) StateSpaceStore.SUCCESSOR_SIZE * index);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package pipe.gui.statespace;
+
+import uk.ac.imperial.state.ClassifiedState;
+import uk.ac.imperial.state.HashedClassifiedState;
+import uk.ac.imperial.state.HashedStateBuilder;
+
+import java.util.*;
+
+/**
+ * Packs the markings of a single Petri net into byte arrays.
+ * <p>
+ * Token counts are indexed by the sorted place names and sorted token names of the net, the
+ * same schema the states file uses, so an encoded marking carries no names at all. The first
+ * byte holds the tangible flag and each count follows as an unsigned variable length integer,
+ * seven bits per byte, so the small counts typical of most nets take a single byte.
+ * </p>
+ */
+public final class MarkingCodec {
+
+    /**
+     * Sorted place names
+     */
+    private final List<String> places;
+
+    /**
+     * Sorted token names
+     */
+    private final List<String> tokens;
+
+    /**
+     * @param places sorted place names
+     * @param tokens sorted token names
+     */
+    public MarkingCodec(List<String> places, List<String> tokens) {
+        this.places = Collections.unmodifiableList(new ArrayList<>(places));
+        this.tokens = Collections.unmodifiableList(new ArrayList<>(tokens));
+    }
+
+    /**
+     * All states of a Petri net share the same places and tokens, so the schema can be taken
+     * from any one of them
+     *
+     * @param state state of the net
+     * @return codec for the states of the net
+     */
+    public static MarkingCodec fromState(ClassifiedState state) {
+        List<String> places = new ArrayList<>(state.getPlaces());
+        Collections.sort(places);
+        Set<String> tokens = new TreeSet<>();
+        for (String place : places) {
+            tokens.addAll(state.getTokens(place).keySet());
+        }
+        return new MarkingCodec(places, new ArrayList<>(tokens));
+    }
+
+    /**
+     * @return sorted place names
+     */
+    public List<String> getPlaces() {
+        return places;
+    }
+
+    /**
+     * @return sorted token names
+     */
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * @return size of the largest possible encoding
+     */
+    public int getMaxEncodedSize() {
+        return 1 + 5 * places.size() * tokens.size();
+    }
+
+    /**
+     * @param state  state to encode
+     * @param target array of at least {@link #getMaxEncodedSize()} bytes to encode into
+     * @return number of bytes written
+     * @throws IllegalArgumentException if the state has a place outside the schema
+     */
+    public int encode(ClassifiedState state, byte[] target) {
+        if (state.getPlaces().size() != places.size()) {
+            throw new IllegalArgumentException("State does not belong to this Petri net: " + state);
+        }
+        int length = 0;
+        target[length++] = (byte) (state.isTangible() ? 1 : 0);
+        for (String place : places) {
+            Map<String, Integer> counts = state.getTokens(place);
+            if (counts == null) {
+                throw new IllegalArgumentException("State has no place " + place);
+            }
+            for (String token : tokens) {
+                Integer count = counts.get(token);
+                int value = count == null ? 0 : count;
+                while ((value & ~0x7F) != 0) {
+                    target[length++] = (byte) ((value & 0x7F) | 0x80);
+                    value >>>= 7;
+                }
+                target[length++] = (byte) value;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @param source encoded markings
+     * @param offset start of the marking to decode
+     * @return classified state the marking represents
+     */
+    public ClassifiedState decode(byte[] source, int offset) {
+        int position = offset;
+        boolean tangible = source[position++] != 0;
+        HashedStateBuilder builder = new HashedStateBuilder();
+        for (String place : places) {
+            for (String token : tokens) {
+                int value = 0;
+                int shift = 0;
+                byte next;
+                do {
+                    next = source[position++];
+                    value |= (next & 0x7F) << shift;
+                    shift += 7;
+                } while ((next & 0x80) != 0);
+                builder.placeWithToken(place, token, value);
+            }
+        }
+        if (tangible) {
+            return HashedClassifiedState.tangibleState(builder.build());
+        }
+        return HashedClassifiedState.vanishingState(builder.build());
+    }
+}
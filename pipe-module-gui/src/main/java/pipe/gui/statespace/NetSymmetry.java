@@ -0,0 +1,673 @@
+package pipe.gui.statespace;
+
+import uk.ac.imperial.pipe.models.petrinet.*;
+import uk.ac.imperial.pipe.parsers.FunctionalResults;
+import uk.ac.imperial.state.ClassifiedState;
+import uk.ac.imperial.state.HashedClassifiedState;
+import uk.ac.imperial.state.HashedStateBuilder;
+
+import java.util.*;
+
+/**
+ * Symmetries of a net built from identical copies of a component, such as a pool of servers
+ * sharing a queue. Swapping two copies maps every marking to one that behaves the same, so a
+ * state space explored up to the order of the copies is a lumping of the full one with the
+ * same measures once they are averaged over the copies.
+ * <p>
+ * Places and transitions are coloured by their attributes and initial marking, and the
+ * colours refined by those of their neighbours until they stop splitting. Nodes with a colour
+ * of their own can only be mapped to themselves; the rest fall into connected components and
+ * components are copies of one another if a mapping between them keeps every arc, its weights
+ * and the nodes it connects outside the component. Swapping any two copies of a component is
+ * then an automorphism of the net that keeps its initial marking, so every permutation of the
+ * copies is one too.
+ * </p>
+ * <p>
+ * Only symmetries permuting whole components are found, so rings and other nets whose copies
+ * are joined to each other directly are not reduced. Rates and weights that depend on the
+ * marking fix their transition and the places they refer to.
+ * </p>
+ */
+public final class NetSymmetry {
+
+    /**
+     * Most search steps spent matching one component against another
+     */
+    private static final int MAX_MATCH_STEPS = 100000;
+
+    /**
+     * Places of each copy of each replicated component, position k of every copy of a
+     * component being interchangeable
+     */
+    private final List<String[][]> places = new ArrayList<>();
+
+    /**
+     * Transitions of each copy of each replicated component, aligned like the places
+     */
+    private final List<String[][]> transitions = new ArrayList<>();
+
+    /**
+     * Token ids, sorted
+     */
+    private final List<String> tokens = new ArrayList<>();
+
+    /**
+     * Node ids, places first then transitions
+     */
+    private final List<String> ids = new ArrayList<>();
+
+    /**
+     * Neighbours of each node and the arcs to them, written from the node's side
+     */
+    private final List<Map<Integer, String>> adjacent = new ArrayList<>();
+
+    /**
+     * Refined colour of each node
+     */
+    private int[] colours;
+
+    /**
+     * True for nodes only mapped to themselves
+     */
+    private boolean[] fixed;
+
+    /**
+     * Number of places, the transitions follow them in the node ids
+     */
+    private int placeCount;
+
+    /**
+     * @param petriNet net whose symmetries are found
+     */
+    private NetSymmetry(PetriNet petriNet) {
+        for (Token token : petriNet.getTokens()) {
+            tokens.add(token.getId());
+        }
+        Collections.sort(tokens);
+        String[] signatures = signatures(petriNet);
+        colours = number(signatures);
+        refine();
+        fixed = new boolean[ids.size()];
+        int[] sizes = new int[ids.size()];
+        for (int colour : colours) {
+            sizes[colour]++;
+        }
+        for (int node = 0; node < ids.size(); node++) {
+            fixed[node] = sizes[colours[node]] == 1;
+        }
+        findCopies();
+    }
+
+    /**
+     * @param petriNet net whose symmetries are found
+     * @return symmetries of the net, trivial if it has no replicated components
+     */
+    public static NetSymmetry of(PetriNet petriNet) {
+        return new NetSymmetry(petriNet);
+    }
+
+    /**
+     * @return true if no two copies can be swapped, so canonical states are the states themselves
+     */
+    public boolean isTrivial() {
+        return places.isEmpty();
+    }
+
+    /**
+     * @return number of replicated components
+     */
+    public int getComponentCount() {
+        return places.size();
+    }
+
+    /**
+     * @param component replicated component
+     * @return number of copies of the component
+     */
+    public int getCopies(int component) {
+        return places.get(component).length;
+    }
+
+    /**
+     * @param component replicated component
+     * @param copy      copy of the component
+     * @return places of the copy, position k of every copy being interchangeable
+     */
+    public List<String> getPlaces(int component, int copy) {
+        return Collections.unmodifiableList(Arrays.asList(places.get(component)[copy]));
+    }
+
+    /**
+     * @param component replicated component
+     * @param copy      copy of the component
+     * @return transitions of the copy, position k of every copy being interchangeable
+     */
+    public List<String> getTransitions(int component, int copy) {
+        return Collections.unmodifiableList(Arrays.asList(transitions.get(component)[copy]));
+    }
+
+    /**
+     * Sorts the copies of every component by their markings, largest first, so every state
+     * of an orbit has the same representative. Safe to call from several threads.
+     *
+     * @param state state of the net
+     * @return representative of the state's orbit, the state itself if it already is one
+     */
+    public ClassifiedState canonical(ClassifiedState state) {
+        Map<String, String> moved = null;
+        for (String[][] copies : places) {
+            final int[][] markings = new int[copies.length][];
+            for (int copy = 0; copy < copies.length; copy++) {
+                markings[copy] = marking(state, copies[copy]);
+            }
+            Integer[] order = new Integer[copies.length];
+            for (int copy = 0; copy < copies.length; copy++) {
+                order[copy] = copy;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return compareMarkings(markings[b], markings[a]);
+                }
+            });
+            for (int copy = 0; copy < copies.length; copy++) {
+                if (compareMarkings(markings[order[copy]], markings[copy]) == 0) {
+                    continue;
+                }
+                if (moved == null) {
+                    moved = new HashMap<>();
+                }
+                for (int k = 0; k < copies[copy].length; k++) {
+                    moved.put(copies[copy][k], copies[order[copy]][k]);
+                }
+            }
+        }
+        if (moved == null) {
+            return state;
+        }
+        HashedStateBuilder builder = new HashedStateBuilder();
+        for (String place : state.getPlaces()) {
+            String source = moved.containsKey(place) ? moved.get(place) : place;
+            for (Map.Entry<String, Integer> entry : state.getTokens(source).entrySet()) {
+                builder.placeWithToken(place, entry.getKey(), entry.getValue());
+            }
+        }
+        if (state.isTangible()) {
+            return HashedClassifiedState.tangibleState(builder.build());
+        }
+        return HashedClassifiedState.vanishingState(builder.build());
+    }
+
+    /**
+     * Averages the token counts of interchangeable places, turning the measures of a state
+     * space of orbit representatives into those of the full state space
+     *
+     * @param averageTokens average tokens on each place by token, measured over representatives
+     * @return average tokens on each place by token
+     */
+    public Map<String, Map<String, Double>> averageTokens(Map<String, Map<String, Double>> averageTokens) {
+        Map<String, Map<String, Double>> result = new HashMap<>();
+        for (Map.Entry<String, Map<String, Double>> entry : averageTokens.entrySet()) {
+            result.put(entry.getKey(), new HashMap<>(entry.getValue()));
+        }
+        for (String[][] copies : places) {
+            for (int k = 0; k < copies[0].length; k++) {
+                for (String token : averageTokens.get(copies[0][k]).keySet()) {
+                    double sum = 0;
+                    for (String[] copy : copies) {
+                        sum += averageTokens.get(copy[k]).get(token);
+                    }
+                    for (String[] copy : copies) {
+                        result.get(copy[k]).put(token, sum / copies.length);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Averages the throughputs of interchangeable transitions, turning the measures of a state
+     * space of orbit representatives into those of the full state space
+     *
+     * @param throughputs throughput of each transition, measured over representatives
+     * @return throughput of each transition
+     */
+    public Map<String, Double> averageThroughputs(Map<String, Double> throughputs) {
+        Map<String, Double> result = new HashMap<>(throughputs);
+        for (String[][] copies : transitions) {
+            for (int k = 0; k < copies[0].length; k++) {
+                if (!throughputs.containsKey(copies[0][k])) {
+                    continue;
+                }
+                double sum = 0;
+                for (String[] copy : copies) {
+                    sum += throughputs.get(copy[k]);
+                }
+                for (String[] copy : copies) {
+                    result.put(copy[k], sum / copies.length);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param state  state of the net
+     * @param copy   places of a copy
+     * @return token counts of the places, place by place and token by token
+     */
+    private int[] marking(ClassifiedState state, String[] copy) {
+        int[] marking = new int[copy.length * tokens.size()];
+        int position = 0;
+        for (String place : copy) {
+            Map<String, Integer> counts = state.getTokens(place);
+            for (String token : tokens) {
+                Integer count = counts.get(token);
+                marking[position++] = count == null ? 0 : count;
+            }
+        }
+        return marking;
+    }
+
+    /**
+     * @param a marking of a copy
+     * @param b marking of another copy of the same component
+     * @return lexicographic comparison of the markings
+     */
+    private static int compareMarkings(int[] a, int[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                return a[i] < b[i] ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Numbers the nodes and records the arcs between them
+     *
+     * @param petriNet net whose symmetries are found
+     * @return initial colour signature of each node
+     */
+    private String[] signatures(PetriNet petriNet) {
+        Map<String, Integer> index = new HashMap<>();
+        List<String> initial = new ArrayList<>();
+        for (Place place : petriNet.getPlaces()) {
+            index.put(place.getId(), ids.size());
+            ids.add(place.getId());
+            initial.add("P" + (place.hasCapacityRestriction() ? place.getCapacity() : -1) + "/"
+                    + new TreeMap<>(place.getTokenCounts()));
+        }
+        placeCount = ids.size();
+        for (Transition transition : petriNet.getTransitions()) {
+            index.put(transition.getId(), ids.size());
+            ids.add(transition.getId());
+            initial.add("T" + transition.isTimed() + "/" + transition.getPriority() + "/"
+                    + transition.isInfiniteServer() + "/" + transition.getRateExpr().trim());
+        }
+        Set<Integer> pinned = new HashSet<>();
+        for (Transition transition : petriNet.getTransitions()) {
+            if (pin(petriNet, transition.getRateExpr(), index, pinned)) {
+                pinned.add(index.get(transition.getId()));
+            }
+        }
+        List<Map<Integer, List<String>>> arcs = new ArrayList<>();
+        for (int node = 0; node < ids.size(); node++) {
+            arcs.add(new HashMap<Integer, List<String>>());
+        }
+        for (Arc<? extends Connectable, ? extends Connectable> arc : petriNet.getArcs()) {
+            int source = index.get(arc.getSource().getId());
+            int target = index.get(arc.getTarget().getId());
+            Map<String, String> weights = new TreeMap<>();
+            for (Map.Entry<String, String> entry : arc.getTokenWeights().entrySet()) {
+                weights.put(entry.getKey(), entry.getValue().trim());
+                if (pin(petriNet, entry.getValue(), index, pinned)) {
+                    pinned.add(source);
+                    pinned.add(target);
+                }
+            }
+            String label = arc.getType() + "/" + weights;
+            add(arcs.get(source), target, "out:" + label);
+            add(arcs.get(target), source, "in:" + label);
+        }
+        for (Map<Integer, List<String>> node : arcs) {
+            Map<Integer, String> labels = new HashMap<>();
+            for (Map.Entry<Integer, List<String>> entry : node.entrySet()) {
+                Collections.sort(entry.getValue());
+                labels.put(entry.getKey(), entry.getValue().toString());
+            }
+            adjacent.add(labels);
+        }
+        String[] signatures = initial.toArray(new String[initial.size()]);
+        for (int node : pinned) {
+            signatures[node] = "F" + ids.get(node);
+        }
+        return signatures;
+    }
+
+    /**
+     * @param map   arcs of a node by neighbour
+     * @param node  neighbour
+     * @param label arc to the neighbour
+     */
+    private static void add(Map<Integer, List<String>> map, int node, String label) {
+        List<String> labels = map.get(node);
+        if (labels == null) {
+            labels = new ArrayList<>();
+            map.put(node, labels);
+        }
+        labels.add(label);
+    }
+
+    /**
+     * Pins the places an expression refers to
+     *
+     * @param petriNet   net the expression belongs to
+     * @param expression rate or weight expression
+     * @param index      node of each id
+     * @param pinned     nodes only mapped to themselves
+     * @return true if the expression depends on the marking or cannot be parsed
+     */
+    private boolean pin(PetriNet petriNet, String expression, Map<String, Integer> index, Set<Integer> pinned) {
+        FunctionalResults<Double> result = petriNet.parseExpression(expression);
+        if (result.hasErrors()) {
+            return true;
+        }
+        boolean dependent = false;
+        for (String component : result.getComponents()) {
+            Integer node = index.get(component);
+            if (node != null && isPlace(node)) {
+                pinned.add(node);
+                dependent = true;
+            }
+        }
+        return dependent;
+    }
+
+    /**
+     * Only valid once the places have been numbered
+     *
+     * @param node node
+     * @return true if the node is a place
+     */
+    private boolean isPlace(int node) {
+        return node < placeCount;
+    }
+
+    /**
+     * Splits the colours by the colours of each node's neighbours until they stop splitting
+     */
+    private void refine() {
+        int count = distinct(colours);
+        while (true) {
+            String[] signatures = new String[colours.length];
+            for (int node = 0; node < colours.length; node++) {
+                List<String> neighbours = new ArrayList<>();
+                for (Map.Entry<Integer, String> entry : adjacent.get(node).entrySet()) {
+                    neighbours.add(entry.getValue() + "@" + colours[entry.getKey()]);
+                }
+                Collections.sort(neighbours);
+                signatures[node] = colours[node] + "/" + neighbours;
+            }
+            int[] next = number(signatures);
+            int nextCount = distinct(next);
+            colours = next;
+            if (nextCount == count) {
+                return;
+            }
+            count = nextCount;
+        }
+    }
+
+    /**
+     * @param signatures signature of each node
+     * @return colour of each node, equal for equal signatures
+     */
+    private static int[] number(String[] signatures) {
+        Map<String, Integer> numbers = new HashMap<>();
+        int[] result = new int[signatures.length];
+        for (int node = 0; node < signatures.length; node++) {
+            Integer number = numbers.get(signatures[node]);
+            if (number == null) {
+                number = numbers.size();
+                numbers.put(signatures[node], number);
+            }
+            result[node] = number;
+        }
+        return result;
+    }
+
+    /**
+     * @param colours colour of each node
+     * @return number of distinct colours
+     */
+    private static int distinct(int[] colours) {
+        Set<Integer> distinct = new HashSet<>();
+        for (int colour : colours) {
+            distinct.add(colour);
+        }
+        return distinct.size();
+    }
+
+    /**
+     * Splits the nodes that are not fixed into connected components and records the
+     * components that are copies of one another
+     */
+    private void findCopies() {
+        int[] component = new int[ids.size()];
+        Arrays.fill(component, -1);
+        List<int[]> components = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start++) {
+            if (fixed[start] || component[start] >= 0) {
+                continue;
+            }
+            List<Integer> nodes = new ArrayList<>();
+            Deque<Integer> pending = new ArrayDeque<>();
+            component[start] = components.size();
+            pending.add(start);
+            while (!pending.isEmpty()) {
+                int node = pending.poll();
+                nodes.add(node);
+                for (int neighbour : adjacent.get(node).keySet()) {
+                    if (!fixed[neighbour] && component[neighbour] < 0) {
+                        component[neighbour] = components.size();
+                        pending.add(neighbour);
+                    }
+                }
+            }
+            int[] array = new int[nodes.size()];
+            for (int k = 0; k < array.length; k++) {
+                array[k] = nodes.get(k);
+            }
+            components.add(array);
+        }
+
+        Map<String, List<int[]>> groups = new LinkedHashMap<>();
+        for (int[] nodes : components) {
+            int[] nodeColours = new int[nodes.length];
+            for (int k = 0; k < nodes.length; k++) {
+                nodeColours[k] = colours[nodes[k]];
+            }
+            Arrays.sort(nodeColours);
+            String key = Arrays.toString(nodeColours);
+            List<int[]> group = groups.get(key);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(key, group);
+            }
+            group.add(nodes);
+        }
+        for (List<int[]> group : groups.values()) {
+            List<int[]> remaining = new ArrayList<>(group);
+            while (remaining.size() > 1) {
+                int[] base = remaining.remove(0);
+                List<int[]> copies = new ArrayList<>();
+                copies.add(base);
+                Iterator<int[]> iterator = remaining.iterator();
+                while (iterator.hasNext()) {
+                    int[] mapped = match(base, iterator.next());
+                    if (mapped != null) {
+                        copies.add(mapped);
+                        iterator.remove();
+                    }
+                }
+                if (copies.size() > 1) {
+                    record(copies);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param copies nodes of each copy, position k of every copy being interchangeable
+     */
+    private void record(List<int[]> copies) {
+        int[] base = copies.get(0);
+        int placesPerCopy = 0;
+        for (int node : base) {
+            if (isPlace(node)) {
+                placesPerCopy++;
+            }
+        }
+        String[][] copyPlaces = new String[copies.size()][placesPerCopy];
+        String[][] copyTransitions = new String[copies.size()][base.length - placesPerCopy];
+        for (int copy = 0; copy < copies.size(); copy++) {
+            int place = 0;
+            int transition = 0;
+            for (int k = 0; k < base.length; k++) {
+                String id = ids.get(copies.get(copy)[k]);
+                if (isPlace(base[k])) {
+                    copyPlaces[copy][place++] = id;
+                } else {
+                    copyTransitions[copy][transition++] = id;
+                }
+            }
+        }
+        places.add(copyPlaces);
+        transitions.add(copyTransitions);
+    }
+
+    /**
+     * @param base  nodes of a component in breadth first order
+     * @param other nodes of a component with the same colours
+     * @return node of the other component matching each node of the base, null if the
+     * components are not copies or no match was found in time
+     */
+    private int[] match(int[] base, int[] other) {
+        Map<Integer, List<Integer>> candidates = new HashMap<>();
+        for (int node : other) {
+            List<Integer> list = candidates.get(colours[node]);
+            if (list == null) {
+                list = new ArrayList<>();
+                candidates.put(colours[node], list);
+            }
+            list.add(node);
+        }
+        Matcher matcher = new Matcher(base, candidates);
+        return matcher.extend(0) ? matcher.mapped : null;
+    }
+
+    /**
+     * Backtracking search for an arc preserving mapping between two components
+     */
+    private final class Matcher {
+
+        /**
+         * Nodes of the base component, each after a neighbour where possible
+         */
+        private final int[] base;
+
+        /**
+         * Nodes of the other component by colour
+         */
+        private final Map<Integer, List<Integer>> candidates;
+
+        /**
+         * Node each base node is mapped to, by position in the base
+         */
+        private final int[] mapped;
+
+        /**
+         * Position of each mapped base node, by node
+         */
+        private final Map<Integer, Integer> positions = new HashMap<>();
+
+        /**
+         * Nodes of the other component already used
+         */
+        private final Set<Integer> used = new HashSet<>();
+
+        /**
+         * Search steps left
+         */
+        private int steps = MAX_MATCH_STEPS;
+
+        /**
+         * @param base       nodes of the base component in breadth first order
+         * @param candidates nodes of the other component by colour
+         */
+        private Matcher(int[] base, Map<Integer, List<Integer>> candidates) {
+            this.base = base;
+            this.candidates = candidates;
+            mapped = new int[base.length];
+        }
+
+        /**
+         * @param depth number of base nodes already mapped
+         * @return true if the rest of the base could be mapped
+         */
+        private boolean extend(int depth) {
+            if (depth == base.length) {
+                return true;
+            }
+            if (steps-- <= 0) {
+                return false;
+            }
+            int node = base[depth];
+            for (int candidate : candidates.get(colours[node])) {
+                if (used.contains(candidate) || !consistent(node, candidate)) {
+                    continue;
+                }
+                mapped[depth] = candidate;
+                positions.put(node, depth);
+                used.add(candidate);
+                if (extend(depth + 1)) {
+                    return true;
+                }
+                positions.remove(node);
+                used.remove(candidate);
+                if (steps <= 0) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @param node      base node
+         * @param candidate node of the other component
+         * @return true if the arcs of the node to fixed and mapped nodes are also arcs of the candidate
+         */
+        private boolean consistent(int node, int candidate) {
+            Map<Integer, String> nodeArcs = adjacent.get(node);
+            Map<Integer, String> candidateArcs = adjacent.get(candidate);
+            if (nodeArcs.size() != candidateArcs.size()) {
+                return false;
+            }
+            for (Map.Entry<Integer, String> entry : nodeArcs.entrySet()) {
+                int neighbour = entry.getKey();
+                Integer image = null;
+                if (fixed[neighbour]) {
+                    image = neighbour;
+                } else if (positions.containsKey(neighbour)) {
+                    image = mapped[positions.get(neighbour)];
+                }
+                if (image != null && !entry.getValue().equals(candidateArcs.get(image))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package pipe.gui.statespace;
+
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of markings packed end to end in a single byte array by a {@link MarkingCodec}.
+ * The codec is taken from the first marking appended.
+ */
+final class PackedMarkings {
+
+    /**
+     * Codec of the markings, null until the first marking is appended
+     */
+    private MarkingCodec codec;
+
+    /**
+     * Encoded markings end to end
+     */
+    private byte[] data = new byte[1 << 12];
+
+    /**
+     * Start of each marking followed by the end of the last, so marking i spans
+     * offsets[i] to offsets[i + 1]
+     */
+    private int[] offsets = new int[1 << 8];
+
+    /**
+     * Number of markings
+     */
+    private int size = 0;
+
+    /**
+     * Scratch space for encoding
+     */
+    private byte[] scratch;
+
+    /**
+     * @return number of markings
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return codec of the markings, null if none have been appended
+     */
+    MarkingCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Encodes the state into the scratch space
+     *
+     * @param state state to encode
+     * @return length of the encoding in {@link #scratch()}
+     */
+    int encode(ClassifiedState state) {
+        if (codec == null) {
+            codec = MarkingCodec.fromState(state);
+            scratch = new byte[codec.getMaxEncodedSize()];
+        }
+        return codec.encode(state, scratch);
+    }
+
+    /**
+     * @return scratch space holding the last encoding
+     */
+    byte[] scratch() {
+        return scratch;
+    }
+
+    /**
+     * Appends the marking last encoded with {@link #encode(ClassifiedState)}
+     *
+     * @param length length of the encoding
+     * @return position of the marking
+     */
+    int appendScratch(int length) {
+        if (size + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        int start = offsets[size];
+        if (start + length > data.length) {
+            long grown = Math.max((long) data.length * 2, (long) start + length);
+            if (grown > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Too many markings to pack in memory");
+            }
+            data = Arrays.copyOf(data, (int) grown);
+        }
+        System.arraycopy(scratch, 0, data, start, length);
+        offsets[size + 1] = start + length;
+        return size++;
+    }
+
+    /**
+     * @param state state to append
+     * @return position of the marking
+     */
+    int append(ClassifiedState state) {
+        return appendScratch(encode(state));
+    }
+
+    /**
+     * @param position position of a marking
+     * @param length   length of the encoding in the scratch space
+     * @return true if the marking equals the last encoding
+     */
+    boolean matchesScratch(int position, int length) {
+        int start = offsets[position];
+        if (offsets[position + 1] - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (data[start + i] != scratch[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param position position of a marking
+     * @return hash of the marking
+     */
+    int hash(int position) {
+        return hash(data, offsets[position], offsets[position + 1] - offsets[position]);
+    }
+
+    /**
+     * @param length length of the encoding in the scratch space
+     * @return hash of the last encoding
+     */
+    int hashScratch(int length) {
+        return hash(scratch, 0, length);
+    }
+
+    /**
+     * FNV-1a over the bytes followed by a final mix, so that markings differing in a single
+     * count spread across the table
+     *
+     * @param bytes  source
+     * @param start  first byte
+     * @param length number of bytes
+     * @return hash of the bytes
+     */
+    private static int hash(byte[] bytes, int start, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = start; i < start + length; i++) {
+            hash = (hash ^ bytes[i]) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    /**
+     * @param position position of a marking
+     * @return classified state the marking represents
+     */
+    ClassifiedState get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("No marking at " + position);
+        }
+        return codec.decode(data, offsets[position]);
+    }
+
+    /**
+     * @param position position of a marking
+     * @return true if the marking is tangible
+     */
+    boolean isTangible(int position) {
+        return data[offsets[position]] != 0;
+    }
+
+    /**
+     * Releases the unused capacity once no more markings will be appended
+     */
+    void trim() {
+        data = Arrays.copyOf(data, offsets[size]);
+        offsets = Arrays.copyOf(offsets, size + 1);
+    }
+}
@@ -0,0 +1,72 @@
+package pipe.gui.statespace;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how many of the enabled transitions a partial order reduction actually fires, shared
+ * by every thread of an exploration.
+ */
+public final class ReductionStatistics {
+
+    /**
+     * Number of state expansions
+     */
+    private final AtomicLong expansions = new AtomicLong();
+
+    /**
+     * Number of transitions enabled over every expansion
+     */
+    private final AtomicLong enabled = new AtomicLong();
+
+    /**
+     * Number of transitions fired over every expansion
+     */
+    private final AtomicLong fired = new AtomicLong();
+
+    /**
+     * Records the expansion of a state
+     *
+     * @param enabledTransitions transitions enabled in the state
+     * @param firedTransitions   transitions fired from the state
+     */
+    void expanded(int enabledTransitions, int firedTransitions) {
+        expansions.incrementAndGet();
+        enabled.addAndGet(enabledTransitions);
+        fired.addAndGet(firedTransitions);
+    }
+
+    /**
+     * @return number of state expansions
+     */
+    public long getExpansions() {
+        return expansions.get();
+    }
+
+    /**
+     * @return number of transitions enabled over every expansion
+     */
+    public long getEnabledTransitions() {
+        return enabled.get();
+    }
+
+    /**
+     * @return number of transitions fired over every expansion
+     */
+    public long getFiredTransitions() {
+        return fired.get();
+    }
+
+    /**
+     * @return fraction of the enabled transitions that were fired, one if nothing has been expanded
+     */
+    public double getReductionRatio() {
+        long enabledTransitions = enabled.get();
+        return enabledTransitions == 0 ? 1 : (double) fired.get() / enabledTransitions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("fired %d of %d enabled transitions (%.1f%%)", fired.get(), enabled.get(),
+                getReductionRatio() * 100);
+    }
+}
@@ -0,0 +1,120 @@
+package pipe.gui.statespace;
+
+import java.util.Arrays;
+
+/**
+ * Parameters chosen by the {@link AdaptiveStateSpaceExplorer} scheduler and how busy its
+ * worker threads were, for display alongside the exploration results
+ */
+public final class SchedulerStatistics {
+
+    /**
+     * Number of worker threads
+     */
+    private final int threads;
+
+    /**
+     * Final number of states per work stealing chunk
+     */
+    private final int chunkSize;
+
+    /**
+     * Final number of frontier states expanded per batch
+     */
+    private final int batchSize;
+
+    /**
+     * Number of batches expanded
+     */
+    private final int batches;
+
+    /**
+     * Smoothed time to expand a single state
+     */
+    private final double nanosPerState;
+
+    /**
+     * Number of chunks stolen between worker threads
+     */
+    private final long steals;
+
+    /**
+     * Fraction of the parallel expansion time each worker spent expanding states
+     */
+    private final double[] utilisation;
+
+    /**
+     * @param threads       number of worker threads
+     * @param chunkSize     final number of states per work stealing chunk
+     * @param batchSize     final number of frontier states expanded per batch
+     * @param batches       number of batches expanded
+     * @param nanosPerState smoothed time to expand a single state
+     * @param steals        number of chunks stolen between worker threads
+     * @param utilisation   fraction of the parallel expansion time each worker was busy
+     */
+    public SchedulerStatistics(int threads, int chunkSize, int batchSize, int batches, double nanosPerState,
+                               long steals, double[] utilisation) {
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.batches = batches;
+        this.nanosPerState = nanosPerState;
+        this.steals = steals;
+        this.utilisation = utilisation.clone();
+    }
+
+    /**
+     * @return number of worker threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return final number of states per work stealing chunk
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return final number of frontier states expanded per batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return number of batches expanded
+     */
+    public int getBatches() {
+        return batches;
+    }
+
+    /**
+     * @return smoothed time in nanoseconds to expand a single state
+     */
+    public double getNanosPerState() {
+        return nanosPerState;
+    }
+
+    /**
+     * @return number of chunks stolen between worker threads
+     */
+    public long getSteals() {
+        return steals;
+    }
+
+    /**
+     * @return fraction of the parallel expansion time each worker spent expanding states
+     */
+    public double[] getUtilisation() {
+        return utilisation.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d threads, chunk %d, batch %d, %d batches, %.1f us/state, %d steals, utilisation %s",
+                threads, chunkSize, batchSize, batches, nanosPerState / 1000, steals, Arrays.toString(utilisation));
+    }
+}
@@ -0,0 +1,257 @@
+package pipe.gui.statespace;
+
+import uk.ac.imperial.state.Record;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Transition structure of an explored state space held in compressed sparse row form in
+ * both directions, so that the successors and predecessors of any state can be walked
+ * without decoding records or markings.
+ * <p>
+ * Large state spaces are drawn from this rather than from boxed {@link Record}s: a few
+ * primitive arrays hold hundreds of thousands of states, and the markings are only read
+ * for the states actually shown.
+ * </p>
+ */
+public final class StateGraph {
+
+    /**
+     * Largest state id + 1
+     */
+    private final int states;
+
+    /**
+     * Start of each state's successors, with a final entry marking the end of the last state's
+     */
+    private final int[] successorStart;
+
+    /**
+     * Successor of each transition, grouped by source
+     */
+    private final int[] successors;
+
+    /**
+     * Rate of each transition, in the order of {@link #successors}
+     */
+    private final double[] rates;
+
+    /**
+     * Start of each state's predecessors, with a final entry marking the end of the last state's
+     */
+    private final int[] predecessorStart;
+
+    /**
+     * Predecessor of each transition, grouped by target
+     */
+    private final int[] predecessors;
+
+    /**
+     * States that appear in the state space
+     */
+    private final BitSet present;
+
+    /**
+     * @param sources source of each transition
+     * @param targets target of each transition
+     * @param values  rate of each transition
+     * @param size    number of transitions
+     * @param present states that appear in the state space
+     */
+    private StateGraph(int[] sources, int[] targets, double[] values, int size, BitSet present) {
+        this.states = present.length();
+        this.present = present;
+        successorStart = new int[states + 1];
+        predecessorStart = new int[states + 1];
+        for (int i = 0; i < size; i++) {
+            successorStart[sources[i] + 1]++;
+            predecessorStart[targets[i] + 1]++;
+        }
+        for (int state = 0; state < states; state++) {
+            successorStart[state + 1] += successorStart[state];
+            predecessorStart[state + 1] += predecessorStart[state];
+        }
+        successors = new int[size];
+        rates = new double[size];
+        predecessors = new int[size];
+        int[] nextSuccessor = Arrays.copyOf(successorStart, states);
+        int[] nextPredecessor = Arrays.copyOf(predecessorStart, states);
+        for (int i = 0; i < size; i++) {
+            int position = nextSuccessor[sources[i]]++;
+            successors[position] = targets[i];
+            rates[position] = values[i];
+            predecessors[nextPredecessor[targets[i]]++] = sources[i];
+        }
+    }
+
+    /**
+     * @param records state space transitions
+     * @return graph of the transitions
+     */
+    public static StateGraph fromRecords(Iterable<Record> records) {
+        Builder builder = new Builder();
+        for (Record record : records) {
+            builder.addState(record.state);
+            for (Map.Entry<Integer, Double> entry : record.successors.entrySet()) {
+                builder.addTransition(record.state, entry.getKey(), entry.getValue());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the graph straight from a mapped transitions file without decoding any records
+     *
+     * @param transitions mapped transitions
+     * @return graph of the transitions
+     */
+    public static StateGraph fromTransitions(MappedTransitions transitions) {
+        Builder builder = new Builder();
+        MappedTransitions.Cursor cursor = transitions.cursor();
+        while (cursor.hasNext()) {
+            cursor.next();
+            int state = cursor.state();
+            builder.addState(state);
+            for (int i = 0; i < cursor.successors(); i++) {
+                builder.addTransition(state, cursor.successor(i), cursor.rate(i));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return largest state id + 1
+     */
+    public int getStateCount() {
+        return states;
+    }
+
+    /**
+     * @return number of transitions
+     */
+    public int getTransitionCount() {
+        return successors.length;
+    }
+
+    /**
+     * @param state state id
+     * @return true if the state is part of the state space
+     */
+    public boolean isPresent(int state) {
+        return present.get(state);
+    }
+
+    /**
+     * @param state state id
+     * @return number of transitions out of the state
+     */
+    public int getSuccessorCount(int state) {
+        return successorStart[state + 1] - successorStart[state];
+    }
+
+    /**
+     * @param state state id
+     * @param index transition index, less than {@link #getSuccessorCount(int)}
+     * @return target of the transition
+     */
+    public int getSuccessor(int state, int index) {
+        return successors[successorStart[state] + index];
+    }
+
+    /**
+     * @param state state id
+     * @param index transition index, less than {@link #getSuccessorCount(int)}
+     * @return rate of the transition
+     */
+    public double getRate(int state, int index) {
+        return rates[successorStart[state] + index];
+    }
+
+    /**
+     * @param state state id
+     * @return number of transitions into the state
+     */
+    public int getPredecessorCount(int state) {
+        return predecessorStart[state + 1] - predecessorStart[state];
+    }
+
+    /**
+     * @param state state id
+     * @param index transition index, less than {@link #getPredecessorCount(int)}
+     * @return source of the transition
+     */
+    public int getPredecessor(int state, int index) {
+        return predecessors[predecessorStart[state] + index];
+    }
+
+    /**
+     * Collects the transitions in primitive growable arrays
+     */
+    private static final class Builder {
+
+        /**
+         * Initial capacity of the transition arrays
+         */
+        private static final int INITIAL_CAPACITY = 1024;
+
+        /**
+         * Source state of each transition
+         */
+        private int[] sources = new int[INITIAL_CAPACITY];
+
+        /**
+         * Target state of each transition
+         */
+        private int[] targets = new int[INITIAL_CAPACITY];
+
+        /**
+         * Rate of each transition
+         */
+        private double[] rates = new double[INITIAL_CAPACITY];
+
+        /**
+         * Number of transitions added
+         */
+        private int size = 0;
+
+        /**
+         * States seen either as a source or a target
+         */
+        private final BitSet present = new BitSet();
+
+        /**
+         * @param state state id which may have no transitions
+         */
+        private void addState(int state) {
+            present.set(state);
+        }
+
+        /**
+         * @param source source state id
+         * @param target target state id
+         * @param rate   rate of the transition
+         */
+        private void addTransition(int source, int target, double rate) {
+            present.set(target);
+            if (size == sources.length) {
+                int capacity = size + (size >> 1);
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                rates = Arrays.copyOf(rates, capacity);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            rates[size] = rate;
+            size++;
+        }
+
+        /**
+         * @return graph of the transitions added
+         */
+        private StateGraph build() {
+            return new StateGraph(sources, targets, rates, size, present);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package pipe.gui.statespace;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Snapshot of a partially completed exploration written by the
+ * {@link CheckpointingStateSpaceExplorer}.
+ * <p>
+ * The explored state set is not stored here, it is already in the states file up to
+ * {@link MappedStateSpaceWriter.Position#statesLength}. The checkpoint records where the
+ * binaries end, the next free state id and the frontier of states whose successors have
+ * not yet been explored, in the order they will be explored. It also records the key of
+ * the net and exploration settings that produced it, so that a checkpoint left behind by a
+ * different net or different settings is never continued from.
+ * </p>
+ * <p>
+ * Checkpoints are written to a temporary file and moved into place so that a crash whilst
+ * writing leaves the previous checkpoint intact.
+ * </p>
+ */
+public final class StateSpaceCheckpoint {
+
+    /**
+     * Identifies checkpoint files, "PIPECK01" in ASCII
+     */
+    private static final long MAGIC = 0x504950454B433031L;
+
+    /**
+     * Checkpoint format version
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Key of the net and exploration settings, see {@link pipe.gui.cache.ResultCache#key}
+     */
+    private final String key;
+
+    /**
+     * Position in the binaries
+     */
+    private final MappedStateSpaceWriter.Position position;
+
+    /**
+     * Next free state id
+     */
+    private final int nextId;
+
+    /**
+     * Ids of the states still to be explored, in exploration order
+     */
+    private final int[] frontier;
+
+    /**
+     * @param key      key of the net and exploration settings being explored
+     * @param position position in the binaries
+     * @param nextId   next free state id
+     * @param frontier ids of the states still to be explored, in exploration order
+     */
+    public StateSpaceCheckpoint(String key, MappedStateSpaceWriter.Position position, int nextId, int[] frontier) {
+        this.key = key;
+        this.position = position;
+        this.nextId = nextId;
+        this.frontier = frontier.clone();
+    }
+
+    /**
+     * @param path checkpoint file
+     * @return checkpoint read from the file
+     * @throws IOException if the file is not a valid checkpoint
+     */
+    public static StateSpaceCheckpoint read(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (input.readLong() != MAGIC) {
+                throw new IOException(path + " is not a state space checkpoint");
+            }
+            int version = input.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            String key = input.readUTF();
+            long transitionsLength = input.readLong();
+            long statesLength = input.readLong();
+            long transitionCount = input.readLong();
+            List<String> places = readNames(input);
+            List<String> tokens = readNames(input);
+            int nextId = input.readInt();
+            int[] frontier = new int[input.readInt()];
+            for (int i = 0; i < frontier.length; i++) {
+                frontier[i] = input.readInt();
+            }
+            return new StateSpaceCheckpoint(key, new MappedStateSpaceWriter.Position(transitionsLength, statesLength,
+                    transitionCount, places, tokens), nextId, frontier);
+        }
+    }
+
+    /**
+     * @param input checkpoint input
+     * @return names read as a count followed by length prefixed UTF-8 strings
+     * @throws IOException if the read fails
+     */
+    private static List<String> readNames(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] encoded = new byte[input.readInt()];
+            input.readFully(encoded);
+            names.add(new String(encoded, StandardCharsets.UTF_8));
+        }
+        return names;
+    }
+
+    /**
+     * Atomically replaces the checkpoint file with this checkpoint
+     *
+     * @param path checkpoint file
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void write(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temporary.toFile()), 1 << 16))) {
+            output.writeLong(MAGIC);
+            output.writeInt(VERSION);
+            output.writeUTF(key);
+            output.writeLong(position.transitionsLength);
+            output.writeLong(position.statesLength);
+            output.writeLong(position.transitionCount);
+            writeNames(output, position.places);
+            writeNames(output, position.tokens);
+            output.writeInt(nextId);
+            output.writeInt(frontier.length);
+            for (int id : frontier) {
+                output.writeInt(id);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param output checkpoint output
+     * @param names  names to write as a count followed by length prefixed UTF-8 strings
+     * @throws IOException if the write fails
+     */
+    private static void writeNames(DataOutputStream output, List<String> names) throws IOException {
+        output.writeInt(names.size());
+        for (String name : names) {
+            byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(encoded.length);
+            output.write(encoded);
+        }
+    }
+
+    /**
+     * @return key of the net and exploration settings being explored
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return position in the binaries
+     */
+    public MappedStateSpaceWriter.Position getPosition() {
+        return position;
+    }
+
+    /**
+     * @return next free state id
+     */
+    public int getNextId() {
+        return nextId;
+    }
+
+    /**
+     * @return ids of the states still to be explored, in exploration order
+     */
+    public int[] getFrontier() {
+        return Arrays.copyOf(frontier, frontier.length);
+    }
+}
@@ -0,0 +1,506 @@
+package pipe.gui.statespace;
+
+import com.esotericsoftware.kryo.io.Input;
+import pipe.gui.steadystate.GeneratorMatrix;
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.StateSpaceExplorer;
+import pipe.reachability.algorithm.TimelessTrapException;
+import pipe.reachability.algorithm.VanishingExplorer;
+import pipe.reachability.algorithm.sequential.SequentialStateSpaceExplorer;
+import uk.ac.imperial.io.*;
+import uk.ac.imperial.pipe.exceptions.InvalidRateException;
+import uk.ac.imperial.state.ClassifiedState;
+import uk.ac.imperial.state.Record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates the state space of a Petri net into a pair of binary files, one containing
+ * the transitions between states and one containing the integer to state mappings.
+ * <p>
+ * The files are written in the memory mapped {@link StateSpaceStore} format and read
+ * back as lazy views so that large state spaces are never held on the heap. Binaries in
+ * the older Kryo stream format can still be read, but are loaded in their entirety.
+ * Each file is mapped once, when first read, and every view returned shares the mapping.
+ * Closing the generator unmaps the files, so they can be deleted even on platforms that lock
+ * mapped files, and the views must not be used afterwards.
+ * </p>
+ * <p>
+ * This class has no dependency on Swing or AWT so that it can be used both behind the
+ * analysis panels and from the command line on headless machines.
+ * </p>
+ */
+public class StateSpaceGenerator implements Closeable {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = Logger.getLogger(StateSpaceGenerator.class.getName());
+
+    /**
+     * Name of the transitions file in a checkpoint directory
+     */
+    public static final String TRANSITIONS_FILE = "transitions.bin";
+
+    /**
+     * Name of the states file in a checkpoint directory
+     */
+    public static final String STATES_FILE = "states.bin";
+
+    /**
+     * Name of the checkpoint file in a checkpoint directory
+     */
+    public static final String CHECKPOINT_FILE = "exploration.checkpoint";
+
+    /**
+     * Binary file containing the transitions between states
+     */
+    private final Path transitions;
+
+    /**
+     * Binary file containing the integer to state mappings
+     */
+    private final Path states;
+
+    /**
+     * Reader of binary files in the legacy Kryo format
+     */
+    private final KryoStateIO stateIO = new KryoStateIO();
+
+    /**
+     * Mapped view of the transitions file, null until it is first read
+     */
+    private MappedTransitions mappedTransitions;
+
+    /**
+     * Mapped view of the states file, null until it is first read
+     */
+    private MappedStates mappedStates;
+
+    /**
+     * Monitor of the next exploration, may be null
+     */
+    private ExplorationMonitor monitor;
+
+    /**
+     * Scheduling of the last parallel exploration, null if it was sequential
+     */
+    private SchedulerStatistics schedulerStatistics;
+
+    /**
+     * Constructor
+     *
+     * @param transitions binary transitions file
+     * @param states      binary states file
+     */
+    public StateSpaceGenerator(Path transitions, Path states) {
+        this.transitions = transitions;
+        this.states = states;
+    }
+
+    /**
+     * @return generator which writes into newly created temporary files
+     * @throws IOException if the temporary files cannot be created
+     */
+    public static StateSpaceGenerator temporary() throws IOException {
+        return new StateSpaceGenerator(Files.createTempFile("transitions", ".tmp"),
+                Files.createTempFile("states", ".tmp"));
+    }
+
+    /**
+     * @param directory checkpoint directory, created if it does not exist
+     * @return generator which writes into the binaries of the checkpoint directory
+     * @throws IOException if the directory cannot be created
+     */
+    public static StateSpaceGenerator inDirectory(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new StateSpaceGenerator(directory.resolve(TRANSITIONS_FILE), directory.resolve(STATES_FILE));
+    }
+
+    /**
+     * @param directory checkpoint directory
+     * @return checkpoint file in the directory
+     */
+    public static Path checkpointFile(Path directory) {
+        return directory.resolve(CHECKPOINT_FILE);
+    }
+
+    /**
+     * @param monitor monitor reporting the progress of, and able to stop, subsequent explorations
+     */
+    public void setMonitor(ExplorationMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * @return parameters chosen by the scheduler of the last exploration and the utilisation
+     * of its worker threads, null if the last exploration was sequential
+     */
+    public SchedulerStatistics getSchedulerStatistics() {
+        return schedulerStatistics;
+    }
+
+    /**
+     * @return binary transitions file
+     */
+    public Path getTransitions() {
+        return transitions;
+    }
+
+    /**
+     * @return binary states file
+     */
+    public Path getStates() {
+        return states;
+    }
+
+    /**
+     * Explores the state space starting at the current state of the explorer utilities and
+     * writes it to the transitions and states files
+     *
+     * @param explorerUtilities explorer utilities
+     * @param vanishingExplorer vanishing explorer
+     * @param threads           number of worker threads to use, one means sequential exploration
+     * @return state space explorer results
+     * @throws TimelessTrapException unable to exit cyclic vanishing state
+     * @throws InterruptedException  thread interrupted
+     * @throws ExecutionException    task aborted due to exception
+     * @throws IOException           error doing IO
+     * @throws InvalidRateException  functional rate expression invalid
+     */
+    public StateSpaceExplorer.StateSpaceExplorerResults generate(ExplorerUtilities explorerUtilities,
+                                                                 VanishingExplorer vanishingExplorer, int threads)
+            throws IOException, TimelessTrapException, ExecutionException, InvalidRateException, InterruptedException {
+        return generate(explorerUtilities, vanishingExplorer, threads, null);
+    }
+
+    /**
+     * Explores the state space as above, additionally streaming every state and transition
+     * to the given processor as it is written. This lets consumers such as a
+     * {@link pipe.gui.steadystate.GeneratorMatrixBuilder} assemble their own representation
+     * without reading the binaries back.
+     *
+     * @param explorerUtilities explorer utilities
+     * @param vanishingExplorer vanishing explorer
+     * @param threads           number of worker threads to use, one means sequential exploration
+     * @param sink              additional processor, may be null
+     * @return state space explorer results
+     * @throws TimelessTrapException unable to exit cyclic vanishing state
+     * @throws InterruptedException  thread interrupted
+     * @throws ExecutionException    task aborted due to exception
+     * @throws IOException           error doing IO
+     * @throws InvalidRateException  functional rate expression invalid
+     */
+    public StateSpaceExplorer.StateSpaceExplorerResults generate(ExplorerUtilities explorerUtilities,
+                                                                 VanishingExplorer vanishingExplorer, int threads,
+                                                                 StateProcessor sink)
+            throws IOException, TimelessTrapException, ExecutionException, InvalidRateException, InterruptedException {
+        close();
+        try (MappedStateSpaceWriter writer = new MappedStateSpaceWriter(transitions, states)) {
+            StateProcessor processor = monitored(sink == null ? writer : new TeeProcessor(writer, sink));
+            ExplorerUtilities utilities = monitor == null ? explorerUtilities : monitor.monitor(explorerUtilities);
+            StateSpaceExplorer explorer = createExplorer(utilities, vanishingExplorer, processor, threads);
+            StateSpaceExplorer.StateSpaceExplorerResults results;
+            try {
+                results = explorer.generate(utilities.getCurrentState());
+            } catch (IllegalStateException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw e;
+            } finally {
+                schedulerStatistics = explorer instanceof AdaptiveStateSpaceExplorer ?
+                        ((AdaptiveStateSpaceExplorer) explorer).getStatistics() : null;
+            }
+            checkNotCancelled();
+            writer.finish();
+            return results;
+        }
+    }
+
+    /**
+     * Explores the state space as {@link #generate(ExplorerUtilities, VanishingExplorer, int, StateProcessor)}
+     * does, but with a {@link CheckpointingStateSpaceExplorer} that periodically records its
+     * progress in the checkpoint file. If the checkpoint file already exists exploration
+     * continues from it, replaying the states and transitions already written to the sink
+     * first. A checkpoint whose key differs was left by another net or other exploration
+     * settings, so it is discarded and exploration starts again from the initial state. The
+     * checkpoint is deleted once the state space is complete. A monitored
+     * exploration is stopped by interrupting the exploring thread, which leaves a checkpoint
+     * to continue from.
+     *
+     * @param explorerUtilities explorer utilities
+     * @param vanishingExplorer vanishing explorer
+     * @param threads           number of worker threads to use
+     * @param sink              additional processor, may be null
+     * @param key               key of the net and exploration settings, see
+     *                          {@link pipe.gui.cache.ResultCache#key}
+     * @param checkpoint        checkpoint file
+     * @param intervalMillis    minimum time between checkpoints in milliseconds
+     * @return state space explorer results
+     * @throws TimelessTrapException unable to exit cyclic vanishing state
+     * @throws InterruptedException  thread interrupted, a checkpoint will have been written
+     * @throws ExecutionException    task aborted due to exception
+     * @throws IOException           error doing IO
+     * @throws InvalidRateException  functional rate expression invalid
+     */
+    public StateSpaceExplorer.StateSpaceExplorerResults generateCheckpointed(ExplorerUtilities explorerUtilities,
+                                                                             VanishingExplorer vanishingExplorer,
+                                                                             int threads, StateProcessor sink,
+                                                                             String key, Path checkpoint,
+                                                                             long intervalMillis)
+            throws IOException, TimelessTrapException, ExecutionException, InvalidRateException, InterruptedException {
+        close();
+        StateSpaceCheckpoint saved = Files.exists(checkpoint) ? StateSpaceCheckpoint.read(checkpoint) : null;
+        if (saved != null && !saved.getKey().equals(key)) {
+            LOGGER.log(Level.WARNING, "Ignoring {0}, it was written for a different net or different exploration "
+                    + "settings, exploring from the initial state instead", checkpoint);
+            Files.delete(checkpoint);
+            saved = null;
+        } else if (saved != null) {
+            LOGGER.log(Level.INFO, "Continuing exploration from {0}", checkpoint);
+        }
+        final CompactStateIndex written = new CompactStateIndex();
+        MappedStateSpaceWriter writer;
+        if (saved == null) {
+            writer = new MappedStateSpaceWriter(transitions, states);
+        } else {
+            StateProcessor collector = new StateProcessor() {
+                @Override
+                public void processTransitions(int state, Map<Integer, Double> successorRates) {
+                    // Only the states are needed to continue exploring
+                }
+
+                @Override
+                public void processState(ClassifiedState state, int id) {
+                    if (written.add(state) != id) {
+                        throw new IllegalStateException("State " + id + " is out of order in " + states);
+                    }
+                }
+            };
+            writer = MappedStateSpaceWriter.resume(transitions, states, saved.getPosition(),
+                    sink == null ? collector : new TeeProcessor(collector, sink));
+        }
+        try {
+            StateProcessor processor = monitored(sink == null ? writer : new TeeProcessor(writer, sink));
+            CheckpointingStateSpaceExplorer explorer =
+                    new CheckpointingStateSpaceExplorer(explorerUtilities, vanishingExplorer, writer, processor,
+                            threads, key, checkpoint, intervalMillis);
+            if (saved != null) {
+                explorer.restore(written, saved);
+                if (monitor != null) {
+                    monitor.restored(written.size(), saved.getFrontier().length,
+                            saved.getPosition().transitionCount);
+                }
+            }
+            StateSpaceExplorer.StateSpaceExplorerResults results;
+            try {
+                results = explorer.generate(explorerUtilities.getCurrentState());
+            } catch (IllegalStateException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw e;
+            } finally {
+                schedulerStatistics = explorer.getStatistics();
+            }
+            checkNotCancelled();
+            writer.finish();
+            Files.deleteIfExists(checkpoint);
+            return results;
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @param processor processor the explorer writes to
+     * @return processor counting into the monitor, or the processor itself if there is no monitor
+     */
+    private StateProcessor monitored(StateProcessor processor) {
+        return monitor == null ? processor : monitor.monitor(processor);
+    }
+
+    /**
+     * Explorers stopped through the monitor return as though exploration had completed, so
+     * the binaries must not be finished
+     *
+     * @throws InterruptedException if the monitor has been cancelled
+     */
+    private void checkNotCancelled() throws InterruptedException {
+        if (monitor != null && monitor.isCancelled()) {
+            throw new InterruptedException("State space exploration stopped");
+        }
+    }
+
+    /**
+     * @param explorerUtilities explorer utilities
+     * @param vanishingExplorer vanishing explorer
+     * @param processor         processor to write the results to
+     * @param threads           number of worker threads
+     * @return sequential explorer for a single thread, otherwise an adaptive work stealing explorer
+     */
+    public static StateSpaceExplorer createExplorer(ExplorerUtilities explorerUtilities,
+                                                    VanishingExplorer vanishingExplorer, StateProcessor processor,
+                                                    int threads) {
+        if (threads == 1) {
+            return new SequentialStateSpaceExplorer(explorerUtilities, vanishingExplorer, processor);
+        }
+        return new AdaptiveStateSpaceExplorer(explorerUtilities, vanishingExplorer, processor, threads);
+    }
+
+    /**
+     * Reads the number of states and transitions in the transitions file
+     *
+     * @return state space explorer results
+     * @throws IOException if the transitions cannot be read
+     */
+    public StateSpaceExplorer.StateSpaceExplorerResults readResults() throws IOException {
+        if (StateSpaceStore.isStore(transitions)) {
+            MappedTransitions mapped = mappedTransitions();
+            return new StateSpaceExplorer.StateSpaceExplorerResults((int) mapped.getTransitionCount(), mapped.size());
+        }
+        Collection<Record> records = readRecords();
+        int transitionCount = 0;
+        for (Record record : records) {
+            transitionCount += record.successors.size();
+        }
+        return new StateSpaceExplorer.StateSpaceExplorerResults(transitionCount, records.size());
+    }
+
+    /**
+     * @return state transitions with rates
+     * @throws IOException error doing IO
+     */
+    public Collection<Record> readRecords() throws IOException {
+        if (StateSpaceStore.isStore(transitions)) {
+            return mappedTransitions();
+        }
+        try (InputStream inputStream = Files.newInputStream(transitions);
+             Input input = new Input(inputStream)) {
+            MultiStateReader reader = new EntireStateReader(stateIO);
+            return reader.readRecords(input);
+        }
+    }
+
+    /**
+     * Builds the generator matrix from the transitions file. Mapped stores are read with
+     * a cursor so no records are decoded.
+     *
+     * @return generator matrix of the state space
+     * @throws IOException error doing IO
+     */
+    public GeneratorMatrix readGeneratorMatrix() throws IOException {
+        if (StateSpaceStore.isStore(transitions)) {
+            return GeneratorMatrix.fromTransitions(mappedTransitions());
+        }
+        return GeneratorMatrix.fromRecords(readRecords());
+    }
+
+    /**
+     * Builds the transition graph from the transitions file. Mapped stores are read with
+     * a cursor so no records are decoded.
+     *
+     * @return graph of the state space
+     * @throws IOException error doing IO
+     */
+    public StateGraph readGraph() throws IOException {
+        if (StateSpaceStore.isStore(transitions)) {
+            return StateGraph.fromTransitions(mappedTransitions());
+        }
+        return StateGraph.fromRecords(readRecords());
+    }
+
+    /**
+     * Mapped stores are read as a lazy view of the file. Legacy binaries have to be read in
+     * their entirety, so their states are packed into {@link CompactStates} once read.
+     *
+     * @return mapping of integer state representation to the classified state it represents
+     * @throws IOException error doing IO
+     */
+    public synchronized Map<Integer, ClassifiedState> readMappings() throws IOException {
+        if (StateSpaceStore.isStore(states)) {
+            if (mappedStates == null) {
+                mappedStates = MappedStates.open(states);
+            }
+            return mappedStates;
+        }
+        try (InputStream inputStream = Files.newInputStream(states);
+             Input input = new Input(inputStream)) {
+            MultiStateReader reader = new EntireStateReader(stateIO);
+            return new CompactStates(reader.readStates(input));
+        }
+    }
+
+    /**
+     * Unmaps the binaries. Views read before closing must not be used afterwards, the
+     * binaries are mapped again if read after closing.
+     */
+    @Override
+    public synchronized void close() {
+        if (mappedTransitions != null) {
+            mappedTransitions.close();
+            mappedTransitions = null;
+        }
+        if (mappedStates != null) {
+            mappedStates.close();
+            mappedStates = null;
+        }
+    }
+
+    /**
+     * @return mapped view of the transitions file, mapping it if it has not been read before
+     * @throws IOException if the file is not a transitions store
+     */
+    private synchronized MappedTransitions mappedTransitions() throws IOException {
+        if (mappedTransitions == null) {
+            mappedTransitions = MappedTransitions.open(transitions);
+        }
+        return mappedTransitions;
+    }
+
+    /**
+     * Forwards everything written to the state space files on to a second processor
+     */
+    private static final class TeeProcessor implements StateProcessor {
+        /**
+         * Processor writing the binaries
+         */
+        private final StateProcessor writer;
+
+        /**
+         * Additional processor
+         */
+        private final StateProcessor sink;
+
+        /**
+         * @param writer processor writing the binaries
+         * @param sink   additional processor
+         */
+        private TeeProcessor(StateProcessor writer, StateProcessor sink) {
+            this.writer = writer;
+            this.sink = sink;
+        }
+
+        @Override
+        public void processTransitions(int state, Map<Integer, Double> successorRates) {
+            writer.processTransitions(state, successorRates);
+            sink.processTransitions(state, successorRates);
+        }
+
+        @Override
+        public void processState(ClassifiedState state, int id) {
+            writer.processState(state, id);
+            sink.processState(state, id);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package pipe.gui.statespace;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * On disk format of the memory mapped state space binaries.
+ * <p>
+ * Both the transitions and the states file share the same layout:
+ * </p>
+ * <pre>
+ *  0  long  magic number
+ *  8  int   format version
+ * 12  int   file type, transitions or states
+ * 16  int   number of records
+ * 20  int   number of index entries, i.e. largest state id + 1
+ * 24  long  total number of transitions (transitions file only)
+ * 32  long  offset of the index
+ * 40  long  offset of the schema
+ * 48  reserved up to HEADER_SIZE
+ * 64  records
+ *     index, one long offset per state id, -1 if there is no record for the id
+ *     schema, place and token names (states file only)
+ * </pre>
+ * <p>
+ * A transitions record is the state id, the number of successors and then a
+ * successor id, rate pair per successor. A states record is the state id, a tangible
+ * flag byte and then a token count per place per token in schema order.
+ * </p>
+ */
+public final class StateSpaceStore {
+
+    /**
+     * Magic number identifying the format, "PIPESS01"
+     */
+    static final long MAGIC = 0x5049504553533031L;
+
+    /**
+     * Current format version
+     */
+    static final int VERSION = 1;
+
+    /**
+     * File type of the transitions file
+     */
+    static final int TRANSITIONS = 1;
+
+    /**
+     * File type of the states file
+     */
+    static final int STATES = 2;
+
+    /**
+     * Size of the fixed header in bytes
+     */
+    static final int HEADER_SIZE = 64;
+
+    /**
+     * Value stored in the index for ids with no record
+     */
+    static final long NO_RECORD = -1;
+
+    /**
+     * Size of a single successor entry in a transitions record
+     */
+    static final int SUCCESSOR_SIZE = 12;
+
+    /**
+     * Private constructor, static utility class
+     */
+    private StateSpaceStore() {
+    }
+
+    /**
+     * Checks the magic number so that binaries written by older versions
+     * of PIPE can still be loaded through the Kryo readers
+     *
+     * @param path binary file
+     * @return true if the file is in the memory mapped store format
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isStore(Path path) throws IOException {
+        if (Files.size(path) < HEADER_SIZE) {
+            return false;
+        }
+        try (InputStream stream = Files.newInputStream(path);
+             DataInputStream input = new DataInputStream(stream)) {
+            return input.readLong() == MAGIC;
+        }
+    }
+
+    /**
+     * Parsed header of a store file
+     */
+    static final class Header {
+        /**
+         * Number of records
+         */
+        final int records;
+
+        /**
+         * Number of index entries
+         */
+        final int indexEntries;
+
+        /**
+         * Total number of transitions
+         */
+        final long transitions;
+
+        /**
+         * Offset of the index
+         */
+        final long indexOffset;
+
+        /**
+         * Offset of the schema
+         */
+        final long schemaOffset;
+
+        /**
+         * Reads and validates the header
+         *
+         * @param region mapped file
+         * @param type   expected file type
+         * @throws IOException if the file is not a store of the expected type
+         */
+        Header(MappedRegion region, int type) throws IOException {
+            if (region.size() < HEADER_SIZE || region.getLong(0) != MAGIC) {
+                throw new IOException("Not a PIPE state space store");
+            }
+            if (region.getInt(8) != VERSION) {
+                throw new IOException("Unsupported state space store version " + region.getInt(8));
+            }
+            if (region.getInt(12) != type) {
+                throw new IOException(type == TRANSITIONS ? "Expected a transitions file but found a states file" :
+                        "Expected a states file but found a transitions file");
+            }
+            records = region.getInt(16);
+            indexEntries = region.getInt(20);
+            transitions = region.getLong(24);
+            indexOffset = region.getLong(32);
+            schemaOffset = region.getLong(40);
+        }
+    }
+}
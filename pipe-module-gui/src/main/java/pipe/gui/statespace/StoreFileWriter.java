@@ -0,0 +1,340 @@
+package pipe.gui.statespace;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Streams records into a single store file.
+ * <p>
+ * Records are appended in the order they arrive while their (id, offset) pairs are
+ * spilled to a temporary file. On {@link #finish} the spilled pairs are scattered into a
+ * dense memory mapped index at the end of the file and the header is written, so memory
+ * use stays constant no matter how large the state space is.
+ * </p>
+ * <p>
+ * Since the index is only written at the end, a partially written file can be resumed
+ * by truncating it to a length returned by {@link #flush()} and restoring the index entries
+ * of the records before that point with {@link #restoreRecord(int, long)}.
+ * </p>
+ * <p>
+ * Records are written through a {@link FileOutputStream} rather than a channel so that
+ * interrupting the exploring thread to stop it does not close the file.
+ * </p>
+ */
+final class StoreFileWriter implements Closeable {
+
+    /**
+     * Maximum number of index bytes mapped at once whilst building the index
+     */
+    private static final long INDEX_CHUNK = 1L << 30;
+
+    /**
+     * Destination file
+     */
+    private final Path path;
+
+    /**
+     * File type written into the header
+     */
+    private final int type;
+
+    /**
+     * Counts the bytes written to the destination file, used instead of
+     * {@link DataOutputStream#size()} which stops counting at 2GB
+     */
+    private final CountingOutputStream counter;
+
+    /**
+     * Record output
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Temporary file holding the (id, offset) pairs
+     */
+    private final Path spill;
+
+    /**
+     * Output to the temporary index file
+     */
+    private final DataOutputStream spillOut;
+
+    /**
+     * Number of records written
+     */
+    private int records = 0;
+
+    /**
+     * Largest id written
+     */
+    private int maxId = -1;
+
+    /**
+     * True once finished or closed
+     */
+    private boolean closed = false;
+
+    /**
+     * @param path destination file
+     * @param type file type
+     * @throws IOException if the files cannot be created
+     */
+    StoreFileWriter(Path path, int type) throws IOException {
+        this(path, type, new FileOutputStream(path.toFile()), 0);
+        out.write(new byte[StateSpaceStore.HEADER_SIZE]);
+    }
+
+    /**
+     * @param path   destination file
+     * @param type   file type
+     * @param stream output to the destination file
+     * @param length number of bytes already in the destination file
+     * @throws IOException if the temporary index file cannot be created
+     */
+    private StoreFileWriter(Path path, int type, OutputStream stream, long length) throws IOException {
+        this.path = path;
+        this.type = type;
+        counter = new CountingOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        counter.count = length;
+        out = new DataOutputStream(counter);
+        spill = Files.createTempFile("index", ".tmp");
+        spillOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spill.toFile()), 1 << 16));
+    }
+
+    /**
+     * Reopens a partially written file for appending. The index entries of the records
+     * already in the file must be restored with {@link #restoreRecord(int, long)}.
+     *
+     * @param path   destination file
+     * @param type   file type
+     * @param length length of the file at the checkpoint, anything after this is discarded
+     * @return writer appending at length
+     * @throws IOException if the file is shorter than length or cannot be opened
+     */
+    static StoreFileWriter resume(Path path, int type, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (channel.size() < length) {
+                throw new IOException("State space file " + path + " is shorter than its checkpoint");
+            }
+            channel.truncate(length);
+        }
+        return new StoreFileWriter(path, type, new FileOutputStream(path.toFile(), true), length);
+    }
+
+    /**
+     * Restores the index entry of a record written before resuming
+     *
+     * @param id     id of the record
+     * @param offset offset of the record in the file
+     * @throws IOException if the index entry cannot be written
+     */
+    void restoreRecord(int id, long offset) throws IOException {
+        spillOut.writeInt(id);
+        spillOut.writeLong(offset);
+        records++;
+        maxId = Math.max(maxId, id);
+    }
+
+    /**
+     * Flushes all buffered records to the file
+     *
+     * @return length of the file, the position to resume from
+     * @throws IOException if the flush fails
+     */
+    long flush() throws IOException {
+        out.flush();
+        spillOut.flush();
+        return counter.count;
+    }
+
+    /**
+     * Registers the start of a new record
+     *
+     * @param id of the record
+     * @return stream to write the record body to
+     * @throws IOException if the index entry cannot be written
+     */
+    DataOutputStream beginRecord(int id) throws IOException {
+        spillOut.writeInt(id);
+        spillOut.writeLong(counter.count);
+        records++;
+        maxId = Math.max(maxId, id);
+        return out;
+    }
+
+    /**
+     * Writes the index, schema and header and closes the file
+     *
+     * @param transitions total number of transitions
+     * @param places      place names, empty for a transitions file
+     * @param tokens      token names, empty for a transitions file
+     * @throws IOException if the file cannot be written
+     */
+    void finish(long transitions, List<String> places, List<String> tokens) throws IOException {
+        long indexOffset = counter.count;
+        out.close();
+        spillOut.close();
+        closed = true;
+
+        int indexEntries = maxId + 1;
+        long schemaOffset = indexOffset + 8L * indexEntries;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            writeIndex(channel, indexOffset, indexEntries);
+            writeSchema(channel, schemaOffset, places, tokens);
+            writeHeader(channel, indexEntries, transitions, indexOffset, schemaOffset);
+        } finally {
+            Files.deleteIfExists(spill);
+        }
+    }
+
+    /**
+     * Scatters the spilled (id, offset) pairs into the index, one chunk of the index at a time
+     *
+     * @param channel      destination channel
+     * @param indexOffset  start of the index
+     * @param indexEntries number of index entries
+     * @throws IOException if the index cannot be written
+     */
+    private void writeIndex(FileChannel channel, long indexOffset, int indexEntries) throws IOException {
+        long indexSize = 8L * indexEntries;
+        for (long chunkStart = 0; chunkStart < indexSize; chunkStart += INDEX_CHUNK) {
+            long chunkSize = Math.min(INDEX_CHUNK, indexSize - chunkStart);
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_WRITE, indexOffset + chunkStart, chunkSize);
+            for (int i = 0; i < chunkSize; i += 8) {
+                index.putLong(i, StateSpaceStore.NO_RECORD);
+            }
+            try (InputStream stream = new BufferedInputStream(Files.newInputStream(spill), 1 << 16);
+                 DataInputStream input = new DataInputStream(stream)) {
+                for (int i = 0; i < records; i++) {
+                    long position = 8L * input.readInt() - chunkStart;
+                    long offset = input.readLong();
+                    if (position >= 0 && position < chunkSize) {
+                        index.putLong((int) position, offset);
+                    }
+                }
+            }
+            index.force();
+        }
+    }
+
+    /**
+     * Writes the place and token names
+     *
+     * @param channel      destination channel
+     * @param schemaOffset start of the schema
+     * @param places       place names
+     * @param tokens       token names
+     * @throws IOException if the schema cannot be written
+     */
+    private void writeSchema(FileChannel channel, long schemaOffset, List<String> places, List<String> tokens)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream schema = new DataOutputStream(bytes);
+        writeNames(schema, places);
+        writeNames(schema, tokens);
+        schema.flush();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        long position = schemaOffset;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * @param schema output
+     * @param names  names to write as a count followed by length prefixed UTF-8 strings
+     * @throws IOException if the write fails
+     */
+    private void writeNames(DataOutputStream schema, List<String> names) throws IOException {
+        schema.writeInt(names.size());
+        for (String name : names) {
+            byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+            schema.writeInt(encoded.length);
+            schema.write(encoded);
+        }
+    }
+
+    /**
+     * Writes the header at the start of the file
+     *
+     * @param channel      destination channel
+     * @param indexEntries number of index entries
+     * @param transitions  total number of transitions
+     * @param indexOffset  start of the index
+     * @param schemaOffset start of the schema
+     * @throws IOException if the header cannot be written
+     */
+    private void writeHeader(FileChannel channel, int indexEntries, long transitions, long indexOffset,
+                             long schemaOffset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(StateSpaceStore.HEADER_SIZE);
+        header.putLong(StateSpaceStore.MAGIC);
+        header.putInt(StateSpaceStore.VERSION);
+        header.putInt(type);
+        header.putInt(records);
+        header.putInt(indexEntries);
+        header.putLong(transitions);
+        header.putLong(indexOffset);
+        header.putLong(schemaOffset);
+        header.rewind();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+        channel.force(true);
+    }
+
+    /**
+     * Closes the streams without writing an index, leaving an invalid file.
+     * Used when exploration fails part way through.
+     *
+     * @throws IOException if the streams cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                out.close();
+                spillOut.close();
+            } finally {
+                Files.deleteIfExists(spill);
+            }
+        }
+    }
+
+    /**
+     * Output stream which counts the bytes that have passed through it
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        /**
+         * Number of bytes written
+         */
+        private long count = 0;
+
+        /**
+         * @param out underlying stream
+         */
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
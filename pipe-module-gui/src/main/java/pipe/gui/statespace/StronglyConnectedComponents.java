@@ -0,0 +1,139 @@
+package pipe.gui.statespace;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of a {@link StateGraph}, found with an iterative version of
+ * Tarjan's algorithm so that long chains of states cannot overflow the call stack.
+ * <p>
+ * Components are numbered in the order Tarjan's algorithm completes them, which is a reverse
+ * topological order of the condensed graph: every transition between two different
+ * components goes from a higher numbered component to a lower numbered one.
+ * </p>
+ */
+public final class StronglyConnectedComponents {
+
+    /**
+     * Component of each state, -1 for ids that are not part of the state space
+     */
+    private final int[] components;
+
+    /**
+     * Start of each component's states in {@link #members}, with a final entry marking the end
+     */
+    private final int[] memberStart;
+
+    /**
+     * States grouped by component
+     */
+    private final int[] members;
+
+    /**
+     * @param graph graph to split into components
+     */
+    public StronglyConnectedComponents(StateGraph graph) {
+        int states = graph.getStateCount();
+        components = new int[states];
+        Arrays.fill(components, -1);
+        int[] index = new int[states];
+        Arrays.fill(index, -1);
+        int[] lowLink = new int[states];
+        boolean[] onStack = new boolean[states];
+        int[] stack = new int[states];
+        int stackSize = 0;
+        int[] callState = new int[states];
+        int[] callEdge = new int[states];
+        int count = 0;
+        int nextIndex = 0;
+        for (int root = 0; root < states; root++) {
+            if (!graph.isPresent(root) || index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callState[0] = root;
+            callEdge[0] = 0;
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int state = callState[depth];
+                if (callEdge[depth] < graph.getSuccessorCount(state)) {
+                    int successor = graph.getSuccessor(state, callEdge[depth]++);
+                    if (index[successor] < 0) {
+                        index[successor] = lowLink[successor] = nextIndex++;
+                        stack[stackSize++] = successor;
+                        onStack[successor] = true;
+                        depth++;
+                        callState[depth] = successor;
+                        callEdge[depth] = 0;
+                    } else if (onStack[successor]) {
+                        lowLink[state] = Math.min(lowLink[state], index[successor]);
+                    }
+                    continue;
+                }
+                if (lowLink[state] == index[state]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        components[member] = count;
+                    } while (member != state);
+                    count++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callState[depth];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[state]);
+                }
+            }
+        }
+        memberStart = new int[count + 1];
+        for (int component : components) {
+            if (component >= 0) {
+                memberStart[component + 1]++;
+            }
+        }
+        for (int component = 0; component < count; component++) {
+            memberStart[component + 1] += memberStart[component];
+        }
+        members = new int[memberStart[count]];
+        int[] next = Arrays.copyOf(memberStart, count);
+        for (int state = 0; state < states; state++) {
+            if (components[state] >= 0) {
+                members[next[components[state]]++] = state;
+            }
+        }
+    }
+
+    /**
+     * @return number of components
+     */
+    public int getComponentCount() {
+        return memberStart.length - 1;
+    }
+
+    /**
+     * @param state state id
+     * @return component of the state, -1 if it is not part of the state space
+     */
+    public int getComponent(int state) {
+        return state < components.length ? components[state] : -1;
+    }
+
+    /**
+     * @param component component number
+     * @return number of states in the component
+     */
+    public int getSize(int component) {
+        return memberStart[component + 1] - memberStart[component];
+    }
+
+    /**
+     * @param component component number
+     * @param index     member index, less than {@link #getSize(int)}
+     * @return id of the state
+     */
+    public int getMember(int component, int index) {
+        return members[memberStart[component] + index];
+    }
+}
@@ -0,0 +1,520 @@
+package pipe.gui.statespace;
+
+import pipe.reachability.algorithm.ExplorerUtilities;
+import uk.ac.imperial.pipe.exceptions.InvalidRateException;
+import uk.ac.imperial.pipe.models.petrinet.*;
+import uk.ac.imperial.pipe.parsers.FunctionalResults;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.util.*;
+
+/**
+ * Explorer utilities that only fire the enabled transitions of a stubborn set of each state,
+ * so that independent transitions are not explored in every interleaving. The reduced state
+ * graph keeps every deadlock of the full one and every state it contains is reachable, but
+ * it is not suitable for steady state analysis.
+ * <p>
+ * A stubborn set is closed under the following rules. An enabled transition brings in every
+ * transition it competes with for tokens or capacity, every transition whose inhibitor arcs
+ * it can change, every transition that can inhibit it and every transition of a higher
+ * priority. A disabled transition brings in the transitions that can remove the reason it is
+ * disabled: the producers of an input place short of tokens, or the consumers of a marked
+ * inhibitor place or full output place. Every enabled transition is tried as the seed and
+ * the set firing the fewest transitions is used.
+ * </p>
+ * <p>
+ * Priorities make firing a transition able to disable others, so a state falls back to
+ * firing every enabled transition whenever a stubborn transition can enable one of a higher
+ * priority. Nets with arc weights that depend on the marking, or with arcs other than normal
+ * and inhibitor arcs, are not reduced at all.
+ * </p>
+ */
+public final class StubbornSetExplorerUtilities implements ExplorerUtilities {
+
+    /**
+     * Utilities firing the transitions
+     */
+    private final ExplorerUtilities utilities;
+
+    /**
+     * Records how many transitions the reduction saves
+     */
+    private final ReductionStatistics statistics;
+
+    /**
+     * Index of each transition by id
+     */
+    private final Map<String, Integer> transitionIndex = new HashMap<>();
+
+    /**
+     * Place ids by index
+     */
+    private final List<String> places = new ArrayList<>();
+
+    /**
+     * Input places of each transition
+     */
+    private final int[][] inputs;
+
+    /**
+     * Weight of each input place of each transition by token
+     */
+    private final List<List<Map<String, Integer>>> inputWeights = new ArrayList<>();
+
+    /**
+     * Output places of each transition
+     */
+    private final int[][] outputs;
+
+    /**
+     * Inhibitor places of each transition
+     */
+    private final int[][] inhibitors;
+
+    /**
+     * Transitions putting tokens into each place
+     */
+    private final int[][] producers;
+
+    /**
+     * Transitions taking tokens from each place
+     */
+    private final int[][] consumers;
+
+    /**
+     * Transitions inhibited by each place
+     */
+    private final int[][] inhibited;
+
+    /**
+     * Capacity of each place, zero if unrestricted
+     */
+    private final int[] capacities;
+
+    /**
+     * Transitions of a higher priority than each transition
+     */
+    private final int[][] higherPriority;
+
+    /**
+     * True for transitions whose firing can enable a transition of a higher priority
+     */
+    private final boolean[] enablesHigherPriority;
+
+    /**
+     * False if the net cannot be reduced
+     */
+    private final boolean reducible;
+
+    /**
+     * @param petriNet   net being explored, the same one the utilities fire
+     * @param utilities  utilities firing the transitions of the net
+     * @param statistics records how many transitions the reduction saves, may be shared
+     *                   between explorations
+     */
+    public StubbornSetExplorerUtilities(PetriNet petriNet, ExplorerUtilities utilities,
+                                        ReductionStatistics statistics) {
+        this.utilities = utilities;
+        this.statistics = statistics;
+        Map<String, Integer> placeIndex = new HashMap<>();
+        for (Place place : petriNet.getPlaces()) {
+            placeIndex.put(place.getId(), places.size());
+            places.add(place.getId());
+        }
+        List<Transition> transitions = new ArrayList<>(petriNet.getTransitions());
+        for (Transition transition : transitions) {
+            transitionIndex.put(transition.getId(), transitionIndex.size());
+            inputWeights.add(new ArrayList<Map<String, Integer>>());
+        }
+        List<List<Integer>> in = lists(transitions.size());
+        List<List<Integer>> out = lists(transitions.size());
+        List<List<Integer>> inhibiting = lists(transitions.size());
+        boolean constant = true;
+        for (Arc<? extends Connectable, ? extends Connectable> arc : petriNet.getArcs()) {
+            boolean inbound = arc.getSource() instanceof Place;
+            int place = placeIndex.get(inbound ? arc.getSource().getId() : arc.getTarget().getId());
+            int transition = transitionIndex.get(inbound ? arc.getTarget().getId() : arc.getSource().getId());
+            if (arc.getType() == ArcType.INHIBITOR) {
+                inhibiting.get(transition).add(place);
+            } else if (arc.getType() != ArcType.NORMAL) {
+                constant = false;
+            } else if (inbound) {
+                Map<String, Integer> weights = weights(petriNet, arc.getTokenWeights(), placeIndex.keySet());
+                constant &= weights != null;
+                in.get(transition).add(place);
+                inputWeights.get(transition).add(weights);
+            } else {
+                out.get(transition).add(place);
+            }
+        }
+        inputs = toArrays(in);
+        outputs = toArrays(out);
+        inhibitors = toArrays(inhibiting);
+        producers = invert(outputs, places.size());
+        consumers = invert(inputs, places.size());
+        inhibited = invert(inhibitors, places.size());
+        capacities = new int[places.size()];
+        for (Place place : petriNet.getPlaces()) {
+            if (place.hasCapacityRestriction()) {
+                capacities[placeIndex.get(place.getId())] = place.getCapacity();
+            }
+        }
+        higherPriority = new int[transitions.size()][];
+        enablesHigherPriority = new boolean[transitions.size()];
+        for (int t = 0; t < transitions.size(); t++) {
+            List<Integer> higher = new ArrayList<>();
+            for (int v = 0; v < transitions.size(); v++) {
+                if (rank(transitions.get(v)) > rank(transitions.get(t))) {
+                    higher.add(v);
+                    enablesHigherPriority[t] |= intersects(inputs[v], outputs[t])
+                            || intersects(inhibitors[v], inputs[t]);
+                }
+            }
+            higherPriority[t] = toArray(higher);
+        }
+        reducible = constant;
+    }
+
+    /**
+     * @param transition transition
+     * @return rank of the transition, enabled transitions of a higher rank disable it
+     */
+    private static long rank(Transition transition) {
+        return (transition.isTimed() ? 0 : 1L << 32) + transition.getPriority();
+    }
+
+    /**
+     * @param petriNet    net the weights belong to
+     * @param expressions weight expression for each token
+     * @param placeIds    ids of the net's places
+     * @return weight of each token, null if a weight depends on the marking or is invalid
+     */
+    private static Map<String, Integer> weights(PetriNet petriNet, Map<String, String> expressions,
+                                                Set<String> placeIds) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (Map.Entry<String, String> entry : expressions.entrySet()) {
+            FunctionalResults<Double> result = petriNet.parseExpression(entry.getValue());
+            if (result.hasErrors() || !Collections.disjoint(result.getComponents(), placeIds)) {
+                return null;
+            }
+            weights.put(entry.getKey(), (int) Math.ceil(result.getResult()));
+        }
+        return weights;
+    }
+
+    /**
+     * Fires only the stubborn transitions of the state
+     *
+     * @param state state to expand
+     * @return successors reached by stubborn transitions and the transitions reaching them
+     */
+    @Override
+    public Map<ClassifiedState, Collection<Transition>> getSuccessorsWithTransitions(ClassifiedState state) {
+        Map<ClassifiedState, Collection<Transition>> successors = utilities.getSuccessorsWithTransitions(state);
+        Collection<Transition> enabled = utilities.getAllEnabledTransitions(state);
+        Set<String> stubborn = stubbornSet(state, enabled);
+        statistics.expanded(enabled.size(), stubborn == null ? enabled.size() : stubborn.size());
+        if (stubborn == null) {
+            return successors;
+        }
+        Map<ClassifiedState, Collection<Transition>> reduced = new HashMap<>();
+        for (Map.Entry<ClassifiedState, Collection<Transition>> entry : successors.entrySet()) {
+            Collection<Transition> fired = filter(entry.getValue(), stubborn);
+            if (!fired.isEmpty()) {
+                reduced.put(entry.getKey(), fired);
+            }
+        }
+        return reduced;
+    }
+
+    /**
+     * @param state state to expand
+     * @return successors reached by stubborn transitions
+     */
+    @Override
+    public Collection<ClassifiedState> getSuccessors(ClassifiedState state) {
+        return getSuccessorsWithTransitions(state).keySet();
+    }
+
+    /**
+     * @param state     state
+     * @param successor successor reached by stubborn transitions
+     * @return summed rate of the stubborn transitions from the state to the successor
+     * @throws InvalidRateException if a rate cannot be evaluated
+     */
+    @Override
+    public double rate(ClassifiedState state, ClassifiedState successor) throws InvalidRateException {
+        return utilities.getWeightOfTransitions(state, getTransitions(state, successor));
+    }
+
+    @Override
+    public ClassifiedState getCurrentState() {
+        return utilities.getCurrentState();
+    }
+
+    /**
+     * @param state     state
+     * @param successor successor state
+     * @return stubborn transitions from the state to the successor
+     */
+    @Override
+    public Collection<Transition> getTransitions(ClassifiedState state, ClassifiedState successor) {
+        Collection<Transition> transitions = utilities.getTransitions(state, successor);
+        Set<String> stubborn = stubbornSet(state, utilities.getAllEnabledTransitions(state));
+        return stubborn == null ? transitions : filter(transitions, stubborn);
+    }
+
+    @Override
+    public double getWeightOfTransitions(ClassifiedState state, Iterable<Transition> transitions)
+            throws InvalidRateException {
+        return utilities.getWeightOfTransitions(state, transitions);
+    }
+
+    @Override
+    public Collection<Transition> getAllEnabledTransitions(ClassifiedState state) {
+        return utilities.getAllEnabledTransitions(state);
+    }
+
+    @Override
+    public boolean canExploreMore(int stateCount) {
+        return utilities.canExploreMore(stateCount);
+    }
+
+    /**
+     * @param transitions transitions to filter
+     * @param stubborn    ids of the stubborn transitions
+     * @return the stubborn transitions
+     */
+    private static Collection<Transition> filter(Collection<Transition> transitions, Set<String> stubborn) {
+        List<Transition> filtered = new ArrayList<>();
+        for (Transition transition : transitions) {
+            if (stubborn.contains(transition.getId())) {
+                filtered.add(transition);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * @param state   state being expanded
+     * @param enabled transitions enabled in the state
+     * @return ids of the enabled transitions of the smallest stubborn set found, null if
+     * every enabled transition must fire
+     */
+    private Set<String> stubbornSet(ClassifiedState state, Collection<Transition> enabled) {
+        if (!reducible || enabled.size() <= 1) {
+            return null;
+        }
+        BitSet enabledSet = new BitSet();
+        for (Transition transition : enabled) {
+            enabledSet.set(transitionIndex.get(transition.getId()));
+        }
+        BitSet best = null;
+        for (int seed = enabledSet.nextSetBit(0); seed >= 0; seed = enabledSet.nextSetBit(seed + 1)) {
+            BitSet stubborn = close(state, seed, enabledSet);
+            if (stubborn != null) {
+                stubborn.and(enabledSet);
+                if (best == null || stubborn.cardinality() < best.cardinality()) {
+                    best = stubborn;
+                }
+                if (best.cardinality() == 1) {
+                    break;
+                }
+            }
+        }
+        if (best == null || best.cardinality() == enabled.size()) {
+            return null;
+        }
+        Set<String> ids = new HashSet<>();
+        for (Transition transition : enabled) {
+            if (best.get(transitionIndex.get(transition.getId()))) {
+                ids.add(transition.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @param state   state being expanded
+     * @param seed    enabled transition to start from
+     * @param enabled transitions enabled in the state
+     * @return stubborn set containing the seed, null if it would need every enabled transition
+     */
+    private BitSet close(ClassifiedState state, int seed, BitSet enabled) {
+        BitSet stubborn = new BitSet();
+        Deque<Integer> pending = new ArrayDeque<>();
+        stubborn.set(seed);
+        pending.push(seed);
+        while (!pending.isEmpty()) {
+            int transition = pending.pop();
+            if (enabled.get(transition)) {
+                if (enablesHigherPriority[transition]) {
+                    return null;
+                }
+                for (int place : inputs[transition]) {
+                    add(consumers[place], stubborn, pending);
+                }
+                for (int place : outputs[transition]) {
+                    add(inhibited[place], stubborn, pending);
+                    if (capacities[place] > 0) {
+                        add(producers[place], stubborn, pending);
+                    }
+                }
+                for (int place : inhibitors[transition]) {
+                    add(producers[place], stubborn, pending);
+                }
+                add(higherPriority[transition], stubborn, pending);
+            } else if (!addScapegoat(state, transition, stubborn, pending)) {
+                add(higherPriority[transition], stubborn, pending);
+                if (higherPriority[transition].length == 0) {
+                    return null;
+                }
+            }
+            if (isSuperset(stubborn, enabled)) {
+                return null;
+            }
+        }
+        return stubborn;
+    }
+
+    /**
+     * Adds the transitions that can remove a reason the transition is disabled
+     *
+     * @param state      state being expanded
+     * @param transition disabled transition
+     * @param stubborn   stubborn set being built
+     * @param pending    transitions added but not yet closed
+     * @return false if no reason was found in the marking, so it is disabled by priority
+     */
+    private boolean addScapegoat(ClassifiedState state, int transition, BitSet stubborn, Deque<Integer> pending) {
+        for (int k = 0; k < inputs[transition].length; k++) {
+            int place = inputs[transition][k];
+            Map<String, Integer> tokens = state.getTokens(places.get(place));
+            for (Map.Entry<String, Integer> weight : inputWeights.get(transition).get(k).entrySet()) {
+                Integer count = tokens.get(weight.getKey());
+                if ((count == null ? 0 : count) < weight.getValue()) {
+                    add(producers[place], stubborn, pending);
+                    return true;
+                }
+            }
+        }
+        for (int place : inhibitors[transition]) {
+            if (total(state, place) > 0) {
+                add(consumers[place], stubborn, pending);
+                return true;
+            }
+        }
+        for (int place : outputs[transition]) {
+            if (capacities[place] > 0 && total(state, place) >= capacities[place]) {
+                add(consumers[place], stubborn, pending);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param state state
+     * @param place place index
+     * @return tokens of every colour in the place
+     */
+    private int total(ClassifiedState state, int place) {
+        int total = 0;
+        for (int count : state.getTokens(places.get(place)).values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @param transitions transitions to add
+     * @param stubborn    stubborn set being built
+     * @param pending     transitions added but not yet closed
+     */
+    private static void add(int[] transitions, BitSet stubborn, Deque<Integer> pending) {
+        for (int transition : transitions) {
+            if (!stubborn.get(transition)) {
+                stubborn.set(transition);
+                pending.push(transition);
+            }
+        }
+    }
+
+    /**
+     * @param set    set
+     * @param subset possible subset
+     * @return true if every member of the subset is in the set
+     */
+    private static boolean isSuperset(BitSet set, BitSet subset) {
+        BitSet missing = (BitSet) subset.clone();
+        missing.andNot(set);
+        return missing.isEmpty();
+    }
+
+    /**
+     * @param first  indices
+     * @param second indices
+     * @return true if they share an index
+     */
+    private static boolean intersects(int[] first, int[] second) {
+        for (int a : first) {
+            for (int b : second) {
+                if (a == b) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param size number of lists
+     * @return empty lists
+     */
+    private static List<List<Integer>> lists(int size) {
+        List<List<Integer>> lists = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            lists.add(new ArrayList<Integer>());
+        }
+        return lists;
+    }
+
+    /**
+     * @param lists lists of indices
+     * @return the lists as arrays in the same order
+     */
+    private static int[][] toArrays(List<List<Integer>> lists) {
+        int[][] arrays = new int[lists.size()][];
+        for (int i = 0; i < lists.size(); i++) {
+            arrays[i] = toArray(lists.get(i));
+        }
+        return arrays;
+    }
+
+    /**
+     * @param list indices
+     * @return the indices as an array
+     */
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * @param relation places of each transition
+     * @param places   number of places
+     * @return transitions of each place, ascending
+     */
+    private static int[][] invert(int[][] relation, int places) {
+        List<List<Integer>> inverse = lists(places);
+        for (int transition = 0; transition < relation.length; transition++) {
+            for (int place : relation[transition]) {
+                inverse.get(place).add(transition);
+            }
+        }
+        return toArrays(inverse);
+    }
+}
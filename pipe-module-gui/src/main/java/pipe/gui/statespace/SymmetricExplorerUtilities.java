@@ -0,0 +1,121 @@
+package pipe.gui.statespace;
+
+import pipe.reachability.algorithm.ExplorerUtilities;
+import uk.ac.imperial.pipe.exceptions.InvalidRateException;
+import uk.ac.imperial.pipe.models.petrinet.Transition;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.util.*;
+
+/**
+ * Explorer utilities that replace every state by the representative of its orbit under the
+ * symmetries of the net, so only one state of each orbit is explored. The transitions from a
+ * state into any state of an orbit all lead to its representative and their rates add up,
+ * which makes the explored chain the exact lumping of the full one.
+ * <p>
+ * Measures of the lumped chain are those of the full chain once they are averaged over the
+ * copies of each component, see {@link NetSymmetry#averageTokens(Map)} and
+ * {@link NetSymmetry#averageThroughputs(Map)}. The states explored are representatives, so
+ * their probabilities are those of whole orbits.
+ * </p>
+ */
+public final class SymmetricExplorerUtilities implements ExplorerUtilities {
+
+    /**
+     * Utilities firing the transitions
+     */
+    private final ExplorerUtilities utilities;
+
+    /**
+     * Symmetries of the net
+     */
+    private final NetSymmetry symmetry;
+
+    /**
+     * @param utilities utilities firing the transitions of the net
+     * @param symmetry  symmetries of the same net
+     */
+    public SymmetricExplorerUtilities(ExplorerUtilities utilities, NetSymmetry symmetry) {
+        this.utilities = utilities;
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * @param state representative being expanded
+     * @return representatives of the successors and every transition leading into their orbits
+     */
+    @Override
+    public Map<ClassifiedState, Collection<Transition>> getSuccessorsWithTransitions(ClassifiedState state) {
+        Map<ClassifiedState, Collection<Transition>> successors = utilities.getSuccessorsWithTransitions(state);
+        if (symmetry.isTrivial()) {
+            return successors;
+        }
+        Map<ClassifiedState, Collection<Transition>> lumped = new HashMap<>();
+        for (Map.Entry<ClassifiedState, Collection<Transition>> entry : successors.entrySet()) {
+            ClassifiedState representative = symmetry.canonical(entry.getKey());
+            Collection<Transition> transitions = lumped.get(representative);
+            if (transitions == null) {
+                lumped.put(representative, new ArrayList<>(entry.getValue()));
+            } else {
+                transitions.addAll(entry.getValue());
+            }
+        }
+        return lumped;
+    }
+
+    /**
+     * @param state representative being expanded
+     * @return representatives of the successors
+     */
+    @Override
+    public Collection<ClassifiedState> getSuccessors(ClassifiedState state) {
+        return getSuccessorsWithTransitions(state).keySet();
+    }
+
+    /**
+     * @param state     representative
+     * @param successor representative of a successor's orbit
+     * @return summed rate of the transitions from the state into the successor's orbit
+     * @throws InvalidRateException if a rate cannot be evaluated
+     */
+    @Override
+    public double rate(ClassifiedState state, ClassifiedState successor) throws InvalidRateException {
+        return utilities.getWeightOfTransitions(state, getTransitions(state, successor));
+    }
+
+    /**
+     * @return representative of the initial state, the initial state itself since the
+     * symmetries keep the initial marking
+     */
+    @Override
+    public ClassifiedState getCurrentState() {
+        return symmetry.canonical(utilities.getCurrentState());
+    }
+
+    /**
+     * @param state     representative
+     * @param successor representative of a successor's orbit
+     * @return transitions from the state into the successor's orbit
+     */
+    @Override
+    public Collection<Transition> getTransitions(ClassifiedState state, ClassifiedState successor) {
+        Collection<Transition> transitions = getSuccessorsWithTransitions(state).get(successor);
+        return transitions == null ? Collections.<Transition>emptyList() : transitions;
+    }
+
+    @Override
+    public double getWeightOfTransitions(ClassifiedState state, Iterable<Transition> transitions)
+            throws InvalidRateException {
+        return utilities.getWeightOfTransitions(state, transitions);
+    }
+
+    @Override
+    public Collection<Transition> getAllEnabledTransitions(ClassifiedState state) {
+        return utilities.getAllEnabledTransitions(state);
+    }
+
+    @Override
+    public boolean canExploreMore(int stateCount) {
+        return utilities.canExploreMore(stateCount);
+    }
+}
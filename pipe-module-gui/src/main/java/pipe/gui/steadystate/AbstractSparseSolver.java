@@ -0,0 +1,150 @@
+package pipe.gui.steadystate;
+
+import java.util.Arrays;
+
+/**
+ * Iteration loop shared by the solvers.
+ * <p>
+ * After each iteration the iterate is normalised and its residual, the infinity norm of
+ * pi Q divided by the largest exit rate, is reported. Scaling by the largest exit rate makes
+ * the tolerance independent of the time scale of the model. Iteration stops once the residual
+ * is within the tolerance or the iteration limit is reached.
+ * </p>
+ * <p>
+ * Solvers keep work vectors between iterations so a single instance must not be used
+ * to solve on more than one thread at a time.
+ * </p>
+ */
+public abstract class AbstractSparseSolver implements SparseSolver {
+
+    /**
+     * Solver settings
+     */
+    protected final SolverSettings settings;
+
+    /**
+     * Parallel row executor for matrix-vector products
+     */
+    protected final ParallelRows rows;
+
+    /**
+     * Method this solver implements
+     */
+    private final SolverMethod method;
+
+    /**
+     * Scratch vector for the residual
+     */
+    private double[] product = new double[0];
+
+    /**
+     * @param method   method this solver implements
+     * @param settings solver settings
+     * @param rows     parallel row executor
+     */
+    protected AbstractSparseSolver(SolverMethod method, SolverSettings settings, ParallelRows rows) {
+        this.method = method;
+        this.settings = settings;
+        this.rows = rows;
+    }
+
+    @Override
+    public final SolverResult solve(GeneratorMatrix matrix, ConvergenceListener listener)
+            throws InterruptedException {
+        long start = System.currentTimeMillis();
+        double[] pi = matrix.uniformDistribution();
+        double scale = matrix.getMaxExitRate() > 0 ? matrix.getMaxExitRate() : 1;
+        double[] residuals = new double[Math.min(settings.getMaxIterations(), 1024)];
+        int iterations = 0;
+        boolean converged = false;
+        initialise(matrix);
+        while (!converged && iterations < settings.getMaxIterations()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Steady state solver interrupted");
+            }
+            pi = iterate(matrix, pi);
+            normalise(pi);
+            double residual = residual(matrix, pi) / scale;
+            if (iterations == residuals.length) {
+                residuals = Arrays.copyOf(residuals, Math.min(settings.getMaxIterations(), 2 * iterations));
+            }
+            residuals[iterations++] = residual;
+            if (listener != null) {
+                listener.iterationCompleted(iterations, residual);
+            }
+            converged = residual <= settings.getTolerance();
+        }
+        return new SolverResult(method, pi, Arrays.copyOf(residuals, iterations), converged,
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Called once before iterating so work vectors can be sized for the matrix
+     *
+     * @param matrix generator matrix
+     */
+    protected void initialise(GeneratorMatrix matrix) {
+    }
+
+    /**
+     * Performs a single iteration
+     *
+     * @param matrix generator matrix
+     * @param pi     current normalised iterate
+     * @return next iterate, which may be pi updated in place
+     * @throws InterruptedException if interrupted during a parallel product
+     */
+    protected abstract double[] iterate(GeneratorMatrix matrix, double[] pi) throws InterruptedException;
+
+    /**
+     * @param matrix generator matrix
+     * @param pi     iterate
+     * @return infinity norm of pi Q
+     * @throws InterruptedException if interrupted during the parallel product
+     */
+    protected final double residual(final GeneratorMatrix matrix, final double[] pi) throws InterruptedException {
+        if (product.length != pi.length) {
+            product = new double[pi.length];
+        }
+        final double[] y = product;
+        return rows.max(matrix.states, new ParallelRows.RangeFunction() {
+            @Override
+            public double apply(int from, int to) {
+                return matrix.multiply(from, to, pi, y);
+            }
+        });
+    }
+
+    /**
+     * Clamps negative round off to zero and scales the vector so that it sums to one
+     *
+     * @param pi vector to normalise
+     * @throws InterruptedException if interrupted during the parallel sum
+     */
+    protected final void normalise(final double[] pi) throws InterruptedException {
+        final double total = rows.sum(pi.length, new ParallelRows.RangeFunction() {
+            @Override
+            public double apply(int from, int to) {
+                double sum = 0;
+                for (int i = from; i < to; i++) {
+                    if (pi[i] < 0) {
+                        pi[i] = 0;
+                    }
+                    sum += pi[i];
+                }
+                return sum;
+            }
+        });
+        if (total > 0) {
+            rows.sum(pi.length, new ParallelRows.RangeFunction() {
+                @Override
+                public double apply(int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        pi[i] /= total;
+                    }
+                    return 0;
+                }
+            });
+        }
+    }
+}
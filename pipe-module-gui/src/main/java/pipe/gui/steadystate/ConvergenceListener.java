@@ -0,0 +1,15 @@
+package pipe.gui.steadystate;
+
+/**
+ * Listener notified after every iteration of a {@link SparseSolver}
+ */
+public interface ConvergenceListener {
+
+    /**
+     * Called after an iteration has completed
+     *
+     * @param iteration iteration number, starting at one
+     * @param residual  residual of the normalised iterate, see {@link AbstractSparseSolver}
+     */
+    void iterationCompleted(int iteration, double residual);
+}
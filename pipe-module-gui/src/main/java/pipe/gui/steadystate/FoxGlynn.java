@@ -0,0 +1,126 @@
+package pipe.gui.steadystate;
+
+import java.util.Arrays;
+
+/**
+ * Poisson probabilities for uniformisation, truncated in the manner of Fox and Glynn.
+ * <p>
+ * Weights are computed by recurrence outwards from the mode, starting from an arbitrary
+ * value there, so that neither the very small e^-lambda nor the very large lambda^k / k!
+ * have to be formed and large rates do not underflow. The weights are then normalised
+ * and the left and right truncation points chosen so that at most epsilon of the total
+ * probability mass is discarded, half from each tail.
+ * </p>
+ */
+public final class FoxGlynn {
+
+    /**
+     * Weights below this fraction of the mode weight are not computed at all
+     */
+    private static final double UNDERFLOW = 1e-300;
+
+    /**
+     * Left truncation point
+     */
+    private final int left;
+
+    /**
+     * Right truncation point
+     */
+    private final int right;
+
+    /**
+     * Normalised weights from left to right
+     */
+    private final double[] weights;
+
+    /**
+     * @param left    left truncation point
+     * @param right   right truncation point
+     * @param weights normalised weights from left to right
+     */
+    private FoxGlynn(int left, int right, double[] weights) {
+        this.left = left;
+        this.right = right;
+        this.weights = weights;
+    }
+
+    /**
+     * @param lambda  Poisson rate, the uniformisation rate times the time
+     * @param epsilon maximum probability mass to discard
+     * @return truncated Poisson weights
+     */
+    public static FoxGlynn compute(double lambda, double epsilon) {
+        if (lambda < 0 || epsilon <= 0 || epsilon >= 1) {
+            throw new IllegalArgumentException("Invalid Poisson rate or accuracy");
+        }
+        if (lambda == 0) {
+            return new FoxGlynn(0, 0, new double[]{1});
+        }
+        int mode = (int) Math.floor(lambda);
+        double cutoff = UNDERFLOW + epsilon * 1e-3 / (1 + Math.sqrt(lambda));
+
+        int low = mode;
+        double weight = 1;
+        while (low > 0 && weight > cutoff) {
+            weight *= low / lambda;
+            low--;
+        }
+        int high = mode;
+        weight = 1;
+        while (weight > cutoff) {
+            high++;
+            weight *= lambda / high;
+        }
+
+        double[] all = new double[high - low + 1];
+        all[mode - low] = 1;
+        for (int k = mode; k > low; k--) {
+            all[k - 1 - low] = all[k - low] * k / lambda;
+        }
+        for (int k = mode; k < high; k++) {
+            all[k + 1 - low] = all[k - low] * lambda / (k + 1);
+        }
+        double total = 0;
+        for (int i = all.length - 1; i >= 0; i--) {
+            total += all[i];
+        }
+        for (int i = 0; i < all.length; i++) {
+            all[i] /= total;
+        }
+
+        int first = 0;
+        double tail = 0;
+        while (first < mode - low && tail + all[first] <= epsilon / 2) {
+            tail += all[first++];
+        }
+        int last = all.length - 1;
+        tail = 0;
+        while (last > mode - low && tail + all[last] <= epsilon / 2) {
+            tail += all[last--];
+        }
+        return new FoxGlynn(low + first, low + last, Arrays.copyOfRange(all, first, last + 1));
+    }
+
+    /**
+     * @return left truncation point, the first number of jumps with a weight
+     */
+    public int getLeft() {
+        return left;
+    }
+
+    /**
+     * @return right truncation point, the last number of jumps with a weight
+     */
+    public int getRight() {
+        return right;
+    }
+
+    /**
+     * @param jumps number of jumps between left and right inclusive
+     * @return Poisson probability of exactly that many jumps
+     */
+    public double getWeight(int jumps) {
+        return weights[jumps - left];
+    }
+}
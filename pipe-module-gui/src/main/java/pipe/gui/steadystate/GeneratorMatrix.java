@@ -0,0 +1,205 @@
+package pipe.gui.steadystate;
+
+import pipe.gui.statespace.MappedTransitions;
+import uk.ac.imperial.state.Record;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Infinitesimal generator matrix Q of the CTMC underlying an explored state space,
+ * stored transposed in compressed sparse row form.
+ * <p>
+ * Row j holds the off diagonal entries q(i, j) for every state i with a transition into j,
+ * which is exactly what the Gauss-Seidel and Jacobi updates for pi Q = 0 iterate over.
+ * The diagonal is stored separately as the exit rate of each state, i.e. -q(j, j).
+ * Self loops do not affect the distribution and are dropped.
+ * </p>
+ * <p>
+ * State ids index directly into the rows so ids are expected to be dense, which is the
+ * case for the state space explorers.
+ * </p>
+ */
+public final class GeneratorMatrix {
+
+    /**
+     * Number of rows, largest state id + 1
+     */
+    final int states;
+
+    /**
+     * Start of each row in columns and rates, with a final entry marking the end of the last row
+     */
+    final int[] rowStart;
+
+    /**
+     * Source state of each entry
+     */
+    final int[] columns;
+
+    /**
+     * Rate of each entry
+     */
+    final double[] rates;
+
+    /**
+     * Total rate out of each state
+     */
+    final double[] exitRates;
+
+    /**
+     * States that appear in the state space
+     */
+    private final BitSet present;
+
+    /**
+     * @param states    number of rows
+     * @param rowStart  row start offsets
+     * @param columns   source state of each entry
+     * @param rates     rate of each entry
+     * @param exitRates exit rate of each state
+     * @param present   states that appear in the state space
+     */
+    GeneratorMatrix(int states, int[] rowStart, int[] columns, double[] rates, double[] exitRates, BitSet present) {
+        this.states = states;
+        this.rowStart = rowStart;
+        this.columns = columns;
+        this.rates = rates;
+        this.exitRates = exitRates;
+        this.present = present;
+    }
+
+    /**
+     * Builds the matrix from state space records
+     *
+     * @param records state space transitions
+     * @return generator matrix
+     */
+    public static GeneratorMatrix fromRecords(Iterable<Record> records) {
+        GeneratorMatrixBuilder builder = new GeneratorMatrixBuilder();
+        for (Record record : records) {
+            builder.processTransitions(record.state, record.successors);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the matrix straight from a mapped transitions file without decoding any records
+     *
+     * @param transitions mapped transitions
+     * @return generator matrix
+     */
+    public static GeneratorMatrix fromTransitions(MappedTransitions transitions) {
+        GeneratorMatrixBuilder builder = new GeneratorMatrixBuilder();
+        MappedTransitions.Cursor cursor = transitions.cursor();
+        while (cursor.hasNext()) {
+            cursor.next();
+            int state = cursor.state();
+            builder.addState(state);
+            for (int i = 0; i < cursor.successors(); i++) {
+                builder.addTransition(state, cursor.successor(i), cursor.rate(i));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return number of rows, largest state id + 1
+     */
+    public int getStateCount() {
+        return states;
+    }
+
+    /**
+     * @return number of off diagonal non zero entries
+     */
+    public int getNonZeros() {
+        return rowStart[states];
+    }
+
+    /**
+     * @param state state id
+     * @return total rate out of the state
+     */
+    public double getExitRate(int state) {
+        return exitRates[state];
+    }
+
+    /**
+     * @param state state id
+     * @return true if the state is part of the state space
+     */
+    public boolean isPresent(int state) {
+        return present.get(state);
+    }
+
+    /**
+     * @return largest exit rate of any state
+     */
+    public double getMaxExitRate() {
+        double max = 0;
+        for (double exitRate : exitRates) {
+            max = Math.max(max, exitRate);
+        }
+        return max;
+    }
+
+    /**
+     * @return a probability vector with equal probability on every state in the state space
+     */
+    public double[] uniformDistribution() {
+        double[] distribution = new double[states];
+        double probability = 1.0 / Math.max(1, present.cardinality());
+        for (int state = present.nextSetBit(0); state >= 0; state = present.nextSetBit(state + 1)) {
+            distribution[state] = probability;
+        }
+        return distribution;
+    }
+
+    /**
+     * Converts a probability vector into the boxed form used by the metrics classes
+     *
+     * @param probabilities probability of each state id
+     * @return state id to probability for every state in the state space
+     */
+    public Map<Integer, Double> toDistribution(double[] probabilities) {
+        Map<Integer, Double> distribution = new HashMap<>();
+        for (int state = present.nextSetBit(0); state >= 0; state = present.nextSetBit(state + 1)) {
+            distribution.put(state, probabilities[state]);
+        }
+        return distribution;
+    }
+
+    /**
+     * @param row row of the transposed generator, the target state
+     * @param x   vector to multiply
+     * @return sum of x(i) q(i, row) over the off diagonal entries of the row
+     */
+    double incoming(int row, double[] x) {
+        double sum = 0;
+        for (int k = rowStart[row]; k < rowStart[row + 1]; k++) {
+            sum += x[columns[k]] * rates[k];
+        }
+        return sum;
+    }
+
+    /**
+     * Computes y = xQ over a block of rows
+     *
+     * @param from first row, inclusive
+     * @param to   last row, exclusive
+     * @param x    vector to multiply
+     * @param y    vector to write the product into
+     * @return largest absolute value written into y
+     */
+    double multiply(int from, int to, double[] x, double[] y) {
+        double max = 0;
+        for (int row = from; row < to; row++) {
+            double value = incoming(row, x) - x[row] * exitRates[row];
+            y[row] = value;
+            max = Math.max(max, Math.abs(value));
+        }
+        return max;
+    }
+}
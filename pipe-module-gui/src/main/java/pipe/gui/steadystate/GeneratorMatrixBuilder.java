@@ -0,0 +1,173 @@
+package pipe.gui.steadystate;
+
+import uk.ac.imperial.io.StateProcessor;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * State processor which assembles the {@link GeneratorMatrix} as the state space is explored.
+ * <p>
+ * Transitions are appended to primitive growable arrays as they are emitted, in whatever
+ * order the explorer produces them, and are counting sorted into compressed sparse row form
+ * by {@link #build()}. No per state objects or boxed rates are retained.
+ * </p>
+ * <p>
+ * A builder builds one matrix. Its arrays are released, or handed to the matrix, as it is
+ * built, so the transitions are not held twice while the matrix is solved.
+ * </p>
+ */
+public class GeneratorMatrixBuilder implements StateProcessor {
+
+    /**
+     * Initial capacity of the transition arrays
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Source state of each transition, null once the matrix has been built
+     */
+    private int[] sources = new int[INITIAL_CAPACITY];
+
+    /**
+     * Target state of each transition
+     */
+    private int[] targets = new int[INITIAL_CAPACITY];
+
+    /**
+     * Rate of each transition
+     */
+    private double[] rates = new double[INITIAL_CAPACITY];
+
+    /**
+     * Number of transitions added
+     */
+    private int size = 0;
+
+    /**
+     * Exit rate of each state
+     */
+    private double[] exitRates = new double[INITIAL_CAPACITY];
+
+    /**
+     * States seen either as a source or a target
+     */
+    private final BitSet present = new BitSet();
+
+    /**
+     * Largest state id seen
+     */
+    private int maxState = -1;
+
+    /**
+     * Adds the transitions of the state to the matrix
+     *
+     * @param state          source state id
+     * @param successorRates target state id to rate
+     */
+    @Override
+    public synchronized void processTransitions(int state, Map<Integer, Double> successorRates) {
+        addState(state);
+        for (Map.Entry<Integer, Double> entry : successorRates.entrySet()) {
+            addTransition(state, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Marks the state as part of the state space, the matrix does not need the marking
+     *
+     * @param state classified state
+     * @param id    state id
+     */
+    @Override
+    public synchronized void processState(ClassifiedState state, int id) {
+        addState(id);
+    }
+
+    /**
+     * Registers a state which may have no transitions
+     *
+     * @param state state id
+     * @throws IllegalStateException if the matrix has already been built
+     */
+    synchronized void addState(int state) {
+        checkNotBuilt();
+        present.set(state);
+        maxState = Math.max(maxState, state);
+    }
+
+    /**
+     * @param source source state id
+     * @param target target state id
+     * @param rate   rate of the transition
+     * @throws IllegalStateException if the matrix has already been built
+     */
+    synchronized void addTransition(int source, int target, double rate) {
+        addState(target);
+        addState(source);
+        if (source == target) {
+            return;
+        }
+        if (size == sources.length) {
+            int capacity = size + (size >> 1);
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            rates = Arrays.copyOf(rates, capacity);
+        }
+        sources[size] = source;
+        targets[size] = target;
+        rates[size] = rate;
+        size++;
+        if (source >= exitRates.length) {
+            exitRates = Arrays.copyOf(exitRates, Math.max(source + 1, exitRates.length + (exitRates.length >> 1)));
+        }
+        exitRates[source] += rate;
+    }
+
+    /**
+     * Sorts the transitions by target state into compressed sparse row form and releases the
+     * builder's copy of them
+     *
+     * @return generator matrix of the transitions added
+     * @throws IllegalStateException if the matrix has already been built
+     */
+    public synchronized GeneratorMatrix build() {
+        checkNotBuilt();
+        int[] sources = this.sources;
+        int[] targets = this.targets;
+        double[] rates = this.rates;
+        this.sources = null;
+        this.targets = null;
+        this.rates = null;
+        int states = maxState + 1;
+        int[] rowStart = new int[states + 1];
+        for (int i = 0; i < size; i++) {
+            rowStart[targets[i] + 1]++;
+        }
+        for (int row = 0; row < states; row++) {
+            rowStart[row + 1] += rowStart[row];
+        }
+        int[] next = Arrays.copyOf(rowStart, states);
+        int[] columns = new int[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            int position = next[targets[i]]++;
+            columns[position] = sources[i];
+            values[position] = rates[i];
+        }
+        double[] exits = exitRates.length == states ? exitRates : Arrays.copyOf(exitRates, states);
+        exitRates = null;
+        return new GeneratorMatrix(states, rowStart, columns, values, exits, present);
+    }
+
+    /**
+     * @throws IllegalStateException if the matrix has already been built
+     */
+    private void checkNotBuilt() {
+        if (sources == null) {
+            throw new IllegalStateException("The generator matrix has already been built");
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package pipe.gui.steadystate;
+
+import java.util.Arrays;
+
+/**
+ * Restarted GMRES, a Krylov subspace method.
+ * <p>
+ * pi Q = 0 is singular, so the equation of one state is replaced by the normalisation
+ * condition sum(pi) = 1 giving the non singular system M x = e(r). Indices which are not
+ * part of the state space get the identity row. The system is right preconditioned with the
+ * diagonal of Q and warm started from the current iterate.
+ * </p>
+ * <p>
+ * One iteration is a full restart cycle of up to the configured Krylov dimension of Arnoldi
+ * steps, so the residual is reported once per cycle. The cycle is cut short once the
+ * Arnoldi residual estimate drops below a tenth of the tolerance. Memory use is the Krylov dimension
+ * plus three vectors of length equal to the number of states.
+ * </p>
+ */
+public class GmresSolver extends AbstractSparseSolver {
+
+    /**
+     * The Arnoldi estimate is of the 2-norm of the modified system rather than the reported
+     * residual, so cycles aim an order of magnitude lower to avoid stalling at the tolerance
+     */
+    private static final double INNER_TOLERANCE_FACTOR = 0.1;
+
+    /**
+     * Krylov basis
+     */
+    private double[][] basis;
+
+    /**
+     * Hessenberg matrix, rotated into upper triangular form as the cycle progresses
+     */
+    private double[][] hessenberg;
+
+    /**
+     * Givens rotation cosines
+     */
+    private double[] cosines;
+
+    /**
+     * Givens rotation sines
+     */
+    private double[] sines;
+
+    /**
+     * Rotated right hand side of the least squares problem
+     */
+    private double[] rhs;
+
+    /**
+     * Diagonal preconditioner
+     */
+    private double[] diagonal;
+
+    /**
+     * Preconditioned vector scratch space
+     */
+    private double[] unscaled;
+
+    /**
+     * Current solution in the preconditioned space
+     */
+    private double[] solution;
+
+    /**
+     * Row replaced by the normalisation condition
+     */
+    private int anchor;
+
+    /**
+     * Tolerance on the Arnoldi residual estimate
+     */
+    private double innerTolerance;
+
+    /**
+     * @param settings solver settings
+     * @param rows     parallel row executor
+     */
+    GmresSolver(SolverSettings settings, ParallelRows rows) {
+        super(SolverMethod.GMRES, settings, rows);
+    }
+
+    @Override
+    protected void initialise(GeneratorMatrix matrix) {
+        int n = matrix.states;
+        int m = settings.getKrylovDimension();
+        basis = new double[m + 1][];
+        hessenberg = new double[m + 1][m];
+        cosines = new double[m];
+        sines = new double[m];
+        rhs = new double[m + 1];
+        unscaled = new double[n];
+        solution = new double[n];
+        diagonal = new double[n];
+        anchor = -1;
+        for (int row = 0; row < n; row++) {
+            double exitRate = matrix.exitRates[row];
+            diagonal[row] = exitRate > 0 ? exitRate : 1;
+            if (anchor < 0 && matrix.isPresent(row)) {
+                anchor = row;
+            }
+        }
+        double scale = matrix.getMaxExitRate() > 0 ? matrix.getMaxExitRate() : 1;
+        innerTolerance = INNER_TOLERANCE_FACTOR * settings.getTolerance() * scale;
+    }
+
+    @Override
+    protected double[] iterate(GeneratorMatrix matrix, double[] pi) throws InterruptedException {
+        int n = matrix.states;
+        if (anchor < 0) {
+            return pi;
+        }
+        for (int row = 0; row < n; row++) {
+            solution[row] = pi[row] * diagonal[row];
+        }
+        double[] residual = vector(0, n);
+        apply(matrix, solution, residual);
+        for (int row = 0; row < n; row++) {
+            residual[row] = -residual[row];
+        }
+        residual[anchor] += 1;
+        double beta = norm(residual);
+        if (beta == 0) {
+            return pi;
+        }
+        scale(residual, 1 / beta);
+        Arrays.fill(rhs, 0);
+        rhs[0] = beta;
+
+        int steps = 0;
+        for (int k = 0; k < settings.getKrylovDimension(); k++) {
+            double[] w = vector(k + 1, n);
+            apply(matrix, basis[k], w);
+            for (int i = 0; i <= k; i++) {
+                double h = dot(w, basis[i]);
+                hessenberg[i][k] = h;
+                axpy(-h, basis[i], w);
+            }
+            double subDiagonal = norm(w);
+            hessenberg[k + 1][k] = subDiagonal;
+            if (subDiagonal > 0) {
+                scale(w, 1 / subDiagonal);
+            }
+            for (int i = 0; i < k; i++) {
+                double temp = cosines[i] * hessenberg[i][k] + sines[i] * hessenberg[i + 1][k];
+                hessenberg[i + 1][k] = -sines[i] * hessenberg[i][k] + cosines[i] * hessenberg[i + 1][k];
+                hessenberg[i][k] = temp;
+            }
+            double radius = Math.hypot(hessenberg[k][k], hessenberg[k + 1][k]);
+            cosines[k] = radius == 0 ? 1 : hessenberg[k][k] / radius;
+            sines[k] = radius == 0 ? 0 : hessenberg[k + 1][k] / radius;
+            hessenberg[k][k] = radius;
+            hessenberg[k + 1][k] = 0;
+            rhs[k + 1] = -sines[k] * rhs[k];
+            rhs[k] = cosines[k] * rhs[k];
+            steps = k + 1;
+            if (Math.abs(rhs[k + 1]) <= innerTolerance || subDiagonal == 0) {
+                break;
+            }
+        }
+
+        double[] y = new double[steps];
+        for (int i = steps - 1; i >= 0; i--) {
+            double sum = rhs[i];
+            for (int j = i + 1; j < steps; j++) {
+                sum -= hessenberg[i][j] * y[j];
+            }
+            y[i] = hessenberg[i][i] == 0 ? 0 : sum / hessenberg[i][i];
+        }
+        for (int i = 0; i < steps; i++) {
+            axpy(y[i], basis[i], solution);
+        }
+        for (int row = 0; row < n; row++) {
+            pi[row] = solution[row] / diagonal[row];
+        }
+        return pi;
+    }
+
+    /**
+     * @param index basis index
+     * @param n     vector length
+     * @return basis vector, allocated on first use
+     */
+    private double[] vector(int index, int n) {
+        if (basis[index] == null) {
+            basis[index] = new double[n];
+        }
+        return basis[index];
+    }
+
+    /**
+     * Computes y = M D^-1 z
+     *
+     * @param matrix generator matrix
+     * @param z      vector in the preconditioned space
+     * @param y      vector to write the product into
+     * @throws InterruptedException if interrupted during the parallel product
+     */
+    private void apply(final GeneratorMatrix matrix, final double[] z, final double[] y)
+            throws InterruptedException {
+        final double[] u = unscaled;
+        double total = rows.sum(matrix.states, new ParallelRows.RangeFunction() {
+            @Override
+            public double apply(int from, int to) {
+                double sum = 0;
+                for (int row = from; row < to; row++) {
+                    u[row] = z[row] / diagonal[row];
+                    sum += u[row];
+                }
+                return sum;
+            }
+        });
+        rows.sum(matrix.states, new ParallelRows.RangeFunction() {
+            @Override
+            public double apply(int from, int to) {
+                for (int row = from; row < to; row++) {
+                    if (matrix.isPresent(row)) {
+                        y[row] = matrix.incoming(row, u) - u[row] * matrix.exitRates[row];
+                    } else {
+                        y[row] = u[row];
+                    }
+                }
+                return 0;
+            }
+        });
+        y[anchor] = total;
+    }
+
+    /**
+     * @param a first vector
+     * @param b second vector
+     * @return dot product of the vectors
+     * @throws InterruptedException if interrupted during the parallel sum
+     */
+    private double dot(final double[] a, final double[] b) throws InterruptedException {
+        return rows.sum(a.length, new ParallelRows.RangeFunction() {
+            @Override
+            public double apply(int from, int to) {
+                double sum = 0;
+                for (int i = from; i < to; i++) {
+                    sum += a[i] * b[i];
+                }
+                return sum;
+            }
+        });
+    }
+
+    /**
+     * @param a vector
+     * @return Euclidean norm of the vector
+     * @throws InterruptedException if interrupted during the parallel sum
+     */
+    private double norm(double[] a) throws InterruptedException {
+        return Math.sqrt(dot(a, a));
+    }
+
+    /**
+     * Computes y = y + alpha x
+     *
+     * @param alpha scalar
+     * @param x     vector to add
+     * @param y     vector to add to
+     * @throws InterruptedException if interrupted during the parallel update
+     */
+    private void axpy(final double alpha, final double[] x, final double[] y) throws InterruptedException {
+        rows.sum(x.length, new ParallelRows.RangeFunction() {
+            @Override
+            public double apply(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    y[i] += alpha * x[i];
+                }
+                return 0;
+            }
+        });
+    }
+
+    /**
+     * @param x     vector to scale in place
+     * @param alpha scalar
+     */
+    private void scale(double[] x, double alpha) {
+        for (int i = 0; i < x.length; i++) {
+            x[i] *= alpha;
+        }
+    }
+}
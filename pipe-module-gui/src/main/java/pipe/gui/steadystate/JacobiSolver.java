@@ -0,0 +1,58 @@
+package pipe.gui.steadystate;
+
+/**
+ * Damped Jacobi iteration pi'(j) = (1 - w) pi(j) + w sum(pi(i) q(i, j)) / -q(j, j).
+ * <p>
+ * Every row of an iteration only reads the previous iterate so the rows are updated
+ * in parallel. Converges more slowly than Gauss-Seidel per iteration but each iteration
+ * scales with the number of threads.
+ * </p>
+ * <p>
+ * Undamped Jacobi never converges on a periodic chain, such as a birth death chain, because
+ * its iteration matrix then has an eigenvalue of -1 and the iterate oscillates. Keeping part
+ * of the previous iterate moves every eigenvalue other than 1 strictly inside the unit circle.
+ * </p>
+ */
+public class JacobiSolver extends AbstractSparseSolver {
+
+    /**
+     * Weight w of the Jacobi update, the rest of each new value is the previous one
+     */
+    private static final double DAMPING = 0.9;
+
+    /**
+     * Iterate being written
+     */
+    private double[] next;
+
+    /**
+     * @param settings solver settings
+     * @param rows     parallel row executor
+     */
+    JacobiSolver(SolverSettings settings, ParallelRows rows) {
+        super(SolverMethod.JACOBI, settings, rows);
+    }
+
+    @Override
+    protected void initialise(GeneratorMatrix matrix) {
+        next = new double[matrix.states];
+    }
+
+    @Override
+    protected double[] iterate(final GeneratorMatrix matrix, final double[] pi) throws InterruptedException {
+        final double[] target = next;
+        rows.sum(matrix.states, new ParallelRows.RangeFunction() {
+            @Override
+            public double apply(int from, int to) {
+                for (int row = from; row < to; row++) {
+                    double exitRate = matrix.exitRates[row];
+                    target[row] = exitRate > 0 ?
+                            (1 - DAMPING) * pi[row] + DAMPING * matrix.incoming(row, pi) / exitRate : pi[row];
+                }
+                return 0;
+            }
+        });
+        next = pi;
+        return target;
+    }
+}
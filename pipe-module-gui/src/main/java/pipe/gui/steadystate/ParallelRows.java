@@ -0,0 +1,132 @@
+package pipe.gui.steadystate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Splits the rows of a matrix into one contiguous block per thread and runs a
+ * range function over each block on an executor.
+ * <p>
+ * Used for the row parallel sparse matrix-vector products and vector reductions of the
+ * solvers. With a single thread or no executor the blocks are run on the calling thread.
+ * </p>
+ */
+public final class ParallelRows {
+
+    /**
+     * Smallest block worth handing to another thread
+     */
+    private static final int MIN_BLOCK = 1024;
+
+    /**
+     * Executor to run the blocks on, null to run on the calling thread
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * Number of blocks to split the rows into
+     */
+    private final int threads;
+
+    /**
+     * @param executorService executor to run the blocks on, may be null for a single thread
+     * @param threads         number of blocks to split the rows into
+     */
+    public ParallelRows(ExecutorService executorService, int threads) {
+        this.executorService = executorService;
+        this.threads = executorService == null ? 1 : Math.max(1, threads);
+    }
+
+    /**
+     * @return number of blocks the rows are split into
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Runs the function over all rows and sums the block results
+     *
+     * @param rows     number of rows
+     * @param function function applied to each block
+     * @return sum of the block results
+     * @throws InterruptedException if interrupted waiting for the blocks
+     */
+    public double sum(int rows, RangeFunction function) throws InterruptedException {
+        double total = 0;
+        for (double value : run(rows, function)) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * Runs the function over all rows and takes the maximum of the block results
+     *
+     * @param rows     number of rows
+     * @param function function applied to each block
+     * @return maximum of the block results
+     * @throws InterruptedException if interrupted waiting for the blocks
+     */
+    public double max(int rows, RangeFunction function) throws InterruptedException {
+        double max = 0;
+        for (double value : run(rows, function)) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    /**
+     * @param rows     number of rows
+     * @param function function applied to each block
+     * @return result of each block
+     * @throws InterruptedException if interrupted waiting for the blocks
+     */
+    private double[] run(int rows, final RangeFunction function) throws InterruptedException {
+        int blocks = Math.max(1, Math.min(threads, rows / MIN_BLOCK));
+        if (blocks == 1) {
+            return new double[]{function.apply(0, rows)};
+        }
+        List<Future<Double>> futures = new ArrayList<>(blocks);
+        int blockSize = (rows + blocks - 1) / blocks;
+        for (int from = 0; from < rows; from += blockSize) {
+            final int start = from;
+            final int end = Math.min(rows, from + blockSize);
+            futures.add(executorService.submit(new Callable<Double>() {
+                @Override
+                public Double call() {
+                    return function.apply(start, end);
+                }
+            }));
+        }
+        double[] results = new double[futures.size()];
+        try {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = futures.get(i).get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solver task failed", e.getCause());
+        } finally {
+            for (Future<Double> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Function over a block of rows, used in place of a lambda
+     */
+    public interface RangeFunction {
+        /**
+         * @param from first row, inclusive
+         * @param to   last row, exclusive
+         * @return result for the block
+         */
+        double apply(int from, int to);
+    }
+}
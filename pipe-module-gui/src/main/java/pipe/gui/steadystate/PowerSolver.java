@@ -0,0 +1,58 @@
+package pipe.gui.steadystate;
+
+/**
+ * Power method on the uniformised chain, pi' = pi (I + Q / L).
+ * <p>
+ * L is taken slightly larger than the largest exit rate so that every state has a self loop,
+ * which makes the uniformised chain aperiodic and guarantees convergence for irreducible
+ * chains, albeit slowly. Rows are updated in parallel.
+ * </p>
+ */
+public class PowerSolver extends AbstractSparseSolver {
+
+    /**
+     * Factor applied to the largest exit rate to get the uniformisation rate
+     */
+    private static final double UNIFORMISATION_FACTOR = 1.02;
+
+    /**
+     * Iterate being written
+     */
+    private double[] next;
+
+    /**
+     * Uniformisation rate
+     */
+    private double uniformisationRate;
+
+    /**
+     * @param settings solver settings
+     * @param rows     parallel row executor
+     */
+    PowerSolver(SolverSettings settings, ParallelRows rows) {
+        super(SolverMethod.POWER, settings, rows);
+    }
+
+    @Override
+    protected void initialise(GeneratorMatrix matrix) {
+        next = new double[matrix.states];
+        uniformisationRate = Math.max(matrix.getMaxExitRate() * UNIFORMISATION_FACTOR, Double.MIN_NORMAL);
+    }
+
+    @Override
+    protected double[] iterate(final GeneratorMatrix matrix, final double[] pi) throws InterruptedException {
+        final double[] target = next;
+        final double rate = uniformisationRate;
+        rows.sum(matrix.states, new ParallelRows.RangeFunction() {
+            @Override
+            public double apply(int from, int to) {
+                for (int row = from; row < to; row++) {
+                    target[row] = pi[row] + (matrix.incoming(row, pi) - pi[row] * matrix.exitRates[row]) / rate;
+                }
+                return 0;
+            }
+        });
+        next = pi;
+        return target;
+    }
+}
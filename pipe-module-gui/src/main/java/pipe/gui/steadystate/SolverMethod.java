@@ -0,0 +1,89 @@
+package pipe.gui.steadystate;
+
+/**
+ * Available steady state solvers
+ */
+public enum SolverMethod {
+    GAUSS_SEIDEL("Gauss-Seidel", "gauss-seidel") {
+        @Override
+        SparseSolver create(SolverSettings settings, ParallelRows rows) {
+            return new SorSolver(this, settings, rows, 1.0);
+        }
+    },
+    JACOBI("Jacobi", "jacobi") {
+        @Override
+        SparseSolver create(SolverSettings settings, ParallelRows rows) {
+            return new JacobiSolver(settings, rows);
+        }
+    },
+    SOR("SOR", "sor") {
+        @Override
+        SparseSolver create(SolverSettings settings, ParallelRows rows) {
+            return new SorSolver(this, settings, rows, settings.getRelaxation());
+        }
+    },
+    POWER("Power method", "power") {
+        @Override
+        SparseSolver create(SolverSettings settings, ParallelRows rows) {
+            return new PowerSolver(settings, rows);
+        }
+    },
+    GMRES("GMRES", "gmres") {
+        @Override
+        SparseSolver create(SolverSettings settings, ParallelRows rows) {
+            return new GmresSolver(settings, rows);
+        }
+    };
+
+    /**
+     * Name displayed to the user
+     */
+    private final String displayName;
+
+    /**
+     * Name used on the command line
+     */
+    private final String key;
+
+    /**
+     * @param displayName name displayed to the user
+     * @param key         name used on the command line
+     */
+    SolverMethod(String displayName, String key) {
+        this.displayName = displayName;
+        this.key = key;
+    }
+
+    /**
+     * @param key name used on the command line
+     * @return method with the key
+     * @throws IllegalArgumentException if there is no such method
+     */
+    public static SolverMethod fromKey(String key) {
+        for (SolverMethod method : values()) {
+            if (method.key.equalsIgnoreCase(key)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("Unknown solver " + key);
+    }
+
+    /**
+     * @return name used on the command line
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @param settings solver settings
+     * @param rows     parallel row executor
+     * @return solver for this method
+     */
+    abstract SparseSolver create(SolverSettings settings, ParallelRows rows);
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
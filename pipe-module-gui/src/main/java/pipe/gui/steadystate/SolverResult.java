@@ -0,0 +1,99 @@
+package pipe.gui.steadystate;
+
+import java.util.Arrays;
+
+/**
+ * Steady state distribution together with how the solver got there
+ */
+public final class SolverResult {
+
+    /**
+     * Method used
+     */
+    private final SolverMethod method;
+
+    /**
+     * Probability of each state id
+     */
+    private final double[] distribution;
+
+    /**
+     * Residual after each iteration
+     */
+    private final double[] residuals;
+
+    /**
+     * True if the residual reached the tolerance
+     */
+    private final boolean converged;
+
+    /**
+     * Wall clock time taken
+     */
+    private final long elapsedMillis;
+
+    /**
+     * @param method        method used
+     * @param distribution  probability of each state id
+     * @param residuals     residual after each iteration
+     * @param converged     true if the residual reached the tolerance
+     * @param elapsedMillis wall clock time taken
+     */
+    public SolverResult(SolverMethod method, double[] distribution, double[] residuals, boolean converged,
+                        long elapsedMillis) {
+        this.method = method;
+        this.distribution = distribution;
+        this.residuals = residuals;
+        this.converged = converged;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return method used
+     */
+    public SolverMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * @return probability of each state id
+     */
+    public double[] getDistribution() {
+        return distribution;
+    }
+
+    /**
+     * @return number of iterations performed
+     */
+    public int getIterations() {
+        return residuals.length;
+    }
+
+    /**
+     * @return residual after each iteration
+     */
+    public double[] getResiduals() {
+        return Arrays.copyOf(residuals, residuals.length);
+    }
+
+    /**
+     * @return residual after the final iteration, NaN if no iterations were performed
+     */
+    public double getResidual() {
+        return residuals.length == 0 ? Double.NaN : residuals[residuals.length - 1];
+    }
+
+    /**
+     * @return true if the residual reached the tolerance
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * @return wall clock time taken
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
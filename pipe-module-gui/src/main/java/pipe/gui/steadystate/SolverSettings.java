@@ -0,0 +1,150 @@
+package pipe.gui.steadystate;
+
+/**
+ * Immutable settings shared by all of the {@link SparseSolver} implementations
+ */
+public final class SolverSettings {
+
+    /**
+     * Default tolerance on the residual
+     */
+    public static final double DEFAULT_TOLERANCE = 1e-8;
+
+    /**
+     * Default maximum number of iterations
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 10000;
+
+    /**
+     * Default SOR relaxation factor, one is plain Gauss-Seidel
+     */
+    public static final double DEFAULT_RELAXATION = 1.0;
+
+    /**
+     * Default number of Krylov vectors kept before GMRES restarts
+     */
+    public static final int DEFAULT_KRYLOV_DIMENSION = 30;
+
+    /**
+     * Solver to use
+     */
+    private final SolverMethod method;
+
+    /**
+     * Tolerance on the residual
+     */
+    private final double tolerance;
+
+    /**
+     * Maximum number of iterations
+     */
+    private final int maxIterations;
+
+    /**
+     * SOR relaxation factor
+     */
+    private final double relaxation;
+
+    /**
+     * Number of Krylov vectors kept before GMRES restarts
+     */
+    private final int krylovDimension;
+
+    /**
+     * Number of threads for the matrix-vector products
+     */
+    private final int threads;
+
+    /**
+     * Settings with default tolerances for the method
+     *
+     * @param method  solver to use
+     * @param threads number of threads for the matrix-vector products
+     */
+    public SolverSettings(SolverMethod method, int threads) {
+        this(method, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS, DEFAULT_RELAXATION, DEFAULT_KRYLOV_DIMENSION, threads);
+    }
+
+    /**
+     * @param method          solver to use
+     * @param tolerance       tolerance on the residual
+     * @param maxIterations   maximum number of iterations
+     * @param relaxation      SOR relaxation factor, must be in (0, 2)
+     * @param krylovDimension number of Krylov vectors kept before GMRES restarts
+     * @param threads         number of threads for the matrix-vector products
+     */
+    public SolverSettings(SolverMethod method, double tolerance, int maxIterations, double relaxation,
+                          int krylovDimension, int threads) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("Tolerance must be positive");
+        }
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("Maximum iterations must be at least one");
+        }
+        if (relaxation <= 0 || relaxation >= 2) {
+            throw new IllegalArgumentException("Relaxation factor must be between 0 and 2");
+        }
+        if (krylovDimension < 1) {
+            throw new IllegalArgumentException("Krylov dimension must be at least one");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be at least one");
+        }
+        this.method = method;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.relaxation = relaxation;
+        this.krylovDimension = krylovDimension;
+        this.threads = threads;
+    }
+
+    /**
+     * @return solver to use
+     */
+    public SolverMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * @return tolerance on the residual
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * @return maximum number of iterations
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * @return SOR relaxation factor
+     */
+    public double getRelaxation() {
+        return relaxation;
+    }
+
+    /**
+     * @return number of Krylov vectors kept before GMRES restarts
+     */
+    public int getKrylovDimension() {
+        return krylovDimension;
+    }
+
+    /**
+     * @return number of threads for the matrix-vector products
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param rows parallel row executor for the matrix-vector products
+     * @return solver configured with these settings
+     */
+    public SparseSolver createSolver(ParallelRows rows) {
+        return method.create(this, rows);
+    }
+}
@@ -0,0 +1,40 @@
+package pipe.gui.steadystate;
+
+/**
+ * Successive over-relaxation, which with a relaxation factor of one is Gauss-Seidel.
+ * <p>
+ * Each sweep updates pi(j) = (1 - w) pi(j) + w sum(pi(i) q(i, j)) / -q(j, j) in place.
+ * The sweep is inherently sequential so only the residual is computed in parallel.
+ * States with no exit rate are absorbing and are left as they are.
+ * </p>
+ */
+public class SorSolver extends AbstractSparseSolver {
+
+    /**
+     * Relaxation factor
+     */
+    private final double relaxation;
+
+    /**
+     * @param method     method this solver implements
+     * @param settings   solver settings
+     * @param rows       parallel row executor for the residual
+     * @param relaxation relaxation factor
+     */
+    SorSolver(SolverMethod method, SolverSettings settings, ParallelRows rows, double relaxation) {
+        super(method, settings, rows);
+        this.relaxation = relaxation;
+    }
+
+    @Override
+    protected double[] iterate(GeneratorMatrix matrix, double[] pi) {
+        for (int row = 0; row < matrix.states; row++) {
+            double exitRate = matrix.exitRates[row];
+            if (exitRate > 0) {
+                double value = matrix.incoming(row, pi) / exitRate;
+                pi[row] = (1 - relaxation) * pi[row] + relaxation * value;
+            }
+        }
+        return pi;
+    }
+}
@@ -0,0 +1,15 @@
+package pipe.gui.steadystate;
+
+/**
+ * Solves the steady state distribution pi Q = 0 of a {@link GeneratorMatrix}
+ */
+public interface SparseSolver {
+
+    /**
+     * @param matrix   generator matrix
+     * @param listener listener notified of the residual after each iteration, may be null
+     * @return solution and convergence information
+     * @throws InterruptedException if the solving thread is interrupted
+     */
+    SolverResult solve(GeneratorMatrix matrix, ConvergenceListener listener) throws InterruptedException;
+}
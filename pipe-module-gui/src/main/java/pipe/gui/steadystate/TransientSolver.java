@@ -0,0 +1,235 @@
+package pipe.gui.steadystate;
+
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.StateRateRecord;
+import pipe.reachability.algorithm.TimelessTrapException;
+import pipe.reachability.algorithm.VanishingExplorer;
+import uk.ac.imperial.pipe.exceptions.InvalidRateException;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Transient distribution pi(t) = pi(0) e^(Qt) of a {@link GeneratorMatrix} by uniformisation.
+ * <p>
+ * With uniformisation rate q at least the largest exit rate, P = I + Q / q is stochastic and
+ * pi(t) = sum over k of Poisson(k; qt) pi(0) P^k. The Poisson weights are truncated with
+ * {@link FoxGlynn} and the vector-matrix products are computed in parallel over the rows.
+ * Time points are solved incrementally from the previous one, so the discarded probability
+ * mass per point is at most epsilon. If the iterates stop changing before the right
+ * truncation point the remaining weight is assigned to the converged vector.
+ * </p>
+ */
+public class TransientSolver {
+
+    /**
+     * Default maximum probability mass discarded per time point
+     */
+    public static final double DEFAULT_EPSILON = 1e-6;
+
+    /**
+     * Factor applied to the largest exit rate to get the uniformisation rate
+     */
+    private static final double UNIFORMISATION_FACTOR = 1.02;
+
+    /**
+     * Parallel row executor for the vector-matrix products
+     */
+    private final ParallelRows rows;
+
+    /**
+     * Maximum probability mass discarded per time point
+     */
+    private final double epsilon;
+
+    /**
+     * @param rows    parallel row executor for the vector-matrix products
+     * @param epsilon maximum probability mass discarded per time point
+     */
+    public TransientSolver(ParallelRows rows, double epsilon) {
+        this.rows = rows;
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * Distribution at time zero. All the probability is on the initial state if it is
+     * tangible. A vanishing initial state is left straight away, so its probability is split
+     * between the tangible states the vanishing explorer reaches from it, each weighted by the
+     * probability of reaching it.
+     *
+     * @param matrix            generator matrix
+     * @param stateMappings     state id to tangible state of the explored state space
+     * @param explorerUtilities explorer utilities the state space was explored with
+     * @param vanishingExplorer vanishing explorer the state space was explored with
+     * @return distribution at time zero
+     * @throws TimelessTrapException unable to exit cyclic vanishing state
+     * @throws InvalidRateException  functional rate expression invalid
+     * @throws IllegalStateException if the initial state leads to a state that was not explored
+     */
+    public static double[] initialDistribution(GeneratorMatrix matrix, Map<Integer, ClassifiedState> stateMappings,
+                                               ExplorerUtilities explorerUtilities,
+                                               VanishingExplorer vanishingExplorer)
+            throws TimelessTrapException, InvalidRateException {
+        ClassifiedState initialState = explorerUtilities.getCurrentState();
+        Map<ClassifiedState, Double> probabilities = new HashMap<>();
+        double total = 0;
+        if (initialState.isTangible()) {
+            probabilities.put(initialState, 1.0);
+            total = 1;
+        } else {
+            for (StateRateRecord record : vanishingExplorer.explore(initialState, 1.0)) {
+                Double previous = probabilities.get(record.getState());
+                probabilities.put(record.getState(), previous == null ? record.getRate() : previous + record.getRate());
+                total += record.getRate();
+            }
+        }
+        double[] distribution = new double[matrix.states];
+        int found = 0;
+        for (Map.Entry<Integer, ClassifiedState> entry : stateMappings.entrySet()) {
+            Double probability = probabilities.get(entry.getValue());
+            if (probability != null) {
+                distribution[entry.getKey()] = probability / total;
+                found++;
+            }
+        }
+        if (found < probabilities.size()) {
+            throw new IllegalStateException("The initial state leads to a state that was not explored");
+        }
+        return distribution;
+    }
+
+    /**
+     * @param text comma separated time points
+     * @return distinct time points in ascending order, empty if none were entered
+     * @throws IllegalArgumentException if a time point is not a non negative number
+     */
+    public static double[] parseTimes(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) {
+            return new double[0];
+        }
+        String[] values = trimmed.split("\\s*,\\s*");
+        double[] times = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            try {
+                times[i] = Double.parseDouble(values[i]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid transient time " + values[i], e);
+            }
+            if (times[i] < 0 || Double.isNaN(times[i]) || Double.isInfinite(times[i])) {
+                throw new IllegalArgumentException("Transient times must be non negative numbers");
+            }
+        }
+        Arrays.sort(times);
+        int distinct = 0;
+        for (int i = 0; i < times.length; i++) {
+            if (i == 0 || times[i] != times[i - 1]) {
+                times[distinct++] = times[i];
+            }
+        }
+        return Arrays.copyOf(times, distinct);
+    }
+
+    /**
+     * @param matrix  generator matrix
+     * @param initial distribution at time zero
+     * @param times   non negative time points in ascending order
+     * @return distribution at each time point
+     * @throws InterruptedException if the solving thread is interrupted
+     */
+    public double[][] solve(final GeneratorMatrix matrix, double[] initial, double[] times)
+            throws InterruptedException {
+        for (int i = 0; i < times.length; i++) {
+            if (times[i] < 0 || (i > 0 && times[i] < times[i - 1])) {
+                throw new IllegalArgumentException("Time points must be non negative and in ascending order");
+            }
+        }
+        final double rate = Math.max(matrix.getMaxExitRate() * UNIFORMISATION_FACTOR, Double.MIN_NORMAL);
+        double[][] results = new double[times.length][];
+        double[] current = initial.clone();
+        double previousTime = 0;
+        for (int i = 0; i < times.length; i++) {
+            current = advance(matrix, rate, current, times[i] - previousTime);
+            results[i] = current.clone();
+            previousTime = times[i];
+        }
+        return results;
+    }
+
+    /**
+     * @param matrix  generator matrix
+     * @param rate    uniformisation rate
+     * @param start   distribution at the start of the interval
+     * @param elapsed length of the interval
+     * @return distribution at the end of the interval
+     * @throws InterruptedException if the solving thread is interrupted
+     */
+    private double[] advance(final GeneratorMatrix matrix, final double rate, double[] start, double elapsed)
+            throws InterruptedException {
+        if (elapsed == 0) {
+            return start;
+        }
+        FoxGlynn poisson = FoxGlynn.compute(rate * elapsed, epsilon);
+        double[] vector = start.clone();
+        double[] next = new double[vector.length];
+        double[] sum = new double[vector.length];
+        double remaining = 1;
+        for (int k = 0; k <= poisson.getRight(); k++) {
+            if (k >= poisson.getLeft()) {
+                double weight = poisson.getWeight(k);
+                addScaled(sum, weight, vector);
+                remaining -= weight;
+            }
+            if (k == poisson.getRight()) {
+                break;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Transient solver interrupted");
+            }
+            final double[] from = vector;
+            final double[] to = next;
+            double change = rows.max(matrix.states, new ParallelRows.RangeFunction() {
+                @Override
+                public double apply(int first, int last) {
+                    double max = 0;
+                    for (int row = first; row < last; row++) {
+                        double delta = (matrix.incoming(row, from) - from[row] * matrix.exitRates[row]) / rate;
+                        to[row] = from[row] + delta;
+                        max = Math.max(max, Math.abs(delta));
+                    }
+                    return max;
+                }
+            });
+            next = vector;
+            vector = to;
+            if (k + 1 >= poisson.getLeft() && change <= epsilon * 1e-3) {
+                addScaled(sum, Math.max(0, remaining), vector);
+                break;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Computes target = target + scale * source
+     *
+     * @param target vector to add to
+     * @param scale  scalar
+     * @param source vector to add
+     * @throws InterruptedException if interrupted during the parallel update
+     */
+    private void addScaled(final double[] target, final double scale, final double[] source)
+            throws InterruptedException {
+        rows.sum(target.length, new ParallelRows.RangeFunction() {
+            @Override
+            public double apply(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    target[i] += scale * source[i];
+                }
+                return 0;
+            }
+        });
+    }
+}
@@ -0,0 +1,638 @@
+package pipe.gui.structural;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes the minimal support semi-positive invariants y &ge; 0 with y<sup>T</sup>C = 0 of
+ * an incidence matrix C with the Farkas algorithm. Given the incidence matrix of a net these
+ * are its place invariants; given its transpose they are its transition invariants.
+ * <p>
+ * The algorithm starts from the identity and eliminates one column at a time, replacing the
+ * vectors that are positive and negative in that column by combinations of a positive and a
+ * negative one that cancel it. A combination is only kept if no other vector's support lies
+ * inside the union of its parents' supports, which is exactly when the result has minimal
+ * support, so no separate minimisation pass is needed. Columns are eliminated cheapest first
+ * and the combinations of each column are split between threads.
+ * </p>
+ * <p>
+ * When the last column eliminated is the only one left non zero, the vectors just before its
+ * elimination satisfy every other column. They are kept, so when the matrix is computed again
+ * with only that column changed, as when the weight of an arc of the same transition is
+ * edited, just the final elimination is redone. When a different single column changes, that
+ * column is eliminated last so that further edits to it are cheap.
+ * </p>
+ */
+public final class FarkasInvariants {
+
+    /**
+     * Most vectors kept at any step before the computation is abandoned, the number of
+     * minimal invariants can grow exponentially with the size of the net
+     */
+    public static final int MAX_VECTORS = 200000;
+
+    /**
+     * Pairs to combine in a step below which the combining is done on the calling thread
+     */
+    private static final long PARALLEL_PAIRS = 4096;
+
+    /**
+     * Returned by {@link #changedColumn(IncidenceMatrix)} if the matrix is unchanged
+     */
+    private static final int UNCHANGED = -2;
+
+    /**
+     * Returned by {@link #changedColumn(IncidenceMatrix)} if more than a single column changed
+     */
+    private static final int CHANGED = -1;
+
+    /**
+     * Last matrix computed, null before the first computation
+     */
+    private IncidenceMatrix matrix;
+
+    /**
+     * Invariants of {@link #matrix}
+     */
+    private List<Invariant> invariants = Collections.emptyList();
+
+    /**
+     * Vectors satisfying every column of {@link #matrix} except {@link #coneColumn}
+     */
+    private List<Row> cone;
+
+    /**
+     * Column left out of {@link #cone}, -1 if there is no cone
+     */
+    private int coneColumn = -1;
+
+    /**
+     * True if the last computation re-used earlier results
+     */
+    private boolean incremental;
+
+    /**
+     * Computes the invariants of a matrix, re-using the previous results if only one column
+     * differs from the last matrix computed
+     *
+     * @param next            matrix to compute the invariants of
+     * @param executorService executor to combine vectors on
+     * @param threads         number of tasks to split each step into
+     * @return minimal support invariants ordered by their support
+     * @throws InterruptedException  if the calling thread is interrupted
+     * @throws IllegalStateException if more than {@link #MAX_VECTORS} vectors are needed
+     * @throws ArithmeticException   if a coefficient does not fit in an int
+     */
+    public synchronized List<Invariant> compute(IncidenceMatrix next, ExecutorService executorService,
+                                                int threads) throws InterruptedException {
+        int changed = changedColumn(next);
+        if (changed == UNCHANGED) {
+            incremental = true;
+            return invariants;
+        }
+        Combiner combiner = new Combiner(executorService, threads);
+        Cone last = new Cone();
+        BitSet remaining = new BitSet();
+        List<Row> rows;
+        if (changed >= 0 && changed == coneColumn) {
+            rows = new ArrayList<>();
+            for (Row row : cone) {
+                rows.add(row.withResidual(next, changed));
+            }
+            remaining.set(changed);
+        } else {
+            rows = identity(next);
+            remaining.set(0, next.getColumnCount());
+            if (changed >= 0) {
+                remaining.clear(changed);
+                rows = eliminate(rows, remaining, combiner, last);
+                remaining.set(changed);
+            }
+        }
+        if (changed >= 0) {
+            last.rows = rows;
+            last.column = changed;
+        }
+        rows = eliminate(rows, remaining, combiner, last);
+
+        List<Invariant> result = new ArrayList<>();
+        for (Row row : rows) {
+            result.add(new Invariant(row.indices, row.coefficients));
+        }
+        Collections.sort(result, new Comparator<Invariant>() {
+            @Override
+            public int compare(Invariant a, Invariant b) {
+                for (int k = 0; k < Math.min(a.size(), b.size()); k++) {
+                    if (a.getIndex(k) != b.getIndex(k)) {
+                        return a.getIndex(k) < b.getIndex(k) ? -1 : 1;
+                    }
+                }
+                return a.size() - b.size();
+            }
+        });
+        matrix = next;
+        invariants = Collections.unmodifiableList(result);
+        cone = last.rows;
+        coneColumn = last.column;
+        incremental = changed >= 0;
+        return invariants;
+    }
+
+    /**
+     * @return true if the last computation re-used the results of the one before
+     */
+    public synchronized boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * @param next matrix about to be computed
+     * @return {@link #UNCHANGED}, the single column that differs from the last matrix, or
+     * {@link #CHANGED} if there is no comparable previous matrix or more columns differ
+     */
+    private int changedColumn(IncidenceMatrix next) {
+        if (matrix == null || !matrix.hasSameShape(next)) {
+            return CHANGED;
+        }
+        int changed = UNCHANGED;
+        for (int column = 0; column < next.getColumnCount(); column++) {
+            if (!matrix.columnEquals(next, column)) {
+                if (changed != UNCHANGED) {
+                    return CHANGED;
+                }
+                changed = column;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @param matrix matrix to compute the invariants of
+     * @return a unit vector for every row of the matrix
+     */
+    private static List<Row> identity(IncidenceMatrix matrix) {
+        IncidenceMatrix transposed = matrix.transpose();
+        List<Row> rows = new ArrayList<>();
+        for (int row = 0; row < matrix.getRowCount(); row++) {
+            int entries = transposed.getNonZeroCount(row);
+            int[] columns = new int[entries];
+            int[] residual = new int[entries];
+            for (int k = 0; k < entries; k++) {
+                columns[k] = transposed.getNonZeroRow(row, k);
+                residual[k] = transposed.getNonZeroValue(row, k);
+            }
+            rows.add(new Row(new int[]{row}, new int[]{1}, columns, residual));
+        }
+        return rows;
+    }
+
+    /**
+     * Eliminates columns cheapest first until every remaining column is zero in every vector
+     *
+     * @param start     vectors to start from
+     * @param remaining columns left to eliminate, cleared as they are eliminated
+     * @param combiner  combines the vectors of each step
+     * @param last      set to the vectors before an elimination that leaves no other column
+     *                  non zero, since only those satisfy every column but the eliminated one
+     * @return vectors that are zero in every column
+     * @throws InterruptedException
+     */
+    private static List<Row> eliminate(List<Row> start, BitSet remaining, Combiner combiner, Cone last)
+            throws InterruptedException {
+        List<Row> rows = start;
+        Map<Integer, long[]> signs = signs(rows, remaining);
+        while (!signs.isEmpty()) {
+            int column = cheapestColumn(signs);
+            if (signs.size() == 1) {
+                last.rows = rows;
+                last.column = column;
+            }
+            rows = combiner.eliminate(rows, column);
+            remaining.clear(column);
+            signs = signs(rows, remaining);
+        }
+        return rows;
+    }
+
+    /**
+     * @param rows      current vectors
+     * @param remaining columns left to eliminate
+     * @return number of vectors positive and negative in each remaining column that is non
+     * zero in some vector
+     */
+    private static Map<Integer, long[]> signs(List<Row> rows, BitSet remaining) {
+        Map<Integer, long[]> signs = new HashMap<>();
+        for (Row row : rows) {
+            for (int k = 0; k < row.columns.length; k++) {
+                if (remaining.get(row.columns[k])) {
+                    long[] counts = signs.get(row.columns[k]);
+                    if (counts == null) {
+                        counts = new long[2];
+                        signs.put(row.columns[k], counts);
+                    }
+                    counts[row.residual[k] > 0 ? 0 : 1]++;
+                }
+            }
+        }
+        return signs;
+    }
+
+    /**
+     * @param signs number of vectors positive and negative in each column left to eliminate
+     * @return column with the fewest positive and negative pairs
+     */
+    private static int cheapestColumn(Map<Integer, long[]> signs) {
+        int best = -1;
+        long bestPairs = Long.MAX_VALUE;
+        for (Map.Entry<Integer, long[]> entry : signs.entrySet()) {
+            long pairs = entry.getValue()[0] * entry.getValue()[1];
+            if (pairs < bestPairs || (pairs == bestPairs && entry.getKey() < best)) {
+                best = entry.getKey();
+                bestPairs = pairs;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Vectors before the last elimination and the column eliminated
+     */
+    private static final class Cone {
+        /**
+         * Vectors satisfying every column except {@link #column}
+         */
+        private List<Row> rows;
+
+        /**
+         * Column left out, -1 if no column has been eliminated
+         */
+        private int column = -1;
+    }
+
+    /**
+     * Eliminates a column at a time, splitting the pairs of each step between tasks
+     */
+    private static final class Combiner {
+        /**
+         * Executor running the tasks
+         */
+        private final ExecutorService executorService;
+
+        /**
+         * Number of tasks to split a step into
+         */
+        private final int threads;
+
+        /**
+         * @param executorService executor running the tasks
+         * @param threads         number of tasks to split a step into
+         */
+        private Combiner(ExecutorService executorService, int threads) {
+            this.executorService = executorService;
+            this.threads = Math.max(1, threads);
+        }
+
+        /**
+         * @param rows   vectors satisfying the columns eliminated so far
+         * @param column column to eliminate
+         * @return vectors satisfying the column too
+         * @throws InterruptedException
+         */
+        private List<Row> eliminate(final List<Row> rows, final int column) throws InterruptedException {
+            final List<Row> result = new ArrayList<>();
+            final List<Row> positive = new ArrayList<>();
+            final List<Row> negative = new ArrayList<>();
+            for (Row row : rows) {
+                int value = row.residualAt(column);
+                if (value == 0) {
+                    result.add(row);
+                } else {
+                    (value > 0 ? positive : negative).add(row);
+                }
+            }
+            final AtomicInteger count = new AtomicInteger(result.size());
+            long pairs = (long) positive.size() * negative.size();
+            if (threads == 1 || pairs < PARALLEL_PAIRS) {
+                result.addAll(combine(rows, positive, negative, 0, positive.size(), column, count));
+                return result;
+            }
+            List<Future<List<Row>>> futures = new ArrayList<>();
+            int chunk = (positive.size() + threads - 1) / threads;
+            for (int start = 0; start < positive.size(); start += chunk) {
+                final int from = start;
+                final int to = Math.min(positive.size(), start + chunk);
+                futures.add(executorService.submit(new Callable<List<Row>>() {
+                    @Override
+                    public List<Row> call() throws InterruptedException {
+                        return combine(rows, positive, negative, from, to, column, count);
+                    }
+                }));
+            }
+            try {
+                for (Future<List<Row>> future : futures) {
+                    result.addAll(future.get());
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof InterruptedException) {
+                    throw (InterruptedException) cause;
+                }
+                throw new IllegalStateException(cause);
+            } finally {
+                for (Future<List<Row>> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Combines a range of the positive vectors with every negative vector whose union of
+         * supports contains no other vector's support
+         *
+         * @param rows     every vector before the step
+         * @param positive vectors positive in the column
+         * @param negative vectors negative in the column
+         * @param from     first positive vector to combine
+         * @param to       end of the positive vectors to combine
+         * @param column   column to eliminate
+         * @param count    number of vectors kept so far by every task
+         * @return combinations cancelling the column
+         * @throws InterruptedException
+         */
+        private static List<Row> combine(List<Row> rows, List<Row> positive, List<Row> negative, int from, int to,
+                                         int column, AtomicInteger count) throws InterruptedException {
+            List<Row> combinations = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                Row p = positive.get(i);
+                for (Row n : negative) {
+                    long[] union = p.union(n);
+                    if (isAdjacent(rows, p, n, union)) {
+                        combinations.add(p.combine(n, column));
+                        if (count.incrementAndGet() > MAX_VECTORS) {
+                            throw new IllegalStateException(
+                                    "The net needs more than " + MAX_VECTORS + " intermediate invariants");
+                        }
+                    }
+                }
+            }
+            return combinations;
+        }
+
+        /**
+         * @param rows  every vector before the step
+         * @param p     positive vector
+         * @param n     negative vector
+         * @param union union of their supports
+         * @return true if no other vector's support lies inside the union
+         */
+        private static boolean isAdjacent(List<Row> rows, Row p, Row n, long[] union) {
+            for (Row row : rows) {
+                if (row != p && row != n && row.isSupportedWithin(union)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Immutable vector of the algorithm: its coefficients and the sparse product of those
+     * with the matrix
+     */
+    private static final class Row {
+        /**
+         * Indices with a non zero coefficient, ascending
+         */
+        private final int[] indices;
+
+        /**
+         * Positive coefficients
+         */
+        private final int[] coefficients;
+
+        /**
+         * Columns where the product with the matrix is non zero, ascending
+         */
+        private final int[] columns;
+
+        /**
+         * Product with the matrix in each of {@link #columns}
+         */
+        private final int[] residual;
+
+        /**
+         * Bit set of {@link #indices}
+         */
+        private final long[] support;
+
+        /**
+         * @param indices      indices with a non zero coefficient, ascending
+         * @param coefficients positive coefficients
+         * @param columns      columns where the product with the matrix is non zero, ascending
+         * @param residual     product with the matrix in each column
+         */
+        private Row(int[] indices, int[] coefficients, int[] columns, int[] residual) {
+            this.indices = indices;
+            this.coefficients = coefficients;
+            this.columns = columns;
+            this.residual = residual;
+            support = new long[indices[indices.length - 1] / 64 + 1];
+            for (int index : indices) {
+                support[index / 64] |= 1L << (index % 64);
+            }
+        }
+
+        /**
+         * @param column column index
+         * @return product with the matrix in the column
+         */
+        private int residualAt(int column) {
+            int k = Arrays.binarySearch(columns, column);
+            return k >= 0 ? residual[k] : 0;
+        }
+
+        /**
+         * @param matrix matrix whose column changed
+         * @param column the only column this vector may be non zero in
+         * @return the same vector with its product recomputed for the column
+         */
+        private Row withResidual(IncidenceMatrix matrix, int column) {
+            long value = 0;
+            for (int k = 0; k < matrix.getNonZeroCount(column); k++) {
+                int coefficient = coefficientOf(matrix.getNonZeroRow(column, k));
+                value += (long) coefficient * matrix.getNonZeroValue(column, k);
+            }
+            if (value == 0) {
+                return new Row(indices, coefficients, new int[0], new int[0]);
+            }
+            return new Row(indices, coefficients, new int[]{column}, new int[]{toInt(value)});
+        }
+
+        /**
+         * @param index index
+         * @return coefficient of the index, zero if it is not in the support
+         */
+        private int coefficientOf(int index) {
+            int k = Arrays.binarySearch(indices, index);
+            return k >= 0 ? coefficients[k] : 0;
+        }
+
+        /**
+         * @param other another vector
+         * @return bit set of the union of both supports
+         */
+        private long[] union(Row other) {
+            long[] longer = support.length >= other.support.length ? support : other.support;
+            long[] shorter = longer == support ? other.support : support;
+            long[] union = longer.clone();
+            for (int i = 0; i < shorter.length; i++) {
+                union[i] |= shorter[i];
+            }
+            return union;
+        }
+
+        /**
+         * @param set bit set of indices
+         * @return true if every index of this vector's support is in the set
+         */
+        private boolean isSupportedWithin(long[] set) {
+            if (support.length > set.length) {
+                for (int i = set.length; i < support.length; i++) {
+                    if (support[i] != 0) {
+                        return false;
+                    }
+                }
+            }
+            for (int i = 0; i < Math.min(support.length, set.length); i++) {
+                if ((support[i] & ~set[i]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @param negative vector negative in the column, this one being positive
+         * @param column   column to cancel
+         * @return smallest positive combination of both vectors that is zero in the column
+         */
+        private Row combine(Row negative, int column) {
+            long a = residualAt(column);
+            long b = -negative.residualAt(column);
+            long divisor = gcd(a, b);
+            long scaleThis = b / divisor;
+            long scaleOther = a / divisor;
+
+            int size = indices.length + negative.indices.length;
+            int[] newIndices = new int[size];
+            long[] newCoefficients = new long[size];
+            int entries = merge(indices, coefficients, scaleThis, negative.indices, negative.coefficients, scaleOther,
+                    newIndices, newCoefficients);
+            long common = 0;
+            for (int k = 0; k < entries; k++) {
+                common = gcd(common, newCoefficients[k]);
+            }
+
+            size = columns.length + negative.columns.length;
+            int[] newColumns = new int[size];
+            long[] newResidual = new long[size];
+            int residualEntries = merge(columns, residual, scaleThis, negative.columns, negative.residual, scaleOther,
+                    newColumns, newResidual);
+            return new Row(Arrays.copyOf(newIndices, entries), divide(newCoefficients, entries, common),
+                    Arrays.copyOf(newColumns, residualEntries), divide(newResidual, residualEntries, common));
+        }
+
+        /**
+         * Merges two sparse vectors scaled by the given factors, dropping zero entries
+         *
+         * @param firstIndices   indices of the first vector, ascending
+         * @param firstValues    values of the first vector
+         * @param firstScale     factor of the first vector
+         * @param secondIndices  indices of the second vector, ascending
+         * @param secondValues   values of the second vector
+         * @param secondScale    factor of the second vector
+         * @param indices        merged indices
+         * @param values         merged values
+         * @return number of merged entries
+         */
+        private static int merge(int[] firstIndices, int[] firstValues, long firstScale, int[] secondIndices,
+                                 int[] secondValues, long secondScale, int[] indices, long[] values) {
+            int i = 0;
+            int j = 0;
+            int entries = 0;
+            while (i < firstIndices.length || j < secondIndices.length) {
+                int index;
+                long value;
+                if (j == secondIndices.length || (i < firstIndices.length && firstIndices[i] < secondIndices[j])) {
+                    index = firstIndices[i];
+                    value = firstScale * firstValues[i++];
+                } else if (i == firstIndices.length || secondIndices[j] < firstIndices[i]) {
+                    index = secondIndices[j];
+                    value = secondScale * secondValues[j++];
+                } else {
+                    index = firstIndices[i];
+                    value = firstScale * firstValues[i++] + secondScale * secondValues[j++];
+                }
+                if (value != 0) {
+                    indices[entries] = index;
+                    values[entries] = value;
+                    entries++;
+                }
+            }
+            return entries;
+        }
+
+        /**
+         * @param values  values to divide
+         * @param entries number of values to use
+         * @param divisor common divisor of the values
+         * @return the divided values
+         */
+        private static int[] divide(long[] values, int entries, long divisor) {
+            int[] divided = new int[entries];
+            for (int k = 0; k < entries; k++) {
+                divided[k] = toInt(values[k] / divisor);
+            }
+            return divided;
+        }
+
+        /**
+         * @param value value to narrow
+         * @return the value as an int
+         * @throws ArithmeticException if the value does not fit
+         */
+        private static int toInt(long value) {
+            if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+                throw new ArithmeticException("An invariant coefficient is too large to compute");
+            }
+            return (int) value;
+        }
+
+        /**
+         * @param a first value
+         * @param b second value
+         * @return greatest common divisor of their magnitudes
+         */
+        private static long gcd(long a, long b) {
+            long x = Math.abs(a);
+            long y = Math.abs(b);
+            while (y != 0) {
+                long t = x % y;
+                x = y;
+                y = t;
+            }
+            return x;
+        }
+    }
+}
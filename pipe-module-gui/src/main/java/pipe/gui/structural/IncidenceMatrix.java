@@ -0,0 +1,219 @@
+package pipe.gui.structural;
+
+import java.util.*;
+
+/**
+ * Immutable sparse integer matrix stored by column, used for the incidence matrix of a net
+ * whose rows are places and columns are transitions.
+ * <p>
+ * Each column only holds its non zero entries in ascending row order, so the incidence
+ * matrices of real nets, where a transition touches a handful of places, take space
+ * proportional to the number of arcs.
+ * </p>
+ */
+public final class IncidenceMatrix {
+
+    /**
+     * Label of each row
+     */
+    private final List<String> rowLabels;
+
+    /**
+     * Label of each column
+     */
+    private final List<String> columnLabels;
+
+    /**
+     * Rows of the non zero entries of each column, ascending
+     */
+    private final int[][] rows;
+
+    /**
+     * Non zero entries of each column, in the same order as {@link #rows}
+     */
+    private final int[][] values;
+
+    /**
+     * @param rowLabels    label of each row
+     * @param columnLabels label of each column
+     * @param rows         rows of the non zero entries of each column, ascending
+     * @param values       non zero entries of each column
+     */
+    private IncidenceMatrix(List<String> rowLabels, List<String> columnLabels, int[][] rows, int[][] values) {
+        this.rowLabels = rowLabels;
+        this.columnLabels = columnLabels;
+        this.rows = rows;
+        this.values = values;
+    }
+
+    /**
+     * @param rowLabels    label of each row
+     * @param columnLabels label of each column
+     * @param columns      entries of each column by row, zero entries are dropped
+     * @return matrix with the given columns
+     */
+    public static IncidenceMatrix fromColumns(List<String> rowLabels, List<String> columnLabels,
+                                              List<? extends Map<Integer, Integer>> columns) {
+        if (columns.size() != columnLabels.size()) {
+            throw new IllegalArgumentException(
+                    "Expected " + columnLabels.size() + " columns but was given " + columns.size());
+        }
+        int[][] rows = new int[columns.size()][];
+        int[][] values = new int[columns.size()][];
+        for (int column = 0; column < columns.size(); column++) {
+            SortedMap<Integer, Integer> entries = new TreeMap<>();
+            for (Map.Entry<Integer, Integer> entry : columns.get(column).entrySet()) {
+                int row = entry.getKey();
+                if (row < 0 || row >= rowLabels.size()) {
+                    throw new IllegalArgumentException("Row " + row + " is outside the matrix");
+                }
+                if (entry.getValue() != 0) {
+                    entries.put(row, entry.getValue());
+                }
+            }
+            rows[column] = new int[entries.size()];
+            values[column] = new int[entries.size()];
+            int k = 0;
+            for (Map.Entry<Integer, Integer> entry : entries.entrySet()) {
+                rows[column][k] = entry.getKey();
+                values[column][k] = entry.getValue();
+                k++;
+            }
+        }
+        return new IncidenceMatrix(Collections.unmodifiableList(new ArrayList<>(rowLabels)),
+                Collections.unmodifiableList(new ArrayList<>(columnLabels)), rows, values);
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int getRowCount() {
+        return rowLabels.size();
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int getColumnCount() {
+        return columnLabels.size();
+    }
+
+    /**
+     * @param row row index
+     * @return label of the row
+     */
+    public String getRowLabel(int row) {
+        return rowLabels.get(row);
+    }
+
+    /**
+     * @param column column index
+     * @return label of the column
+     */
+    public String getColumnLabel(int column) {
+        return columnLabels.get(column);
+    }
+
+    /**
+     * @param column column index
+     * @return number of non zero entries in the column
+     */
+    public int getNonZeroCount(int column) {
+        return rows[column].length;
+    }
+
+    /**
+     * @param column column index
+     * @param k      index of the non zero entry, less than {@link #getNonZeroCount(int)}
+     * @return row of the entry
+     */
+    public int getNonZeroRow(int column, int k) {
+        return rows[column][k];
+    }
+
+    /**
+     * @param column column index
+     * @param k      index of the non zero entry, less than {@link #getNonZeroCount(int)}
+     * @return value of the entry
+     */
+    public int getNonZeroValue(int column, int k) {
+        return values[column][k];
+    }
+
+    /**
+     * @param row    row index
+     * @param column column index
+     * @return entry of the matrix
+     */
+    public int get(int row, int column) {
+        int k = Arrays.binarySearch(rows[column], row);
+        return k >= 0 ? values[column][k] : 0;
+    }
+
+    /**
+     * @return matrix with the rows and columns swapped
+     */
+    public IncidenceMatrix transpose() {
+        int[] counts = new int[getRowCount()];
+        for (int[] column : rows) {
+            for (int row : column) {
+                counts[row]++;
+            }
+        }
+        int[][] transposedRows = new int[getRowCount()][];
+        int[][] transposedValues = new int[getRowCount()][];
+        for (int row = 0; row < getRowCount(); row++) {
+            transposedRows[row] = new int[counts[row]];
+            transposedValues[row] = new int[counts[row]];
+        }
+        int[] next = new int[getRowCount()];
+        for (int column = 0; column < getColumnCount(); column++) {
+            for (int k = 0; k < rows[column].length; k++) {
+                int row = rows[column][k];
+                transposedRows[row][next[row]] = column;
+                transposedValues[row][next[row]] = values[column][k];
+                next[row]++;
+            }
+        }
+        return new IncidenceMatrix(columnLabels, rowLabels, transposedRows, transposedValues);
+    }
+
+    /**
+     * @param other matrix to compare with
+     * @return true if the other matrix has the same row and column labels
+     */
+    public boolean hasSameShape(IncidenceMatrix other) {
+        return rowLabels.equals(other.rowLabels) && columnLabels.equals(other.columnLabels);
+    }
+
+    /**
+     * @param other  matrix of the same shape
+     * @param column column index
+     * @return true if the column is the same in both matrices
+     */
+    public boolean columnEquals(IncidenceMatrix other, int column) {
+        return Arrays.equals(rows[column], other.rows[column]) && Arrays.equals(values[column],
+                other.values[column]);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        IncidenceMatrix that = (IncidenceMatrix) o;
+        return hasSameShape(that) && Arrays.deepEquals(rows, that.rows) && Arrays.deepEquals(values, that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = rowLabels.hashCode();
+        result = 31 * result + columnLabels.hashCode();
+        result = 31 * result + Arrays.deepHashCode(rows);
+        result = 31 * result + Arrays.deepHashCode(values);
+        return result;
+    }
+}
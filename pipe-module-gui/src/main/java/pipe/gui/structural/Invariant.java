@@ -0,0 +1,97 @@
+package pipe.gui.structural;
+
+import java.util.Arrays;
+
+/**
+ * Minimal support semi-positive invariant of an incidence matrix, stored sparsely.
+ * <p>
+ * For a place invariant the indices are rows of the incidence matrix and the weighted token
+ * sum over them never changes; for a transition invariant they are columns and firing each
+ * transition its coefficient's number of times returns the net to the marking it started from.
+ * </p>
+ */
+public final class Invariant {
+
+    /**
+     * Indices with a non zero coefficient, ascending
+     */
+    private final int[] indices;
+
+    /**
+     * Positive coefficients, in the same order as {@link #indices}
+     */
+    private final int[] coefficients;
+
+    /**
+     * @param indices      indices with a non zero coefficient, ascending
+     * @param coefficients positive coefficients
+     */
+    Invariant(int[] indices, int[] coefficients) {
+        this.indices = indices;
+        this.coefficients = coefficients;
+    }
+
+    /**
+     * @return number of indices in the support
+     */
+    public int size() {
+        return indices.length;
+    }
+
+    /**
+     * @param k position in the support, less than {@link #size()}
+     * @return index of the position
+     */
+    public int getIndex(int k) {
+        return indices[k];
+    }
+
+    /**
+     * @param k position in the support, less than {@link #size()}
+     * @return coefficient of the position
+     */
+    public int getCoefficient(int k) {
+        return coefficients[k];
+    }
+
+    /**
+     * @param index row or column index
+     * @return coefficient of the index, zero if it is not in the support
+     */
+    public int getCoefficientOf(int index) {
+        int k = Arrays.binarySearch(indices, index);
+        return k >= 0 ? coefficients[k] : 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Invariant invariant = (Invariant) o;
+        return Arrays.equals(indices, invariant.indices) && Arrays.equals(coefficients, invariant.coefficients);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(indices) + Arrays.hashCode(coefficients);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int k = 0; k < indices.length; k++) {
+            if (k > 0) {
+                builder.append(" + ");
+            }
+            if (coefficients[k] != 1) {
+                builder.append(coefficients[k]).append(' ');
+            }
+            builder.append('x').append(indices[k]);
+        }
+        return builder.toString();
+    }
+}
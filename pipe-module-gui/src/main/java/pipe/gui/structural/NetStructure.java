@@ -0,0 +1,294 @@
+package pipe.gui.structural;
+
+import uk.ac.imperial.pipe.models.petrinet.*;
+import uk.ac.imperial.pipe.parsers.FunctionalResults;
+
+import java.util.*;
+
+/**
+ * The structure of a Petri net needed for structural analysis: which places each transition
+ * takes tokens from and puts tokens into, its incidence matrix and its initial marking.
+ * <p>
+ * Only normal arcs move tokens, so inhibitor and test arcs are left out. Each row of the
+ * incidence matrix is a place and token pair, so coloured nets get an invariant per colour;
+ * the place sets used for siphons and traps ignore colour. Arc weights must evaluate to
+ * non negative integers that do not depend on the marking.
+ * </p>
+ */
+public final class NetStructure {
+
+    /**
+     * Sorted place ids
+     */
+    private final List<String> places;
+
+    /**
+     * Sorted token ids
+     */
+    private final List<String> tokens;
+
+    /**
+     * Sorted transition ids
+     */
+    private final List<String> transitions;
+
+    /**
+     * Places each transition takes tokens from, ascending
+     */
+    private final int[][] inputs;
+
+    /**
+     * Places each transition puts tokens into, ascending
+     */
+    private final int[][] outputs;
+
+    /**
+     * Initial token count of each place and token pair, indexed as the incidence matrix rows
+     */
+    private final int[] initialMarking;
+
+    /**
+     * Incidence matrix with a row per place and token pair and a column per transition
+     */
+    private final IncidenceMatrix incidence;
+
+    /**
+     * @param places         sorted place ids
+     * @param tokens         sorted token ids
+     * @param transitions    sorted transition ids
+     * @param inputs         places each transition takes tokens from
+     * @param outputs        places each transition puts tokens into
+     * @param initialMarking initial token count of each place and token pair
+     * @param incidence      incidence matrix
+     */
+    private NetStructure(List<String> places, List<String> tokens, List<String> transitions, int[][] inputs,
+                         int[][] outputs, int[] initialMarking, IncidenceMatrix incidence) {
+        this.places = places;
+        this.tokens = tokens;
+        this.transitions = transitions;
+        this.inputs = inputs;
+        this.outputs = outputs;
+        this.initialMarking = initialMarking;
+        this.incidence = incidence;
+    }
+
+    /**
+     * @param petriNet net to analyse, it is not modified
+     * @return structure of the net
+     * @throws IllegalArgumentException if an arc weight is not a constant non negative integer
+     */
+    public static NetStructure of(PetriNet petriNet) {
+        List<String> places = sortedIds(petriNet.getPlaces());
+        List<String> tokens = sortedIds(petriNet.getTokens());
+        List<String> transitions = sortedIds(petriNet.getTransitions());
+        Map<String, Integer> placeIndex = index(places);
+        Map<String, Integer> tokenIndex = index(tokens);
+        Map<String, Integer> transitionIndex = index(transitions);
+        Set<String> placeIds = placeIndex.keySet();
+
+        List<Map<Integer, Integer>> columns = new ArrayList<>();
+        List<Set<Integer>> inputSets = new ArrayList<>();
+        List<Set<Integer>> outputSets = new ArrayList<>();
+        for (int i = 0; i < transitions.size(); i++) {
+            columns.add(new HashMap<Integer, Integer>());
+            inputSets.add(new TreeSet<Integer>());
+            outputSets.add(new TreeSet<Integer>());
+        }
+        for (Arc<? extends Connectable, ? extends Connectable> arc : petriNet.getArcs()) {
+            if (arc.getType() != ArcType.NORMAL) {
+                continue;
+            }
+            boolean inbound = arc.getSource() instanceof Place;
+            String place = inbound ? arc.getSource().getId() : arc.getTarget().getId();
+            String transition = inbound ? arc.getTarget().getId() : arc.getSource().getId();
+            int column = transitionIndex.get(transition);
+            int placeRow = placeIndex.get(place);
+            boolean moves = false;
+            for (Map.Entry<String, String> entry : arc.getTokenWeights().entrySet()) {
+                Integer token = tokenIndex.get(entry.getKey());
+                int weight = weight(petriNet, arc, entry.getValue(), placeIds);
+                if (token == null || weight == 0) {
+                    continue;
+                }
+                moves = true;
+                int row = placeRow * tokens.size() + token;
+                Integer current = columns.get(column).get(row);
+                int value = (current == null ? 0 : current) + (inbound ? -weight : weight);
+                columns.get(column).put(row, value);
+            }
+            if (moves) {
+                (inbound ? inputSets : outputSets).get(column).add(placeRow);
+            }
+        }
+
+        List<String> rowLabels = new ArrayList<>();
+        int[] initialMarking = new int[places.size() * tokens.size()];
+        Map<String, Place> placesById = new HashMap<>();
+        for (Place place : petriNet.getPlaces()) {
+            placesById.put(place.getId(), place);
+        }
+        for (int p = 0; p < places.size(); p++) {
+            Place place = placesById.get(places.get(p));
+            for (int t = 0; t < tokens.size(); t++) {
+                String token = tokens.get(t);
+                rowLabels.add(tokens.size() == 1 ? place.getId() : place.getId() + ":" + token);
+                initialMarking[p * tokens.size() + t] = place.getTokenCount(token);
+            }
+        }
+        IncidenceMatrix incidence = IncidenceMatrix.fromColumns(rowLabels, transitions, columns);
+        return new NetStructure(places, tokens, transitions, toArrays(inputSets), toArrays(outputSets),
+                initialMarking, incidence);
+    }
+
+    /**
+     * @param petriNet   net the arc belongs to
+     * @param arc        arc whose weight is evaluated
+     * @param expression weight expression for a token
+     * @param placeIds   ids of the places in the net
+     * @return value of the weight
+     * @throws IllegalArgumentException if the weight is not a constant non negative integer
+     */
+    private static int weight(PetriNet petriNet, Arc<?, ?> arc, String expression, Set<String> placeIds) {
+        if (expression == null || expression.trim().isEmpty()) {
+            return 0;
+        }
+        FunctionalResults<Double> result = petriNet.parseExpression(expression);
+        if (result.hasErrors()) {
+            throw new IllegalArgumentException(
+                    "Cannot evaluate weight " + expression + " of arc " + arc.getId() + ": " + result.getErrors());
+        }
+        for (String component : result.getComponents()) {
+            if (placeIds.contains(component)) {
+                throw new IllegalArgumentException("Weight " + expression + " of arc " + arc.getId()
+                        + " depends on the marking, structural analysis needs constant weights");
+            }
+        }
+        double value = result.getResult();
+        if (value < 0 || value != Math.floor(value) || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Weight " + expression + " of arc " + arc.getId() + " is not a non negative integer");
+        }
+        return (int) value;
+    }
+
+    /**
+     * @param components components of the net
+     * @return sorted ids of the components
+     */
+    private static List<String> sortedIds(Collection<? extends PetriNetComponent> components) {
+        List<String> ids = new ArrayList<>();
+        for (PetriNetComponent component : components) {
+            ids.add(component.getId());
+        }
+        Collections.sort(ids);
+        return Collections.unmodifiableList(ids);
+    }
+
+    /**
+     * @param ids sorted ids
+     * @return position of each id
+     */
+    private static Map<String, Integer> index(List<String> ids) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            index.put(ids.get(i), i);
+        }
+        return index;
+    }
+
+    /**
+     * @param sets sorted sets of place indices
+     * @return the sets as arrays
+     */
+    private static int[][] toArrays(List<Set<Integer>> sets) {
+        int[][] arrays = new int[sets.size()][];
+        for (int i = 0; i < sets.size(); i++) {
+            arrays[i] = new int[sets.get(i).size()];
+            int k = 0;
+            for (int place : sets.get(i)) {
+                arrays[i][k++] = place;
+            }
+        }
+        return arrays;
+    }
+
+    /**
+     * @return the same net with every arc reversed, whose siphons are the traps of this net
+     */
+    public NetStructure reverse() {
+        return new NetStructure(places, tokens, transitions, outputs, inputs, initialMarking, incidence);
+    }
+
+    /**
+     * @return sorted place ids
+     */
+    public List<String> getPlaces() {
+        return places;
+    }
+
+    /**
+     * @return sorted token ids
+     */
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * @return sorted transition ids
+     */
+    public List<String> getTransitions() {
+        return transitions;
+    }
+
+    /**
+     * @param transition transition index
+     * @return indices of the places it takes tokens from, ascending
+     */
+    public int[] getInputs(int transition) {
+        return inputs[transition].clone();
+    }
+
+    /**
+     * @param transition transition index
+     * @return indices of the places it puts tokens into, ascending
+     */
+    public int[] getOutputs(int transition) {
+        return outputs[transition].clone();
+    }
+
+    /**
+     * @param place place index
+     * @return total number of tokens of every colour initially in the place
+     */
+    public int getInitialTokens(int place) {
+        int total = 0;
+        for (int t = 0; t < tokens.size(); t++) {
+            total += initialMarking[place * tokens.size() + t];
+        }
+        return total;
+    }
+
+    /**
+     * @param row row of the incidence matrix
+     * @return initial token count of the row's place and token pair
+     */
+    public int getInitialMarking(int row) {
+        return initialMarking[row];
+    }
+
+    /**
+     * @param row row of the incidence matrix
+     * @return index of the row's place
+     */
+    public int getPlaceOfRow(int row) {
+        return row / tokens.size();
+    }
+
+    /**
+     * @return incidence matrix with a row per place and token pair, ordered by place then
+     * token, and a column per transition
+     */
+    public IncidenceMatrix getIncidenceMatrix() {
+        return incidence;
+    }
+}
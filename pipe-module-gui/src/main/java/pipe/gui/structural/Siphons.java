@@ -0,0 +1,272 @@
+package pipe.gui.structural;
+
+import java.util.*;
+
+/**
+ * Minimal siphons of a net: sets of places S where every transition putting tokens into S
+ * also takes tokens from S, so once S is empty it stays empty. The minimal traps, sets that
+ * stay marked once marked, are the minimal siphons of the reversed net.
+ * <p>
+ * The search starts from each place in turn and repeatedly picks a transition that puts
+ * tokens into the set without taking any from it, branching on which of its input places to
+ * add. Every minimal siphon is reached from its lowest place, so places below the starting
+ * one are never added. There can be exponentially many minimal siphons, so the search stops
+ * after a fixed number of steps and reports that it is incomplete.
+ * </p>
+ */
+public final class Siphons {
+
+    /**
+     * Net searched
+     */
+    private final NetStructure net;
+
+    /**
+     * Transitions putting tokens into each place
+     */
+    private final int[][] producers;
+
+    /**
+     * Places each transition takes tokens from
+     */
+    private final int[][] inputs;
+
+    /**
+     * Places each transition puts tokens into
+     */
+    private final int[][] outputs;
+
+    /**
+     * Minimal siphons found
+     */
+    private final List<BitSet> siphons = new ArrayList<>();
+
+    /**
+     * Search steps left before giving up
+     */
+    private int budget;
+
+    /**
+     * True if the search finished within its budget
+     */
+    private boolean complete = true;
+
+    /**
+     * @param net   net to search
+     * @param steps most search steps to take
+     */
+    private Siphons(NetStructure net, int steps) {
+        this.net = net;
+        budget = steps;
+        int transitions = net.getTransitions().size();
+        inputs = new int[transitions][];
+        outputs = new int[transitions][];
+        List<List<Integer>> producing = new ArrayList<>();
+        for (int p = 0; p < net.getPlaces().size(); p++) {
+            producing.add(new ArrayList<Integer>());
+        }
+        for (int t = 0; t < transitions; t++) {
+            inputs[t] = net.getInputs(t);
+            outputs[t] = net.getOutputs(t);
+            for (int place : outputs[t]) {
+                producing.get(place).add(t);
+            }
+        }
+        producers = new int[producing.size()][];
+        for (int p = 0; p < producing.size(); p++) {
+            producers[p] = new int[producing.get(p).size()];
+            for (int k = 0; k < producers[p].length; k++) {
+                producers[p][k] = producing.get(p).get(k);
+            }
+        }
+    }
+
+    /**
+     * @param net   net to search
+     * @param steps most search steps to take
+     * @return minimal siphons of the net
+     */
+    public static Siphons findSiphons(NetStructure net, int steps) {
+        Siphons search = new Siphons(net, steps);
+        search.search();
+        return search;
+    }
+
+    /**
+     * @param net   net to search
+     * @param steps most search steps to take
+     * @return minimal traps of the net
+     */
+    public static Siphons findTraps(NetStructure net, int steps) {
+        return findSiphons(net.reverse(), steps);
+    }
+
+    /**
+     * @return minimal sets found, ordered by their lowest places
+     */
+    public List<BitSet> getSets() {
+        return Collections.unmodifiableList(siphons);
+    }
+
+    /**
+     * @return true if every minimal set was found
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @param places set of place indices
+     * @return true if a place in the set initially holds a token
+     */
+    public boolean isInitiallyMarked(BitSet places) {
+        for (int p = places.nextSetBit(0); p >= 0; p = places.nextSetBit(p + 1)) {
+            if (net.getInitialTokens(p) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Only meaningful for a search of siphons, where it tells whether a siphon can never be
+     * emptied because it contains a marked trap
+     *
+     * @param places set of place indices
+     * @return largest trap of the net inside the set, possibly empty
+     */
+    public BitSet largestTrapWithin(BitSet places) {
+        BitSet trap = (BitSet) places.clone();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int t = 0; t < inputs.length; t++) {
+                if (intersects(inputs[t], trap) && !intersects(outputs[t], trap)) {
+                    for (int place : inputs[t]) {
+                        trap.clear(place);
+                    }
+                    changed = true;
+                }
+            }
+        }
+        return trap;
+    }
+
+    /**
+     * Searches from every place in turn
+     */
+    private void search() {
+        for (int place = 0; place < producers.length && complete; place++) {
+            BitSet set = new BitSet();
+            set.set(place);
+            extend(set, place);
+        }
+        Collections.sort(siphons, new Comparator<BitSet>() {
+            @Override
+            public int compare(BitSet a, BitSet b) {
+                for (int i = a.nextSetBit(0), j = b.nextSetBit(0); i >= 0 || j >= 0;
+                     i = a.nextSetBit(i + 1), j = b.nextSetBit(j + 1)) {
+                    if (i != j) {
+                        return i < 0 ? -1 : j < 0 ? 1 : i - j;
+                    }
+                }
+                return 0;
+            }
+        });
+    }
+
+    /**
+     * Adds input places to the set until it is a siphon, branching on each choice
+     *
+     * @param set    places chosen so far
+     * @param lowest place the search started from, lower places are not added
+     */
+    private void extend(BitSet set, int lowest) {
+        if (budget-- <= 0) {
+            complete = false;
+            return;
+        }
+        for (BitSet siphon : siphons) {
+            if (isSubset(siphon, set)) {
+                return;
+            }
+        }
+        int[] choices = null;
+        for (int place = set.nextSetBit(0); place >= 0; place = set.nextSetBit(place + 1)) {
+            for (int transition : producers[place]) {
+                if (intersects(inputs[transition], set)) {
+                    continue;
+                }
+                int[] allowed = allowed(inputs[transition], lowest);
+                if (choices == null || allowed.length < choices.length) {
+                    choices = allowed;
+                }
+            }
+        }
+        if (choices == null) {
+            removeSupersets(set);
+            siphons.add(set);
+            return;
+        }
+        for (int place : choices) {
+            if (!complete) {
+                return;
+            }
+            BitSet next = (BitSet) set.clone();
+            next.set(place);
+            extend(next, lowest);
+        }
+    }
+
+    /**
+     * @param places input places of a transition
+     * @param lowest lowest place that may be added
+     * @return the places that may be added
+     */
+    private static int[] allowed(int[] places, int lowest) {
+        int from = 0;
+        while (from < places.length && places[from] < lowest) {
+            from++;
+        }
+        return Arrays.copyOfRange(places, from, places.length);
+    }
+
+    /**
+     * Removes siphons found earlier that contain a new, smaller one
+     *
+     * @param set new siphon
+     */
+    private void removeSupersets(BitSet set) {
+        Iterator<BitSet> iterator = siphons.iterator();
+        while (iterator.hasNext()) {
+            if (isSubset(set, iterator.next())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @param places sorted places
+     * @param set    set of places
+     * @return true if any of the places is in the set
+     */
+    private static boolean intersects(int[] places, BitSet set) {
+        for (int place : places) {
+            if (set.get(place)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param subset possible subset
+     * @param set    set
+     * @return true if every member of the subset is in the set
+     */
+    private static boolean isSubset(BitSet subset, BitSet set) {
+        BitSet difference = (BitSet) subset.clone();
+        difference.andNot(set);
+        return difference.isEmpty();
+    }
+}
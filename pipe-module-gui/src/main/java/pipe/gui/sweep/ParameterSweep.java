@@ -0,0 +1,294 @@
+package pipe.gui.sweep;
+
+import pipe.gui.statespace.CompactStateIndex;
+import pipe.gui.statespace.CompactStates;
+import pipe.gui.steadystate.GeneratorMatrix;
+import pipe.gui.steadystate.GeneratorMatrixBuilder;
+import pipe.gui.steadystate.ParallelRows;
+import pipe.gui.steadystate.SolverResult;
+import pipe.gui.steadystate.SolverSettings;
+import pipe.gui.widget.StateSpaceLoader;
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.StateRateRecord;
+import pipe.reachability.algorithm.TimelessTrapException;
+import pipe.reachability.algorithm.VanishingExplorer;
+import pipe.steadystate.metrics.TokenMetrics;
+import pipe.steadystate.metrics.TransitionMetrics;
+import uk.ac.imperial.pipe.exceptions.InvalidRateException;
+import uk.ac.imperial.pipe.exceptions.PetriNetComponentNotFoundException;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+import uk.ac.imperial.pipe.models.petrinet.RateParameter;
+import uk.ac.imperial.pipe.visitor.ClonePetriNet;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Solves the steady state of a net for each of a range of values of one of its rate
+ * parameters, reusing a state space that has already been explored.
+ * <p>
+ * Rates do not change which markings of a bounded net are reachable, so the tangible states
+ * are explored once and kept. For each value only the rates of the transitions out of every
+ * known state are recalculated against a copy of the net with the parameter changed, and
+ * the resulting generator matrix is solved. Points are solved in parallel, each on a single
+ * thread.
+ * </p>
+ * <p>
+ * A value that makes a rate zero can leave some states unreachable, which the solvers see
+ * as states with zero probability.
+ * </p>
+ */
+public final class ParameterSweep {
+
+    /**
+     * Net whose rate parameter is swept, never modified
+     */
+    private final PetriNet petriNet;
+
+    /**
+     * Id of the rate parameter
+     */
+    private final String parameter;
+
+    /**
+     * Explored states, numbered by position
+     */
+    private final CompactStateIndex index = new CompactStateIndex();
+
+    /**
+     * State id of the state at each position of the index
+     */
+    private final int[] ids;
+
+    /**
+     * State id to state, for the metrics
+     */
+    private final Map<Integer, ClassifiedState> stateMappings;
+
+    /**
+     * Creates the explorer utilities of each copy of the net
+     */
+    private final StateSpaceLoader.ExplorerCreator creator;
+
+    /**
+     * Creates the vanishing explorer of each copy of the net
+     */
+    private final StateSpaceLoader.VanishingExplorerCreator vanishingCreator;
+
+    /**
+     * Settings of the solver used for every point
+     */
+    private final SolverSettings solverSettings;
+
+    /**
+     * @param petriNet         net whose rate parameter is swept, it is not modified
+     * @param parameter        id of the rate parameter
+     * @param stateMappings    tangible states of the explored state space
+     * @param creator          creates the explorer utilities the state space was explored with
+     * @param vanishingCreator creates the vanishing explorer the state space was explored with
+     * @param solverSettings   settings of the solver used for every point
+     * @throws IllegalArgumentException if the net has no such rate parameter or the state
+     *                                  space contains vanishing states
+     */
+    public ParameterSweep(PetriNet petriNet, String parameter, Map<Integer, ClassifiedState> stateMappings,
+                          StateSpaceLoader.ExplorerCreator creator,
+                          StateSpaceLoader.VanishingExplorerCreator vanishingCreator, SolverSettings solverSettings) {
+        this.petriNet = petriNet;
+        this.parameter = parameter;
+        this.creator = creator;
+        this.vanishingCreator = vanishingCreator;
+        this.solverSettings = solverSettings;
+        findParameter(petriNet);
+        this.stateMappings = stateMappings instanceof CompactStates ? stateMappings : new CompactStates(stateMappings);
+        ids = new int[this.stateMappings.size()];
+        for (Map.Entry<Integer, ClassifiedState> entry : this.stateMappings.entrySet()) {
+            if (!entry.getValue().isTangible()) {
+                throw new IllegalArgumentException("Parameter sweeps need a state space without vanishing states");
+            }
+            ids[index.add(entry.getValue())] = entry.getKey();
+        }
+    }
+
+    /**
+     * @param text comma separated values, each either a number or a range from:to:step
+     * @return distinct values in ascending order
+     * @throws IllegalArgumentException if a value is not a non negative number or a range is invalid
+     */
+    public static double[] parseValues(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Enter the rate parameter values to sweep");
+        }
+        List<Double> values = new ArrayList<>();
+        for (String item : trimmed.split("\\s*,\\s*")) {
+            String[] range = item.split("\\s*:\\s*");
+            if (range.length == 1) {
+                values.add(parseValue(range[0]));
+            } else if (range.length == 3) {
+                double from = parseValue(range[0]);
+                double to = parseValue(range[1]);
+                double step = parseValue(range[2]);
+                if (step <= 0 || to < from) {
+                    throw new IllegalArgumentException("Invalid range " + item + ", expected from:to:step");
+                }
+                BigDecimal start = BigDecimal.valueOf(from);
+                BigDecimal increment = BigDecimal.valueOf(step);
+                long steps = BigDecimal.valueOf(to).subtract(start).divideToIntegralValue(increment).longValue();
+                for (long i = 0; i <= steps; i++) {
+                    values.add(start.add(increment.multiply(BigDecimal.valueOf(i))).doubleValue());
+                }
+            } else {
+                throw new IllegalArgumentException("Invalid range " + item + ", expected from:to:step");
+            }
+        }
+        SortedSet<Double> distinct = new TreeSet<>(values);
+        double[] result = new double[distinct.size()];
+        int i = 0;
+        for (double value : distinct) {
+            result[i++] = value;
+        }
+        return result;
+    }
+
+    /**
+     * @param text number
+     * @return the number
+     * @throws IllegalArgumentException if it is not a non negative number
+     */
+    private static double parseValue(String text) {
+        double value;
+        try {
+            value = Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid rate parameter value " + text, e);
+        }
+        if (value < 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Rate parameter values must be non negative numbers");
+        }
+        return value;
+    }
+
+    /**
+     * Solves every point, waiting for them all to finish
+     *
+     * @param values          values of the rate parameter
+     * @param executorService executor to solve the points on
+     * @return results in the order of the values
+     * @throws InterruptedException if the calling thread is interrupted, the points still
+     *                              running are cancelled
+     * @throws ExecutionException   if a point fails
+     */
+    public List<SweepPoint> run(double[] values, ExecutorService executorService)
+            throws InterruptedException, ExecutionException {
+        List<Future<SweepPoint>> futures = new ArrayList<>();
+        try {
+            for (final double value : values) {
+                futures.add(executorService.submit(new Callable<SweepPoint>() {
+                    @Override
+                    public SweepPoint call() throws Exception {
+                        return solve(value);
+                    }
+                }));
+            }
+            List<SweepPoint> points = new ArrayList<>();
+            for (Future<SweepPoint> future : futures) {
+                points.add(future.get());
+            }
+            return points;
+        } finally {
+            for (Future<SweepPoint> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * @param value value of the rate parameter
+     * @return steady state measures with the parameter set to the value
+     * @throws InvalidRateException  if a rate cannot be evaluated with the value
+     * @throws TimelessTrapException if a cycle of vanishing states cannot be left
+     * @throws InterruptedException  if the thread is interrupted
+     */
+    public SweepPoint solve(double value) throws InvalidRateException, TimelessTrapException, InterruptedException {
+        PetriNet copy = ClonePetriNet.clone(petriNet);
+        findParameter(copy).setExpression(Double.toString(value));
+        GeneratorMatrix matrix = buildMatrix(copy);
+        SolverResult solverResult = solverSettings.createSolver(new ParallelRows(null, 1)).solve(matrix, null);
+        Map<Integer, Double> steadyState = matrix.toDistribution(solverResult.getDistribution());
+        return new SweepPoint(value, solverResult, TokenMetrics.averageTokensOnPlace(stateMappings, steadyState),
+                TransitionMetrics.getTransitionThroughput(stateMappings, steadyState, copy));
+    }
+
+    /**
+     * Recalculates the rates out of every explored state against the copy of the net
+     *
+     * @param copy net with the parameter set
+     * @return generator matrix of the explored states with the new rates
+     * @throws InvalidRateException  if a rate cannot be evaluated
+     * @throws TimelessTrapException if a cycle of vanishing states cannot be left
+     * @throws InterruptedException  if the thread is interrupted
+     */
+    private GeneratorMatrix buildMatrix(PetriNet copy)
+            throws InvalidRateException, TimelessTrapException, InterruptedException {
+        ExplorerUtilities utilities = creator.create(copy);
+        VanishingExplorer vanishingExplorer = vanishingCreator.create(utilities);
+        GeneratorMatrixBuilder builder = new GeneratorMatrixBuilder();
+        for (int position = 0; position < ids.length; position++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Parameter sweep stopped");
+            }
+            ClassifiedState state = index.get(position);
+            Map<Integer, Double> rates = new HashMap<>();
+            for (ClassifiedState successor : utilities.getSuccessors(state)) {
+                double rate = utilities.rate(state, successor);
+                if (successor.isTangible()) {
+                    add(rates, successor, rate);
+                } else {
+                    for (StateRateRecord record : vanishingExplorer.explore(successor, rate)) {
+                        add(rates, record.getState(), record.getRate());
+                    }
+                }
+            }
+            builder.processState(state, ids[position]);
+            builder.processTransitions(ids[position], rates);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param rates map of state id to rate to add to
+     * @param state tangible successor
+     * @param rate  rate to add to the successor's existing rate
+     * @throws IllegalStateException if the successor was not explored
+     */
+    private void add(Map<Integer, Double> rates, ClassifiedState state, double rate) {
+        int position;
+        synchronized (index) {
+            position = index.indexOf(state);
+        }
+        if (position < 0) {
+            throw new IllegalStateException("Changing " + parameter
+                    + " reaches a state that was not explored, the state space must be explored again");
+        }
+        Double previous = rates.get(ids[position]);
+        rates.put(ids[position], previous == null ? rate : previous + rate);
+    }
+
+    /**
+     * @param net net to look in
+     * @return the swept rate parameter of the net
+     * @throws IllegalArgumentException if the net has no such rate parameter
+     */
+    private RateParameter findParameter(PetriNet net) {
+        try {
+            return net.getComponent(parameter, RateParameter.class);
+        } catch (PetriNetComponentNotFoundException e) {
+            throw new IllegalArgumentException("The net has no rate parameter " + parameter, e);
+        }
+    }
+}
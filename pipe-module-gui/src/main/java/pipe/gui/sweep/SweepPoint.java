@@ -0,0 +1,73 @@
+package pipe.gui.sweep;
+
+import pipe.gui.steadystate.SolverResult;
+
+import java.util.Map;
+
+/**
+ * Steady state measures of the net with a rate parameter set to one value of a sweep
+ */
+public final class SweepPoint {
+
+    /**
+     * Value of the rate parameter
+     */
+    private final double value;
+
+    /**
+     * Convergence of the steady state solver
+     */
+    private final SolverResult solverResult;
+
+    /**
+     * Place id to token id to average number of tokens
+     */
+    private final Map<String, Map<String, Double>> averageTokens;
+
+    /**
+     * Timed transition id to throughput
+     */
+    private final Map<String, Double> throughputs;
+
+    /**
+     * @param value         value of the rate parameter
+     * @param solverResult  convergence of the steady state solver
+     * @param averageTokens place id to token id to average number of tokens
+     * @param throughputs   timed transition id to throughput
+     */
+    public SweepPoint(double value, SolverResult solverResult, Map<String, Map<String, Double>> averageTokens,
+                      Map<String, Double> throughputs) {
+        this.value = value;
+        this.solverResult = solverResult;
+        this.averageTokens = averageTokens;
+        this.throughputs = throughputs;
+    }
+
+    /**
+     * @return value of the rate parameter
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * @return convergence of the steady state solver
+     */
+    public SolverResult getSolverResult() {
+        return solverResult;
+    }
+
+    /**
+     * @return place id to token id to average number of tokens
+     */
+    public Map<String, Map<String, Double>> getAverageTokens() {
+        return averageTokens;
+    }
+
+    /**
+     * @return timed transition id to throughput
+     */
+    public Map<String, Double> getThroughputs() {
+        return throughputs;
+    }
+}
@@ -0,0 +1,299 @@
+package pipe.gui.symbolic;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Shared store of quasi reduced multi-valued decision diagram nodes. Level 0 holds the two
+ * terminals and a node at level k has its children at level k - 1, so every path from a
+ * root at the top level fixes the value of every variable. Domains are unbounded: a node
+ * stores children up to its largest value with a non empty child and every larger value
+ * leads to the empty set.
+ * <p>
+ * Nodes are unique, so two node ids are equal exactly when they describe the same set, and
+ * are never freed while the forest is in use.
+ * </p>
+ */
+final class MddForest {
+
+    /**
+     * The empty set, at every level
+     */
+    static final int EMPTY = 0;
+
+    /**
+     * The set holding the empty tuple, at level 0
+     */
+    static final int TERMINAL = 1;
+
+    /**
+     * Level of each node
+     */
+    private int[] levels = new int[1024];
+
+    /**
+     * Children of each node, without trailing empty children
+     */
+    private int[][] children = new int[1024][];
+
+    /**
+     * Number of nodes, including the terminals
+     */
+    private int size = 2;
+
+    /**
+     * Most nodes the forest may hold
+     */
+    private final int maxNodes;
+
+    /**
+     * Node of each level and children
+     */
+    private final Map<Key, Integer> unique = new HashMap<>();
+
+    /**
+     * Union of each pair of nodes, smaller node in the high half of the key
+     */
+    private final Map<Long, Integer> unions = new HashMap<>();
+
+    /**
+     * Difference of each pair of nodes
+     */
+    private final Map<Long, Integer> differences = new HashMap<>();
+
+    /**
+     * @param maxNodes most nodes the forest may hold
+     */
+    MddForest(int maxNodes) {
+        this.maxNodes = maxNodes;
+        children[EMPTY] = new int[0];
+        children[TERMINAL] = new int[0];
+    }
+
+    /**
+     * @param level    level of the node, at least 1
+     * @param kids     child of each value, at level - 1; the array is not kept
+     * @return the unique node with these children, {@link #EMPTY} if every child is empty
+     * @throws IllegalStateException if the forest is full
+     */
+    int node(int level, int[] kids) {
+        int width = kids.length;
+        while (width > 0 && kids[width - 1] == EMPTY) {
+            width--;
+        }
+        if (width == 0) {
+            return EMPTY;
+        }
+        int[] trimmed = width == kids.length ? kids.clone() : Arrays.copyOf(kids, width);
+        Key key = new Key(level, trimmed);
+        Integer existing = unique.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == maxNodes) {
+            throw new IllegalStateException("The decision diagram outgrew " + maxNodes + " nodes");
+        }
+        if (size == levels.length) {
+            levels = Arrays.copyOf(levels, size * 2);
+            children = Arrays.copyOf(children, size * 2);
+        }
+        levels[size] = level;
+        children[size] = trimmed;
+        unique.put(key, size);
+        return size++;
+    }
+
+    /**
+     * @param node node
+     * @return level of the node, 0 for the terminals
+     */
+    int level(int node) {
+        return levels[node];
+    }
+
+    /**
+     * @param node node
+     * @return one more than the largest value with a non empty child
+     */
+    int width(int node) {
+        return children[node].length;
+    }
+
+    /**
+     * @param node  node
+     * @param value value of the node's variable
+     * @return child of the value, {@link #EMPTY} beyond the node's width
+     */
+    int child(int node, int value) {
+        int[] kids = children[node];
+        return value < kids.length ? kids[value] : EMPTY;
+    }
+
+    /**
+     * @return number of nodes created, including the terminals
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param a node
+     * @param b node at the same level
+     * @return node of the union of the two sets
+     */
+    int union(int a, int b) {
+        if (a == b || b == EMPTY) {
+            return a;
+        }
+        if (a == EMPTY) {
+            return b;
+        }
+        long key = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+        Integer cached = unions.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        int[] kids = new int[Math.max(width(a), width(b))];
+        for (int i = 0; i < kids.length; i++) {
+            kids[i] = union(child(a, i), child(b, i));
+        }
+        int result = node(levels[a], kids);
+        unions.put(key, result);
+        return result;
+    }
+
+    /**
+     * @param a node
+     * @param b node at the same level
+     * @return node of the set of a without the members of b
+     */
+    int difference(int a, int b) {
+        if (a == b || a == EMPTY) {
+            return EMPTY;
+        }
+        if (b == EMPTY) {
+            return a;
+        }
+        long key = ((long) a << 32) | b;
+        Integer cached = differences.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        int[] kids = new int[width(a)];
+        for (int i = 0; i < kids.length; i++) {
+            kids[i] = difference(child(a, i), child(b, i));
+        }
+        int result = node(levels[a], kids);
+        differences.put(key, result);
+        return result;
+    }
+
+    /**
+     * @param node node
+     * @return number of tuples in the node's set
+     */
+    BigInteger count(int node) {
+        return count(node, new HashMap<Integer, BigInteger>());
+    }
+
+    /**
+     * @param node   node
+     * @param counts count of each node already counted
+     * @return number of tuples in the node's set
+     */
+    private BigInteger count(int node, Map<Integer, BigInteger> counts) {
+        if (node == EMPTY) {
+            return BigInteger.ZERO;
+        }
+        if (node == TERMINAL) {
+            return BigInteger.ONE;
+        }
+        BigInteger cached = counts.get(node);
+        if (cached != null) {
+            return cached;
+        }
+        BigInteger total = BigInteger.ZERO;
+        for (int kid : children[node]) {
+            total = total.add(count(kid, counts));
+        }
+        counts.put(node, total);
+        return total;
+    }
+
+    /**
+     * @param root node
+     * @return number of distinct nodes reachable from the node, including it and the terminal
+     */
+    int reachableNodes(int root) {
+        return reachable(root).size();
+    }
+
+    /**
+     * @param root node
+     * @return nodes reachable from the node other than the empty set, including the node
+     */
+    Set<Integer> reachable(int root) {
+        Set<Integer> seen = new HashSet<>();
+        Deque<Integer> pending = new ArrayDeque<>();
+        if (root != EMPTY) {
+            seen.add(root);
+            pending.push(root);
+        }
+        while (!pending.isEmpty()) {
+            for (int kid : children[pending.pop()]) {
+                if (kid != EMPTY && seen.add(kid)) {
+                    pending.push(kid);
+                }
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * Level and children of a node, compared by value
+     */
+    private static final class Key {
+
+        /**
+         * Level of the node
+         */
+        private final int level;
+
+        /**
+         * Children of the node
+         */
+        private final int[] kids;
+
+        /**
+         * Cached hash code
+         */
+        private final int hash;
+
+        /**
+         * @param level level of the node
+         * @param kids  children of the node
+         */
+        private Key(int level, int[] kids) {
+            this.level = level;
+            this.kids = kids;
+            hash = 31 * level + Arrays.hashCode(kids);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return level == key.level && Arrays.equals(kids, key.kids);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
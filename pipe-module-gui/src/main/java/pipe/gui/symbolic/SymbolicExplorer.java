@@ -0,0 +1,744 @@
+package pipe.gui.symbolic;
+
+import uk.ac.imperial.pipe.models.petrinet.*;
+import uk.ac.imperial.pipe.parsers.FunctionalResults;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Explores the reachable markings of a bounded net symbolically, as a multi-valued decision
+ * diagram with one variable for each place and token, without ever holding the markings one
+ * by one. Each transition is an event that only reads and changes the variables of the
+ * places it is connected to, so it can be applied to the diagram level by level.
+ * <p>
+ * When every transition has the same priority the reachable set is built by saturation: the
+ * nodes are saturated bottom up, firing at each level the events whose highest variable it is
+ * until nothing changes. Saturation never builds the large intermediate diagrams a breadth
+ * first search does. Firing a transition of a lower priority depends on every transition of
+ * a higher one being disabled, which is not local to its variables, so nets mixing timed and
+ * immediate transitions or priorities are instead explored by chaining the events to a fixed
+ * point, each firing from the markings in which no higher priority transition is enabled.
+ * </p>
+ * <p>
+ * Arc weights must be constant, test arcs are not supported, and capacities are only
+ * supported in nets with a single token. Inhibitor arcs disable their transition while their
+ * place holds any token.
+ * </p>
+ */
+public final class SymbolicExplorer {
+
+    /**
+     * Default most decision diagram nodes before the exploration gives up
+     */
+    public static final int DEFAULT_MAX_NODES = 2000000;
+
+    /**
+     * Most tokens of one kind a place may hold before the net is taken to be unbounded
+     */
+    public static final int MAX_TOKENS = 1 << 16;
+
+    /**
+     * Node store
+     */
+    private final MddForest forest;
+
+    /**
+     * Place of each variable, by level with level 1 first
+     */
+    private final String[] variablePlaces;
+
+    /**
+     * Token of each variable, by level with level 1 first
+     */
+    private final String[] variableTokens;
+
+    /**
+     * Number of variables, the level of the roots
+     */
+    private final int top;
+
+    /**
+     * Value of each variable in the initial marking, by level
+     */
+    private final int[] initial;
+
+    /**
+     * One event per transition
+     */
+    private final List<Event> events = new ArrayList<>();
+
+    /**
+     * Events by their highest level
+     */
+    private final List<List<Event>> eventsByTop = new ArrayList<>();
+
+    /**
+     * True if some events have a higher rank than others
+     */
+    private final boolean prioritised;
+
+    /**
+     * Saturated node of each node, saturated nodes mapping to themselves
+     */
+    private final Map<Integer, Integer> saturated = new HashMap<>();
+
+    /**
+     * Result of firing an event on a node, keyed by node and event
+     */
+    private final Map<Long, Integer> fired = new HashMap<>();
+
+    /**
+     * Markings of a node in which an event is locally enabled, keyed by node and event
+     */
+    private final Map<Long, Integer> enabled = new HashMap<>();
+
+    /**
+     * @param petriNet net to explore
+     * @param maxNodes most decision diagram nodes before the exploration gives up
+     * @throws IllegalArgumentException if the net cannot be explored symbolically
+     */
+    public SymbolicExplorer(PetriNet petriNet, int maxNodes) {
+        forest = new MddForest(maxNodes);
+        List<String> tokens = new ArrayList<>();
+        for (Token token : petriNet.getTokens()) {
+            tokens.add(token.getId());
+        }
+        Collections.sort(tokens);
+        List<Place> places = new ArrayList<>(petriNet.getPlaces());
+        Map<String, Integer> placeIndex = new HashMap<>();
+        for (Place place : places) {
+            placeIndex.put(place.getId(), placeIndex.size());
+            if (place.hasCapacityRestriction() && place.getCapacity() > 0 && tokens.size() > 1) {
+                throw new IllegalArgumentException("Symbolic exploration only supports the capacity of "
+                        + place.getId() + " in nets with a single token");
+            }
+        }
+
+        List<Transition> transitions = new ArrayList<>(petriNet.getTransitions());
+        List<Set<Integer>> touched = new ArrayList<>();
+        for (int t = 0; t < transitions.size(); t++) {
+            touched.add(new TreeSet<Integer>());
+        }
+        Map<String, Integer> transitionIndex = new HashMap<>();
+        for (Transition transition : transitions) {
+            transitionIndex.put(transition.getId(), transitionIndex.size());
+        }
+        List<Arc<? extends Connectable, ? extends Connectable>> arcs = new ArrayList<>(petriNet.getArcs());
+        for (Arc<? extends Connectable, ? extends Connectable> arc : arcs) {
+            if (arc.getType() != ArcType.NORMAL && arc.getType() != ArcType.INHIBITOR) {
+                throw new IllegalArgumentException("Symbolic exploration does not support " + arc.getType()
+                        + " arcs");
+            }
+            boolean inbound = arc.getSource() instanceof Place;
+            int place = placeIndex.get(inbound ? arc.getSource().getId() : arc.getTarget().getId());
+            touched.get(transitionIndex.get(inbound ? arc.getTarget().getId() : arc.getSource().getId())).add(place);
+        }
+
+        int[] placeOrder = order(places.size(), touched);
+        top = placeOrder.length * tokens.size();
+        variablePlaces = new String[top + 1];
+        variableTokens = new String[top + 1];
+        initial = new int[top + 1];
+        int[][] levelOf = new int[places.size()][tokens.size()];
+        int level = 1;
+        for (int place : placeOrder) {
+            for (int token = 0; token < tokens.size(); token++) {
+                levelOf[place][token] = level;
+                variablePlaces[level] = places.get(place).getId();
+                variableTokens[level] = tokens.get(token);
+                initial[level] = places.get(place).getTokenCount(tokens.get(token));
+                level++;
+            }
+        }
+        for (int l = 0; l <= top; l++) {
+            eventsByTop.add(new ArrayList<Event>());
+        }
+
+        Set<Long> ranks = new HashSet<>();
+        for (Transition transition : transitions) {
+            Event event = new Event(events.size(), transition.getId(), rank(transition), !transition.isTimed(), top);
+            events.add(event);
+            ranks.add(event.rank);
+        }
+        for (Arc<? extends Connectable, ? extends Connectable> arc : arcs) {
+            boolean inbound = arc.getSource() instanceof Place;
+            Place place = (Place) (inbound ? arc.getSource() : arc.getTarget());
+            Event event = events.get(transitionIndex.get(inbound ? arc.getTarget().getId() : arc.getSource().getId()));
+            int p = placeIndex.get(place.getId());
+            for (int token = 0; token < tokens.size(); token++) {
+                int l = levelOf[p][token];
+                event.touch(l, place.hasCapacityRestriction() ? place.getCapacity() : 0);
+                if (arc.getType() == ArcType.INHIBITOR) {
+                    event.inhibited[l] = true;
+                    continue;
+                }
+                String expression = arc.getTokenWeights().get(tokens.get(token));
+                int weight = expression == null ? 0 : weight(petriNet, expression, placeIndex.keySet());
+                if (inbound) {
+                    event.need[l] += weight;
+                    event.delta[l] -= weight;
+                } else {
+                    event.delta[l] += weight;
+                }
+            }
+        }
+        for (Event event : events) {
+            if (event.top > 0) {
+                eventsByTop.get(event.top).add(event);
+            }
+        }
+        prioritised = ranks.size() > 1;
+        for (Event event : events) {
+            List<Event> higher = new ArrayList<>();
+            for (Event other : events) {
+                if (other.rank > event.rank) {
+                    higher.add(other);
+                }
+            }
+            event.higher = higher.toArray(new Event[higher.size()]);
+        }
+    }
+
+    /**
+     * @param transition transition
+     * @return rank of the transition, enabled transitions of a higher rank disable it
+     */
+    private static long rank(Transition transition) {
+        return (transition.isTimed() ? 0 : 1L << 32) + transition.getPriority();
+    }
+
+    /**
+     * @param petriNet   net the weight belongs to
+     * @param expression weight expression
+     * @param placeIds   ids of the net's places
+     * @return weight of the expression
+     * @throws IllegalArgumentException if the weight depends on the marking or is invalid
+     */
+    private static int weight(PetriNet petriNet, String expression, Set<String> placeIds) {
+        FunctionalResults<Double> result = petriNet.parseExpression(expression);
+        if (result.hasErrors() || !Collections.disjoint(result.getComponents(), placeIds)) {
+            throw new IllegalArgumentException("Symbolic exploration needs constant arc weights, not "
+                    + expression);
+        }
+        return (int) Math.ceil(result.getResult());
+    }
+
+    /**
+     * Orders the places so the places of each transition lie close together, which keeps
+     * the events short and the diagram small. Places are repeatedly moved to the average
+     * centre of the transitions they belong to and the order with the smallest total span
+     * is kept.
+     *
+     * @param places  number of places
+     * @param touched places of each transition
+     * @return places from the bottom level up
+     */
+    private static int[] order(int places, List<Set<Integer>> touched) {
+        final double[] position = new double[places];
+        Integer[] order = new Integer[places];
+        for (int p = 0; p < places; p++) {
+            order[p] = p;
+            position[p] = p;
+        }
+        int[] best = toPositions(order);
+        long bestSpan = span(best, touched);
+        for (int iteration = 0; iteration < 20; iteration++) {
+            double[] sum = new double[places];
+            int[] count = new int[places];
+            for (Set<Integer> edge : touched) {
+                if (edge.isEmpty()) {
+                    continue;
+                }
+                double centre = 0;
+                for (int p : edge) {
+                    centre += position[p];
+                }
+                centre /= edge.size();
+                for (int p : edge) {
+                    sum[p] += centre;
+                    count[p]++;
+                }
+            }
+            final double[] next = new double[places];
+            for (int p = 0; p < places; p++) {
+                next[p] = count[p] == 0 ? position[p] : sum[p] / count[p];
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    int compare = Double.compare(next[a], next[b]);
+                    return compare != 0 ? compare : Double.compare(position[a], position[b]);
+                }
+            });
+            for (int k = 0; k < places; k++) {
+                position[order[k]] = k;
+            }
+            int[] positions = toPositions(order);
+            long span = span(positions, touched);
+            if (span < bestSpan) {
+                bestSpan = span;
+                best = positions;
+            }
+        }
+        int[] result = new int[places];
+        for (int p = 0; p < places; p++) {
+            result[best[p]] = p;
+        }
+        return result;
+    }
+
+    /**
+     * @param order places in order
+     * @return position of each place
+     */
+    private static int[] toPositions(Integer[] order) {
+        int[] positions = new int[order.length];
+        for (int k = 0; k < order.length; k++) {
+            positions[order[k]] = k;
+        }
+        return positions;
+    }
+
+    /**
+     * @param positions position of each place
+     * @param touched   places of each transition
+     * @return sum over the transitions of the distance between their outermost places
+     */
+    private static long span(int[] positions, List<Set<Integer>> touched) {
+        long total = 0;
+        for (Set<Integer> edge : touched) {
+            int low = Integer.MAX_VALUE;
+            int high = Integer.MIN_VALUE;
+            for (int p : edge) {
+                low = Math.min(low, positions[p]);
+                high = Math.max(high, positions[p]);
+            }
+            if (!edge.isEmpty()) {
+                total += high - low;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Builds the reachable set and answers the queries on it
+     *
+     * @return reachable markings and their properties
+     * @throws InterruptedException  if the thread is interrupted
+     * @throws IllegalStateException if the diagram grows too large or a place appears unbounded
+     */
+    public SymbolicStateSpace explore() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        int root = MddForest.TERMINAL;
+        for (int level = 1; level <= top; level++) {
+            int[] kids = new int[initial[level] + 1];
+            kids[initial[level]] = root;
+            root = forest.node(level, kids);
+        }
+        int reachable = prioritised ? chain(root) : saturate(top, root);
+
+        int live = MddForest.EMPTY;
+        int vanishing = MddForest.EMPTY;
+        for (Event event : events) {
+            int enabledMarkings = filter(top, reachable, event);
+            live = forest.union(live, enabledMarkings);
+            if (event.immediate) {
+                vanishing = forest.union(vanishing, enabledMarkings);
+            }
+        }
+        int deadlocks = forest.difference(reachable, live);
+        BigInteger states = forest.count(reachable);
+        return new SymbolicStateSpace(states, states.subtract(forest.count(vanishing)), forest.count(deadlocks),
+                deadlocks == MddForest.EMPTY ? null : marking(deadlocks), bounds(reachable),
+                forest.reachableNodes(reachable), forest.size(), System.currentTimeMillis() - start, !prioritised);
+    }
+
+    /**
+     * Saturates a node: every event whose highest level is at or below the node's level is
+     * fired until the node's set is closed under them
+     *
+     * @param level level of the node
+     * @param node  node to saturate
+     * @return saturated node
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private int saturate(int level, int node) throws InterruptedException {
+        if (level == 0 || node == MddForest.EMPTY) {
+            return node;
+        }
+        Integer cached = saturated.get(node);
+        if (cached != null) {
+            return cached;
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException("Symbolic exploration stopped");
+        }
+        int[] kids = new int[forest.width(node)];
+        for (int i = 0; i < kids.length; i++) {
+            kids[i] = saturate(level - 1, forest.child(node, i));
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Event event : eventsByTop.get(level)) {
+                for (int i = 0; i < kids.length; i++) {
+                    if (kids[i] == MddForest.EMPTY) {
+                        continue;
+                    }
+                    int j = next(event, level, i);
+                    if (j < 0) {
+                        continue;
+                    }
+                    int image = relProd(level - 1, kids[i], event);
+                    if (image == MddForest.EMPTY) {
+                        continue;
+                    }
+                    if (j >= kids.length) {
+                        kids = Arrays.copyOf(kids, j + 1);
+                    }
+                    int union = saturatedUnion(kids[j], image);
+                    if (union != kids[j]) {
+                        kids[j] = union;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        int result = forest.node(level, kids);
+        saturated.put(node, result);
+        saturated.put(result, result);
+        return result;
+    }
+
+    /**
+     * @param a saturated node
+     * @param b saturated node at the same level
+     * @return their union, which is saturated as the union of closed sets is closed
+     */
+    private int saturatedUnion(int a, int b) {
+        int union = forest.union(a, b);
+        saturated.put(union, union);
+        return union;
+    }
+
+    /**
+     * Fires an event on a saturated node and saturates the result
+     *
+     * @param level level of the node
+     * @param node  saturated node
+     * @param event event, whose levels at and below this one are applied
+     * @return saturated node of the markings reached
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private int relProd(int level, int node, Event event) throws InterruptedException {
+        if (level < event.bottom || node == MddForest.EMPTY) {
+            return node;
+        }
+        long key = ((long) node << 32) | event.id;
+        Integer cached = fired.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        int[] kids = new int[0];
+        for (int i = 0; i < forest.width(node); i++) {
+            int child = forest.child(node, i);
+            if (child == MddForest.EMPTY) {
+                continue;
+            }
+            int j = next(event, level, i);
+            if (j < 0) {
+                continue;
+            }
+            int image = relProd(level - 1, child, event);
+            if (image == MddForest.EMPTY) {
+                continue;
+            }
+            if (j >= kids.length) {
+                kids = Arrays.copyOf(kids, j + 1);
+            }
+            kids[j] = saturatedUnion(kids[j], image);
+        }
+        int result = saturate(level, forest.node(level, kids));
+        fired.put(key, result);
+        return result;
+    }
+
+    /**
+     * Chains the events to a fixed point, each firing only from the markings in which it has
+     * the highest rank of the enabled transitions
+     *
+     * @param root initial marking
+     * @return reachable markings
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private int chain(int root) throws InterruptedException {
+        int reachable = root;
+        int previous;
+        do {
+            previous = reachable;
+            for (Event event : events) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("Symbolic exploration stopped");
+                }
+                int from = filter(top, reachable, event);
+                for (Event higher : event.higher) {
+                    if (from == MddForest.EMPTY) {
+                        break;
+                    }
+                    from = forest.difference(from, filter(top, from, higher));
+                }
+                if (from != MddForest.EMPTY) {
+                    reachable = forest.union(reachable, image(top, from, event));
+                }
+            }
+        } while (reachable != previous);
+        return reachable;
+    }
+
+    /**
+     * @param level level of the node
+     * @param node  node
+     * @param event event
+     * @return markings reached by firing the event from the node's markings, without saturating
+     */
+    private int image(int level, int node, Event event) {
+        if (level < event.bottom || node == MddForest.EMPTY) {
+            return node;
+        }
+        int[] kids = new int[0];
+        for (int i = 0; i < forest.width(node); i++) {
+            int child = forest.child(node, i);
+            if (child == MddForest.EMPTY) {
+                continue;
+            }
+            int j = next(event, level, i);
+            if (j < 0) {
+                continue;
+            }
+            int result = image(level - 1, child, event);
+            if (result == MddForest.EMPTY) {
+                continue;
+            }
+            if (j >= kids.length) {
+                kids = Arrays.copyOf(kids, j + 1);
+            }
+            kids[j] = forest.union(kids[j], result);
+        }
+        return forest.node(level, kids);
+    }
+
+    /**
+     * @param level level of the node
+     * @param node  node
+     * @param event event
+     * @return markings of the node in which the event's arcs allow it to fire
+     */
+    private int filter(int level, int node, Event event) {
+        if (level < event.bottom || node == MddForest.EMPTY) {
+            return node;
+        }
+        long key = ((long) node << 32) | event.id;
+        Integer cached = enabled.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        int[] kids = new int[forest.width(node)];
+        for (int i = 0; i < kids.length; i++) {
+            if (!event.touches[level] || event.next(level, i) >= 0) {
+                kids[i] = filter(level - 1, forest.child(node, i), event);
+            }
+        }
+        int result = forest.node(level, kids);
+        enabled.put(key, result);
+        return result;
+    }
+
+    /**
+     * @param event event
+     * @param level level
+     * @param value value of the level's variable
+     * @return value after firing the event, -1 if it cannot fire
+     * @throws IllegalStateException if the value exceeds {@link #MAX_TOKENS}
+     */
+    private int next(Event event, int level, int value) {
+        if (!event.touches[level]) {
+            return value;
+        }
+        int next = event.next(level, value);
+        if (next > MAX_TOKENS) {
+            throw new IllegalStateException("Place " + variablePlaces[level] + " holds more than " + MAX_TOKENS
+                    + " " + variableTokens[level] + " tokens, the net may be unbounded");
+        }
+        return next;
+    }
+
+    /**
+     * @param node non empty node at the top level
+     * @return the marking of the path taking the lowest value at every level
+     */
+    private Map<String, Map<String, Integer>> marking(int node) {
+        Map<String, Map<String, Integer>> marking = new TreeMap<>();
+        for (int level = top; level >= 1; level--) {
+            int value = 0;
+            while (forest.child(node, value) == MddForest.EMPTY) {
+                value++;
+            }
+            put(marking, level, value);
+            node = forest.child(node, value);
+        }
+        return marking;
+    }
+
+    /**
+     * @param root reachable markings
+     * @return largest number of each token each place holds in a reachable marking
+     */
+    private Map<String, Map<String, Integer>> bounds(int root) {
+        int[] bounds = new int[top + 1];
+        for (int node : forest.reachable(root)) {
+            int level = forest.level(node);
+            if (level > 0) {
+                bounds[level] = Math.max(bounds[level], forest.width(node) - 1);
+            }
+        }
+        Map<String, Map<String, Integer>> result = new TreeMap<>();
+        for (int level = 1; level <= top; level++) {
+            put(result, level, bounds[level]);
+        }
+        return result;
+    }
+
+    /**
+     * @param marking place to token to count
+     * @param level   variable
+     * @param value   value of the variable
+     */
+    private void put(Map<String, Map<String, Integer>> marking, int level, int value) {
+        Map<String, Integer> tokens = marking.get(variablePlaces[level]);
+        if (tokens == null) {
+            tokens = new TreeMap<>();
+            marking.put(variablePlaces[level], tokens);
+        }
+        tokens.put(variableTokens[level], value);
+    }
+
+    /**
+     * Local effect of a transition on the variables of the places it is connected to
+     */
+    private static final class Event {
+
+        /**
+         * Index of the event
+         */
+        private final int id;
+
+        /**
+         * Transition the event fires
+         */
+        private final String transition;
+
+        /**
+         * Rank of the transition, see {@link SymbolicExplorer#rank(Transition)}
+         */
+        private final long rank;
+
+        /**
+         * True if the transition is immediate
+         */
+        private final boolean immediate;
+
+        /**
+         * True for the levels the event reads or changes
+         */
+        private final boolean[] touches;
+
+        /**
+         * Tokens needed at each level
+         */
+        private final int[] need;
+
+        /**
+         * Change in tokens at each level
+         */
+        private final int[] delta;
+
+        /**
+         * True for the levels of inhibitor places
+         */
+        private final boolean[] inhibited;
+
+        /**
+         * Capacity of the place of each level, zero if unrestricted
+         */
+        private final int[] capacity;
+
+        /**
+         * Highest level touched, zero if none
+         */
+        private int top;
+
+        /**
+         * Lowest level touched, one more than the highest level if none so that firing
+         * the event never looks below the top
+         */
+        private int bottom;
+
+        /**
+         * Events of a higher rank
+         */
+        private Event[] higher;
+
+        /**
+         * @param id         index of the event
+         * @param transition transition the event fires
+         * @param rank       rank of the transition
+         * @param immediate  true if the transition is immediate
+         * @param levels     number of levels
+         */
+        private Event(int id, String transition, long rank, boolean immediate, int levels) {
+            this.id = id;
+            this.transition = transition;
+            this.rank = rank;
+            this.immediate = immediate;
+            touches = new boolean[levels + 1];
+            need = new int[levels + 1];
+            delta = new int[levels + 1];
+            inhibited = new boolean[levels + 1];
+            capacity = new int[levels + 1];
+            bottom = levels + 1;
+        }
+
+        /**
+         * @param level    level the event reads or changes
+         * @param capacity capacity of the level's place, zero if unrestricted
+         */
+        private void touch(int level, int capacity) {
+            touches[level] = true;
+            this.capacity[level] = capacity;
+            top = Math.max(top, level);
+            bottom = Math.min(bottom, level);
+        }
+
+        /**
+         * @param level level the event touches
+         * @param value value of the level's variable
+         * @return value after firing, -1 if the event cannot fire
+         */
+        private int next(int level, int value) {
+            if (value < need[level] || inhibited[level] && value > 0) {
+                return -1;
+            }
+            int next = value + delta[level];
+            if (capacity[level] > 0 && next > capacity[level] && delta[level] > 0) {
+                return -1;
+            }
+            return next;
+        }
+
+        @Override
+        public String toString() {
+            return transition;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package pipe.gui.symbolic;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Reachable markings of a net explored by {@link SymbolicExplorer} and the answers to the
+ * queries asked of them. Counts are exact however large the state space is.
+ */
+public final class SymbolicStateSpace {
+
+    /**
+     * Number of reachable markings
+     */
+    private final BigInteger states;
+
+    /**
+     * Number of reachable markings in which no immediate transition is enabled
+     */
+    private final BigInteger tangibleStates;
+
+    /**
+     * Number of reachable markings in which no transition is enabled
+     */
+    private final BigInteger deadlocks;
+
+    /**
+     * A reachable dead marking, place to token to count, null if there is none
+     */
+    private final Map<String, Map<String, Integer>> deadlock;
+
+    /**
+     * Largest number of each token each place holds, place to token to count
+     */
+    private final Map<String, Map<String, Integer>> bounds;
+
+    /**
+     * Number of nodes of the diagram of the reachable markings
+     */
+    private final int nodes;
+
+    /**
+     * Number of nodes created during the exploration
+     */
+    private final int peakNodes;
+
+    /**
+     * Time taken to explore and answer the queries
+     */
+    private final long millis;
+
+    /**
+     * True if the markings were found by saturation rather than chaining
+     */
+    private final boolean saturation;
+
+    /**
+     * @param states         number of reachable markings
+     * @param tangibleStates number of reachable tangible markings
+     * @param deadlocks      number of reachable dead markings
+     * @param deadlock       a reachable dead marking, null if there is none
+     * @param bounds         largest number of each token each place holds
+     * @param nodes          number of nodes of the diagram of the reachable markings
+     * @param peakNodes      number of nodes created during the exploration
+     * @param millis         time taken
+     * @param saturation     true if the markings were found by saturation
+     */
+    SymbolicStateSpace(BigInteger states, BigInteger tangibleStates, BigInteger deadlocks,
+                       Map<String, Map<String, Integer>> deadlock, Map<String, Map<String, Integer>> bounds,
+                       int nodes, int peakNodes, long millis, boolean saturation) {
+        this.states = states;
+        this.tangibleStates = tangibleStates;
+        this.deadlocks = deadlocks;
+        this.deadlock = deadlock;
+        this.bounds = bounds;
+        this.nodes = nodes;
+        this.peakNodes = peakNodes;
+        this.millis = millis;
+        this.saturation = saturation;
+    }
+
+    /**
+     * @return number of reachable markings, tangible and vanishing
+     */
+    public BigInteger getStates() {
+        return states;
+    }
+
+    /**
+     * @return number of reachable markings in which no immediate transition is enabled
+     */
+    public BigInteger getTangibleStates() {
+        return tangibleStates;
+    }
+
+    /**
+     * @return number of reachable markings in which no transition is enabled
+     */
+    public BigInteger getDeadlocks() {
+        return deadlocks;
+    }
+
+    /**
+     * @return true if a dead marking is reachable
+     */
+    public boolean hasDeadlock() {
+        return deadlock != null;
+    }
+
+    /**
+     * @return a reachable dead marking as place to token to count, null if there is none
+     */
+    public Map<String, Map<String, Integer>> getDeadlock() {
+        return deadlock == null ? null : Collections.unmodifiableMap(deadlock);
+    }
+
+    /**
+     * @return largest number of each token each place holds in a reachable marking, as
+     * place to token to count
+     */
+    public Map<String, Map<String, Integer>> getBounds() {
+        return Collections.unmodifiableMap(bounds);
+    }
+
+    /**
+     * @return number of nodes of the decision diagram of the reachable markings
+     */
+    public int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return number of decision diagram nodes created during the exploration
+     */
+    public int getPeakNodes() {
+        return peakNodes;
+    }
+
+    /**
+     * @return time taken to explore and answer the queries in milliseconds
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * @return true if the markings were found by saturation, false if the net's priorities
+     * needed chaining
+     */
+    public boolean isSaturation() {
+        return saturation;
+    }
+}
@@ -0,0 +1,134 @@
+package pipe.gui.widget;
+
+import javax.swing.*;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Panel for turning on checkpointed exploration and choosing the directory the state space
+ * and its checkpoint are written to. Exploring into a directory that already contains a
+ * checkpoint continues from it.
+ */
+public class CheckpointPanel {
+
+    /**
+     * Default number of seconds between checkpoints
+     */
+    public static final int DEFAULT_INTERVAL_SECONDS = 60;
+
+    /**
+     * Panel containing the settings
+     */
+    private final JPanel mainPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+    /**
+     * Turns checkpointing on
+     */
+    private final JCheckBox checkpointCheckBox = new JCheckBox("Checkpoint exploration");
+
+    /**
+     * Directory the state space and checkpoint are written to
+     */
+    private final JTextField directoryText = new JTextField(20);
+
+    /**
+     * Button choosing the directory
+     */
+    private final JButton browseButton = new JButton("Browse...");
+
+    /**
+     * Seconds between checkpoints
+     */
+    private final JTextField intervalText = new JTextField(Integer.toString(DEFAULT_INTERVAL_SECONDS), 4);
+
+    /**
+     * Lays out the panel
+     */
+    public CheckpointPanel() {
+        mainPanel.add(checkpointCheckBox);
+        mainPanel.add(new JLabel("Directory:"));
+        mainPanel.add(directoryText);
+        mainPanel.add(browseButton);
+        mainPanel.add(new JLabel("Interval (s):"));
+        mainPanel.add(intervalText);
+        checkpointCheckBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                updateEnabledFields();
+            }
+        });
+        browseButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                chooseDirectory();
+            }
+        });
+        updateEnabledFields();
+    }
+
+    /**
+     * Only enables the directory and interval when checkpointing is on
+     */
+    private void updateEnabledFields() {
+        boolean selected = checkpointCheckBox.isSelected();
+        directoryText.setEnabled(selected);
+        browseButton.setEnabled(selected);
+        intervalText.setEnabled(selected);
+    }
+
+    /**
+     * Lets the user pick the checkpoint directory
+     */
+    private void chooseDirectory() {
+        JFileChooser chooser = new JFileChooser(directoryText.getText());
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showOpenDialog(mainPanel) == JFileChooser.APPROVE_OPTION) {
+            directoryText.setText(chooser.getSelectedFile().getAbsolutePath());
+        }
+    }
+
+    /**
+     * @return true if exploration should be checkpointed
+     */
+    public boolean isCheckpointing() {
+        return checkpointCheckBox.isSelected();
+    }
+
+    /**
+     * @return directory the state space and checkpoint are written to
+     * @throws IllegalArgumentException if no directory has been entered
+     */
+    public Path getDirectory() {
+        String directory = directoryText.getText().trim();
+        if (directory.isEmpty()) {
+            throw new IllegalArgumentException("Please choose a checkpoint directory");
+        }
+        return Paths.get(directory);
+    }
+
+    /**
+     * @return milliseconds between checkpoints
+     * @throws IllegalArgumentException if the interval is not a positive number of seconds
+     */
+    public long getIntervalMillis() {
+        try {
+            long seconds = Long.parseLong(intervalText.getText().trim());
+            if (seconds <= 0) {
+                throw new IllegalArgumentException("Checkpoint interval must be positive");
+            }
+            return seconds * 1000;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Please enter the checkpoint interval in whole seconds", e);
+        }
+    }
+
+    /**
+     * @return panel to add to other GUI's
+     */
+    public JPanel getPanel() {
+        return mainPanel;
+    }
+}
@@ -0,0 +1,231 @@
+package pipe.gui.widget;
+
+import pipe.gui.statespace.ExplorationMonitor;
+import pipe.gui.simulation.SimulationListener;
+import pipe.gui.steadystate.ConvergenceListener;
+
+import javax.swing.*;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.Future;
+
+/**
+ * Panel showing the progress of a background exploration and solve with a button to stop it.
+ * <p>
+ * The exploration reports into an {@link ExplorationMonitor} and the solver into the
+ * {@link ConvergenceListener} returned by {@link #getSolverListener()}, both from the
+ * background thread. The panel polls them on the event dispatch thread with a Swing timer
+ * so that the background job never waits on the user interface. Simulations have no
+ * exploration and report into the {@link SimulationListener} returned by
+ * {@link #getSimulationListener()} instead.
+ * </p>
+ */
+public class ProgressPanel {
+
+    /**
+     * Milliseconds between progress updates
+     */
+    private static final int REFRESH_MILLIS = 500;
+
+    /**
+     * Panel containing the progress
+     */
+    private final JPanel mainPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+    /**
+     * Current progress
+     */
+    private final JLabel progressLabel = new JLabel(" ");
+
+    /**
+     * Stops the running job
+     */
+    private final JButton stopButton = new JButton("Stop");
+
+    /**
+     * Refreshes the progress label whilst a job is running
+     */
+    private final Timer timer;
+
+    /**
+     * Latest solver iteration, zero whilst exploring
+     */
+    private volatile int iteration = 0;
+
+    /**
+     * Residual of the latest solver iteration
+     */
+    private volatile double residual = Double.NaN;
+
+    /**
+     * Number of simulation batches completed, zero unless simulating
+     */
+    private volatile int batches = 0;
+
+    /**
+     * Largest relative half width of the simulation's confidence intervals
+     */
+    private volatile double relativeHalfWidth = Double.POSITIVE_INFINITY;
+
+    /**
+     * Monitor of the running exploration, null if no job is running or it does not explore
+     */
+    private ExplorationMonitor monitor;
+
+    /**
+     * Running job, null if no job is running
+     */
+    private Future<?> job;
+
+    /**
+     * Lays out the panel
+     */
+    public ProgressPanel() {
+        mainPanel.add(stopButton);
+        mainPanel.add(progressLabel);
+        stopButton.setEnabled(false);
+        stopButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                stop();
+            }
+        });
+        timer = new Timer(REFRESH_MILLIS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refresh();
+            }
+        });
+    }
+
+    /**
+     * Starts showing the progress of a job
+     *
+     * @param monitor monitor of the job's exploration
+     * @param job     job to cancel when stop is pressed
+     */
+    public void start(ExplorationMonitor monitor, Future<?> job) {
+        start(monitor, job, "Exploring...");
+    }
+
+    /**
+     * Starts showing the progress of a simulation
+     *
+     * @param job job to cancel when stop is pressed
+     */
+    public void startSimulation(Future<?> job) {
+        start(null, job, "Simulating...");
+    }
+
+    /**
+     * Starts showing that an analysis with no progress updates is running
+     *
+     * @param job job to cancel when stop is pressed
+     */
+    public void startAnalysis(Future<?> job) {
+        start(null, job, "Analysing...");
+    }
+
+    /**
+     * @param monitor monitor of the job's exploration, null if it does not explore
+     * @param job     job to cancel when stop is pressed
+     * @param message message to show until the first progress update
+     */
+    private void start(ExplorationMonitor monitor, Future<?> job, String message) {
+        this.monitor = monitor;
+        this.job = job;
+        iteration = 0;
+        residual = Double.NaN;
+        batches = 0;
+        relativeHalfWidth = Double.POSITIVE_INFINITY;
+        stopButton.setEnabled(true);
+        progressLabel.setText(message);
+        timer.start();
+    }
+
+    /**
+     * Stops showing progress once the job has ended
+     *
+     * @param message final message to show
+     */
+    public void finish(String message) {
+        timer.stop();
+        stopButton.setEnabled(false);
+        progressLabel.setText(message);
+        monitor = null;
+        job = null;
+    }
+
+    /**
+     * @return true if a job is running
+     */
+    public boolean isRunning() {
+        return job != null;
+    }
+
+    /**
+     * @return listener recording the progress of the solver for display
+     */
+    public ConvergenceListener getSolverListener() {
+        return new ConvergenceListener() {
+            @Override
+            public void iterationCompleted(int iteration, double residual) {
+                ProgressPanel.this.residual = residual;
+                ProgressPanel.this.iteration = iteration;
+            }
+        };
+    }
+
+    /**
+     * @return listener recording the progress of the simulation for display
+     */
+    public SimulationListener getSimulationListener() {
+        return new SimulationListener() {
+            @Override
+            public void batchCompleted(int batches, double relativeHalfWidth) {
+                ProgressPanel.this.relativeHalfWidth = relativeHalfWidth;
+                ProgressPanel.this.batches = batches;
+            }
+        };
+    }
+
+    /**
+     * Stops the exploration through the monitor and interrupts the job's thread so that
+     * explorers and solvers waiting on other threads stop too
+     */
+    private void stop() {
+        if (job != null) {
+            if (monitor != null) {
+                monitor.cancel();
+            }
+            job.cancel(true);
+            stopButton.setEnabled(false);
+            progressLabel.setText("Stopping...");
+        }
+    }
+
+    /**
+     * Shows the latest progress
+     */
+    private void refresh() {
+        if (job == null || job.isCancelled()) {
+            return;
+        }
+        if (batches > 0) {
+            progressLabel.setText(String.format("Simulating: %d batches, largest relative half width %.3g", batches,
+                    relativeHalfWidth));
+        } else if (iteration > 0) {
+            progressLabel.setText(String.format("Solving: iteration %d, residual %.3g", iteration, residual));
+        } else if (monitor != null) {
+            progressLabel.setText("Exploring: " + monitor.snapshot());
+        }
+    }
+
+    /**
+     * @return panel to add to other GUI's
+     */
+    public JPanel getPanel() {
+        return mainPanel;
+    }
+}
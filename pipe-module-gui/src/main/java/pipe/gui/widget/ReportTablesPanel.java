@@ -0,0 +1,274 @@
+package pipe.gui.widget;
+
+import pipe.gui.report.Report;
+import pipe.gui.report.ReportFormat;
+import pipe.gui.report.ReportTable;
+import pipe.gui.report.ReportWriter;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.AbstractTableModel;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Pages through the tables of a {@link Report} and exports it to a file.
+ * <p>
+ * Only the rows of the page being shown are ever produced, so tables with a row for every
+ * state of a large state space can be browsed without building them. Exports stream the
+ * report to the file on a background thread.
+ * </p>
+ */
+public class ReportTablesPanel {
+
+    /**
+     * Number of rows on a page
+     */
+    private static final int PAGE_SIZE = 100;
+
+    /**
+     * Panel containing the table and its controls
+     */
+    private final JPanel mainPanel = new JPanel(new BorderLayout());
+
+    /**
+     * Table to page through
+     */
+    private final JComboBox<String> tableChoice = new JComboBox<>();
+
+    /**
+     * Shows the previous page
+     */
+    private final JButton previousButton = new JButton("Previous");
+
+    /**
+     * Shows the next page
+     */
+    private final JButton nextButton = new JButton("Next");
+
+    /**
+     * Rows shown out of the table's rows
+     */
+    private final JLabel pageLabel = new JLabel(" ");
+
+    /**
+     * Exports the report to a file
+     */
+    private final JButton exportButton = new JButton("Export report...");
+
+    /**
+     * Rows of the current page
+     */
+    private final PageModel model = new PageModel();
+
+    /**
+     * CSS style sheet of exported HTML reports
+     */
+    private final String style;
+
+    /**
+     * Report being shown, null before the first analysis
+     */
+    private Report report = null;
+
+    /**
+     * Table being shown, null if there is none
+     */
+    private ReportTable table = null;
+
+    /**
+     * Index of the first row of the page
+     */
+    private int offset = 0;
+
+    /**
+     * @param style CSS style sheet of exported HTML reports
+     */
+    public ReportTablesPanel(String style) {
+        this.style = style;
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(tableChoice);
+        controls.add(previousButton);
+        controls.add(nextButton);
+        controls.add(pageLabel);
+        controls.add(exportButton);
+        mainPanel.add(controls, BorderLayout.NORTH);
+        mainPanel.add(new JScrollPane(new JTable(model)), BorderLayout.CENTER);
+
+        tableChoice.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                int index = tableChoice.getSelectedIndex();
+                showTable(index < 0 ? null : report.getTables().get(index));
+            }
+        });
+        previousButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showPage(offset - PAGE_SIZE);
+            }
+        });
+        nextButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showPage(offset + PAGE_SIZE);
+            }
+        });
+        exportButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                export();
+            }
+        });
+        setReport(null);
+    }
+
+    /**
+     * @param report report whose tables to show, null to show nothing
+     */
+    public void setReport(Report report) {
+        this.report = report;
+        tableChoice.removeAllItems();
+        if (report != null) {
+            for (ReportTable reportTable : report.getTables()) {
+                tableChoice.addItem(reportTable.getTitle() + " (" + reportTable.getRowCount() + " rows)");
+            }
+        }
+        exportButton.setEnabled(report != null);
+        if (tableChoice.getItemCount() == 0) {
+            showTable(null);
+        }
+    }
+
+    /**
+     * @param reportTable table to show from its first page, null to show nothing
+     */
+    private void showTable(ReportTable reportTable) {
+        table = reportTable;
+        offset = 0;
+        model.cachedIndex = -1;
+        model.fireTableStructureChanged();
+        showPage(0);
+    }
+
+    /**
+     * @param start index of the first row of the page to show
+     */
+    private void showPage(int start) {
+        int rows = table == null ? 0 : table.getRowCount();
+        offset = Math.max(0, Math.min(start, rows - 1));
+        offset -= offset % PAGE_SIZE;
+        model.cachedIndex = -1;
+        model.fireTableDataChanged();
+        previousButton.setEnabled(offset > 0);
+        nextButton.setEnabled(offset + PAGE_SIZE < rows);
+        pageLabel.setText(rows == 0 ? " " : "Rows " + (offset + 1) + "-" + Math.min(rows, offset + PAGE_SIZE)
+                + " of " + rows);
+    }
+
+    /**
+     * Asks for a file and writes the report to it in the format of its extension
+     */
+    private void export() {
+        JFileChooser chooser = new JFileChooser();
+        for (ReportFormat format : ReportFormat.values()) {
+            chooser.addChoosableFileFilter(new FileNameExtensionFilter(format + " report", format.getExtension()));
+        }
+        chooser.setAcceptAllFileFilterUsed(false);
+        if (chooser.showSaveDialog(mainPanel) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        ReportFormat format = ReportFormat.fromFileName(file.getName());
+        if (format == null) {
+            String extension = ((FileNameExtensionFilter) chooser.getFileFilter()).getExtensions()[0];
+            format = ReportFormat.fromFileName("report." + extension);
+            file = new File(file.getPath() + "." + extension);
+        }
+        final File target = file;
+        final ReportFormat targetFormat = format;
+        final Report exported = report;
+        exportButton.setEnabled(false);
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                try (Writer writer = Files.newBufferedWriter(target.toPath(), StandardCharsets.UTF_8)) {
+                    ReportWriter reportWriter = targetFormat.open(writer, style);
+                    exported.write(reportWriter);
+                }
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                exportButton.setEnabled(report != null);
+                try {
+                    get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(mainPanel, "Could not export the report: "
+                            + e.getCause().getMessage(), "Export Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * @return panel to add to other GUI's
+     */
+    public JPanel getPanel() {
+        return mainPanel;
+    }
+
+    /**
+     * Rows of the current page of the table being shown
+     */
+    @SuppressWarnings("serial")
+    private class PageModel extends AbstractTableModel {
+
+        /**
+         * Index of the row last produced, -1 if none
+         */
+        private int cachedIndex = -1;
+
+        /**
+         * Cells of the row last produced, the cells of a row are asked for one at a time
+         */
+        private List<String> cachedRow;
+
+        @Override
+        public int getRowCount() {
+            return table == null ? 0 : Math.min(PAGE_SIZE, table.getRowCount() - offset);
+        }
+
+        @Override
+        public int getColumnCount() {
+            return table == null ? 0 : table.getHeaders().size();
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return table.getHeaders().get(column);
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            int index = offset + row;
+            if (index != cachedIndex) {
+                cachedRow = table.getRow(index);
+                cachedIndex = index;
+            }
+            return cachedRow.get(column);
+        }
+    }
+}
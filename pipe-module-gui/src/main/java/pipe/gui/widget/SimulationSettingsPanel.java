@@ -0,0 +1,103 @@
+package pipe.gui.widget;
+
+import pipe.gui.simulation.SimulationSettings;
+
+import javax.swing.*;
+import java.awt.FlowLayout;
+
+/**
+ * Panel for choosing the precision and run length of a simulation. The number of
+ * replications run at once comes from the {@link GenerateResultsForm} it sits next to.
+ */
+public class SimulationSettingsPanel {
+
+    /**
+     * Panel containing the settings
+     */
+    private final JPanel mainPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+    /**
+     * Relative half width to stop at, as a percentage
+     */
+    private final JTextField precisionText =
+            new JTextField(Double.toString(SimulationSettings.DEFAULT_PRECISION * 100), 4);
+
+    /**
+     * Confidence level, as a percentage
+     */
+    private final JTextField confidenceText =
+            new JTextField(Double.toString(SimulationSettings.DEFAULT_CONFIDENCE * 100), 4);
+
+    /**
+     * Warm up time discarded by each replication
+     */
+    private final JTextField warmupText = new JTextField(Double.toString(SimulationSettings.DEFAULT_WARMUP_TIME), 5);
+
+    /**
+     * Simulated time of each batch
+     */
+    private final JTextField batchTimeText = new JTextField(Double.toString(SimulationSettings.DEFAULT_BATCH_TIME), 5);
+
+    /**
+     * Maximum number of batches
+     */
+    private final JTextField maxBatchesText =
+            new JTextField(Integer.toString(SimulationSettings.DEFAULT_MAX_BATCHES), 6);
+
+    /**
+     * Maximum wall clock time in seconds
+     */
+    private final JTextField maxSecondsText =
+            new JTextField(Long.toString(SimulationSettings.DEFAULT_MAX_MILLIS / 1000), 5);
+
+    /**
+     * Seed of the first replication
+     */
+    private final JTextField seedText = new JTextField("1", 6);
+
+    /**
+     * Lays out the panel
+     */
+    public SimulationSettingsPanel() {
+        mainPanel.add(new JLabel("Precision (%):"));
+        mainPanel.add(precisionText);
+        mainPanel.add(new JLabel("Confidence (%):"));
+        mainPanel.add(confidenceText);
+        mainPanel.add(new JLabel("Warm up time:"));
+        mainPanel.add(warmupText);
+        mainPanel.add(new JLabel("Batch time:"));
+        mainPanel.add(batchTimeText);
+        mainPanel.add(new JLabel("Max batches:"));
+        mainPanel.add(maxBatchesText);
+        mainPanel.add(new JLabel("Max seconds:"));
+        mainPanel.add(maxSecondsText);
+        mainPanel.add(new JLabel("Seed:"));
+        mainPanel.add(seedText);
+    }
+
+    /**
+     * @param threads number of replications to run at once
+     * @return settings entered in the panel
+     * @throws IllegalArgumentException if any of the settings are invalid
+     */
+    public SimulationSettings getSettings(int threads) {
+        try {
+            int maxBatches = Integer.parseInt(maxBatchesText.getText().trim());
+            return new SimulationSettings(Double.parseDouble(precisionText.getText()) / 100,
+                    Double.parseDouble(confidenceText.getText()) / 100, Double.parseDouble(warmupText.getText()),
+                    Double.parseDouble(batchTimeText.getText()), SimulationSettings.DEFAULT_BATCHES_PER_REPLICATION,
+                    Math.min(SimulationSettings.DEFAULT_MIN_BATCHES, maxBatches), maxBatches,
+                    Long.parseLong(maxSecondsText.getText().trim()) * 1000, threads,
+                    Long.parseLong(seedText.getText().trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Please enter numeric simulation settings", e);
+        }
+    }
+
+    /**
+     * @return panel to add to other GUI's
+     */
+    public JPanel getPanel() {
+        return mainPanel;
+    }
+}
@@ -0,0 +1,101 @@
+package pipe.gui.widget;
+
+import pipe.gui.steadystate.SolverMethod;
+import pipe.gui.steadystate.SolverSettings;
+
+import javax.swing.*;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+/**
+ * Panel for choosing the steady state solver and its tolerance and iteration settings.
+ * The number of threads comes from the {@link GenerateResultsForm} it sits next to.
+ */
+public class SolverSettingsPanel {
+
+    /**
+     * Panel containing the settings
+     */
+    private final JPanel mainPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+    /**
+     * Solver choice
+     */
+    private final JComboBox<SolverMethod> methodComboBox = new JComboBox<>(SolverMethod.values());
+
+    /**
+     * Residual tolerance
+     */
+    private final JTextField toleranceText = new JTextField(Double.toString(SolverSettings.DEFAULT_TOLERANCE), 6);
+
+    /**
+     * Maximum number of iterations
+     */
+    private final JTextField maxIterationsText =
+            new JTextField(Integer.toString(SolverSettings.DEFAULT_MAX_ITERATIONS), 6);
+
+    /**
+     * SOR relaxation factor
+     */
+    private final JTextField relaxationText = new JTextField(Double.toString(SolverSettings.DEFAULT_RELAXATION), 4);
+
+    /**
+     * GMRES restart dimension
+     */
+    private final JTextField krylovText = new JTextField(Integer.toString(SolverSettings.DEFAULT_KRYLOV_DIMENSION), 4);
+
+    /**
+     * Lays out the panel
+     */
+    public SolverSettingsPanel() {
+        mainPanel.add(new JLabel("Solver:"));
+        mainPanel.add(methodComboBox);
+        mainPanel.add(new JLabel("Tolerance:"));
+        mainPanel.add(toleranceText);
+        mainPanel.add(new JLabel("Max iterations:"));
+        mainPanel.add(maxIterationsText);
+        mainPanel.add(new JLabel("Relaxation:"));
+        mainPanel.add(relaxationText);
+        mainPanel.add(new JLabel("Krylov dimension:"));
+        mainPanel.add(krylovText);
+        methodComboBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                updateEnabledFields();
+            }
+        });
+        updateEnabledFields();
+    }
+
+    /**
+     * Only enables the fields relevant to the selected solver
+     */
+    private void updateEnabledFields() {
+        SolverMethod method = (SolverMethod) methodComboBox.getSelectedItem();
+        relaxationText.setEnabled(method == SolverMethod.SOR);
+        krylovText.setEnabled(method == SolverMethod.GMRES);
+    }
+
+    /**
+     * @param threads number of threads to solve with
+     * @return settings entered in the panel
+     * @throws IllegalArgumentException if any of the settings are invalid
+     */
+    public SolverSettings getSettings(int threads) {
+        try {
+            return new SolverSettings((SolverMethod) methodComboBox.getSelectedItem(),
+                    Double.parseDouble(toleranceText.getText()), Integer.parseInt(maxIterationsText.getText()),
+                    Double.parseDouble(relaxationText.getText()), Integer.parseInt(krylovText.getText()), threads);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Please enter numeric solver settings", e);
+        }
+    }
+
+    /**
+     * @return panel to add to other GUI's
+     */
+    public JPanel getPanel() {
+        return mainPanel;
+    }
+}
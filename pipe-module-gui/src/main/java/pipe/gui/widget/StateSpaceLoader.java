@@ -1,15 +1,17 @@
 package pipe.gui.widget;
 
-import com.esotericsoftware.kryo.io.Input;
-import com.esotericsoftware.kryo.io.Output;
-
+import pipe.gui.cache.ResultCache;
+import pipe.gui.statespace.ExplorationMonitor;
+import pipe.gui.statespace.SchedulerStatistics;
+import pipe.gui.statespace.StateGraph;
+import pipe.gui.statespace.StateSpaceGenerator;
+import pipe.gui.steadystate.GeneratorMatrix;
+import pipe.gui.steadystate.SolverResult;
+import pipe.gui.steadystate.SolverSettings;
 import pipe.reachability.algorithm.ExplorerUtilities;
 import pipe.reachability.algorithm.StateSpaceExplorer;
 import pipe.reachability.algorithm.TimelessTrapException;
 import pipe.reachability.algorithm.VanishingExplorer;
-import pipe.reachability.algorithm.parallel.MassiveParallelStateSpaceExplorer;
-import pipe.reachability.algorithm.sequential.SequentialStateSpaceExplorer;
-import uk.ac.imperial.io.*;
 import uk.ac.imperial.pipe.exceptions.InvalidRateException;
 import uk.ac.imperial.pipe.io.PetriNetIOImpl;
 import uk.ac.imperial.pipe.io.PetriNetReader;
@@ -43,11 +45,6 @@ public class StateSpaceLoader {
      */
     private static final Logger LOGGER = Logger.getLogger(StateSpaceLoader.class.getName());
 
-    /**
-     * Number of states to explore before reducing and writing out
-     */
-    private static final int STATES_PER_THREAD = 100;
-
     /**
      * For loading Petri nets to explore
      */
@@ -97,14 +94,29 @@ public class StateSpaceLoader {
     private PetriNet defaultPetriNet;
 
     /**
-     * Temporary transitions file for generating results into
+     * Generator of the most recently calculated or loaded state space
+     */
+    private StateSpaceGenerator generator;
+
+    /**
+     * Scheduling of the most recent exploration, null if it was sequential or nothing was explored
+     */
+    private SchedulerStatistics schedulerStatistics;
+
+    /**
+     * Result cache key of the most recent state space, null if it is not in the cache
      */
-    private Path temporaryTransitions;
+    private String cacheKey;
 
     /**
-     * Temporary states file for generating results into
+     * True if the most recent state space was read from the result cache rather than explored
      */
-    private Path temporaryStates;
+    private boolean cached;
+
+    /**
+     * Checkpointing settings for newly generated state spaces
+     */
+    private final CheckpointPanel checkpointPanel = new CheckpointPanel();
 
     /**
      * Last loaded Petri net via the load dialog
@@ -228,6 +240,62 @@ public class StateSpaceLoader {
         return mainPanel;
     }
 
+    /**
+     * @return checkpointing settings, for the analysis GUI to lay out next to the main panel
+     */
+    public CheckpointPanel getCheckpointPanel() {
+        return checkpointPanel;
+    }
+
+    /**
+     * @return scheduling of the last exploration, null if it was sequential or the state
+     * space was loaded from binaries
+     */
+    public SchedulerStatistics getSchedulerStatistics() {
+        return schedulerStatistics;
+    }
+
+    /**
+     * @return true if the most recent state space was read from the result cache rather than explored
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+
+    /**
+     * Reads the loading and checkpointing options from the widgets. This must be called on
+     * the event dispatch thread, and the settings returned handed to the background thread
+     * that calls {@link #calculateResults}.
+     *
+     * @return snapshot of the loading and checkpointing options
+     * @throws StateSpaceLoaderException if there is no Petri net to explore or the checkpoint
+     *                                   settings are invalid
+     */
+    public Settings getSettings() throws StateSpaceLoaderException {
+        if (loadFromBinariesRadio.isSelected()) {
+            return new Settings(null, binaryTransitions, binaryStates, null, 0);
+        }
+        PetriNet petriNet = getPetriNet();
+        if (petriNet == null) {
+            String message;
+            if (useExistingPetriNetRadioButton.isSelected()) {
+                message = "Error cannot calculate analysis metrics. Please load a Petri net/binaries.";
+            } else {
+                message = "Error in loaded Petri net, could not read PNML file.";
+            }
+            throw new StateSpaceLoaderException(message);
+        }
+        if (!checkpointPanel.isCheckpointing()) {
+            return new Settings(petriNet, null, null, null, 0);
+        }
+        try {
+            return new Settings(petriNet, null, null, checkpointPanel.getDirectory(),
+                    checkpointPanel.getIntervalMillis());
+        } catch (IllegalArgumentException e) {
+            throw new StateSpaceLoaderException(e.getMessage(), e);
+        }
+    }
 
     /**
      * Calculates the steady state exploration of a Petri net and stores its results
@@ -236,6 +304,7 @@ public class StateSpaceLoader {
      * These results are then read in and turned into a graphical representation using mxGraph
      * which is displayed to the user
      * </p>
+     * @param settings loading options read by {@link #getSettings()}
      * @param creator  explorer creator
      * @param vanishingCreator vanishing creator
      * @param threads across which to spread work
@@ -247,218 +316,306 @@ public class StateSpaceLoader {
      * @throws InvalidRateException functional rate expression invalid
      * @throws StateSpaceLoaderException if error during loading from binaries 
      */
-    public StateSpaceExplorer.StateSpaceExplorerResults calculateResults(ExplorerCreator creator,
-                                                                         VanishingExplorerCreator vanishingCreator, int threads)
+    public StateSpaceExplorer.StateSpaceExplorerResults calculateResults(Settings settings, ExplorerCreator creator,
+                                                                         VanishingExplorerCreator vanishingCreator,
+                                                                         int threads)
             throws IOException, InterruptedException, ExecutionException, InvalidRateException, TimelessTrapException,
             StateSpaceLoaderException {
-        if (loadFromBinariesRadio.isSelected()) {
-            return loadFromBinaries();
+        return calculateResults(settings, creator, vanishingCreator, threads, null);
+    }
+
+    /**
+     * Calculates the state space as above, reporting progress to the monitor. The exploration
+     * is stopped by cancelling the monitor and interrupting the calling thread, in which case
+     * an {@link InterruptedException} is thrown. This is intended to be called from a
+     * background thread rather than the event dispatch thread.
+     *
+     * @param settings         loading options read by {@link #getSettings()}
+     * @param creator          explorer creator
+     * @param vanishingCreator vanishing creator
+     * @param threads          across which to spread work
+     * @param monitor          progress monitor, may be null
+     * @return state space explorer results
+     * @throws TimelessTrapException     unable to exit cyclic vanishing state
+     * @throws InterruptedException      thread interrupted or exploration stopped
+     * @throws ExecutionException        task aborted due to exception
+     * @throws IOException               error doing IO
+     * @throws InvalidRateException      functional rate expression invalid
+     * @throws StateSpaceLoaderException if error during loading from binaries
+     */
+    public StateSpaceExplorer.StateSpaceExplorerResults calculateResults(Settings settings, ExplorerCreator creator,
+                                                                         VanishingExplorerCreator vanishingCreator,
+                                                                         int threads, ExplorationMonitor monitor)
+            throws IOException, InterruptedException, ExecutionException, InvalidRateException, TimelessTrapException,
+            StateSpaceLoaderException {
+        return calculateResults(settings, creator, vanishingCreator, threads, monitor, null);
+    }
+
+    /**
+     * Calculates the state space as above, reading it from the {@link ResultCache} if the same
+     * net has already been explored with the same settings. Newly explored state spaces are
+     * added to the cache. Checkpointed explorations and binaries loaded by the user are never
+     * cached.
+     *
+     * @param settings         loading options read by {@link #getSettings()}
+     * @param creator          explorer creator
+     * @param vanishingCreator vanishing creator
+     * @param threads          across which to spread work
+     * @param monitor          progress monitor, may be null
+     * @param explorerSettings description of every setting of the creators that changes the
+     *                         state space, null to bypass the cache
+     * @return state space explorer results
+     * @throws TimelessTrapException     unable to exit cyclic vanishing state
+     * @throws InterruptedException      thread interrupted or exploration stopped
+     * @throws ExecutionException        task aborted due to exception
+     * @throws IOException               error doing IO
+     * @throws InvalidRateException      functional rate expression invalid
+     * @throws StateSpaceLoaderException if error during loading from binaries
+     */
+    public StateSpaceExplorer.StateSpaceExplorerResults calculateResults(Settings settings, ExplorerCreator creator,
+                                                                         VanishingExplorerCreator vanishingCreator,
+                                                                         int threads, ExplorationMonitor monitor,
+                                                                         String explorerSettings)
+            throws IOException, InterruptedException, ExecutionException, InvalidRateException, TimelessTrapException,
+            StateSpaceLoaderException {
+        schedulerStatistics = null;
+        cacheKey = null;
+        cached = false;
+        if (settings.isBinaries()) {
+            return loadFromBinaries(settings.getTransitions(), settings.getStates());
         } else {
-            KryoStateIO stateWriter = new KryoStateIO();
-            temporaryTransitions = getTransitionsPath();
-            temporaryStates = getStatesPath();
-
-            PetriNet petriNet = useExistingPetriNetRadioButton.isSelected() ? defaultPetriNet : lastLoadedPetriNet;
-            if (petriNet == null) {
-                String message;
-                if (useExistingPetriNetRadioButton.isSelected()) {
-                    message = "Error cannot calculate analysis metrics. Please load a Petri net/binaries.";
-                } else {
-                    message = "Error in loaded Petri net, could not read PNML file.";
-                }
-                throw new StateSpaceLoaderException(message);
-            }
+            PetriNet petriNet = settings.getPetriNet();
             ExplorerUtilities explorerUtils = creator.create(petriNet);
             VanishingExplorer vanishingExplorer = vanishingCreator.create(explorerUtils);
-            return generateStateSpace(stateWriter, temporaryTransitions, temporaryStates, petriNet, explorerUtils,
-                    vanishingExplorer, threads);
+            if (settings.isCheckpointing()) {
+                String key = ResultCache.key(petriNet, explorerSettings == null ? "" : explorerSettings);
+                return generateCheckpointed(settings, key, explorerUtils, vanishingExplorer, threads, monitor);
+            }
+            ResultCache cache = explorerSettings == null ? null : getCache();
+            if (cache != null) {
+                return generateCached(cache, ResultCache.key(petriNet, explorerSettings), explorerUtils,
+                        vanishingExplorer, threads, monitor);
+            }
+            generator = StateSpaceGenerator.temporary();
+            generator.setMonitor(monitor);
+            StateSpaceExplorer.StateSpaceExplorerResults results =
+                    generator.generate(explorerUtils, vanishingExplorer, threads);
+            schedulerStatistics = generator.getSchedulerStatistics();
+            return results;
         }
     }
 
     /**
-     * Loads the transitions and states from binaries
+     * Reads the state space from the cache, exploring it into the cache first if it is not there
      *
-     * @return state space explorer results 
-     * @throws IOException if IO error
-     * @throws StateSpaceLoaderException if error during loading from binaries 
-     * @return state space explorer results 
-     */
-    private StateSpaceExplorer.StateSpaceExplorerResults loadFromBinaries()
-            throws IOException, StateSpaceLoaderException {
-        StateReader stateReader = new KryoStateIO();
-        temporaryTransitions = getTransitionsPath();
-        temporaryStates = getStatesPath();
-        return processBinaryResults(stateReader, temporaryTransitions);
-
+     * @param cache             result cache
+     * @param key               cache key of the state space
+     * @param explorerUtils     explorer utilities
+     * @param vanishingExplorer vanishing explorer
+     * @param threads           across which to spread work
+     * @param monitor           progress monitor, may be null
+     * @return state space explorer results
+     * @throws TimelessTrapException unable to exit cyclic vanishing state
+     * @throws InterruptedException  thread interrupted or exploration stopped
+     * @throws ExecutionException    task aborted due to exception
+     * @throws IOException           error doing IO
+     * @throws InvalidRateException  functional rate expression invalid
+     */
+    private StateSpaceExplorer.StateSpaceExplorerResults generateCached(ResultCache cache, String key,
+                                                                        ExplorerUtilities explorerUtils,
+                                                                        VanishingExplorer vanishingExplorer,
+                                                                        int threads, ExplorationMonitor monitor)
+            throws IOException, InterruptedException, ExecutionException, InvalidRateException, TimelessTrapException {
+        StateSpaceGenerator found = cache.find(key);
+        if (found != null) {
+            generator = found;
+            cacheKey = key;
+            cached = true;
+            return generator.readResults();
+        }
+        Path staging = cache.stage(key);
+        boolean committed = false;
+        try {
+            StateSpaceGenerator staged = StateSpaceGenerator.inDirectory(staging);
+            staged.setMonitor(monitor);
+            StateSpaceExplorer.StateSpaceExplorerResults results =
+                    staged.generate(explorerUtils, vanishingExplorer, threads);
+            schedulerStatistics = staged.getSchedulerStatistics();
+            generator = cache.commit(key, staging);
+            committed = true;
+            cacheKey = key;
+            return results;
+        } finally {
+            if (!committed) {
+                cache.discard(staging);
+            }
+        }
     }
 
     /**
-     * @return Path for state space transitions
-     * @throws IOException if IO error occurs 
+     * @return result cache shared by the analysis modules, null if it is disabled or unavailable
      */
-    private Path getTransitionsPath() throws IOException {
-        return loadFromBinariesRadio.isSelected() ? binaryTransitions : Files.createTempFile("transitions", ".tmp");
+    private ResultCache getCache() {
+        try {
+            return ResultCache.getDefault();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Result cache unavailable: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
-     * @return Path for state space states
-     * @throws IOException if IO error occurs 
+     * @param settings solver settings
+     * @return steady state solution of the most recent state space with the settings if it is
+     * in the result cache, otherwise null
      */
-    private Path getStatesPath() throws IOException {
-        return loadFromBinariesRadio.isSelected() ? binaryStates : Files.createTempFile("states", ".tmp");
+    public SolverResult findCachedSolution(SolverSettings settings) {
+        ResultCache cache = cacheKey == null ? null : getCache();
+        if (cache == null) {
+            return null;
+        }
+        try {
+            return cache.findSolution(cacheKey, settings);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read cached solution: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
-     * Writes the state space into transitions and states
+     * Adds the steady state solution of the most recent state space to the result cache if
+     * the state space is cached
      *
-     * @param stateWriter writer
-     * @param transitions to write
-     * @param states to write
-     * @param threads number of worker threads to use
-     * @return state space explorer results 
-     * @throws TimelessTrapException unable to exit cyclic vanishing state
-     * @throws InterruptedException  thread interrupted
-     * @throws ExecutionException task aborted due to exception
-     * @throws IOException error doing IO
-     * @throws InvalidRateException functional rate expression invalid
+     * @param settings solver settings used
+     * @param result   solution
      */
-    private StateSpaceExplorer.StateSpaceExplorerResults generateStateSpace(StateWriter stateWriter, Path transitions,
-                                                                            Path states, PetriNet petriNet,
-                                                                            ExplorerUtilities explorerUtils,
-                                                                            VanishingExplorer vanishingExplorer,
-                                                                            int threads)
-            throws IOException, TimelessTrapException, ExecutionException, InvalidRateException, InterruptedException {
-        try (OutputStream transitionStream = Files.newOutputStream(transitions);
-             OutputStream stateStream = Files.newOutputStream(states)) {
-            try (Output transitionOutput = new Output(transitionStream);
-                 Output stateOutput = new Output(stateStream)) {
-                return writeStateSpace(stateWriter, transitionOutput, stateOutput, petriNet, explorerUtils,
-                        vanishingExplorer, threads);
-            }
+    public void cacheSolution(SolverSettings settings, SolverResult result) {
+        ResultCache cache = cacheKey == null ? null : getCache();
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.storeSolution(cacheKey, settings, result);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not cache solution: " + e.getMessage());
         }
     }
 
     /**
-     * Processes the binary results and returns their state space
+     * Generates the state space into the checkpoint directory, continuing from the checkpoint
+     * in it if there is one that was written for the same net and settings
      *
-     * @param stateReader reader 
-     * @param transitions to process
+     * @param settings          loading options naming the checkpoint directory
+     * @param key               key of the net and exploration settings
+     * @param explorerUtils     explorer utilities
+     * @param vanishingExplorer vanishing explorer
+     * @param threads           across which to spread work
+     * @param monitor           progress monitor, may be null
+     * @return state space explorer results
+     * @throws TimelessTrapException     unable to exit cyclic vanishing state
+     * @throws InterruptedException      thread interrupted
+     * @throws ExecutionException        task aborted due to exception
+     * @throws IOException               error doing IO
+     * @throws InvalidRateException      functional rate expression invalid
+     */
+    private StateSpaceExplorer.StateSpaceExplorerResults generateCheckpointed(Settings settings, String key,
+                                                                              ExplorerUtilities explorerUtils,
+                                                                              VanishingExplorer vanishingExplorer,
+                                                                              int threads,
+                                                                              ExplorationMonitor monitor)
+            throws IOException, InterruptedException, ExecutionException, InvalidRateException, TimelessTrapException {
+        Path directory = settings.getCheckpointDirectory();
+        generator = StateSpaceGenerator.inDirectory(directory);
+        generator.setMonitor(monitor);
+        Path checkpoint = StateSpaceGenerator.checkpointFile(directory);
+        StateSpaceExplorer.StateSpaceExplorerResults results =
+                generator.generateCheckpointed(explorerUtils, vanishingExplorer, threads, null, key, checkpoint,
+                        settings.getCheckpointIntervalMillis());
+        schedulerStatistics = generator.getSchedulerStatistics();
+        return results;
+    }
+
+    /**
+     * Loads the transitions and states from binaries
+     *
+     * @param transitions binary transitions file
+     * @param states      binary states file
      * @return state space explorer results 
      * @throws IOException if IO error
      * @throws StateSpaceLoaderException if error during loading from binaries 
      */
-    private StateSpaceExplorer.StateSpaceExplorerResults processBinaryResults(StateReader stateReader, Path transitions)
+    private StateSpaceExplorer.StateSpaceExplorerResults loadFromBinaries(Path transitions, Path states)
             throws IOException, StateSpaceLoaderException {
-        try (InputStream inputStream = Files.newInputStream(transitions);
-             Input transitionInput = new Input(inputStream)) {
-            try {
-                Collection<Record> records = readResults(stateReader, transitionInput);
-                int transitionCount = getTransitionCount(records);
-                return new StateSpaceExplorer.StateSpaceExplorerResults(transitionCount, records.size());
-            } catch (IOException e) {
-                throw new StateSpaceLoaderException(
-                        "Could not parse binaries.\nAre you sure they were generated using the PIPE 5 state space explorer module?",
-                        e);
-            }
+        generator = new StateSpaceGenerator(transitions, states);
+        try {
+            return generator.readResults();
+        } catch (IOException e) {
+            throw new StateSpaceLoaderException(
+                    "Could not parse binaries.\nAre you sure they were generated using the PIPE 5 state space explorer module?",
+                    e);
         }
     }
 
     /**
-     * Writes the petriNet state space out to a temporary file which is referenced by the objectOutputStream
+     * Loads and processes state space
      *
-     * @param stateWriter       format in which to write the results to
-     * @param transitionOutput  stream to write state space to
-     * @param stateOutput       stream to write state integer mappings to
-     * @param explorerUtilites  explorer utilities
-     * @param threads number of worker threads to use
-     * @param vanishingExplorer 
-     * @return state space explorer results 
-     * @throws TimelessTrapException unable to exit cyclic vanishing state
-     * @throws InterruptedException  thread interrupted
-     * @throws ExecutionException task aborted due to exception
+     * @return results
      * @throws IOException error doing IO
-     * @throws InvalidRateException functional rate expression invalid
+     * @throws StateSpaceLoaderException if error during loading from binaries 
      */
-    private StateSpaceExplorer.StateSpaceExplorerResults writeStateSpace(StateWriter stateWriter,
-                                                                         Output transitionOutput, Output stateOutput,
-                                                                         PetriNet petriNet,
-                                                                         ExplorerUtilities explorerUtilites,
-                                                                         VanishingExplorer vanishingExplorer, int threads)
-            throws TimelessTrapException, ExecutionException, InterruptedException, IOException, InvalidRateException {
-        StateProcessor processor = new StateIOProcessor(stateWriter, transitionOutput, stateOutput);
-        StateSpaceExplorer stateSpaceExplorer = getStateSpaceExplorer(explorerUtilites, vanishingExplorer, processor, threads);
-        return stateSpaceExplorer.generate(explorerUtilites.getCurrentState());
-    }
-
-    private StateSpaceExplorer getStateSpaceExplorer( ExplorerUtilities explorerUtilites, VanishingExplorer vanishingExplorer, StateProcessor stateProcessor, int threads) {
-        if (threads == 1) {
-            return new SequentialStateSpaceExplorer(explorerUtilites, vanishingExplorer, stateProcessor);
+    public Results loadStateSpace() throws StateSpaceLoaderException, IOException {
+        if (generator == null) {
+            throw new StateSpaceLoaderException("No state space has been generated or loaded.");
         }
-        return new  MassiveParallelStateSpaceExplorer(explorerUtilites, vanishingExplorer, stateProcessor, threads, STATES_PER_THREAD);
+        return new Results(generator.readRecords(), generator.readMappings());
     }
 
     /**
-     * Reads results of steady state exploration into a collection of records
+     * Loads the transition graph of the state space for drawing
      *
-     * @param stateReader reader 
-     * @param input to process
-     * @return state transitions with rates
+     * @return graph of the state space
      * @throws IOException error doing IO
+     * @throws StateSpaceLoaderException if no state space has been generated or loaded
      */
-    private Collection<Record> readResults(StateReader stateReader, Input input) throws IOException {
-        MultiStateReader reader = new EntireStateReader(stateReader);
-        return reader.readRecords(input);
-    }
-
-    /**
-     * @param records to process
-     * @return the number of transitions in the state space
-     */
-    private int getTransitionCount(Iterable<Record> records) {
-        int sum = 0;
-        for (Record record : records) {
-            sum += record.successors.size();
+    public StateGraph loadStateGraph() throws StateSpaceLoaderException, IOException {
+        if (generator == null) {
+            throw new StateSpaceLoaderException("No state space has been generated or loaded.");
         }
-        return sum;
+        return generator.readGraph();
     }
 
     /**
-     * Loads and processes state space
+     * Loads the states of the state space without their transitions
      *
-     * @return results
+     * @return map of state id to state
      * @throws IOException error doing IO
-     * @throws StateSpaceLoaderException if error during loading from binaries 
+     * @throws StateSpaceLoaderException if no state space has been generated or loaded
      */
-    public Results loadStateSpace() throws StateSpaceLoaderException, IOException {
-        KryoStateIO stateReader = new KryoStateIO();
-        try (InputStream inputStream = Files.newInputStream(temporaryTransitions);
-             InputStream stateInputStream = Files.newInputStream(temporaryStates);
-             Input transitionInput = new Input(inputStream);
-             Input stateInput = new Input(stateInputStream)) {
-            Collection<Record> records = readResults(stateReader, transitionInput);
-            Map<Integer, ClassifiedState> stateMap = readMappings(stateReader, stateInput);
-            return new Results(records, stateMap);
+    public Map<Integer, ClassifiedState> loadStateMappings() throws StateSpaceLoaderException, IOException {
+        if (generator == null) {
+            throw new StateSpaceLoaderException("No state space has been generated or loaded.");
         }
+        return generator.readMappings();
     }
 
     /**
-     * Reads results of the mapping of an integer state representation to
-     * the Classified State it represents
+     * Loads the generator matrix of the state space for solving
      *
-     * @param stateReader reader 
-     * @param input to process
-     * @return state mappings
+     * @return generator matrix
      * @throws IOException error doing IO
+     * @throws StateSpaceLoaderException if no state space has been generated or loaded
      */
-    private Map<Integer, ClassifiedState> readMappings(StateReader stateReader, Input input) throws IOException {
-        MultiStateReader reader = new EntireStateReader(stateReader);
-        return reader.readStates(input);
+    public GeneratorMatrix loadGeneratorMatrix() throws StateSpaceLoaderException, IOException {
+        if (generator == null) {
+            throw new StateSpaceLoaderException("No state space has been generated or loaded.");
+        }
+        return generator.readGeneratorMatrix();
     }
 
     public void saveBinaryFiles() {
-        if (temporaryStates != null && temporaryTransitions != null) {
-            copyFile(temporaryTransitions, "Select location for temporary transitions");
-            copyFile(temporaryStates, "Select location for temporary states");
+        if (generator != null) {
+            copyFile(generator.getTransitions(), "Select location for temporary transitions");
+            copyFile(generator.getStates(), "Select location for temporary states");
         }
     }
 
@@ -510,6 +667,102 @@ public class StateSpaceLoader {
         VanishingExplorer create(ExplorerUtilities utils);
     }
 
+    /**
+     * Loading and checkpointing options read from the widgets on the event dispatch thread,
+     * so that a background exploration never touches Swing
+     */
+    public static final class Settings {
+        /**
+         * Petri net to explore, null if the state space is loaded from binaries
+         */
+        private final PetriNet petriNet;
+
+        /**
+         * Binary transitions to load, null if a Petri net is explored
+         */
+        private final Path transitions;
+
+        /**
+         * Binary states to load, null if a Petri net is explored
+         */
+        private final Path states;
+
+        /**
+         * Directory to checkpoint the exploration into, null if it is not checkpointed
+         */
+        private final Path checkpointDirectory;
+
+        /**
+         * Milliseconds between checkpoints
+         */
+        private final long checkpointIntervalMillis;
+
+        /**
+         * @param petriNet                 Petri net to explore, null to load binaries
+         * @param transitions              binary transitions to load, null if a Petri net is explored
+         * @param states                   binary states to load, null if a Petri net is explored
+         * @param checkpointDirectory      directory to checkpoint into, null if not checkpointing
+         * @param checkpointIntervalMillis milliseconds between checkpoints
+         */
+        private Settings(PetriNet petriNet, Path transitions, Path states, Path checkpointDirectory,
+                         long checkpointIntervalMillis) {
+            this.petriNet = petriNet;
+            this.transitions = transitions;
+            this.states = states;
+            this.checkpointDirectory = checkpointDirectory;
+            this.checkpointIntervalMillis = checkpointIntervalMillis;
+        }
+
+        /**
+         * @return true if the state space is loaded from binaries rather than explored
+         */
+        public boolean isBinaries() {
+            return petriNet == null;
+        }
+
+        /**
+         * @return Petri net to explore, null if the state space is loaded from binaries
+         */
+        public PetriNet getPetriNet() {
+            return petriNet;
+        }
+
+        /**
+         * @return binary transitions to load, null if a Petri net is explored
+         */
+        public Path getTransitions() {
+            return transitions;
+        }
+
+        /**
+         * @return binary states to load, null if a Petri net is explored
+         */
+        public Path getStates() {
+            return states;
+        }
+
+        /**
+         * @return true if the exploration is checkpointed
+         */
+        public boolean isCheckpointing() {
+            return checkpointDirectory != null;
+        }
+
+        /**
+         * @return directory to checkpoint the exploration into, null if it is not checkpointed
+         */
+        public Path getCheckpointDirectory() {
+            return checkpointDirectory;
+        }
+
+        /**
+         * @return milliseconds between checkpoints
+         */
+        public long getCheckpointIntervalMillis() {
+            return checkpointIntervalMillis;
+        }
+    }
+
     /**
      * State space exploration results
      */
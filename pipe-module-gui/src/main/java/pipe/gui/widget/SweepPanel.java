@@ -0,0 +1,93 @@
+package pipe.gui.widget;
+
+import pipe.gui.sweep.ParameterSweep;
+
+import javax.swing.*;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+/**
+ * Panel for sweeping a rate parameter over a range of values rather than solving the net once
+ */
+public class SweepPanel {
+
+    /**
+     * Panel containing the sweep settings
+     */
+    private final JPanel mainPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+    /**
+     * Selected to sweep the rate parameter
+     */
+    private final JCheckBox sweepCheckBox = new JCheckBox("Sweep rate parameter");
+
+    /**
+     * Id of the rate parameter
+     */
+    private final JTextField parameterText = new JTextField(8);
+
+    /**
+     * Values of the rate parameter
+     */
+    private final JTextField valuesText = new JTextField(20);
+
+    /**
+     * Lays out the panel with sweeping off
+     */
+    public SweepPanel() {
+        mainPanel.add(sweepCheckBox);
+        mainPanel.add(parameterText);
+        mainPanel.add(new JLabel("Values (comma separated, from:to:step for a range):"));
+        mainPanel.add(valuesText);
+        sweepCheckBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                updateEnabled();
+            }
+        });
+        updateEnabled();
+    }
+
+    /**
+     * Only enables the settings when sweeping
+     */
+    private void updateEnabled() {
+        parameterText.setEnabled(sweepCheckBox.isSelected());
+        valuesText.setEnabled(sweepCheckBox.isSelected());
+    }
+
+    /**
+     * @return true if the rate parameter should be swept
+     */
+    public boolean isSweeping() {
+        return sweepCheckBox.isSelected();
+    }
+
+    /**
+     * @return id of the rate parameter
+     * @throws IllegalArgumentException if no parameter was entered
+     */
+    public String getParameter() {
+        String parameter = parameterText.getText().trim();
+        if (parameter.isEmpty()) {
+            throw new IllegalArgumentException("Enter the id of the rate parameter to sweep");
+        }
+        return parameter;
+    }
+
+    /**
+     * @return distinct values in ascending order
+     * @throws IllegalArgumentException if the values are invalid
+     */
+    public double[] getValues() {
+        return ParameterSweep.parseValues(valuesText.getText());
+    }
+
+    /**
+     * @return panel to add to other GUI's
+     */
+    public JPanel getPanel() {
+        return mainPanel;
+    }
+}
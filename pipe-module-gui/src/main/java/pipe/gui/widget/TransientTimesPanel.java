@@ -0,0 +1,45 @@
+package pipe.gui.widget;
+
+import pipe.gui.steadystate.TransientSolver;
+
+import javax.swing.*;
+import java.awt.FlowLayout;
+
+/**
+ * Panel for entering the time points at which the transient distribution is wanted
+ */
+public class TransientTimesPanel {
+
+    /**
+     * Panel containing the time points
+     */
+    private final JPanel mainPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+    /**
+     * Comma separated time points
+     */
+    private final JTextField timesText = new JTextField(20);
+
+    /**
+     * Lays out the panel
+     */
+    public TransientTimesPanel() {
+        mainPanel.add(new JLabel("Transient times (comma separated, blank for none):"));
+        mainPanel.add(timesText);
+    }
+
+    /**
+     * @return distinct time points in ascending order, empty if none were entered
+     * @throws IllegalArgumentException if a time point is not a non negative number
+     */
+    public double[] getTimes() {
+        return TransientSolver.parseTimes(timesText.getText());
+    }
+
+    /**
+     * @return panel to add to other GUI's
+     */
+    public JPanel getPanel() {
+        return mainPanel;
+    }
+}
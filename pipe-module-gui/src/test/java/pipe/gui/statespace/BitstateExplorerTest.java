@@ -0,0 +1,231 @@
+package pipe.gui.statespace;
+
+import org.junit.Test;
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.SimpleVanishingExplorer;
+import pipe.reachability.algorithm.UnboundedExplorerUtilities;
+import pipe.reachability.algorithm.sequential.SequentialStateSpaceExplorer;
+import uk.ac.imperial.io.StateProcessor;
+import uk.ac.imperial.pipe.dsl.*;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+import uk.ac.imperial.pipe.models.petrinet.Place;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.awt.Color;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class BitstateExplorerTest {
+
+    /**
+     * Large enough that the few markings of the nets below never collide
+     */
+    private static final long BITS = 1L << 20;
+
+    /**
+     * Two independent cycles of timed transitions
+     */
+    @Test
+    public void matchesExplicitExplorationOfIndependentCycles() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(1, "Default").token()).and(APlace.withId("P1")).and(
+                APlace.withId("P2").containing(1, "Default").token()).and(APlace.withId("P3")).and(
+                ATimedTransition.withId("T0")).and(ATimedTransition.withId("T1")).and(
+                ATimedTransition.withId("T2")).and(ATimedTransition.withId("T3")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P1").andTarget("T1").with("1", "Default").token()).and(
+                ANormalArc.withSource("T1").andTarget("P0").with("1", "Default").token()).and(
+                ANormalArc.withSource("P2").andTarget("T2").with("1", "Default").token()).and(
+                ANormalArc.withSource("T2").andTarget("P3").with("1", "Default").token()).and(
+                ANormalArc.withSource("P3").andTarget("T3").with("1", "Default").token()).andFinally(
+                ANormalArc.withSource("T3").andTarget("P2").with("1", "Default").token());
+
+        BitstateExplorer.Results results = assertMatchesExplicit(petriNet);
+
+        assertEquals(4, results.states);
+        assertNull(results.deadlock);
+    }
+
+    /**
+     * The order two timed transitions fire in decides through an inhibitor arc which of two
+     * dead markings is reached
+     */
+    @Test
+    public void matchesExplicitExplorationWithInhibitorArc() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(1, "Default").token()).and(APlace.withId("P1")).and(
+                APlace.withId("P2").containing(1, "Default").token()).and(APlace.withId("P3")).and(
+                ATimedTransition.withId("T0")).and(ATimedTransition.withId("T1")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P2").andTarget("T1").with("1", "Default").token()).and(
+                ANormalArc.withSource("T1").andTarget("P3").with("1", "Default").token()).andFinally(
+                AnInhibitorArc.withSource("P1").andTarget("T1"));
+
+        BitstateExplorer.Results results = assertMatchesExplicit(petriNet);
+
+        assertEquals(2, results.deadlocks);
+    }
+
+    /**
+     * An immediate choice from a vanishing initial marking into a cycle of timed transitions
+     */
+    @Test
+    public void matchesExplicitExplorationWithVanishingMarking() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(1, "Default").token()).and(APlace.withId("P1")).and(
+                APlace.withId("P2")).and(AnImmediateTransition.withId("T0")).and(
+                AnImmediateTransition.withId("T1")).and(ATimedTransition.withId("T2")).and(
+                ATimedTransition.withId("T3")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P0").andTarget("T1").with("1", "Default").token()).and(
+                ANormalArc.withSource("T1").andTarget("P2").with("1", "Default").token()).and(
+                ANormalArc.withSource("P1").andTarget("T2").with("1", "Default").token()).and(
+                ANormalArc.withSource("T2").andTarget("P2").with("1", "Default").token()).and(
+                ANormalArc.withSource("P2").andTarget("T3").with("1", "Default").token()).andFinally(
+                ANormalArc.withSource("T3").andTarget("P1").with("1", "Default").token());
+
+        BitstateExplorer.Results results = assertMatchesExplicit(petriNet);
+
+        assertEquals(2, results.states);
+        assertEquals(1, results.vanishingStates);
+        assertEquals(0, results.timelessTraps);
+    }
+
+    /**
+     * Tokens move down a line of places until the last one, with an immediate transition
+     * in the middle of the line
+     */
+    @Test
+    public void matchesExplicitExplorationEndingInDeadlock() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(2, "Default").token()).and(APlace.withId("P1")).and(
+                APlace.withId("P2")).and(ATimedTransition.withId("T0")).and(
+                AnImmediateTransition.withId("T1")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P1").andTarget("T1").with("1", "Default").token()).andFinally(
+                ANormalArc.withSource("T1").andTarget("P2").with("1", "Default").token());
+
+        BitstateExplorer.Results results = assertMatchesExplicit(petriNet);
+
+        assertEquals(1, results.deadlocks);
+        assertEquals(2, (int) results.deadlock.getTokens("P2").get("Default"));
+    }
+
+    /**
+     * From the initial marking T0 leads back to it while T1 and T2 lead to two dead markings.
+     * With room for one marking on the stack one dead marking is pushed and the other skipped,
+     * and reaching the initial marking again while the stack is full skips nothing.
+     */
+    @Test
+    public void countsSkippedStateOnceWhenStackIsFull() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(1, "Default").token()).and(APlace.withId("P1")).and(
+                APlace.withId("P2")).and(ATimedTransition.withId("T0")).and(
+                ATimedTransition.withId("T1")).and(ATimedTransition.withId("T2")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P0").with("1", "Default").token()).and(
+                ANormalArc.withSource("P0").andTarget("T1").with("1", "Default").token()).and(
+                ANormalArc.withSource("T1").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P0").andTarget("T2").with("1", "Default").token()).andFinally(
+                ANormalArc.withSource("T2").andTarget("P2").with("1", "Default").token());
+        ExplorerUtilities utilities = new UnboundedExplorerUtilities(petriNet);
+        ClassifiedState initial = utilities.getCurrentState();
+        MarkingCodec codec = MarkingCodec.fromState(initial);
+        int length = codec.encode(initial, new byte[codec.getMaxEncodedSize()]);
+
+        BitstateExplorer.Results results = new BitstateExplorer(utilities, BITS, BitstateExplorer.DEFAULT_HASHES,
+                length + 4, Long.MAX_VALUE).explore();
+
+        assertEquals(3, results.states);
+        assertEquals(1, results.skippedStates);
+        assertEquals(1, results.deadlocks);
+        assertFalse(results.isComplete());
+    }
+
+    /**
+     * Explores the net with a bitstate table too large to collide and explicitly, and checks
+     * the numbers of tangible, vanishing and dead states agree and that the dead marking found
+     * is one of the explicit ones
+     *
+     * @return results of the bitstate exploration
+     */
+    private static BitstateExplorer.Results assertMatchesExplicit(PetriNet petriNet) throws Exception {
+        BitstateExplorer.Results results = new BitstateExplorer(new UnboundedExplorerUtilities(petriNet), BITS,
+                BitstateExplorer.DEFAULT_HASHES, BitstateExplorer.DEFAULT_MAX_STACK_BYTES, Long.MAX_VALUE).explore();
+
+        ExplorerUtilities utilities = new UnboundedExplorerUtilities(petriNet);
+        Set<ClassifiedState> states = explore(utilities);
+        int tangible = 0;
+        Set<ClassifiedState> deadlocks = new HashSet<>();
+        for (ClassifiedState state : states) {
+            if (state.isTangible()) {
+                tangible++;
+            }
+            if (utilities.getAllEnabledTransitions(state).isEmpty()) {
+                deadlocks.add(state);
+            }
+        }
+
+        assertTrue(results.isComplete());
+        assertEquals(0, results.skippedStates);
+        assertEquals(tangible, results.states);
+        assertEquals(states.size() - tangible, results.vanishingStates);
+        assertEquals(deadlocks.size(), results.deadlocks);
+        if (results.deadlock != null) {
+            assertTrue(containsMarking(petriNet, deadlocks, results.deadlock));
+        }
+        return results;
+    }
+
+    /**
+     * @return every state the sequential explorer reaches with the utilities
+     */
+    private static Set<ClassifiedState> explore(ExplorerUtilities utilities) throws Exception {
+        final Set<ClassifiedState> states = new HashSet<>();
+        StateProcessor processor = new StateProcessor() {
+            @Override
+            public void processTransitions(int state, Map<Integer, Double> successorRates) {
+                // Only the states are compared
+            }
+
+            @Override
+            public void processState(ClassifiedState state, int id) {
+                states.add(state);
+            }
+        };
+        new SequentialStateSpaceExplorer(utilities, new SimpleVanishingExplorer(), processor).generate(
+                utilities.getCurrentState());
+        return states;
+    }
+
+    /**
+     * @return true if one of the states has the token counts of the marking
+     */
+    private static boolean containsMarking(PetriNet petriNet, Set<ClassifiedState> states, ClassifiedState marking) {
+        for (ClassifiedState state : states) {
+            boolean same = true;
+            for (Place place : petriNet.getPlaces()) {
+                same &= count(state.getTokens(place.getId())) == count(marking.getTokens(place.getId()));
+            }
+            if (same) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return number of default tokens, 0 if there are none
+     */
+    private static int count(Map<String, Integer> tokens) {
+        Integer count = tokens == null ? null : tokens.get("Default");
+        return count == null ? 0 : count;
+    }
+}
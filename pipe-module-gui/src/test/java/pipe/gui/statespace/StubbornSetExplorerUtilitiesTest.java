@@ -0,0 +1,182 @@
+package pipe.gui.statespace;
+
+import org.junit.Test;
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.SimpleVanishingExplorer;
+import pipe.reachability.algorithm.UnboundedExplorerUtilities;
+import pipe.reachability.algorithm.sequential.SequentialStateSpaceExplorer;
+import uk.ac.imperial.io.StateProcessor;
+import uk.ac.imperial.pipe.dsl.*;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.awt.Color;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class StubbornSetExplorerUtilitiesTest {
+
+    /**
+     * Two independent cycles, every interleaving of which is explored without the reduction
+     */
+    @Test
+    public void reducesIndependentCyclesWithoutDeadlock() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(1, "Default").token()).and(APlace.withId("P1")).and(
+                APlace.withId("P2").containing(1, "Default").token()).and(APlace.withId("P3")).and(
+                ATimedTransition.withId("T0")).and(ATimedTransition.withId("T1")).and(
+                ATimedTransition.withId("T2")).and(ATimedTransition.withId("T3")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P1").andTarget("T1").with("1", "Default").token()).and(
+                ANormalArc.withSource("T1").andTarget("P0").with("1", "Default").token()).and(
+                ANormalArc.withSource("P2").andTarget("T2").with("1", "Default").token()).and(
+                ANormalArc.withSource("T2").andTarget("P3").with("1", "Default").token()).and(
+                ANormalArc.withSource("P3").andTarget("T3").with("1", "Default").token()).andFinally(
+                ANormalArc.withSource("T3").andTarget("P2").with("1", "Default").token());
+
+        ReductionStatistics statistics = new ReductionStatistics();
+        Set<ClassifiedState> reduced = assertDeadlocksKept(petriNet, statistics);
+
+        assertTrue(deadlocks(petriNet, reduced).isEmpty());
+        assertTrue(statistics.getFiredTransitions() < statistics.getEnabledTransitions());
+    }
+
+    /**
+     * Two independent transitions firing once each, whose only deadlock is reached by firing both
+     */
+    @Test
+    public void keepsDeadlockOfIndependentTransitions() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(1, "Default").token()).and(APlace.withId("P1")).and(
+                APlace.withId("P2").containing(1, "Default").token()).and(APlace.withId("P3")).and(
+                ATimedTransition.withId("T0")).and(ATimedTransition.withId("T1")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P2").andTarget("T1").with("1", "Default").token()).andFinally(
+                ANormalArc.withSource("T1").andTarget("P3").with("1", "Default").token());
+
+        Set<ClassifiedState> reduced = assertDeadlocksKept(petriNet, new ReductionStatistics());
+
+        Set<ClassifiedState> deadlocks = deadlocks(petriNet, reduced);
+        assertEquals(1, deadlocks.size());
+        ClassifiedState deadlock = deadlocks.iterator().next();
+        assertEquals(1, tokens(deadlock, "P1"));
+        assertEquals(1, tokens(deadlock, "P3"));
+        assertEquals(3, reduced.size());
+    }
+
+    /**
+     * Firing T0 marks the inhibitor place of T1, so the order the two fire in decides which
+     * of two deadlocks is reached and both orders must be explored
+     */
+    @Test
+    public void keepsDeadlocksDecidedByInhibitorArc() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(1, "Default").token()).and(APlace.withId("P1")).and(
+                APlace.withId("P2").containing(1, "Default").token()).and(APlace.withId("P3")).and(
+                ATimedTransition.withId("T0")).and(ATimedTransition.withId("T1")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P2").andTarget("T1").with("1", "Default").token()).and(
+                ANormalArc.withSource("T1").andTarget("P3").with("1", "Default").token()).andFinally(
+                AnInhibitorArc.withSource("P1").andTarget("T1"));
+
+        Set<ClassifiedState> reduced = assertDeadlocksKept(petriNet, new ReductionStatistics());
+
+        assertEquals(2, deadlocks(petriNet, reduced).size());
+    }
+
+    /**
+     * T0 and T1 are independent, but each enables a transition of a higher priority that
+     * then has to fire before the other
+     */
+    @Test
+    public void keepsDeadlockWithPriorities() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(1, "Default").token()).and(
+                APlace.withId("P1").containing(1, "Default").token()).and(APlace.withId("P2")).and(
+                APlace.withId("P3")).and(APlace.withId("P4")).and(APlace.withId("P5")).and(
+                AnImmediateTransition.withId("T0").andPriority(1)).and(
+                AnImmediateTransition.withId("T1").andPriority(1)).and(
+                AnImmediateTransition.withId("T2").andPriority(2)).and(
+                AnImmediateTransition.withId("T3").andPriority(2)).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P2").with("1", "Default").token()).and(
+                ANormalArc.withSource("P1").andTarget("T1").with("1", "Default").token()).and(
+                ANormalArc.withSource("T1").andTarget("P3").with("1", "Default").token()).and(
+                ANormalArc.withSource("P2").andTarget("T2").with("1", "Default").token()).and(
+                ANormalArc.withSource("T2").andTarget("P4").with("1", "Default").token()).and(
+                ANormalArc.withSource("P3").andTarget("T3").with("1", "Default").token()).andFinally(
+                ANormalArc.withSource("T3").andTarget("P5").with("1", "Default").token());
+
+        Set<ClassifiedState> reduced = assertDeadlocksKept(petriNet, new ReductionStatistics());
+
+        Set<ClassifiedState> deadlocks = deadlocks(petriNet, reduced);
+        assertEquals(1, deadlocks.size());
+        ClassifiedState deadlock = deadlocks.iterator().next();
+        assertEquals(1, tokens(deadlock, "P4"));
+        assertEquals(1, tokens(deadlock, "P5"));
+    }
+
+    /**
+     * Explores the net with and without the reduction and checks the reduced states are
+     * reachable and have the same deadlocks
+     *
+     * @return states of the reduced exploration
+     */
+    private static Set<ClassifiedState> assertDeadlocksKept(PetriNet petriNet, ReductionStatistics statistics)
+            throws Exception {
+        Set<ClassifiedState> full = explore(new UnboundedExplorerUtilities(petriNet));
+        Set<ClassifiedState> reduced = explore(
+                new StubbornSetExplorerUtilities(petriNet, new UnboundedExplorerUtilities(petriNet), statistics));
+
+        assertTrue(full.containsAll(reduced));
+        assertTrue(reduced.size() <= full.size());
+        assertEquals(deadlocks(petriNet, full), deadlocks(petriNet, reduced));
+        return reduced;
+    }
+
+    /**
+     * @return every state the sequential explorer reaches with the utilities
+     */
+    private static Set<ClassifiedState> explore(ExplorerUtilities utilities) throws Exception {
+        final Set<ClassifiedState> states = new HashSet<>();
+        StateProcessor processor = new StateProcessor() {
+            @Override
+            public void processTransitions(int state, Map<Integer, Double> successorRates) {
+                // Only the states are compared
+            }
+
+            @Override
+            public void processState(ClassifiedState state, int id) {
+                states.add(state);
+            }
+        };
+        new SequentialStateSpaceExplorer(utilities, new SimpleVanishingExplorer(), processor).generate(
+                utilities.getCurrentState());
+        return states;
+    }
+
+    /**
+     * @return states in which no transition of the net is enabled
+     */
+    private static Set<ClassifiedState> deadlocks(PetriNet petriNet, Set<ClassifiedState> states) {
+        ExplorerUtilities utilities = new UnboundedExplorerUtilities(petriNet);
+        Set<ClassifiedState> deadlocks = new HashSet<>();
+        for (ClassifiedState state : states) {
+            if (utilities.getAllEnabledTransitions(state).isEmpty()) {
+                deadlocks.add(state);
+            }
+        }
+        return deadlocks;
+    }
+
+    private static int tokens(ClassifiedState state, String place) {
+        Integer count = state.getTokens(place).get("Default");
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,149 @@
+package pipe.gui.statespace;
+
+import org.junit.Before;
+import org.junit.Test;
+import pipe.gui.steadystate.GeneratorMatrix;
+import pipe.gui.steadystate.GeneratorMatrixBuilder;
+import pipe.gui.steadystate.ParallelRows;
+import pipe.gui.steadystate.SolverMethod;
+import pipe.gui.steadystate.SolverResult;
+import pipe.gui.steadystate.SolverSettings;
+import pipe.reachability.algorithm.BoundedExplorerUtilities;
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.OnTheFlyVanishingExplorer;
+import pipe.steadystate.metrics.TokenMetrics;
+import pipe.steadystate.metrics.TransitionMetrics;
+import uk.ac.imperial.pipe.dsl.*;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.awt.Color;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SymmetricExplorerUtilitiesTest {
+
+    private static final int SERVERS = 3;
+
+    private static final int JOBS = 2;
+
+    private PetriNet petriNet;
+
+    /**
+     * Three identical servers taking jobs from a shared queue of two, each server a copy of
+     * the same component
+     */
+    @Before
+    public void setUp() {
+        APetriNet net = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("Queue").containing(JOBS, "Default").token());
+        for (int server = 0; server < SERVERS; server++) {
+            net = net.and(APlace.withId("Idle" + server).containing(1, "Default").token()).and(
+                    APlace.withId("Busy" + server)).and(ATimedTransition.withId("Start" + server)).and(
+                    ATimedTransition.withId("Finish" + server)).and(
+                    ANormalArc.withSource("Queue").andTarget("Start" + server).with("1", "Default").token()).and(
+                    ANormalArc.withSource("Idle" + server).andTarget("Start" + server).with("1", "Default")
+                            .token()).and(
+                    ANormalArc.withSource("Start" + server).andTarget("Busy" + server).with("1", "Default")
+                            .token()).and(
+                    ANormalArc.withSource("Busy" + server).andTarget("Finish" + server).with("1", "Default")
+                            .token()).and(
+                    ANormalArc.withSource("Finish" + server).andTarget("Idle" + server).with("1", "Default")
+                            .token());
+            if (server < SERVERS - 1) {
+                net = net.and(ANormalArc.withSource("Finish" + server).andTarget("Queue").with("1", "Default")
+                        .token());
+            }
+        }
+        petriNet = net.andFinally(
+                ANormalArc.withSource("Finish" + (SERVERS - 1)).andTarget("Queue").with("1", "Default").token());
+    }
+
+    @Test
+    public void findsCopiesOfServer() {
+        NetSymmetry symmetry = NetSymmetry.of(petriNet);
+
+        assertFalse(symmetry.isTrivial());
+        assertEquals(1, symmetry.getComponentCount());
+        assertEquals(SERVERS, symmetry.getCopies(0));
+    }
+
+    /**
+     * Without the reduction every set of at most two busy servers is a state, with it only
+     * the number of busy servers is
+     */
+    @Test
+    public void exploresOneStatePerOrbit() throws Exception {
+        Solution full = solve(new BoundedExplorerUtilities(petriNet, 100));
+        Solution reduced = solve(new SymmetricExplorerUtilities(new BoundedExplorerUtilities(petriNet, 100),
+                NetSymmetry.of(petriNet)));
+
+        assertEquals(7, full.stateMappings.size());
+        assertEquals(JOBS + 1, reduced.stateMappings.size());
+    }
+
+    @Test
+    public void averagedMeasuresMatchFullStateSpace() throws Exception {
+        NetSymmetry symmetry = NetSymmetry.of(petriNet);
+        Solution full = solve(new BoundedExplorerUtilities(petriNet, 100));
+        Solution reduced = solve(new SymmetricExplorerUtilities(new BoundedExplorerUtilities(petriNet, 100),
+                symmetry));
+
+        Map<String, Map<String, Double>> expectedTokens =
+                TokenMetrics.averageTokensOnPlace(full.stateMappings, full.steadyState);
+        Map<String, Map<String, Double>> averageTokens = symmetry.averageTokens(
+                TokenMetrics.averageTokensOnPlace(reduced.stateMappings, reduced.steadyState));
+        assertEquals(expectedTokens.keySet(), averageTokens.keySet());
+        for (Map.Entry<String, Map<String, Double>> entry : expectedTokens.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue().get("Default"),
+                    averageTokens.get(entry.getKey()).get("Default"), 1e-6);
+        }
+
+        Map<String, Double> expectedThroughputs =
+                TransitionMetrics.getTransitionThroughput(full.stateMappings, full.steadyState, petriNet);
+        Map<String, Double> throughputs = symmetry.averageThroughputs(
+                TransitionMetrics.getTransitionThroughput(reduced.stateMappings, reduced.steadyState, petriNet));
+        assertEquals(expectedThroughputs.keySet(), throughputs.keySet());
+        for (Map.Entry<String, Double> entry : expectedThroughputs.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue(), throughputs.get(entry.getKey()), 1e-6);
+        }
+    }
+
+    /**
+     * Explores the state space with the utilities and solves its steady state
+     */
+    private static Solution solve(ExplorerUtilities utilities) throws Exception {
+        StateSpaceGenerator generator = StateSpaceGenerator.temporary();
+        try {
+            GeneratorMatrixBuilder builder = new GeneratorMatrixBuilder();
+            generator.generate(utilities, new OnTheFlyVanishingExplorer(utilities), 1, builder);
+            Map<Integer, ClassifiedState> stateMappings = new HashMap<>(generator.readMappings());
+            GeneratorMatrix matrix = builder.build();
+            SolverResult result = new SolverSettings(SolverMethod.GAUSS_SEIDEL, 1).createSolver(
+                    new ParallelRows(null, 1)).solve(matrix, null);
+            assertTrue(result.isConverged());
+            return new Solution(stateMappings, matrix.toDistribution(result.getDistribution()));
+        } finally {
+            generator.close();
+            Files.deleteIfExists(generator.getTransitions());
+            Files.deleteIfExists(generator.getStates());
+        }
+    }
+
+    /**
+     * States of an explored state space and their steady state probabilities
+     */
+    private static final class Solution {
+        private final Map<Integer, ClassifiedState> stateMappings;
+
+        private final Map<Integer, Double> steadyState;
+
+        private Solution(Map<Integer, ClassifiedState> stateMappings, Map<Integer, Double> steadyState) {
+            this.stateMappings = stateMappings;
+            this.steadyState = steadyState;
+        }
+    }
+}
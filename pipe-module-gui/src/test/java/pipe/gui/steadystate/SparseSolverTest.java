@@ -0,0 +1,156 @@
+package pipe.gui.steadystate;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class SparseSolverTest {
+
+    private static final int STATES = 20;
+
+    private static final double BIRTH = 1.0;
+
+    private static final double DEATH = 2.0;
+
+    private GeneratorMatrix matrix;
+
+    private double[] expected;
+
+    /**
+     * Birth death chain on 0..STATES-1, whose steady state is proportional to
+     * (BIRTH / DEATH)^i
+     */
+    @Before
+    public void setUp() {
+        GeneratorMatrixBuilder builder = new GeneratorMatrixBuilder();
+        for (int state = 0; state < STATES; state++) {
+            Map<Integer, Double> rates = new HashMap<>();
+            if (state + 1 < STATES) {
+                rates.put(state + 1, BIRTH);
+            }
+            if (state > 0) {
+                rates.put(state - 1, DEATH);
+            }
+            builder.processTransitions(state, rates);
+        }
+        matrix = builder.build();
+
+        expected = new double[STATES];
+        double total = 0;
+        for (int state = 0; state < STATES; state++) {
+            expected[state] = Math.pow(BIRTH / DEATH, state);
+            total += expected[state];
+        }
+        for (int state = 0; state < STATES; state++) {
+            expected[state] /= total;
+        }
+    }
+
+    @Test
+    public void gaussSeidelSolvesBirthDeathChain() throws InterruptedException {
+        assertSolves(new SolverSettings(SolverMethod.GAUSS_SEIDEL, 1));
+    }
+
+    @Test
+    public void jacobiSolvesBirthDeathChain() throws InterruptedException {
+        assertSolves(new SolverSettings(SolverMethod.JACOBI, 1));
+    }
+
+    @Test
+    public void sorSolvesBirthDeathChain() throws InterruptedException {
+        assertSolves(new SolverSettings(SolverMethod.SOR, SolverSettings.DEFAULT_TOLERANCE,
+                SolverSettings.DEFAULT_MAX_ITERATIONS, 1.2, SolverSettings.DEFAULT_KRYLOV_DIMENSION, 1));
+    }
+
+    @Test
+    public void powerMethodSolvesBirthDeathChain() throws InterruptedException {
+        assertSolves(new SolverSettings(SolverMethod.POWER, 1));
+    }
+
+    @Test
+    public void gmresSolvesBirthDeathChain() throws InterruptedException {
+        assertSolves(new SolverSettings(SolverMethod.GMRES, 1));
+    }
+
+    @Test
+    public void gmresSolvesBirthDeathChainWithRestarts() throws InterruptedException {
+        assertSolves(new SolverSettings(SolverMethod.GMRES, SolverSettings.DEFAULT_TOLERANCE,
+                SolverSettings.DEFAULT_MAX_ITERATIONS, SolverSettings.DEFAULT_RELAXATION, 5, 1));
+    }
+
+    @Test
+    public void everyMethodSolvesBirthDeathChainInParallel() throws InterruptedException {
+        for (SolverMethod method : SolverMethod.values()) {
+            assertSolves(new SolverSettings(method, 2));
+        }
+    }
+
+    @Test
+    public void stopsAtIterationLimitWithoutConverging() throws InterruptedException {
+        SolverSettings settings = new SolverSettings(SolverMethod.JACOBI, 1e-15, 2,
+                SolverSettings.DEFAULT_RELAXATION, SolverSettings.DEFAULT_KRYLOV_DIMENSION, 1);
+        SolverResult result = settings.createSolver(new ParallelRows(null, 1)).solve(matrix, null);
+
+        assertFalse(result.isConverged());
+        assertEquals(2, result.getIterations());
+    }
+
+    /**
+     * Solves the chain and checks the distribution against the closed form and the reported
+     * residual against one computed from the distribution
+     */
+    private void assertSolves(SolverSettings settings) throws InterruptedException {
+        ExecutorService executorService =
+                settings.getThreads() > 1 ? Executors.newFixedThreadPool(settings.getThreads()) : null;
+        try {
+            final int[] iterations = {0};
+            SparseSolver solver = settings.createSolver(new ParallelRows(executorService, settings.getThreads()));
+            SolverResult result = solver.solve(matrix, new ConvergenceListener() {
+                @Override
+                public void iterationCompleted(int iteration, double residual) {
+                    iterations[0] = iteration;
+                }
+            });
+
+            String method = settings.getMethod().toString();
+            assertTrue(method + " did not converge", result.isConverged());
+            assertEquals(method, settings.getMethod(), result.getMethod());
+            assertEquals(method, result.getIterations(), iterations[0]);
+            double[] pi = result.getDistribution();
+            for (int state = 0; state < STATES; state++) {
+                assertEquals(method + " state " + state, expected[state], pi[state], 1e-6);
+            }
+            assertTrue(method, result.getResidual() <= settings.getTolerance());
+            assertEquals(method, residual(pi), result.getResidual(), 1e-12);
+        } finally {
+            if (executorService != null) {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * @return infinity norm of pi Q scaled by the largest exit rate, worked out directly
+     * from the chain
+     */
+    private static double residual(double[] pi) {
+        double max = 0;
+        for (int state = 0; state < STATES; state++) {
+            double flow = -pi[state] * ((state + 1 < STATES ? BIRTH : 0) + (state > 0 ? DEATH : 0));
+            if (state > 0) {
+                flow += pi[state - 1] * BIRTH;
+            }
+            if (state + 1 < STATES) {
+                flow += pi[state + 1] * DEATH;
+            }
+            max = Math.max(max, Math.abs(flow));
+        }
+        return max / (BIRTH + DEATH);
+    }
+}
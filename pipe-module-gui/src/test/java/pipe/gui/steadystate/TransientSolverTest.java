@@ -0,0 +1,105 @@
+package pipe.gui.steadystate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pipe.gui.statespace.StateSpaceGenerator;
+import pipe.reachability.algorithm.BoundedExplorerUtilities;
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.OnTheFlyVanishingExplorer;
+import pipe.reachability.algorithm.VanishingExplorer;
+import uk.ac.imperial.pipe.dsl.*;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.awt.Color;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TransientSolverTest {
+
+    private StateSpaceGenerator generator;
+
+    private Map<Integer, ClassifiedState> stateMappings;
+
+    @Before
+    public void setUp() throws Exception {
+        generator = StateSpaceGenerator.temporary();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        generator.close();
+        Files.deleteIfExists(generator.getTransitions());
+        Files.deleteIfExists(generator.getStates());
+    }
+
+    @Test
+    public void tangibleInitialStateHasAllTheProbability() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(1, "Default").token()).and(APlace.withId("P1")).and(
+                ATimedTransition.withId("T0")).and(ATimedTransition.withId("T1")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P1").andTarget("T1").with("1", "Default").token()).andFinally(
+                ANormalArc.withSource("T1").andTarget("P0").with("1", "Default").token());
+
+        double[] initial = initialDistribution(petriNet);
+
+        for (Map.Entry<Integer, ClassifiedState> entry : stateMappings.entrySet()) {
+            double expected = tokens(entry.getValue(), "P0") == 1 ? 1 : 0;
+            assertEquals(expected, initial[entry.getKey()], 1e-9);
+        }
+    }
+
+    /**
+     * P0 starts marked and is emptied straight away by one of two immediate transitions of
+     * equal weight, so the tangible states they lead to each start with half the probability
+     */
+    @Test
+    public void vanishingInitialStateIsSplitBetweenTangibleSuccessors() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(1, "Default").token()).and(APlace.withId("P1")).and(
+                APlace.withId("P2")).and(AnImmediateTransition.withId("T0")).and(
+                AnImmediateTransition.withId("T1")).and(ATimedTransition.withId("T2")).and(
+                ATimedTransition.withId("T3")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P0").andTarget("T1").with("1", "Default").token()).and(
+                ANormalArc.withSource("T1").andTarget("P2").with("1", "Default").token()).and(
+                ANormalArc.withSource("P1").andTarget("T2").with("1", "Default").token()).and(
+                ANormalArc.withSource("T2").andTarget("P2").with("1", "Default").token()).and(
+                ANormalArc.withSource("P2").andTarget("T3").with("1", "Default").token()).andFinally(
+                ANormalArc.withSource("T3").andTarget("P1").with("1", "Default").token());
+
+        double[] initial = initialDistribution(petriNet);
+
+        assertEquals(2, stateMappings.size());
+        double total = 0;
+        for (Map.Entry<Integer, ClassifiedState> entry : stateMappings.entrySet()) {
+            assertEquals(0, tokens(entry.getValue(), "P0"));
+            assertEquals(0.5, initial[entry.getKey()], 1e-9);
+            total += initial[entry.getKey()];
+        }
+        assertEquals(1, total, 1e-9);
+    }
+
+    /**
+     * Explores the net, keeping its state mappings, and works out its initial distribution
+     */
+    private double[] initialDistribution(PetriNet petriNet) throws Exception {
+        ExplorerUtilities utilities = new BoundedExplorerUtilities(petriNet, 100);
+        VanishingExplorer vanishingExplorer = new OnTheFlyVanishingExplorer(utilities);
+        GeneratorMatrixBuilder builder = new GeneratorMatrixBuilder();
+        generator.generate(utilities, vanishingExplorer, 1, builder);
+        stateMappings = generator.readMappings();
+        return TransientSolver.initialDistribution(builder.build(), stateMappings, utilities, vanishingExplorer);
+    }
+
+    private static int tokens(ClassifiedState state, String place) {
+        Integer count = state.getTokens(place).get("Default");
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,92 @@
+package pipe.gui.symbolic;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.*;
+
+public class MddForestTest {
+
+    private MddForest forest;
+
+    @Before
+    public void setUp() {
+        forest = new MddForest(1000);
+    }
+
+    @Test
+    public void sameChildrenGiveSameNode() {
+        int node = forest.node(1, new int[]{MddForest.TERMINAL, MddForest.EMPTY, MddForest.TERMINAL});
+
+        assertEquals(node, forest.node(1, new int[]{MddForest.TERMINAL, MddForest.EMPTY, MddForest.TERMINAL}));
+        assertEquals(node, forest.node(1, new int[]{MddForest.TERMINAL, MddForest.EMPTY, MddForest.TERMINAL,
+                MddForest.EMPTY}));
+        assertEquals(3, forest.width(node));
+        assertEquals(1, forest.level(node));
+    }
+
+    @Test
+    public void noChildrenGiveEmptySet() {
+        assertEquals(MddForest.EMPTY, forest.node(2, new int[]{MddForest.EMPTY, MddForest.EMPTY}));
+    }
+
+    @Test
+    public void countsTuples() {
+        assertEquals(BigInteger.valueOf(3), forest.count(set(new int[]{0, 0}, new int[]{1, 0}, new int[]{2, 1})));
+        assertEquals(BigInteger.ZERO, forest.count(MddForest.EMPTY));
+    }
+
+    @Test
+    public void unionHoldsTuplesOfBoth() {
+        int a = set(new int[]{0, 0}, new int[]{1, 0}, new int[]{2, 1});
+        int b = set(new int[]{1, 0}, new int[]{3, 3});
+
+        int union = forest.union(a, b);
+
+        assertEquals(set(new int[]{0, 0}, new int[]{1, 0}, new int[]{2, 1}, new int[]{3, 3}), union);
+        assertEquals(union, forest.union(b, a));
+        assertEquals(a, forest.union(a, MddForest.EMPTY));
+    }
+
+    @Test
+    public void differenceRemovesTuplesOfSecond() {
+        int a = set(new int[]{0, 0}, new int[]{1, 0}, new int[]{2, 1});
+        int b = set(new int[]{1, 0}, new int[]{3, 3});
+
+        assertEquals(set(new int[]{0, 0}, new int[]{2, 1}), forest.difference(a, b));
+        assertEquals(MddForest.EMPTY, forest.difference(a, a));
+        assertEquals(b, forest.difference(b, MddForest.EMPTY));
+    }
+
+    @Test
+    public void countsReachableNodes() {
+        int a = set(new int[]{0, 0}, new int[]{1, 0}, new int[]{2, 1});
+
+        assertEquals(4, forest.reachableNodes(a));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwsWhenFull() {
+        MddForest small = new MddForest(3);
+        small.node(1, new int[]{MddForest.TERMINAL});
+        small.node(1, new int[]{MddForest.EMPTY, MddForest.TERMINAL});
+    }
+
+    /**
+     * @param tuples values of the level 1 and level 2 variables
+     * @return root of the set of the tuples
+     */
+    private int set(int[]... tuples) {
+        int root = MddForest.EMPTY;
+        for (int[] tuple : tuples) {
+            int[] low = new int[tuple[0] + 1];
+            low[tuple[0]] = MddForest.TERMINAL;
+            int[] high = new int[tuple[1] + 1];
+            high[tuple[1]] = forest.node(1, low);
+            root = forest.union(root, forest.node(2, high));
+        }
+        return root;
+    }
+}
@@ -0,0 +1,197 @@
+package pipe.gui.symbolic;
+
+import org.junit.Test;
+import pipe.reachability.algorithm.ExplorerUtilities;
+import pipe.reachability.algorithm.SimpleVanishingExplorer;
+import pipe.reachability.algorithm.UnboundedExplorerUtilities;
+import pipe.reachability.algorithm.sequential.SequentialStateSpaceExplorer;
+import uk.ac.imperial.io.StateProcessor;
+import uk.ac.imperial.pipe.dsl.*;
+import uk.ac.imperial.pipe.models.petrinet.PetriNet;
+import uk.ac.imperial.pipe.models.petrinet.Place;
+import uk.ac.imperial.state.ClassifiedState;
+
+import java.awt.Color;
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class SymbolicExplorerTest {
+
+    /**
+     * Two independent cycles of timed transitions, explored by saturation
+     */
+    @Test
+    public void matchesExplicitExplorationOfIndependentCycles() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(1, "Default").token()).and(APlace.withId("P1")).and(
+                APlace.withId("P2").containing(1, "Default").token()).and(APlace.withId("P3")).and(
+                ATimedTransition.withId("T0")).and(ATimedTransition.withId("T1")).and(
+                ATimedTransition.withId("T2")).and(ATimedTransition.withId("T3")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P1").andTarget("T1").with("1", "Default").token()).and(
+                ANormalArc.withSource("T1").andTarget("P0").with("1", "Default").token()).and(
+                ANormalArc.withSource("P2").andTarget("T2").with("1", "Default").token()).and(
+                ANormalArc.withSource("T2").andTarget("P3").with("1", "Default").token()).and(
+                ANormalArc.withSource("P3").andTarget("T3").with("1", "Default").token()).andFinally(
+                ANormalArc.withSource("T3").andTarget("P2").with("1", "Default").token());
+
+        SymbolicStateSpace stateSpace = assertMatchesExplicit(petriNet);
+
+        assertTrue(stateSpace.isSaturation());
+        assertEquals(BigInteger.valueOf(4), stateSpace.getStates());
+        assertFalse(stateSpace.hasDeadlock());
+    }
+
+    /**
+     * The order two timed transitions fire in decides through an inhibitor arc which of two
+     * dead markings is reached
+     */
+    @Test
+    public void matchesExplicitExplorationWithInhibitorArc() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(1, "Default").token()).and(APlace.withId("P1")).and(
+                APlace.withId("P2").containing(1, "Default").token()).and(APlace.withId("P3")).and(
+                ATimedTransition.withId("T0")).and(ATimedTransition.withId("T1")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P2").andTarget("T1").with("1", "Default").token()).and(
+                ANormalArc.withSource("T1").andTarget("P3").with("1", "Default").token()).andFinally(
+                AnInhibitorArc.withSource("P1").andTarget("T1"));
+
+        SymbolicStateSpace stateSpace = assertMatchesExplicit(petriNet);
+
+        assertEquals(BigInteger.valueOf(2), stateSpace.getDeadlocks());
+    }
+
+    /**
+     * An immediate choice from a vanishing initial marking into a cycle of timed transitions,
+     * explored by chaining since immediate transitions outrank timed ones
+     */
+    @Test
+    public void matchesExplicitExplorationWithVanishingMarking() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(1, "Default").token()).and(APlace.withId("P1")).and(
+                APlace.withId("P2")).and(AnImmediateTransition.withId("T0")).and(
+                AnImmediateTransition.withId("T1")).and(ATimedTransition.withId("T2")).and(
+                ATimedTransition.withId("T3")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P0").andTarget("T1").with("1", "Default").token()).and(
+                ANormalArc.withSource("T1").andTarget("P2").with("1", "Default").token()).and(
+                ANormalArc.withSource("P1").andTarget("T2").with("1", "Default").token()).and(
+                ANormalArc.withSource("T2").andTarget("P2").with("1", "Default").token()).and(
+                ANormalArc.withSource("P2").andTarget("T3").with("1", "Default").token()).andFinally(
+                ANormalArc.withSource("T3").andTarget("P1").with("1", "Default").token());
+
+        SymbolicStateSpace stateSpace = assertMatchesExplicit(petriNet);
+
+        assertFalse(stateSpace.isSaturation());
+        assertEquals(BigInteger.valueOf(3), stateSpace.getStates());
+        assertEquals(BigInteger.valueOf(2), stateSpace.getTangibleStates());
+    }
+
+    /**
+     * Tokens move down a line of places until the last one, with an immediate transition
+     * in the middle of the line
+     */
+    @Test
+    public void matchesExplicitExplorationEndingInDeadlock() throws Exception {
+        PetriNet petriNet = APetriNet.with(AToken.called("Default").withColor(Color.BLACK)).and(
+                APlace.withId("P0").containing(2, "Default").token()).and(APlace.withId("P1")).and(
+                APlace.withId("P2")).and(ATimedTransition.withId("T0")).and(
+                AnImmediateTransition.withId("T1")).and(
+                ANormalArc.withSource("P0").andTarget("T0").with("1", "Default").token()).and(
+                ANormalArc.withSource("T0").andTarget("P1").with("1", "Default").token()).and(
+                ANormalArc.withSource("P1").andTarget("T1").with("1", "Default").token()).andFinally(
+                ANormalArc.withSource("T1").andTarget("P2").with("1", "Default").token());
+
+        SymbolicStateSpace stateSpace = assertMatchesExplicit(petriNet);
+
+        assertTrue(stateSpace.hasDeadlock());
+        assertEquals(2, (int) stateSpace.getDeadlock().get("P2").get("Default"));
+    }
+
+    /**
+     * Explores the net symbolically and explicitly and checks the numbers of states, tangible
+     * states and dead states agree and that the dead marking found is reachable
+     *
+     * @return symbolic state space
+     */
+    private static SymbolicStateSpace assertMatchesExplicit(PetriNet petriNet) throws Exception {
+        SymbolicStateSpace stateSpace = new SymbolicExplorer(petriNet, SymbolicExplorer.DEFAULT_MAX_NODES).explore();
+
+        ExplorerUtilities utilities = new UnboundedExplorerUtilities(petriNet);
+        Set<ClassifiedState> states = explore(utilities);
+        int tangible = 0;
+        Set<ClassifiedState> deadlocks = new HashSet<>();
+        for (ClassifiedState state : states) {
+            if (state.isTangible()) {
+                tangible++;
+            }
+            if (utilities.getAllEnabledTransitions(state).isEmpty()) {
+                deadlocks.add(state);
+            }
+        }
+
+        assertEquals(BigInteger.valueOf(states.size()), stateSpace.getStates());
+        assertEquals(BigInteger.valueOf(tangible), stateSpace.getTangibleStates());
+        assertEquals(BigInteger.valueOf(deadlocks.size()), stateSpace.getDeadlocks());
+        assertEquals(!deadlocks.isEmpty(), stateSpace.hasDeadlock());
+        if (stateSpace.hasDeadlock()) {
+            assertTrue(containsMarking(petriNet, deadlocks, stateSpace.getDeadlock()));
+        }
+        return stateSpace;
+    }
+
+    /**
+     * @return every state the sequential explorer reaches with the utilities
+     */
+    private static Set<ClassifiedState> explore(ExplorerUtilities utilities) throws Exception {
+        final Set<ClassifiedState> states = new HashSet<>();
+        StateProcessor processor = new StateProcessor() {
+            @Override
+            public void processTransitions(int state, Map<Integer, Double> successorRates) {
+                // Only the states are compared
+            }
+
+            @Override
+            public void processState(ClassifiedState state, int id) {
+                states.add(state);
+            }
+        };
+        new SequentialStateSpaceExplorer(utilities, new SimpleVanishingExplorer(), processor).generate(
+                utilities.getCurrentState());
+        return states;
+    }
+
+    /**
+     * @return true if one of the states has the token counts of the marking
+     */
+    private static boolean containsMarking(PetriNet petriNet, Set<ClassifiedState> states,
+                                           Map<String, Map<String, Integer>> marking) {
+        for (ClassifiedState state : states) {
+            boolean same = true;
+            for (Place place : petriNet.getPlaces()) {
+                Map<String, Integer> tokens = marking.get(place.getId());
+                same &= count(state.getTokens(place.getId())) == count(tokens);
+            }
+            if (same) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return number of default tokens, 0 if there are none
+     */
+    private static int count(Map<String, Integer> tokens) {
+        Integer count = tokens == null ? null : tokens.get("Default");
+        return count == null ? 0 : count;
+    }
+}